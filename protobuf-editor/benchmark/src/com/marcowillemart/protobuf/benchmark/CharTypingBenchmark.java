@@ -0,0 +1,76 @@
+package com.marcowillemart.protobuf.benchmark;
+
+import com.marcowillemart.common.lang.CharTyping;
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.protobuf.ProtobufDocument;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the CharTyping class, i.e., of the completion of the chars
+ * typed at random offsets of a document lexed beforehand, and of a whole
+ * keystroke as the typing hooks used to handle it, lexing included.
+ *
+ * @author mwi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharTypingBenchmark {
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUp(Corpus corpus) {
+        document = new ProtobufDocument(corpus.text);
+    }
+
+    @Benchmark
+    public String completeOpeningChar(Corpus corpus) {
+        CharTyping typing = new CharTyping(
+                document, corpus.nextOffset(), '{');
+        typing.completeOpeningChar();
+
+        return typing.insertionText();
+    }
+
+    @Benchmark
+    public String skipClosingChar(Corpus corpus) {
+        CharTyping typing = new CharTyping(
+                document, corpus.nextOffset(), '}');
+        typing.skipClosingChar();
+
+        return typing.insertionText();
+    }
+
+    @Benchmark
+    public String completeQuote(Corpus corpus) {
+        CharTyping typing = new CharTyping(
+                document, corpus.nextOffset(), '"');
+        typing.completeQuote();
+
+        return typing.insertionText();
+    }
+
+    @Benchmark
+    public String keystrokeWithLexing(Corpus corpus) {
+        CharTyping typing = new CharTyping(
+                new ProtobufDocument(corpus.text), corpus.nextOffset(), '(');
+        typing.completeOpeningChar();
+
+        return typing.insertionText();
+    }
+}
@@ -0,0 +1,67 @@
+package com.marcowillemart.protobuf.benchmark;
+
+import com.marcowillemart.protobuf.corpus.ProtoCorpus;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Corpus represents the Protobuf file the benchmarks run on, generated by a
+ * ProtoCorpus from a fixed seed with the number of chars given by the size
+ * parameter, valid or broken as told by the broken parameter, together with
+ * offsets drawn at random in it.
+ *
+ * The sizes sweep from 1 KB to 50 MB; a narrower sweep may be run with, e.g.,
+ * "-p size=1024,65536".
+ *
+ * @author mwi
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    private static final long SEED = 42;
+    private static final int OFFSETS = 1024;
+
+    @Param({"1024", "65536", "1048576", "52428800"})
+    public int size;
+
+    @Param({"false"})
+    public boolean broken;
+
+    public String text;
+    public int[] offsets;
+
+    private int next;
+
+    /**
+     * @modifies this
+     * @effects Generates the text of this and its offsets.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProtoCorpus corpus = new ProtoCorpus(SEED);
+        Random random = new Random(SEED);
+
+        text = broken ? corpus.broken(size) : corpus.valid(size);
+        offsets = new int[OFFSETS];
+
+        for (int i = 0; i < OFFSETS; i++) {
+            offsets[i] = random.nextInt(text.length() + 1);
+        }
+
+        next = 0;
+    }
+
+    /**
+     * @modifies this
+     * @return the next of the offsets of this, cycling through them
+     */
+    public int nextOffset() {
+        next = (next + 1) % OFFSETS;
+
+        return offsets[next];
+    }
+}
@@ -0,0 +1,66 @@
+package com.marcowillemart.protobuf.benchmark;
+
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.common.lang.Line;
+import com.marcowillemart.protobuf.ProtobufDocument;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the ProtobufDocument class: its construction, which lexes
+ * the whole text, and its queries at random offsets, which look up the token
+ * at the offset.
+ *
+ * @author mwi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentBenchmark {
+
+    private Document document;
+
+    @Setup(Level.Trial)
+    public void setUp(Corpus corpus) {
+        document = new ProtobufDocument(corpus.text);
+    }
+
+    @Benchmark
+    public Document construction(Corpus corpus) {
+        return new ProtobufDocument(corpus.text);
+    }
+
+    @Benchmark
+    public boolean isInString(Corpus corpus) {
+        return document.isInString(corpus.nextOffset());
+    }
+
+    @Benchmark
+    public boolean isInComment(Corpus corpus) {
+        return document.isInComment(corpus.nextOffset());
+    }
+
+    @Benchmark
+    public Line lineAt(Corpus corpus) {
+        return document.lineAt(corpus.nextOffset());
+    }
+
+    @Benchmark
+    public boolean shouldCloseBlockComment(Corpus corpus) {
+        return document.shouldCloseBlockComment(
+                Math.max(1, corpus.nextOffset()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.marcowillemart.protobuf.benchmark;
+
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the lexing of a whole document, by the ANTLR lexer alone and
+ * by the editor lexer, i.e., ProtobufEditorLexer driven by the NetBeans lexer
+ * infrastructure over the text.
+ *
+ * @author mwi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Benchmark
+    public int antlrLexer(Corpus corpus) {
+        ProtobufLexer lexer =
+                new ProtobufLexer(new ANTLRInputStream(corpus.text));
+        int count = 0;
+
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int editorLexer(Corpus corpus) {
+        TokenSequence<ProtobufTokenId> sequence =
+                TokenHierarchy.create(
+                        corpus.text,
+                        ProtobufLanguageHierarchy.instance())
+                        .tokenSequence(ProtobufLanguageHierarchy.instance());
+        int count = 0;
+
+        while (sequence.moveNext()) {
+            count++;
+        }
+
+        return count;
+    }
+}
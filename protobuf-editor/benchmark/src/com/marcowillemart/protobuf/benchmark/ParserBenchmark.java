@@ -0,0 +1,31 @@
+package com.marcowillemart.protobuf.benchmark;
+
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the parsing of a whole document into its model, as done by
+ * ProtobufEditorParser.parse for the snapshot of a document.
+ *
+ * @author mwi
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Benchmark
+    public ProtoFile parse(Corpus corpus) {
+        return ProtoFileBuilder.parse(corpus.text);
+    }
+}
@@ -400,7 +400,7 @@ CharValue
     :   HexEscape
     |   OctEscape
     |   CharEscape
-    |   ~['"\0\n\\]
+    |   ~['"\u0000\n\\]
     ;
 
 fragment
@@ -4,7 +4,7 @@ package com.marcowillemart.common.lang;
  * Document represents an immutable text whose tokens have been recognized,
  * usually by a lexer for a given language.
  *
- * @specfield text : String // The text of the document.
+ * @specfield text : CharSequence // The text of the document.
  *
  * @author mwi
  */
@@ -13,7 +13,7 @@ public interface Document {
     /**
      * @return this.text
      */
-    String text();
+    CharSequence text();
 
     /**
      * @requires offset >= 0
@@ -5,35 +5,68 @@ import com.marcowillemart.common.util.Assert;
 /**
  * ParsingError represents an immutable syntax or semantic error.
  *
- * @specfield message : String // The message of the error.
- * @specfield line : int       // The line at which the error occurred.
- * @specfield col : int        // The column at which the error occurred.
+ * @specfield message : String   // The message of the error.
+ * @specfield line : int         // The line at which the error occurred.
+ * @specfield col : int          // The column at which the error occurred.
+ * @specfield startOffset : int  // The offset of the first character of the
+ *                                  erroneous text, or -1 if unknown.
+ * @specfield endOffset : int    // The offset following the last character of
+ *                                  the erroneous text, or -1 if unknown.
  *
  * @invariant message is not empty
  * @invariant line > 0
  * @invariant col > 0
+ * @invariant startOffset = -1 <-> endOffset = -1
+ * @invariant startOffset <= endOffset
  *
  * @author mwi
  */
 public final class ParsingError {
 
+    private static final int UNKNOWN_OFFSET = -1;
+
     private final String message;
     private final int line;
     private final int col;
+    private final int startOffset;
+    private final int endOffset;
 
     /**
      * @requires message != null && message.length > 0 && line > 0 && col > 0
      * @effects Makes this be a new syntax error e with e.message = message,
-     *          e.line = line, e.col = col.
+     *          e.line = line, e.col = col and unknown offsets.
      */
     public ParsingError(String message, int line, int col) {
+        this(message, line, col, UNKNOWN_OFFSET, UNKNOWN_OFFSET);
+    }
+
+    /**
+     * @requires message != null && message.length > 0 && line > 0 &&
+     *           col > 0 && (startOffset = endOffset = -1 ||
+     *           0 <= startOffset <= endOffset)
+     * @effects Makes this be a new syntax error e with e.message = message,
+     *          e.line = line, e.col = col, e.startOffset = startOffset and
+     *          e.endOffset = endOffset.
+     */
+    public ParsingError(
+            String message,
+            int line,
+            int col,
+            int startOffset,
+            int endOffset) {
+
         Assert.notEmpty(message);
         Assert.isTrue(line > 0);
         Assert.isTrue(col > 0);
+        Assert.isTrue(
+                (startOffset == UNKNOWN_OFFSET && endOffset == UNKNOWN_OFFSET)
+                || (0 <= startOffset && startOffset <= endOffset));
 
         this.message = message;
         this.line = line;
         this.col = col;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
     }
 
     /**
@@ -57,6 +90,27 @@ public final class ParsingError {
         return col;
     }
 
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return true iff this.startOffset and this.endOffset are known
+     */
+    public boolean hasOffsets() {
+        return startOffset != UNKNOWN_OFFSET;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -71,7 +125,9 @@ public final class ParsingError {
         ParsingError other = (ParsingError) obj;
         return message.equals(other.message)
                 && line == other.line
-                && col == other.col;
+                && col == other.col
+                && startOffset == other.startOffset
+                && endOffset == other.endOffset;
     }
 
     @Override
@@ -80,6 +136,8 @@ public final class ParsingError {
         hash = 59 * hash + message.hashCode();
         hash = 59 * hash + line;
         hash = 59 * hash + col;
+        hash = 59 * hash + startOffset;
+        hash = 59 * hash + endOffset;
         return hash;
     }
 
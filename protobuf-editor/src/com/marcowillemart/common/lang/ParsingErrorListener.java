@@ -1,8 +1,8 @@
 package com.marcowillemart.common.lang;
 
 import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.RecognitionException;
@@ -15,25 +15,83 @@ import org.slf4j.LoggerFactory;
  * ParsingErrorListener represents a mutable listener for the syntactic and
  * semantic checking performed during the parsing process.
  *
+ * The listener is bounded: at most maxErrors errors are collected, and an error
+ * reported on the same line or for the same token as the previously collected
+ * error is considered a cascading error and is elided. When errors have been
+ * elided, a summary error stating how many of them were elided is appended to
+ * the collected ones.
+ *
  * @specfield errors : List<ParsingError> // The errors collected during
  *                                           the parsing.
+ * @specfield maxErrors : int             // The maximum number of errors
+ *                                           collected, summary excluded.
+ * @specfield elidedCount : int           // The number of errors reported but
+ *                                           not collected.
+ *
+ * @invariant maxErrors > 0
+ * @invariant elidedCount >= 0
+ * @invariant elidedCount = 0 -> errors.size <= maxErrors
+ * @invariant elidedCount > 0 -> errors.size <= maxErrors + 1 &&
+ *                               errors.last is the summary error
  *
  * @author mwi
  */
 public final class ParsingErrorListener extends BaseErrorListener {
 
+    /** The default maximum number of errors collected by a listener. */
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
     private static final Logger LOG =
             LoggerFactory.getLogger(ParsingErrorListener.class);
 
+    private static final String ELIDED_MESSAGE =
+            "%d more error(s) not shown";
+
+    private final int maxErrors;
     private final List<ParsingError> errors;
+    private ParsingError firstElided;
+    private int elidedCount;
+    private int lastLine;
+    private int lastTokenStart;
+
+    /*
+     * Abstraction Function:
+     *   errors = errors + [summary of elidedCount errors located at
+     *                      firstElided] if elidedCount > 0
+     *   maxErrors = maxErrors
+     *   elidedCount = elidedCount
+     *
+     * Representation Invariant:
+     *   maxErrors > 0
+     *   errors != null && errors.size <= maxErrors
+     *   elidedCount >= 0
+     *   elidedCount = 0 <-> firstElided = null
+     */
 
     /**
-     * @effects Makes this be a new parsing error listener l with l.errors = [].
+     * @effects Makes this be a new parsing error listener l with l.errors = []
+     *          and l.maxErrors = DEFAULT_MAX_ERRORS.
      */
     public ParsingErrorListener() {
+        this(DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * @requires maxErrors > 0
+     * @effects Makes this be a new parsing error listener l with l.errors = []
+     *          and l.maxErrors = maxErrors.
+     */
+    public ParsingErrorListener(int maxErrors) {
         super();
 
-        this.errors = new LinkedList<>();
+        Assert.isTrue(maxErrors > 0);
+
+        this.maxErrors = maxErrors;
+        this.errors = new ArrayList<>();
+        this.firstElided = null;
+        this.elidedCount = 0;
+        this.lastLine = -1;
+        this.lastTokenStart = -1;
     }
 
     /**
@@ -42,34 +100,48 @@ public final class ParsingErrorListener extends BaseErrorListener {
      * @modifies this
      * @effects Adds a new syntax error e with e.message = message,
      *          e.line = line and e.col = charPositionInLine + 1 to this.errors.
+     *          If offendingSymbol is a token, e.startOffset and e.endOffset
+     *          delimit that token.
      */
     @Override
     public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
             int line, int charPositionInLine, String message,
             RecognitionException ex) {
 
-        addError(message, line, charPositionInLine);
+        if (offendingSymbol instanceof Token) {
+            addError(message, line, charPositionInLine, (Token) offendingSymbol);
+        } else {
+            addError(message, line, charPositionInLine, null);
+        }
     }
 
     /**
      * @requires message != null && message not empty && token != null
      * @modifies this
      * @effects Adds a new semantic error e with e.message = message,
-     *          e.line = token.line and e.col = token.charPositionInLine + 1 to
-     *          this.errors.
+     *          e.line = token.line, e.col = token.charPositionInLine + 1,
+     *          e.startOffset and e.endOffset delimiting token to this.errors.
      */
     public void semanticError(String message, Token token) {
         Assert.notNull(message);
         Assert.notNull(token);
 
-        addError(message, token.getLine(), token.getCharPositionInLine());
+        addError(message, token.getLine(), token.getCharPositionInLine(), token);
     }
 
     /**
      * @return this.errors
      */
     public List<ParsingError> errors() {
-        return Collections.unmodifiableList(errors);
+        if (elidedCount == 0) {
+            return Collections.unmodifiableList(errors);
+        }
+
+        List<ParsingError> result = new ArrayList<>(errors.size() + 1);
+        result.addAll(errors);
+        result.add(summaryError());
+
+        return Collections.unmodifiableList(result);
     }
 
     /**
@@ -79,6 +151,20 @@ public final class ParsingErrorListener extends BaseErrorListener {
         return !errors.isEmpty();
     }
 
+    /**
+     * @return this.maxErrors
+     */
+    public int maxErrors() {
+        return maxErrors;
+    }
+
+    /**
+     * @return this.elidedCount
+     */
+    public int elidedCount() {
+        return elidedCount;
+    }
+
     ////////////////////
     // HELPER METHODS
     ////////////////////
@@ -88,12 +174,86 @@ public final class ParsingErrorListener extends BaseErrorListener {
      *           charPositionInLine >= 0
      * @modifies this
      * @effects Adds a new parsing error e with e.message = message,
-     *          e.line = line and e.col = charPositionInLine + 1 to this.errors.
+     *          e.line = line and e.col = charPositionInLine + 1 to this.errors,
+     *          unless e cascades from the previously collected error or
+     *          this.maxErrors is reached, in which case e is elided.
+     *          The offsets of e delimit token if token != null and has a valid
+     *          start index, else they are unknown.
      */
-    private void addError(String message, int line, int charPositionInLine) {
+    private void addError(
+            String message,
+            int line,
+            int charPositionInLine,
+            Token token) {
+
+        int tokenStart = token != null ? token.getStartIndex() : -1;
+
+        boolean cascading = line == lastLine
+                || (tokenStart >= 0 && tokenStart == lastTokenStart);
+
+        if (cascading || errors.size() >= maxErrors) {
+            if (elidedCount == 0) {
+                firstElided =
+                        newError(message, line, charPositionInLine, token);
+            }
+            elidedCount++;
+            return;
+        }
+
+        ParsingError error = newError(message, line, charPositionInLine, token);
+
+        errors.add(error);
+        lastLine = line;
+        lastTokenStart = tokenStart;
+
+        LOG.debug("addError - {}", error);
+    }
+
+    /**
+     * @requires elidedCount > 0
+     * @return the error summarizing the elided errors of this
+     */
+    private ParsingError summaryError() {
+        Assert.isTrue(elidedCount > 0);
+
+        String message = String.format(ELIDED_MESSAGE, elidedCount);
+
+        if (firstElided.hasOffsets()) {
+            return new ParsingError(
+                    message,
+                    firstElided.line(),
+                    firstElided.col(),
+                    firstElided.startOffset(),
+                    firstElided.endOffset());
+        }
+
+        return new ParsingError(message, firstElided.line(), firstElided.col());
+    }
+
+    /**
+     * @requires message != null && message not empty && line > 0 &&
+     *           charPositionInLine >= 0
+     * @return a new parsing error e with e.message = message, e.line = line
+     *         and e.col = charPositionInLine + 1, whose offsets delimit token
+     *         if token != null and has a valid start index.
+     */
+    private static ParsingError newError(
+            String message,
+            int line,
+            int charPositionInLine,
+            Token token) {
+
         // Adds 1 because Antlr starts at col 0 instead of col 1
-        errors.add(new ParsingError(message, line, charPositionInLine + 1));
+        if (token != null && token.getStartIndex() >= 0) {
+            int start = token.getStartIndex();
+            // The stop index is inclusive and precedes the start index for
+            // the EOF token
+            int end = Math.max(start, token.getStopIndex() + 1);
+
+            return new ParsingError(
+                    message, line, charPositionInLine + 1, start, end);
+        }
 
-        LOG.debug(errors.get(errors.size() - 1).toString());
+        return new ParsingError(message, line, charPositionInLine + 1);
     }
 }
@@ -251,21 +251,15 @@ public abstract class AntlrDocument implements Document {
      *         the offset of the first character of the line.
      */
     private Pair<String, Integer> lineUpTo(int offset) {
-        StringBuilder builder = new StringBuilder();
-
         int index;
 
         for (index = offset - 1; index >= 0; index--) {
-            char ch = text.charAt(index);
-
-            if (ch == NEWLINE) {
+            if (text.charAt(index) == NEWLINE) {
                 break;
             }
-
-            builder.append(ch);
         }
 
-        return Pair.of(builder.reverse().toString(), index + 1);
+        return Pair.of(text.substring(index + 1, offset), index + 1);
     }
 
     /**
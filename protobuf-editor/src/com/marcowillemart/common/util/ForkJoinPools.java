@@ -0,0 +1,38 @@
+package com.marcowillemart.common.util;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ForkJoinPools is a utility class that holds the fork/join pool shared by
+ * the parallel computations of the module, which Java 7 lacks as a common
+ * pool, so that they do not each run as many workers as there are cores.
+ *
+ * @author mwi
+ */
+public final class ForkJoinPools {
+
+    /** this cannot be instantiated */
+    private ForkJoinPools() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return the fork/join pool shared by the module, with as many workers
+     *         as there are cores
+     */
+    public static ForkJoinPool shared() {
+        return Holder.POOL;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Holder holds the shared pool, created on the first call to shared().
+     */
+    private static final class Holder {
+
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    } // end Holder
+}
@@ -0,0 +1,404 @@
+package com.marcowillemart.protobuf.completion;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * CompletionContext represents the immutable context of a code completion
+ * request in a Protobuf file, derived from the grammar rules enclosing the
+ * caret.
+ *
+ * @specfield kind : Kind              // The grammar context of the caret.
+ * @specfield prefix : String          // The (possibly qualified) name typed
+ *                                        before the caret.
+ * @specfield keywords : List<String>  // The keywords valid at the caret.
+ * @specfield scalarTypes : List<String> // The scalar types valid at the
+ *                                          caret.
+ * @specfield acceptsTypeNames : boolean // True iff message or enum names are
+ *                                          valid at the caret.
+ * @specfield messagesOnly : boolean   // True iff only message names are valid
+ *                                        at the caret.
+ *
+ * @author mwi
+ */
+public final class CompletionContext {
+
+    /**
+     * The grammar context of the caret.
+     */
+    public enum Kind {
+        /** At the start of a top-level statement. */
+        TOP_LEVEL,
+        /** After the import keyword. */
+        IMPORT,
+        /** At the start of a statement of a message body. */
+        MESSAGE,
+        /** At the start of a statement of a oneof body. */
+        ONEOF,
+        /** At the start of a statement of an enum body. */
+        ENUM,
+        /** At the start of a statement of a service body. */
+        SERVICE,
+        /** At the start of a statement of an rpc body. */
+        RPC,
+        /** At the type of a field after a label. */
+        FIELD_TYPE,
+        /** At the key type of a map field. */
+        MAP_KEY_TYPE,
+        /** At the value type of a map field. */
+        MAP_VALUE_TYPE,
+        /** At the input or output type of an rpc. */
+        RPC_TYPE,
+        /** At the input or output type of an rpc after the stream keyword. */
+        RPC_STREAMED_TYPE,
+        /** After the input type of an rpc. */
+        RPC_RETURNS,
+        /** Where nothing can be completed. */
+        NONE
+    }
+
+    private static final List<String> SCALAR_TYPES = Arrays.asList(
+            "double", "float", "int32", "int64", "uint32", "uint64",
+            "sint32", "sint64", "fixed32", "fixed64", "sfixed32", "sfixed64",
+            "bool", "string", "bytes");
+
+    private static final List<String> KEY_TYPES = Arrays.asList(
+            "int32", "int64", "uint32", "uint64", "sint32", "sint64",
+            "fixed32", "fixed64", "sfixed32", "sfixed64", "bool", "string");
+
+    private final Kind kind;
+    private final String prefix;
+
+    /**
+     * @requires kind != null && prefix != null
+     * @effects Makes this be a new context of the given kind and prefix.
+     */
+    CompletionContext(Kind kind, String prefix) {
+        Assert.notNull(kind);
+        Assert.notNull(prefix);
+
+        this.kind = kind;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @requires text != null && 0 <= caret <= text.length()
+     * @return the context of a completion request at caret in text
+     */
+    public static CompletionContext of(CharSequence text, int caret) {
+        Assert.notNull(text);
+        Assert.isTrue(0 <= caret && caret <= text.length());
+
+        String before = text.subSequence(0, caret).toString();
+        String prefix = prefixAt(before, caret);
+
+        List<Token> tokens = new ArrayList<>();
+
+        ProtobufLexer lexer = new ProtobufLexer(
+                new ANTLRInputStream(before.substring(
+                        0, caret - prefix.length())));
+        lexer.removeErrorListeners();
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+                tokens.add(token);
+            } else if (isOpenComment(token, caret - prefix.length())) {
+                return new CompletionContext(Kind.NONE, prefix);
+            }
+        }
+
+        return new CompletionContext(kindOf(tokens), prefix);
+    }
+
+    /**
+     * @requires text != null && 0 <= caret <= text.length()
+     * @return the (possibly qualified) name ending at caret in text
+     */
+    public static String prefixAt(CharSequence text, int caret) {
+        Assert.notNull(text);
+        Assert.isTrue(0 <= caret && caret <= text.length());
+
+        int start = caret;
+
+        while (start > 0 && isNameChar(text.charAt(start - 1))) {
+            start--;
+        }
+
+        return text.subSequence(start, caret).toString();
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.prefix
+     */
+    public String prefix() {
+        return prefix;
+    }
+
+    /**
+     * @return the keywords valid in this context
+     */
+    public List<String> keywords() {
+        switch (kind) {
+            case TOP_LEVEL:
+                return Arrays.asList("syntax", "package", "import", "option",
+                        "message", "enum", "service");
+            case IMPORT:
+                return Arrays.asList("weak", "public");
+            case MESSAGE:
+                return Arrays.asList("message", "enum", "oneof", "map",
+                        "reserved", "option", "repeated");
+            case ENUM:
+                return Arrays.asList("option", "reserved");
+            case ONEOF:
+            case RPC:
+                return Arrays.asList("option");
+            case SERVICE:
+                return Arrays.asList("option", "rpc");
+            case RPC_TYPE:
+                return Arrays.asList("stream");
+            case RPC_RETURNS:
+                return Arrays.asList("returns");
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return the scalar types valid in this context
+     */
+    public List<String> scalarTypes() {
+        switch (kind) {
+            case MESSAGE:
+            case ONEOF:
+            case FIELD_TYPE:
+            case MAP_VALUE_TYPE:
+                return SCALAR_TYPES;
+            case MAP_KEY_TYPE:
+                return KEY_TYPES;
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return true iff message or enum names are valid in this context
+     */
+    public boolean acceptsTypeNames() {
+        switch (kind) {
+            case MESSAGE:
+            case ONEOF:
+            case FIELD_TYPE:
+            case MAP_VALUE_TYPE:
+            case RPC_TYPE:
+            case RPC_STREAMED_TYPE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true iff only message names are valid in this context
+     */
+    public boolean messagesOnly() {
+        return kind == Kind.RPC_TYPE || kind == Kind.RPC_STREAMED_TYPE;
+    }
+
+    @Override
+    public String toString() {
+        return kind + "[" + prefix + "]";
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires tokens != null
+     * @return the kind of the context following tokens, the tokens of the
+     *         default channel that precede the prefix
+     */
+    private static Kind kindOf(List<Token> tokens) {
+        List<Kind> blocks = new ArrayList<>();
+        int statementStart = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            switch (tokens.get(i).getType()) {
+                case ProtobufLexer.LBRACE:
+                    blocks.add(blockOf(tokens, statementStart, i));
+                    statementStart = i + 1;
+                    break;
+                case ProtobufLexer.RBRACE:
+                    if (!blocks.isEmpty()) {
+                        blocks.remove(blocks.size() - 1);
+                    }
+                    statementStart = i + 1;
+                    break;
+                case ProtobufLexer.SEMI:
+                    statementStart = i + 1;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Kind block = blocks.isEmpty()
+                ? Kind.TOP_LEVEL
+                : blocks.get(blocks.size() - 1);
+
+        List<Token> statement = tokens.subList(statementStart, tokens.size());
+
+        if (statement.isEmpty()) {
+            return block;
+        }
+
+        int first = statement.get(0).getType();
+        int last = statement.get(statement.size() - 1).getType();
+
+        switch (block) {
+            case TOP_LEVEL:
+                return statement.size() == 1 && first == ProtobufLexer.IMPORT
+                        ? Kind.IMPORT
+                        : Kind.NONE;
+            case MESSAGE:
+                if (statement.size() == 1 && first == ProtobufLexer.REPEATED) {
+                    return Kind.FIELD_TYPE;
+                }
+                return first == ProtobufLexer.MAP
+                        ? mapKindOf(statement)
+                        : Kind.NONE;
+            case SERVICE:
+                return first == ProtobufLexer.RPC
+                        ? rpcKindOf(statement, last)
+                        : Kind.NONE;
+            default:
+                return Kind.NONE;
+        }
+    }
+
+    /**
+     * @requires tokens[brace] = '{' && statementStart <= brace
+     * @return the kind of the block opened by the brace of index brace in
+     *         tokens, whose statement starts at statementStart
+     */
+    private static Kind blockOf(
+            List<Token> tokens,
+            int statementStart,
+            int brace) {
+
+        if (brace == statementStart) {
+            return Kind.NONE;
+        }
+
+        switch (tokens.get(statementStart).getType()) {
+            case ProtobufLexer.MESSAGE:
+                return Kind.MESSAGE;
+            case ProtobufLexer.ENUM:
+                return Kind.ENUM;
+            case ProtobufLexer.SERVICE:
+                return Kind.SERVICE;
+            case ProtobufLexer.ONEOF:
+                return Kind.ONEOF;
+            case ProtobufLexer.RPC:
+                return Kind.RPC;
+            default:
+                return Kind.NONE;
+        }
+    }
+
+    /**
+     * @requires statement starts with 'map'
+     * @return the kind of the context following the tokens of statement
+     */
+    private static Kind mapKindOf(List<Token> statement) {
+        if (statement.size() == 2
+                && statement.get(1).getType() == ProtobufLexer.LCHEVR) {
+
+            return Kind.MAP_KEY_TYPE;
+        }
+
+        if (statement.size() == 4
+                && statement.get(3).getType() == ProtobufLexer.COMMA) {
+
+            return Kind.MAP_VALUE_TYPE;
+        }
+
+        return Kind.NONE;
+    }
+
+    /**
+     * @requires statement starts with 'rpc' && last is the type of its last
+     *           token
+     * @return the kind of the context following the tokens of statement
+     */
+    private static Kind rpcKindOf(List<Token> statement, int last) {
+        int parens = 0;
+
+        for (Token token : statement) {
+            if (token.getType() == ProtobufLexer.LPAREN) {
+                parens++;
+            }
+        }
+
+        if (last == ProtobufLexer.LPAREN) {
+            return Kind.RPC_TYPE;
+        }
+
+        if (last == ProtobufLexer.STREAM) {
+            return Kind.RPC_STREAMED_TYPE;
+        }
+
+        if (last == ProtobufLexer.RPAREN && parens == 1) {
+            return Kind.RPC_RETURNS;
+        }
+
+        return Kind.NONE;
+    }
+
+    /**
+     * @requires token != null
+     * @return true iff token is a comment still open at end
+     */
+    private static boolean isOpenComment(Token token, int end) {
+        if (token.getStopIndex() + 1 != end) {
+            return false;
+        }
+
+        if (token.getType() == ProtobufLexer.LINE_COMMENT) {
+            return true;
+        }
+
+        if (token.getType() == ProtobufLexer.BLOCK_COMMENT) {
+            String text = token.getText();
+            return text.length() < 4 || !text.endsWith("*/");
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true iff c may be part of a (possibly qualified) name
+     */
+    private static boolean isNameChar(char c) {
+        return c == '.' || c == '_'
+                || ('a' <= c && c <= 'z')
+                || ('A' <= c && c <= 'Z')
+                || ('0' <= c && c <= '9');
+    }
+}
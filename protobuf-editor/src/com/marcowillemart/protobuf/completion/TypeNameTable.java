@@ -0,0 +1,312 @@
+package com.marcowillemart.protobuf.completion;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * TypeNameTable represents an immutable table of the message and enum types
+ * declared in files of type F, queried by name prefix.
+ *
+ * The types are kept in two arrays sorted by simple name and by full name, so
+ * that a prefix query costs a binary search plus the number of results,
+ * however many types the table contains. The prefix queries are case
+ * insensitive, and may be restricted to the types of some files and bounded
+ * by a number of results, so that a query scanning the types of a large
+ * project stops as soon as enough visible types are found.
+ *
+ * @specfield types : set of (F, IndexedSymbol) // The types of the table.
+ *
+ * @author mwi
+ */
+public final class TypeNameTable<F> implements TypeTable {
+
+    private final String[] simpleKeys;
+    private final Pair<F, IndexedSymbol>[] bySimpleName;
+    private final String[] fullKeys;
+    private final Pair<F, IndexedSymbol>[] byFullName;
+
+    /*
+     * Abstraction Function:
+     *   types = elements of bySimpleName
+     *
+     * Representation Invariant:
+     *   bySimpleName and byFullName are permutations of each other
+     *   simpleKeys[i] = lowercase simple name of bySimpleName[i]
+     *   fullKeys[i] = lowercase full name of byFullName[i]
+     *   simpleKeys and fullKeys are sorted
+     */
+
+    /**
+     * @requires symbols != null && symbols contains no null element
+     * @effects Makes this be a new table of the messages and enums of
+     *          symbols.
+     */
+    public TypeNameTable(List<Pair<F, IndexedSymbol>> symbols) {
+        Assert.noNullElement(symbols);
+
+        List<Pair<F, IndexedSymbol>> types = new ArrayList<>();
+
+        for (Pair<F, IndexedSymbol> symbol : symbols) {
+            Kind kind = symbol.right().kind();
+
+            if (kind == Kind.MESSAGE || kind == Kind.ENUM) {
+                types.add(symbol);
+            }
+        }
+
+        this.bySimpleName = sorted(types, false);
+        this.simpleKeys = keysOf(bySimpleName, false);
+        this.byFullName = sorted(types, true);
+        this.fullKeys = keysOf(byFullName, true);
+    }
+
+    /**
+     * @return the number of types of this
+     */
+    public int size() {
+        return bySimpleName.length;
+    }
+
+    /**
+     * @requires prefix != null
+     * @return the types of this whose simple name starts with prefix, sorted
+     *         by simple name
+     */
+    public List<Pair<F, IndexedSymbol>> withSimpleNamePrefix(String prefix) {
+        Assert.notNull(prefix);
+
+        return withPrefix(
+                simpleKeys, bySimpleName, prefix, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @requires prefix != null && files != null && max >= 0
+     * @return the first max types of this whose simple name starts with
+     *         prefix and whose file is in files, sorted by simple name
+     */
+    public List<Pair<F, IndexedSymbol>> withSimpleNamePrefix(
+            String prefix,
+            Set<? extends F> files,
+            int max) {
+
+        Assert.notNull(prefix);
+        Assert.notNull(files);
+        Assert.isTrue(max >= 0);
+
+        return withPrefix(simpleKeys, bySimpleName, prefix, files, max);
+    }
+
+    /**
+     * @requires prefix != null
+     * @return the types of this whose full name starts with prefix, sorted by
+     *         full name
+     */
+    public List<Pair<F, IndexedSymbol>> withFullNamePrefix(String prefix) {
+        Assert.notNull(prefix);
+
+        return withPrefix(
+                fullKeys, byFullName, prefix, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @requires prefix != null && files != null && max >= 0
+     * @return the first max types of this whose full name starts with prefix
+     *         and whose file is in files, sorted by full name
+     */
+    public List<Pair<F, IndexedSymbol>> withFullNamePrefix(
+            String prefix,
+            Set<? extends F> files,
+            int max) {
+
+        Assert.notNull(prefix);
+        Assert.notNull(files);
+        Assert.isTrue(max >= 0);
+
+        return withPrefix(fullKeys, byFullName, prefix, files, max);
+    }
+
+    /**
+     * @requires fullName != null
+     * @return true iff this contains a type whose full name is exactly
+     *         fullName
+     */
+    @Override
+    public boolean isType(String fullName) {
+        return kindOf(fullName) != null;
+    }
+
+    /**
+     * @requires fullName != null
+     * @return the kind of the type of this whose full name is exactly
+     *         fullName, or null if there is none
+     */
+    public Kind kindOf(String fullName) {
+        Assert.notNull(fullName);
+
+        return kindIn(fullName, null);
+    }
+
+    /**
+     * @requires fullName != null && files != null
+     * @return the kind of the type of this whose full name is exactly
+     *         fullName and whose file is in files, or null if there is none
+     */
+    public Kind kindOf(String fullName, Set<? extends F> files) {
+        Assert.notNull(fullName);
+        Assert.notNull(files);
+
+        return kindIn(fullName, files);
+    }
+
+    /**
+     * @requires fullName != null
+     * @return the simple name of the type whose full name is fullName
+     */
+    public static String simpleNameOf(String fullName) {
+        Assert.notNull(fullName);
+
+        return fullName.substring(fullName.lastIndexOf('.') + 1);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires fullName != null
+     * @return the kind of the type of this whose full name is exactly
+     *         fullName and, unless files is null, whose file is in files, or
+     *         null if there is none
+     */
+    private Kind kindIn(String fullName, Set<? extends F> files) {
+        String key = fullName.toLowerCase(Locale.ENGLISH);
+        int index = Arrays.binarySearch(fullKeys, key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        while (index > 0 && fullKeys[index - 1].equals(key)) {
+            index--;
+        }
+
+        for (int i = index;
+                i < fullKeys.length && fullKeys[i].equals(key);
+                i++) {
+
+            IndexedSymbol symbol = byFullName[i].right();
+
+            if (symbol.fullName().equals(fullName)
+                    && (files == null
+                            || files.contains(byFullName[i].left()))) {
+
+                return symbol.kind();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the first max types of entries whose key starts with prefix
+     *         and, unless files is null, whose file is in files
+     */
+    private static <F> List<Pair<F, IndexedSymbol>> withPrefix(
+            String[] keys,
+            Pair<F, IndexedSymbol>[] entries,
+            String prefix,
+            Set<? extends F> files,
+            int max) {
+
+        String key = prefix.toLowerCase(Locale.ENGLISH);
+        int index = Arrays.binarySearch(keys, key);
+
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            while (index > 0 && keys[index - 1].equals(key)) {
+                index--;
+            }
+        }
+
+        List<Pair<F, IndexedSymbol>> result = new ArrayList<>();
+
+        for (int i = index;
+                i < keys.length
+                        && result.size() < max
+                        && keys[i].startsWith(key);
+                i++) {
+
+            if (files == null || files.contains(entries[i].left())) {
+                result.add(entries[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the types sorted by lowercase full name if full, else by
+     *         lowercase simple name, ties being broken by full name
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <F> Pair<F, IndexedSymbol>[] sorted(
+            List<Pair<F, IndexedSymbol>> types,
+            final boolean full) {
+
+        Pair<F, IndexedSymbol>[] result = types.toArray(new Pair[types.size()]);
+
+        Arrays.sort(result, new Comparator<Pair<F, IndexedSymbol>>() {
+
+            @Override
+            public int compare(
+                    Pair<F, IndexedSymbol> a,
+                    Pair<F, IndexedSymbol> b) {
+
+                int order = keyOf(a, full).compareTo(keyOf(b, full));
+
+                return order != 0
+                        ? order
+                        : a.right().fullName().compareTo(b.right().fullName());
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @return the keys of the given entries
+     */
+    private static <F> String[] keysOf(
+            Pair<F, IndexedSymbol>[] entries,
+            boolean full) {
+
+        String[] keys = new String[entries.length];
+
+        for (int i = 0; i < entries.length; i++) {
+            keys[i] = keyOf(entries[i], full);
+        }
+
+        return keys;
+    }
+
+    /**
+     * @return the lowercase full name of entry if full, else its lowercase
+     *         simple name
+     */
+    private static <F> String keyOf(Pair<F, IndexedSymbol> entry, boolean full) {
+        String fullName = entry.right().fullName();
+        String name = full ? fullName : simpleNameOf(fullName);
+
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+}
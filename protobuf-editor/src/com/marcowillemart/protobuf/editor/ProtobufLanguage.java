@@ -1,9 +1,19 @@
 package com.marcowillemart.protobuf.editor;
 
+import com.marcowillemart.protobuf.editor.completion.ProtobufCompletionHandler;
+import com.marcowillemart.protobuf.editor.highlighting.ProtobufSemanticAnalyzer;
 import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
 import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.editor.navigation.ProtobufDeclarationFinder;
+import com.marcowillemart.protobuf.editor.navigation.ProtobufOccurrencesFinder;
+import com.marcowillemart.protobuf.editor.navigation.ProtobufStructureScanner;
 import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser;
 import org.netbeans.api.lexer.Language;
+import org.netbeans.modules.csl.api.CodeCompletionHandler;
+import org.netbeans.modules.csl.api.DeclarationFinder;
+import org.netbeans.modules.csl.api.OccurrencesFinder;
+import org.netbeans.modules.csl.api.SemanticAnalyzer;
+import org.netbeans.modules.csl.api.StructureScanner;
 import org.netbeans.modules.csl.spi.DefaultLanguageConfig;
 import org.netbeans.modules.csl.spi.LanguageRegistration;
 import org.netbeans.modules.parsing.spi.Parser;
@@ -30,4 +40,39 @@ public class ProtobufLanguage extends DefaultLanguageConfig {
     public Parser getParser() {
         return new ProtobufEditorParser();
     }
+
+    @Override
+    public DeclarationFinder getDeclarationFinder() {
+        return new ProtobufDeclarationFinder();
+    }
+
+    @Override
+    public CodeCompletionHandler getCompletionHandler() {
+        return new ProtobufCompletionHandler();
+    }
+
+    @Override
+    public boolean hasOccurrencesFinder() {
+        return true;
+    }
+
+    @Override
+    public OccurrencesFinder getOccurrencesFinder() {
+        return new ProtobufOccurrencesFinder();
+    }
+
+    @Override
+    public SemanticAnalyzer getSemanticAnalyzer() {
+        return new ProtobufSemanticAnalyzer();
+    }
+
+    @Override
+    public boolean hasStructureScanner() {
+        return true;
+    }
+
+    @Override
+    public StructureScanner getStructureScanner() {
+        return new ProtobufStructureScanner();
+    }
 }
@@ -0,0 +1,353 @@
+package com.marcowillemart.protobuf.editor.completion;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.completion.CompletionContext;
+import com.marcowillemart.protobuf.completion.TypeNameTable;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import org.netbeans.modules.csl.api.CodeCompletionContext;
+import org.netbeans.modules.csl.api.CodeCompletionHandler;
+import org.netbeans.modules.csl.api.CodeCompletionResult;
+import org.netbeans.modules.csl.api.CompletionProposal;
+import org.netbeans.modules.csl.api.ElementHandle;
+import org.netbeans.modules.csl.api.ElementKind;
+import org.netbeans.modules.csl.api.ParameterInfo;
+import org.netbeans.modules.csl.spi.DefaultCompletionResult;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufCompletionHandler represents the code completion of the Protobuf
+ * language.
+ *
+ * The keywords and scalar types proposed are those valid in the grammar
+ * context of the caret. The message and enum names proposed are those of the
+ * edited file and of the files it imports, directly or publicly. The latter
+ * are searched by prefix in a table built from the persistent index.
+ *
+ * @author mwi
+ */
+public final class ProtobufCompletionHandler implements CodeCompletionHandler {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufCompletionHandler.class);
+
+    /** The maximum number of type names proposed. */
+    private static final int MAX_TYPES = 500;
+
+    private static final int KEYWORD_PRIORITY = 10;
+    private static final int SCALAR_PRIORITY = 20;
+    private static final int LOCAL_TYPE_PRIORITY = 30;
+    private static final int IMPORTED_TYPE_PRIORITY = 40;
+
+    private static final char DOT = '.';
+
+    @Override
+    public CodeCompletionResult complete(CodeCompletionContext context) {
+        ParserResult info = context.getParserResult();
+
+        if (!(info instanceof ProtobufEditorParserResult)) {
+            return CodeCompletionResult.NONE;
+        }
+
+        long start = System.nanoTime();
+
+        ProtobufEditorParserResult result = (ProtobufEditorParserResult) info;
+        Snapshot snapshot = result.getSnapshot();
+
+        CompletionContext completion = CompletionContext.of(
+                snapshot.getText(),
+                snapshot.getEmbeddedOffset(context.getCaretOffset()));
+
+        String prefix = completion.prefix();
+        int anchor = context.getCaretOffset() - prefix.length();
+        boolean caseSensitive = context.isCaseSensitive();
+
+        List<CompletionProposal> proposals = new ArrayList<>();
+
+        for (String keyword : completion.keywords()) {
+            if (startsWith(keyword, prefix, caseSensitive)) {
+                proposals.add(new ProtobufCompletionProposal(
+                        keyword, keyword, ElementKind.KEYWORD, "",
+                        anchor, KEYWORD_PRIORITY));
+            }
+        }
+
+        for (String scalar : completion.scalarTypes()) {
+            if (startsWith(scalar, prefix, caseSensitive)) {
+                proposals.add(new ProtobufCompletionProposal(
+                        scalar, scalar, ElementKind.KEYWORD, "",
+                        anchor, SCALAR_PRIORITY));
+            }
+        }
+
+        boolean truncated = false;
+
+        if (completion.acceptsTypeNames()) {
+            truncated = addTypes(
+                    proposals, result, completion, anchor, caseSensitive);
+        }
+
+        LOG.debug("complete - {} proposals for {} in {} ms",
+                proposals.size(),
+                completion,
+                (System.nanoTime() - start) / 1_000_000);
+
+        return new DefaultCompletionResult(proposals, truncated);
+    }
+
+    @Override
+    public String document(ParserResult info, ElementHandle element) {
+        return null;
+    }
+
+    @Override
+    public ElementHandle resolveLink(String link, ElementHandle originalHandle) {
+        return null;
+    }
+
+    @Override
+    public String getPrefix(
+            ParserResult info,
+            int caretOffset,
+            boolean upToOffset) {
+
+        CharSequence text = info.getSnapshot().getText();
+        int offset = info.getSnapshot().getEmbeddedOffset(caretOffset);
+
+        if (offset < 0 || offset > text.length()) {
+            return null;
+        }
+
+        String prefix = CompletionContext.prefixAt(text, offset);
+
+        if (upToOffset) {
+            return prefix;
+        }
+
+        int end = offset;
+
+        while (end < text.length()
+                && Character.isJavaIdentifierPart(text.charAt(end))) {
+            end++;
+        }
+
+        return prefix + text.subSequence(offset, end);
+    }
+
+    @Override
+    public QueryType getAutoQuery(JTextComponent component, String typedText) {
+        return typedText.length() > 0
+                && typedText.charAt(typedText.length() - 1) == DOT
+                ? QueryType.COMPLETION
+                : QueryType.NONE;
+    }
+
+    @Override
+    public String resolveTemplateVariable(
+            String variable,
+            ParserResult info,
+            int caretOffset,
+            String name,
+            Map parameters) {
+
+        return null;
+    }
+
+    @Override
+    public Set<String> getApplicableTemplates(
+            Document doc,
+            int selectionBegin,
+            int selectionEnd) {
+
+        return Collections.emptySet();
+    }
+
+    @Override
+    public ParameterInfo parameters(
+            ParserResult info,
+            int caretOffset,
+            CompletionProposal proposal) {
+
+        return ParameterInfo.NONE;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies proposals
+     * @effects Adds to proposals the message and enum names visible from the
+     *          file of result that match the prefix of completion.
+     * @return true iff some matching names were not added
+     */
+    private static boolean addTypes(
+            List<CompletionProposal> proposals,
+            ProtobufEditorParserResult result,
+            CompletionContext completion,
+            int anchor,
+            boolean caseSensitive) {
+
+        ProtoFile model = result.protoFile();
+        FileObject file = result.getSnapshot().getSource().getFileObject();
+        String prefix = completion.prefix();
+        String packageName = model.packageName();
+
+        List<Pair<FileObject, IndexedSymbol>> candidates = new ArrayList<>();
+        boolean truncated = false;
+
+        for (IndexedSymbol symbol : IndexedSymbol.of(model)) {
+            if (symbol.kind() == Kind.MESSAGE || symbol.kind() == Kind.ENUM) {
+                candidates.add(new Pair<>(file, symbol));
+            }
+        }
+
+        if (file != null) {
+            Set<FileObject> visible = new HashSet<>(ProtobufImports.resolver()
+                    .closure(file, model.imports()).visibleFiles());
+            TypeNameTable<FileObject> table = ProtobufTypeNames.tableFor(file);
+
+            truncated = addMatchingTypes(
+                    candidates, table, prefix, packageName, visible);
+        }
+
+        int count = 0;
+
+        for (Pair<FileObject, IndexedSymbol> candidate : candidates) {
+            IndexedSymbol symbol = candidate.right();
+
+            if (completion.messagesOnly() && symbol.kind() != Kind.MESSAGE) {
+                continue;
+            }
+
+            String insert = insertTextOf(symbol.fullName(), prefix, packageName);
+
+            if (!startsWith(insert, prefix, caseSensitive)
+                    && !startsWith(TypeNameTable.simpleNameOf(insert),
+                            prefix, caseSensitive)) {
+                continue;
+            }
+
+            if (count == MAX_TYPES) {
+                return true;
+            }
+
+            boolean local = candidate.left() == file;
+
+            proposals.add(new ProtobufCompletionProposal(
+                    prefix.indexOf(DOT) < 0
+                            ? TypeNameTable.simpleNameOf(insert)
+                            : insert,
+                    insert,
+                    ElementKind.CLASS,
+                    symbol.kind() == Kind.ENUM
+                            ? "enum " + symbol.fullName()
+                            : symbol.fullName(),
+                    anchor,
+                    local ? LOCAL_TYPE_PRIORITY : IMPORTED_TYPE_PRIORITY));
+            count++;
+        }
+
+        return truncated;
+    }
+
+    /**
+     * @requires candidates != null && table != null && prefix != null
+     *           && packageName != null && visible != null
+     * @modifies candidates
+     * @effects Adds to candidates the first types of table declared in
+     *          visible whose name written as prefix may start with prefix in
+     *          the package packageName, at most MAX_TYPES + 1 per query of
+     *          table.
+     * @return true iff some of those types may not have been added
+     */
+    private static boolean addMatchingTypes(
+            List<Pair<FileObject, IndexedSymbol>> candidates,
+            TypeNameTable<FileObject> table,
+            String prefix,
+            String packageName,
+            Set<FileObject> visible) {
+
+        int max = MAX_TYPES + 1;
+        List<List<Pair<FileObject, IndexedSymbol>>> queries =
+                new ArrayList<>(2);
+
+        if (prefix.indexOf(DOT) < 0) {
+            queries.add(table.withSimpleNamePrefix(prefix, visible, max));
+        } else if (prefix.charAt(0) == DOT) {
+            queries.add(table.withFullNamePrefix(
+                    prefix.substring(1), visible, max));
+        } else {
+            queries.add(table.withFullNamePrefix(prefix, visible, max));
+
+            if (!packageName.isEmpty()) {
+                queries.add(table.withFullNamePrefix(
+                        packageName + DOT + prefix, visible, max));
+            }
+        }
+
+        boolean truncated = false;
+
+        for (List<Pair<FileObject, IndexedSymbol>> types : queries) {
+            candidates.addAll(types);
+            truncated |= types.size() == max;
+        }
+
+        return truncated;
+    }
+
+    /**
+     * @requires fullName != null && prefix != null && packageName != null
+     * @return the text inserted to designate the type fullName when prefix is
+     *         typed in the package packageName
+     */
+    private static String insertTextOf(
+            String fullName,
+            String prefix,
+            String packageName) {
+
+        if (!prefix.isEmpty() && prefix.charAt(0) == DOT) {
+            return DOT + fullName;
+        }
+
+        String packagePrefix = packageName + DOT;
+
+        if (!packageName.isEmpty() && fullName.startsWith(packagePrefix)) {
+            return fullName.substring(packagePrefix.length());
+        }
+
+        return fullName;
+    }
+
+    /**
+     * @requires text != null && prefix != null
+     * @return true iff text starts with prefix, ignoring the case unless
+     *         caseSensitive
+     */
+    private static boolean startsWith(
+            String text,
+            String prefix,
+            boolean caseSensitive) {
+
+        return caseSensitive
+                ? text.startsWith(prefix)
+                : text.toLowerCase(Locale.ENGLISH).startsWith(
+                        prefix.toLowerCase(Locale.ENGLISH));
+    }
+}
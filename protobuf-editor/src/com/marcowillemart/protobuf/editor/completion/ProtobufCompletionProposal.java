@@ -0,0 +1,145 @@
+package com.marcowillemart.protobuf.editor.completion;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.Collections;
+import java.util.Set;
+import javax.swing.ImageIcon;
+import org.netbeans.modules.csl.api.CompletionProposal;
+import org.netbeans.modules.csl.api.ElementHandle;
+import org.netbeans.modules.csl.api.ElementKind;
+import org.netbeans.modules.csl.api.HtmlFormatter;
+import org.netbeans.modules.csl.api.Modifier;
+
+/**
+ * ProtobufCompletionProposal represents an immutable completion proposal of a
+ * keyword, a scalar type or a type name.
+ *
+ * @specfield name : String          // The displayed name.
+ * @specfield insertPrefix : String  // The inserted text.
+ * @specfield kind : ElementKind     // The kind of the proposal.
+ * @specfield detail : String        // The text displayed on the right.
+ * @specfield anchorOffset : int     // The offset of the replaced prefix.
+ * @specfield priority : int         // The sort priority, lowest first.
+ *
+ * @author mwi
+ */
+final class ProtobufCompletionProposal implements CompletionProposal {
+
+    private final String name;
+    private final String insertPrefix;
+    private final ElementKind kind;
+    private final String detail;
+    private final int anchorOffset;
+    private final int priority;
+
+    /**
+     * @requires name != null && insertPrefix != null && kind != null &&
+     *           detail != null && anchorOffset >= 0
+     * @effects Makes this be a new proposal with the given elements.
+     */
+    ProtobufCompletionProposal(
+            String name,
+            String insertPrefix,
+            ElementKind kind,
+            String detail,
+            int anchorOffset,
+            int priority) {
+
+        Assert.notNull(name);
+        Assert.notNull(insertPrefix);
+        Assert.notNull(kind);
+        Assert.notNull(detail);
+        Assert.isTrue(anchorOffset >= 0);
+
+        this.name = name;
+        this.insertPrefix = insertPrefix;
+        this.kind = kind;
+        this.detail = detail;
+        this.anchorOffset = anchorOffset;
+        this.priority = priority;
+    }
+
+    @Override
+    public int getAnchorOffset() {
+        return anchorOffset;
+    }
+
+    @Override
+    public ElementHandle getElement() {
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getInsertPrefix() {
+        return insertPrefix;
+    }
+
+    @Override
+    public String getSortText() {
+        return name;
+    }
+
+    @Override
+    public int getSortPrioOverride() {
+        return priority;
+    }
+
+    @Override
+    public String getLhsHtml(HtmlFormatter formatter) {
+        boolean keyword = kind == ElementKind.KEYWORD;
+
+        if (keyword) {
+            formatter.appendHtml("<b>");
+        }
+
+        formatter.appendText(name);
+
+        if (keyword) {
+            formatter.appendHtml("</b>");
+        }
+
+        return formatter.getText();
+    }
+
+    @Override
+    public String getRhsHtml(HtmlFormatter formatter) {
+        formatter.appendText(detail);
+
+        return formatter.getText();
+    }
+
+    @Override
+    public ElementKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public ImageIcon getIcon() {
+        return null;
+    }
+
+    @Override
+    public Set<Modifier> getModifiers() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean isSmart() {
+        return false;
+    }
+
+    @Override
+    public String getCustomInsertTemplate() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,94 @@
+package com.marcowillemart.protobuf.editor.completion;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.completion.TypeNameTable;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufIndexer;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufSymbolIndex;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufTypeNames is the cache of the tables of the type names stored in the
+ * persistent index, one per set of source roots.
+ *
+ * A table is built from the index on first use and rebuilt on the first use
+ * following a change of the index, so that the queries made while typing only
+ * search the table.
+ *
+ * @author mwi
+ */
+public final class ProtobufTypeNames {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufTypeNames.class);
+
+    private static final Map<Set<FileObject>, Entry> TABLES = new HashMap<>();
+
+    /** this cannot be instantiated */
+    private ProtobufTypeNames() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires context != null
+     * @return the table of the types indexed in the source roots visible from
+     *         context
+     */
+    public static TypeNameTable<FileObject> tableFor(FileObject context) {
+        Assert.notNull(context);
+
+        Set<FileObject> roots =
+                new HashSet<>(ProtobufSymbolIndex.rootsOf(context));
+        long generation = ProtobufIndexer.generation();
+
+        synchronized (TABLES) {
+            Entry entry = TABLES.get(roots);
+
+            if (entry != null && entry.generation == generation) {
+                return entry.table;
+            }
+        }
+
+        long start = System.nanoTime();
+
+        TypeNameTable<FileObject> table =
+                new TypeNameTable<>(ProtobufSymbolIndex.findTypes(context));
+
+        LOG.debug("tableFor - {} types loaded in {} ms",
+                table.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        synchronized (TABLES) {
+            TABLES.put(roots, new Entry(generation, table));
+        }
+
+        return table;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Entry represents an immutable table built at a generation of the index.
+     */
+    private static final class Entry {
+
+        final long generation;
+        final TypeNameTable<FileObject> table;
+
+        /**
+         * @requires table != null
+         * @effects Makes this be a new entry for table built at generation.
+         */
+        Entry(long generation, TypeNameTable<FileObject> table) {
+            this.generation = generation;
+            this.table = table;
+        }
+    } // end Entry
+}
@@ -0,0 +1,253 @@
+package com.marcowillemart.protobuf.editor.folding;
+
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.folding.FoldIndex;
+import com.marcowillemart.protobuf.folding.FoldRange;
+import com.marcowillemart.protobuf.folding.FoldScanner;
+import com.marcowillemart.protobuf.folding.FoldUpdate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.netbeans.api.editor.fold.Fold;
+import org.netbeans.api.editor.fold.FoldType;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.spi.editor.fold.FoldHierarchyTransaction;
+import org.netbeans.spi.editor.fold.FoldManager;
+import org.netbeans.spi.editor.fold.FoldOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufFoldManager represents the manager of the folds of a Protobuf
+ * document: its blocks between braces and its block comments spanning
+ * several lines, found in the tokens of the document.
+ *
+ * After an edit, only the tokens of the region of the document affected by
+ * the edit are scanned again, and only the folds of that region that changed
+ * are removed from or added to the fold hierarchy.
+ *
+ * @author mwi
+ */
+final class ProtobufFoldManager implements FoldManager {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufFoldManager.class);
+
+    private final FoldIndex index;
+    private FoldOperation operation;
+
+    /*
+     * Representation Invariant:
+     *   index != null
+     *   index indexes the document of operation once initFolds is called
+     */
+
+    /**
+     * @effects Makes this be a new manager of no document.
+     */
+    ProtobufFoldManager() {
+        this.index = new FoldIndex();
+        this.operation = null;
+    }
+
+    @Override
+    public void init(FoldOperation operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    public void initFolds(FoldHierarchyTransaction transaction) {
+        apply(index.rescan(tokens()), transaction);
+    }
+
+    @Override
+    public void insertUpdate(
+            DocumentEvent event,
+            FoldHierarchyTransaction transaction) {
+
+        apply(index.update(tokens(), event.getOffset(), 0, event.getLength()),
+                transaction);
+    }
+
+    @Override
+    public void removeUpdate(
+            DocumentEvent event,
+            FoldHierarchyTransaction transaction) {
+
+        apply(index.update(tokens(), event.getOffset(), event.getLength(), 0),
+                transaction);
+    }
+
+    @Override
+    public void changedUpdate(
+            DocumentEvent event,
+            FoldHierarchyTransaction transaction) {
+    }
+
+    @Override
+    public void removeEmptyNotify(Fold emptyFold) {
+    }
+
+    @Override
+    public void removeDamagedNotify(Fold damagedFold) {
+    }
+
+    @Override
+    public void expandNotify(Fold expandedFold) {
+    }
+
+    @Override
+    public void release() {
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the tokens of the document of this
+     */
+    private FoldIndex.Tokens tokens() {
+        Document document =
+                operation.getHierarchy().getComponent().getDocument();
+
+        return new DocumentTokens(
+                TokenHierarchy.get(document).tokenSequence(
+                        ProtobufLanguageHierarchy.instance()));
+    }
+
+    /**
+     * @requires update != null && transaction != null
+     * @modifies the fold hierarchy of this
+     * @effects Removes the folds of the region of update that are not folds
+     *          of update, and adds the folds of update that are missing, so
+     *          that the unchanged folds keep their state.
+     */
+    private void apply(
+            FoldUpdate update,
+            FoldHierarchyTransaction transaction) {
+
+        Set<FoldRange> missing = new LinkedHashSet<>(update.folds());
+        List<Fold> obsolete = new ArrayList<>();
+
+        Iterator<Fold> folds = operation.foldIterator();
+
+        while (folds.hasNext()) {
+            Fold fold = folds.next();
+            FoldRange range = rangeOf(fold);
+
+            if (range != null
+                    && update.replaces(range)
+                    && !missing.remove(range)) {
+
+                obsolete.add(fold);
+            }
+        }
+
+        for (Fold fold : obsolete) {
+            operation.removeFromHierarchy(fold, transaction);
+        }
+
+        try {
+            for (FoldRange range : missing) {
+                operation.addToHierarchy(
+                        range.kind() == FoldRange.Kind.COMMENT
+                                ? FoldType.COMMENT
+                                : FoldType.CODE_BLOCK,
+                        range.startOffset(),
+                        range.endOffset(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        transaction);
+            }
+        } catch (BadLocationException ex) {
+            throw new FailureException("ProtobufFoldManager.apply", ex);
+        }
+
+        LOG.debug("apply - [{}..{}[: {} folds removed, {} added",
+                update.startOffset(),
+                update.endOffset(),
+                obsolete.size(),
+                missing.size());
+    }
+
+    /**
+     * @requires fold != null
+     * @return the range of fold, or null if fold is not a valid fold of this
+     */
+    private static FoldRange rangeOf(Fold fold) {
+        if (fold.getStartOffset() < 0
+                || fold.getEndOffset() < fold.getStartOffset()) {
+
+            return null;
+        }
+
+        return new FoldRange(
+                fold.getStartOffset(),
+                fold.getEndOffset(),
+                FoldType.COMMENT.equals(fold.getType())
+                        ? FoldRange.Kind.COMMENT
+                        : FoldRange.Kind.BLOCK);
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * DocumentTokens represents the tokens of a Protobuf document.
+     */
+    private static final class DocumentTokens implements FoldIndex.Tokens {
+
+        private final TokenSequence<ProtobufTokenId> sequence;
+
+        /**
+         * @effects Makes this be the tokens of sequence, or no token if
+         *          sequence is null.
+         */
+        DocumentTokens(TokenSequence<ProtobufTokenId> sequence) {
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int[] scan(int from, int to, FoldScanner scanner) {
+            int[] region = { from, to };
+
+            if (sequence == null) {
+                return region;
+            }
+
+            boolean fed = false;
+
+            sequence.move(from);
+
+            while (sequence.moveNext() && sequence.offset() < to) {
+                Token<ProtobufTokenId> token = sequence.token();
+                int start = sequence.offset();
+                int end = start + token.length();
+
+                scanner.token(token.id().ordinal(), start, end, token.text());
+
+                if (!fed) {
+                    region[0] = start;
+                    fed = true;
+                }
+
+                region[1] = end;
+            }
+
+            return region;
+        }
+    } // end DocumentTokens
+}
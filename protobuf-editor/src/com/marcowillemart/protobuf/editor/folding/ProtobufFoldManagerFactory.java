@@ -0,0 +1,29 @@
+package com.marcowillemart.protobuf.editor.folding;
+
+import com.marcowillemart.protobuf.Protobuf;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.spi.editor.fold.FoldManager;
+import org.netbeans.spi.editor.fold.FoldManagerFactory;
+
+/**
+ * ProtobufFoldManagerFactory is a stateless factory responsible for creating
+ * the fold managers of the Protocol Buffers documents.
+ *
+ * @author mwi
+ */
+@MimeRegistration(
+        mimeType = Protobuf.MIME_TYPE,
+        service = FoldManagerFactory.class)
+public final class ProtobufFoldManagerFactory implements FoldManagerFactory {
+
+    /**
+     * @effects Makes this be a new FoldManagerFactory for Protobuf.
+     */
+    public ProtobufFoldManagerFactory() {
+    }
+
+    @Override
+    public FoldManager createFoldManager() {
+        return new ProtobufFoldManager();
+    }
+}
@@ -0,0 +1,43 @@
+package com.marcowillemart.protobuf.editor.folding;
+
+import com.marcowillemart.protobuf.Protobuf;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.netbeans.api.editor.fold.FoldType;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.spi.editor.fold.FoldTypeProvider;
+
+/**
+ * ProtobufFoldTypeProvider is a stateless provider of the types of the folds
+ * of the Protocol Buffers documents: code blocks and comments.
+ *
+ * @author mwi
+ */
+@MimeRegistration(
+        mimeType = Protobuf.MIME_TYPE,
+        service = FoldTypeProvider.class)
+public final class ProtobufFoldTypeProvider implements FoldTypeProvider {
+
+    private static final Collection<FoldType> TYPES =
+            Collections.unmodifiableList(
+                    Arrays.asList(FoldType.CODE_BLOCK, FoldType.COMMENT));
+
+    /**
+     * @effects Makes this be a new FoldTypeProvider for Protobuf.
+     */
+    public ProtobufFoldTypeProvider() {
+    }
+
+    @Override
+    public Collection getValues(Class type) {
+        return type == FoldType.class
+                ? TYPES
+                : Collections.emptyList();
+    }
+
+    @Override
+    public boolean inheritable() {
+        return false;
+    }
+}
@@ -0,0 +1,132 @@
+package com.marcowillemart.protobuf.editor.formatting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.formatting.IndentIndex;
+import com.marcowillemart.protobuf.formatting.IndentScanner;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * DocumentIndents represents the listener of the edits of a Protobuf document
+ * that keeps track of them in the indentation index of the document.
+ *
+ * The index is stored as a property of the document. Recording an edit is
+ * constant-time; the lines it affects are only scanned again when the
+ * indentation of the document is next needed.
+ *
+ * @author mwi
+ */
+final class DocumentIndents implements DocumentListener {
+
+    private final IndentIndex index;
+
+    /*
+     * Representation Invariant:
+     *   index != null
+     */
+
+    /**
+     * @effects Makes this be a new listener recording the edits of a
+     *          document in a new index.
+     */
+    private DocumentIndents() {
+        this.index = new IndentIndex();
+    }
+
+    /**
+     * @requires document != null && the caller holds a lock on document
+     * @modifies document
+     * @effects Attaches an index to document if it has none yet.
+     * @return the current index of document
+     */
+    static IndentIndex of(Document document) {
+        Assert.notNull(document);
+
+        DocumentIndents indents;
+
+        synchronized (document) {
+            indents = (DocumentIndents) document.getProperty(
+                    DocumentIndents.class);
+
+            if (indents == null) {
+                indents = new DocumentIndents();
+                document.putProperty(DocumentIndents.class, indents);
+                document.addDocumentListener(indents);
+            }
+        }
+
+        indents.index.update(new DocumentTokens(
+                TokenHierarchy.get(document).tokenSequence(
+                        ProtobufLanguageHierarchy.instance())));
+
+        return indents.index;
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent event) {
+        index.edit(event.getOffset(), 0, event.getLength());
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent event) {
+        index.edit(event.getOffset(), event.getLength(), 0);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent event) {
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * DocumentTokens represents the tokens of a Protobuf document.
+     */
+    private static final class DocumentTokens implements IndentIndex.Tokens {
+
+        private final TokenSequence<ProtobufTokenId> sequence;
+
+        /**
+         * @effects Makes this be the tokens of sequence, or no token if
+         *          sequence is null.
+         */
+        DocumentTokens(TokenSequence<ProtobufTokenId> sequence) {
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean scan(int from, int to, IndentScanner scanner) {
+            if (sequence == null) {
+                return false;
+            }
+
+            sequence.move(from);
+
+            while (sequence.moveNext()) {
+                Token<ProtobufTokenId> token = sequence.token();
+                int start = sequence.offset();
+
+                if (start >= to) {
+                    return true;
+                }
+
+                if (start >= from) {
+                    scanner.token(
+                            token.id().ordinal(),
+                            start,
+                            start + token.length(),
+                            token.text());
+                }
+            }
+
+            return false;
+        }
+    } // end DocumentTokens
+}
@@ -1,11 +1,19 @@
 package com.marcowillemart.protobuf.editor.formatting;
 
+import com.marcowillemart.common.util.Assert;
 import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.formatting.SourceFormatter;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.List;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.modules.editor.indent.api.IndentUtils;
 import org.netbeans.modules.editor.indent.spi.Context;
 import org.netbeans.modules.editor.indent.spi.ExtraLock;
 import org.netbeans.modules.editor.indent.spi.ReformatTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * ProtobufFormatTask represents a format task for the Protobuf language that
@@ -14,10 +22,18 @@ import org.netbeans.modules.editor.indent.spi.ReformatTask;
  * Note that the format task will make a callback to the reformat() method when
  * Alt-Shift-F is pressed in the NetBeans editor.
  *
+ * The text of the document is formatted in a single pass over its tokens, and
+ * only the whitespace that changed within the bounds of the context is
+ * replaced, from the end of the document to its start so that the offsets of
+ * the remaining edits stay valid.
+ *
  * @author mwi
  */
 public final class ProtobufFormatTask implements ReformatTask {
 
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufFormatTask.class);
+
     private final Context context;
 
     /**
@@ -25,12 +41,44 @@ public final class ProtobufFormatTask implements ReformatTask {
      * @effects Makes this be a new format task with the given context.
      */
     private ProtobufFormatTask(Context context) {
+        Assert.notNull(context);
+
         this.context = context;
     }
 
     @Override
     public void reformat() throws BadLocationException {
-        // TODO
+        long start = System.nanoTime();
+
+        Document document = context.document();
+
+        SourceFormatter formatter = new SourceFormatter(
+                IndentUtils.createIndentString(
+                        document,
+                        IndentUtils.indentLevelSize(document)));
+
+        List<TextEdit> edits = formatter.format(
+                document.getText(0, document.getLength()),
+                context.startOffset(),
+                context.endOffset());
+
+        for (int i = edits.size() - 1; i >= 0; i--) {
+            TextEdit edit = edits.get(i);
+
+            if (edit.length() > 0) {
+                document.remove(edit.startOffset(), edit.length());
+            }
+
+            if (!edit.text().isEmpty()) {
+                document.insertString(edit.startOffset(), edit.text(), null);
+            }
+        }
+
+        LOG.debug("reformat - [{}..{}]: {} edits in {} ms",
+                context.startOffset(),
+                context.endOffset(),
+                edits.size(),
+                (System.nanoTime() - start) / 1_000_000);
     }
 
     @Override
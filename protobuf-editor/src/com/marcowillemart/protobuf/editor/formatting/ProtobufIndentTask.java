@@ -1,29 +1,39 @@
 package com.marcowillemart.protobuf.editor.formatting;
 
-import com.marcowillemart.common.lang.Document;
-import com.marcowillemart.common.lang.Line;
 import com.marcowillemart.common.util.Assert;
-import com.marcowillemart.common.util.FailureException;
 import com.marcowillemart.protobuf.Protobuf;
-import com.marcowillemart.protobuf.ProtobufDocument;
+import com.marcowillemart.protobuf.formatting.IndentIndex;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.modules.editor.indent.api.IndentUtils;
 import org.netbeans.modules.editor.indent.spi.Context;
 import org.netbeans.modules.editor.indent.spi.ExtraLock;
 import org.netbeans.modules.editor.indent.spi.IndentTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * ProtobufIndentTask represents an indentation task for the Protobuf language.
  *
  * Note that the indent task will make a callback to the reindent() method when
- * the Enter key is pressed in the NetBeans editor.
+ * the Enter key is pressed in the NetBeans editor, or when a region of the
+ * document is reindented, e.g., after a paste.
+ *
+ * The indentation of the lines is looked up in the indentation index of the
+ * document, which tracks the nesting of each line as the document is edited.
+ * All the lines of the region are looked up first, since reindenting a line
+ * edits the document and thus its index, and they are then reindented in one
+ * batch, from the last to the first so that the offsets of the remaining lines
+ * stay valid. The blank lines of a region spanning several lines are left as
+ * is.
  *
  * @author mwi
  */
 public final class ProtobufIndentTask implements IndentTask {
 
-    private static final int ZERO = 0;
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufIndentTask.class);
 
     private final Context context;
 
@@ -39,84 +49,52 @@ public final class ProtobufIndentTask implements IndentTask {
 
     @Override
     public void reindent() throws BadLocationException {
+        long start = System.nanoTime();
 
-        Document document = documentFrom(context);
-
-        Line currentLine = document.lineAt(context.startOffset());
+        Document document = context.document();
+        int levelSize = IndentUtils.indentLevelSize(document);
 
-        if (currentLine.number() > 1) {
-            Line previousLine = document.lineAt(currentLine.startOffset() - 1);
-            int newIndent = context.lineIndent(previousLine.startOffset());
-
-            if (previousLine.isLastOpeningBrace()) {
-                newIndent += IndentUtils.indentLevelSize(context.document());
-            } else if (previousLine.containsStartOfBlockComment()) {
-                newIndent++;
-            } else if (previousLine.containsEndOfBlockComment()) {
-                newIndent--;
-            }
+        IndentIndex index = DocumentIndents.of(document);
 
-            context.modifyIndent(currentLine.startOffset(), newIndent);
+        int first = index.lineAt(context.startOffset());
+        int last = index.lineAt(context.endOffset());
 
-            if (isBlockComment(previousLine, currentLine)) {
-                reindentBlockComment(newIndent);
-            }
+        if (last > first && index.lineStart(last) == context.endOffset()) {
+            last--;
         }
-    }
 
-    @Override
-    public ExtraLock indentLock() {
-        return null;
-    }
+        int count = last - first + 1;
+        int[] lineStarts = new int[count];
+        int[] indents = new int[count];
 
-    ////////////////////
-    // HELPER METHODS
-    ////////////////////
+        for (int i = 0; i < count; i++) {
+            boolean skipped = count > 1 && index.isBlank(first + i);
 
-    /**
-     * @requires newIndent >= 0
-     * @modifies this
-     * @effects Reindents the next line of the line to reindent in the context
-     *          of this iff it contains the end of a block comment.
-     * @throws BadLocationException if the offset of the line to reindent is not
-     *         within the corresponding document's bounds
-     */
-    private void reindentBlockComment(int newIndent)
-            throws BadLocationException {
+            lineStarts[i] = index.lineStart(first + i);
+            indents[i] = skipped ? -1 : index.indent(first + i, levelSize);
+        }
 
-        Document document = documentFrom(context);
+        int modified = 0;
 
-        Line currentLine = document.lineAt(context.startOffset());
-        Line nextLine = document.lineAt(currentLine.endOffset() + 1);
+        for (int i = count - 1; i >= 0; i--) {
+            if (indents[i] >= 0
+                    && context.lineIndent(lineStarts[i]) != indents[i]) {
 
-        if (nextLine.containsEndOfBlockComment()) {
-            context.modifyIndent(nextLine.startOffset(), newIndent);
+                context.modifyIndent(lineStarts[i], indents[i]);
+                modified++;
+            }
         }
-    }
 
-    /**
-     * @requires line1 != null && line2 != null
-     * @return true iff line1 is the start of a block comment and line2 an
-     *         additional comment line
-     */
-    private static boolean isBlockComment(Line line1, Line line2) {
-        return line1.containsStartOfBlockComment()
-                && line2.isLineOfBlockComment();
+        LOG.debug("reindent - lines {} to {}: {} modified in {} ms",
+                first + 1,
+                last + 1,
+                modified,
+                (System.nanoTime() - start) / 1_000_000);
     }
 
-    /**
-     * @requires context != null
-     * @return a new Document from the given context.
-     */
-    private static Document documentFrom(Context context) {
-        try {
-            return new ProtobufDocument(
-                    context.document()
-                            .getText(ZERO, context.document().getLength()));
-        } catch (BadLocationException ex) {
-            throw new FailureException(
-                    "ProtobufIndentTask.documentFrom", ex);
-        }
+    @Override
+    public ExtraLock indentLock() {
+        return null;
     }
 
     ////////////////////
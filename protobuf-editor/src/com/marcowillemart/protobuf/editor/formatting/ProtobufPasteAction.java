@@ -0,0 +1,229 @@
+package com.marcowillemart.protobuf.editor.formatting;
+
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.formatting.Paste;
+import com.marcowillemart.protobuf.formatting.PasteFormatter;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.util.prefs.Preferences;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.StyledDocument;
+import org.netbeans.api.editor.EditorActionRegistration;
+import org.netbeans.modules.editor.indent.api.IndentUtils;
+import org.netbeans.spi.editor.AbstractEditorAction;
+import org.openide.awt.StatusDisplayer;
+import org.openide.text.NbDocument;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.NbPreferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufPasteAction represents the paste action of the Protobuf editor.
+ *
+ * A paste of several lines is a bulk insert: rather than being inserted as
+ * is and then reindented line by line, the pasted text is normalized and
+ * formatted in its target position in a single pass over the tokens, and
+ * optionally renumbered, then replaces the selection as a single undoable
+ * edit. The other pastes, including the ones in a rectangular selection, are
+ * left to the default paste action.
+ *
+ * The renumbering of the pasted fields whose numbers collide with the ones of
+ * their message is configured in the Protobuf tab of the editor options, and
+ * stored in the RENUMBER_PASTED_FIELDS preference of this module. It is
+ * disabled by default: changing a field number changes the wire format, so it
+ * is never done silently and the status line tells how many fields were
+ * renumbered.
+ *
+ * @author mwi
+ */
+@EditorActionRegistration(
+        name = DefaultEditorKit.pasteAction,
+        mimeType = Protobuf.MIME_TYPE)
+public final class ProtobufPasteAction extends AbstractEditorAction {
+
+    public static final String RENUMBER_PASTED_FIELDS = "renumberPastedFields";
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufPasteAction.class);
+
+    private static final String RECTANGULAR_SELECTION_PROP =
+            "rectangular-selection";
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @effects Makes this be a new paste action.
+     */
+    public ProtobufPasteAction() {
+    }
+
+    /**
+     * @return true iff the pasted fields whose numbers collide with the ones
+     *         of their message are renumbered
+     */
+    public static boolean renumbersPastedFields() {
+        return preferences().getBoolean(RENUMBER_PASTED_FIELDS, false);
+    }
+
+    /**
+     * @modifies preferences of this module
+     * @effects Configures the pasted fields whose numbers collide with the
+     *          ones of their message to be renumbered iff renumber.
+     */
+    public static void setRenumbersPastedFields(boolean renumber) {
+        preferences().putBoolean(RENUMBER_PASTED_FIELDS, renumber);
+    }
+
+    @Override
+    @Messages({"# {0} - number of fields",
+        "MSG_Renumbered={0} pasted field(s) renumbered to avoid a collision"})
+    protected void actionPerformed(
+            ActionEvent event,
+            final JTextComponent component) {
+
+        if (component == null) {
+            return;
+        }
+
+        final String pasted = clipboardText(component);
+
+        if (!component.isEditable()
+                || !(component.getDocument() instanceof StyledDocument)
+                || Boolean.TRUE.equals(
+                        component.getClientProperty(RECTANGULAR_SELECTION_PROP))
+                || pasted == null
+                || pasted.indexOf('\n') < 0 && pasted.indexOf('\r') < 0) {
+
+            component.paste();
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        final StyledDocument document =
+                (StyledDocument) component.getDocument();
+        final PasteFormatter formatter = new PasteFormatter(
+                IndentUtils.createIndentString(
+                        document,
+                        IndentUtils.indentLevelSize(document)),
+                renumbersPastedFields());
+        final int[] caret = new int[1];
+        final int[] renumbered = new int[1];
+
+        try {
+            NbDocument.runAtomicAsUser(document, new Runnable() {
+
+                @Override
+                public void run() {
+                    caret[0] = paste(component, document, formatter, pasted,
+                            renumbered);
+                }
+            });
+        } catch (BadLocationException ex) {
+            throw new FailureException(
+                    "ProtobufPasteAction.actionPerformed", ex);
+        }
+
+        component.setCaretPosition(caret[0]);
+
+        if (renumbered[0] > 0) {
+            StatusDisplayer.getDefault().setStatusText(
+                    Bundle.MSG_Renumbered(renumbered[0]));
+        }
+
+        LOG.debug("actionPerformed - {} chars pasted in {} ms",
+                pasted.length(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires the caller holds the write lock of document, the document of
+     *           component && renumbered.length = 1
+     * @modifies document, renumbered
+     * @effects Replaces the selection of component by pasted, formatted by
+     *          formatter, and sets renumbered[0] to the number of pasted
+     *          fields that were renumbered.
+     * @return the offset following the inserted text
+     */
+    private static int paste(
+            JTextComponent component,
+            StyledDocument document,
+            PasteFormatter formatter,
+            String pasted,
+            int[] renumbered) {
+
+        int start = Math.min(
+                component.getSelectionStart(), document.getLength());
+        int end = Math.min(
+                component.getSelectionEnd(), document.getLength());
+
+        try {
+            Paste paste = formatter.paste(
+                    document.getText(0, document.getLength()),
+                    start,
+                    end,
+                    pasted);
+
+            if (end > start) {
+                document.remove(start, end - start);
+            }
+
+            document.insertString(start, paste.text(), null);
+            renumbered[0] = paste.renumbered();
+
+            return start + paste.text().length();
+        } catch (BadLocationException ex) {
+            throw new FailureException("ProtobufPasteAction.paste", ex);
+        }
+    }
+
+    /**
+     * @return the preferences of this module
+     */
+    private static Preferences preferences() {
+        return NbPreferences.forModule(ProtobufPasteAction.class);
+    }
+
+    /**
+     * @return the text of the clipboard of component, or null if it holds no
+     *         text
+     */
+    private static String clipboardText(JTextComponent component) {
+        Clipboard clipboard = Lookup.getDefault().lookup(Clipboard.class);
+
+        if (clipboard == null) {
+            clipboard = component.getToolkit().getSystemClipboard();
+        }
+
+        try {
+            Transferable contents = clipboard.getContents(null);
+
+            if (contents == null
+                    || !contents.isDataFlavorSupported(
+                            DataFlavor.stringFlavor)) {
+
+                return null;
+            }
+
+            return (String) contents.getTransferData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException
+                | IllegalStateException ex) {
+
+            LOG.debug("clipboardText - {}", ex.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.marcowillemart.protobuf.editor.highlighting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.highlighting.BracePairs;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * DocumentBracePairs represents the table of the brackets of the current
+ * version of a Protobuf document.
+ *
+ * The table is stored as a property of the document. It is built from the
+ * tokens of the document when first needed, and dropped by a listener of the
+ * document as soon as the document changes, so that it is built at most once
+ * per version of the document.
+ *
+ * @author mwi
+ */
+final class DocumentBracePairs implements DocumentListener {
+
+    private BracePairs pairs;
+
+    /*
+     * Representation Invariant:
+     *   pairs = null || pairs is the table of the current document
+     */
+
+    /**
+     * @effects Makes this be a new holder of no table.
+     */
+    private DocumentBracePairs() {
+        this.pairs = null;
+    }
+
+    /**
+     * @requires document != null && the caller holds a lock on document
+     * @modifies document
+     * @effects Attaches a holder of its table to document if it has none
+     *          yet.
+     * @return the table of the brackets of the current version of document
+     */
+    static BracePairs of(Document document) {
+        Assert.notNull(document);
+
+        DocumentBracePairs holder;
+
+        synchronized (document) {
+            holder = (DocumentBracePairs) document.getProperty(
+                    DocumentBracePairs.class);
+
+            if (holder == null) {
+                holder = new DocumentBracePairs();
+                document.putProperty(DocumentBracePairs.class, holder);
+                document.addDocumentListener(holder);
+            }
+        }
+
+        return holder.pairs(document);
+    }
+
+    @Override
+    public synchronized void insertUpdate(DocumentEvent event) {
+        pairs = null;
+    }
+
+    @Override
+    public synchronized void removeUpdate(DocumentEvent event) {
+        pairs = null;
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent event) {
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Builds the table of document if this holds none.
+     * @return the table of document
+     */
+    private synchronized BracePairs pairs(Document document) {
+        if (pairs == null) {
+            BracePairs.Builder builder = new BracePairs.Builder();
+
+            TokenSequence<ProtobufTokenId> sequence =
+                    TokenHierarchy.get(document).tokenSequence(
+                            ProtobufLanguageHierarchy.instance());
+
+            if (sequence != null) {
+                sequence.moveStart();
+
+                while (sequence.moveNext()) {
+                    builder.token(
+                            sequence.token().id().ordinal(),
+                            sequence.offset());
+                }
+            }
+
+            pairs = builder.build();
+        }
+
+        return pairs;
+    }
+}
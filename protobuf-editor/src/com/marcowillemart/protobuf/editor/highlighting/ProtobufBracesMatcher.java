@@ -0,0 +1,70 @@
+package com.marcowillemart.protobuf.editor.highlighting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.highlighting.BracePairs;
+import org.netbeans.spi.editor.bracesmatching.BracesMatcher;
+import org.netbeans.spi.editor.bracesmatching.MatcherContext;
+
+/**
+ * ProtobufBracesMatcher represents a matcher of the brackets of a Protobuf
+ * document: '{}', '()', '[]' and '<>'.
+ *
+ * The brackets are looked up in the table of the brackets of the document,
+ * built once per version of the document from its tokens, so that the
+ * brackets of the string literals and comments are ignored and a caret move
+ * costs a lookup.
+ *
+ * @author mwi
+ */
+final class ProtobufBracesMatcher implements BracesMatcher {
+
+    private static final int NONE = -1;
+
+    private final MatcherContext context;
+    private BracePairs pairs;
+    private int origin;
+
+    /*
+     * Representation Invariant:
+     *   context != null
+     *   origin = -1 || (pairs != null && pairs.isBracket(origin))
+     */
+
+    /**
+     * @requires context != null
+     * @effects Makes this be a new matcher of the brackets of the document of
+     *          context.
+     */
+    ProtobufBracesMatcher(MatcherContext context) {
+        Assert.notNull(context);
+
+        this.context = context;
+        this.pairs = null;
+        this.origin = NONE;
+    }
+
+    @Override
+    public int[] findOrigin() {
+        pairs = DocumentBracePairs.of(context.getDocument());
+
+        int offset = context.getSearchOffset();
+        int limit = context.getLimitOffset();
+
+        origin = context.isSearchingBackward()
+                ? pairs.lastBracket(Math.min(limit, offset), offset)
+                : pairs.firstBracket(offset, Math.max(limit, offset));
+
+        return origin == NONE ? null : new int[] { origin, origin + 1 };
+    }
+
+    @Override
+    public int[] findMatches() {
+        if (origin == NONE) {
+            return null;
+        }
+
+        int match = pairs.matchOf(origin);
+
+        return match == NONE ? null : new int[] { match, match + 1 };
+    }
+}
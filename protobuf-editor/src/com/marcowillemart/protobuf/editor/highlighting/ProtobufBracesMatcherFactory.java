@@ -5,7 +5,6 @@ import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.spi.editor.bracesmatching.BracesMatcher;
 import org.netbeans.spi.editor.bracesmatching.BracesMatcherFactory;
 import org.netbeans.spi.editor.bracesmatching.MatcherContext;
-import org.netbeans.spi.editor.bracesmatching.support.BracesMatcherSupport;
 
 /**
  * ProtobufBracesMatcherFactory is a stateless factory responsible for creating
@@ -27,6 +26,6 @@ public final class ProtobufBracesMatcherFactory
 
     @Override
     public BracesMatcher createMatcher(MatcherContext context) {
-        return BracesMatcherSupport.defaultMatcher(context, -1, -1);
+        return new ProtobufBracesMatcher(context);
     }
 }
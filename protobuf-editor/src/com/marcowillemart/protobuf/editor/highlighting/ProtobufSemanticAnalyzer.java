@@ -0,0 +1,216 @@
+package com.marcowillemart.protobuf.editor.highlighting;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.completion.TypeNameTable;
+import com.marcowillemart.protobuf.editor.completion.ProtobufTypeNames;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufIndexer;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.highlighting.Highlight;
+import com.marcowillemart.protobuf.highlighting.SemanticHighlighter;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.netbeans.modules.csl.api.ColoringAttributes;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.csl.api.SemanticAnalyzer;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.parsing.spi.Scheduler;
+import org.netbeans.modules.parsing.spi.SchedulerEvent;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufSemanticAnalyzer represents the semantic analyzer coloring the
+ * identifiers of the Protobuf editor by the kind of the symbol they designate,
+ * and marking the type names that denote no known type. Like completion, the
+ * external types are only those of the files visible from the edited file
+ * through its imports.
+ *
+ * Each source has its own incremental SemanticHighlighter, so that only the
+ * top-level definitions changed since the previous parse are highlighted
+ * again.
+ *
+ * @author mwi
+ */
+public final class ProtobufSemanticAnalyzer
+        extends SemanticAnalyzer<ProtobufEditorParserResult> {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufSemanticAnalyzer.class);
+
+    private static final Map<Source, SemanticHighlighter> HIGHLIGHTERS =
+            new WeakHashMap<>();
+
+    private static final TypeNameTable<FileObject> NO_TYPE =
+            new TypeNameTable<>(
+                    Collections.<Pair<FileObject, IndexedSymbol>>emptyList());
+
+    private static final Map<Highlight.Kind, Set<ColoringAttributes>>
+            COLORINGS = coloringsOf(false);
+    private static final Map<Highlight.Kind, Set<ColoringAttributes>>
+            DECLARATION_COLORINGS = coloringsOf(true);
+
+    private Map<OffsetRange, Set<ColoringAttributes>> highlights;
+    private volatile boolean cancelled;
+
+    /**
+     * @effects Makes this be a new analyzer with no highlight.
+     */
+    public ProtobufSemanticAnalyzer() {
+        this.highlights = Collections.emptyMap();
+        this.cancelled = false;
+    }
+
+    @Override
+    public Map<OffsetRange, Set<ColoringAttributes>> getHighlights() {
+        return highlights;
+    }
+
+    @Override
+    public void run(ProtobufEditorParserResult result, SchedulerEvent event) {
+        cancelled = false;
+
+        long start = System.nanoTime();
+
+        Snapshot snapshot = result.getSnapshot();
+        FileObject file = snapshot.getSource().getFileObject();
+        SemanticHighlighter highlighter = highlighterOf(snapshot.getSource());
+        ProtoFile model = result.protoFile();
+
+        List<Highlight> computed = file == null
+                ? highlighter.highlight(snapshot.getText(), model,
+                        NO_TYPE, Collections.<FileObject>emptySet(),
+                        ProtobufIndexer.generation())
+                : highlighter.highlight(snapshot.getText(), model,
+                        ProtobufTypeNames.tableFor(file),
+                        visibleFiles(file, model),
+                        ProtobufIndexer.generation());
+
+        if (cancelled) {
+            return;
+        }
+
+        Map<OffsetRange, Set<ColoringAttributes>> found =
+                new HashMap<>(computed.size() * 2);
+
+        for (Highlight highlight : computed) {
+            found.put(
+                    new OffsetRange(
+                            snapshot.getOriginalOffset(
+                                    highlight.startOffset()),
+                            snapshot.getOriginalOffset(
+                                    highlight.endOffset())),
+                    highlight.isDeclaration()
+                            ? DECLARATION_COLORINGS.get(highlight.kind())
+                            : COLORINGS.get(highlight.kind()));
+        }
+
+        highlights = found;
+
+        LOG.debug("run - {} highlights ({} definitions reused) in {} ms",
+                found.size(),
+                highlighter.reused(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public Class<? extends Scheduler> getSchedulerClass() {
+        return Scheduler.EDITOR_SENSITIVE_TASK_SCHEDULER;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires file != null && model is the model of file
+     * @return the files whose types are visible from file, as completion
+     *         proposes them
+     */
+    private static Set<FileObject> visibleFiles(
+            FileObject file,
+            ProtoFile model) {
+
+        return new HashSet<>(ProtobufImports.resolver()
+                .closure(file, model.imports()).visibleFiles());
+    }
+
+    /**
+     * @requires source != null
+     * @return the highlighter of source, created on first use
+     */
+    private static SemanticHighlighter highlighterOf(Source source) {
+        synchronized (HIGHLIGHTERS) {
+            SemanticHighlighter highlighter = HIGHLIGHTERS.get(source);
+
+            if (highlighter == null) {
+                highlighter = new SemanticHighlighter();
+                HIGHLIGHTERS.put(source, highlighter);
+            }
+
+            return highlighter;
+        }
+    }
+
+    /**
+     * @return the colorings of the identifiers of each kind, of declarations
+     *         if declaration
+     */
+    private static Map<Highlight.Kind, Set<ColoringAttributes>> coloringsOf(
+            boolean declaration) {
+
+        Map<Highlight.Kind, Set<ColoringAttributes>> colorings =
+                new HashMap<>();
+
+        colorings.put(Highlight.Kind.MESSAGE,
+                EnumSet.of(ColoringAttributes.CLASS));
+        colorings.put(Highlight.Kind.ENUM,
+                EnumSet.of(ColoringAttributes.ENUM));
+        colorings.put(Highlight.Kind.SERVICE,
+                EnumSet.of(ColoringAttributes.INTERFACE));
+        colorings.put(Highlight.Kind.RPC,
+                EnumSet.of(ColoringAttributes.METHOD));
+        colorings.put(Highlight.Kind.FIELD,
+                EnumSet.of(ColoringAttributes.FIELD));
+        colorings.put(Highlight.Kind.ENUM_VALUE, EnumSet.of(
+                ColoringAttributes.FIELD, ColoringAttributes.STATIC));
+        colorings.put(Highlight.Kind.ONEOF,
+                EnumSet.of(ColoringAttributes.FIELD));
+        colorings.put(Highlight.Kind.UNRESOLVED,
+                EnumSet.of(ColoringAttributes.UNDEFINED));
+
+        if (declaration) {
+            for (Set<ColoringAttributes> coloring : colorings.values()) {
+                coloring.add(ColoringAttributes.DECLARATION);
+            }
+        }
+
+        for (Map.Entry<Highlight.Kind, Set<ColoringAttributes>> entry
+                : colorings.entrySet()) {
+
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+
+        return Collections.unmodifiableMap(colorings);
+    }
+}
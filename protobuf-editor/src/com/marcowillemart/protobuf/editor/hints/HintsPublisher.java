@@ -0,0 +1,229 @@
+package com.marcowillemart.protobuf.editor.hints;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.netbeans.modules.csl.api.Error;
+import org.netbeans.spi.editor.hints.ErrorDescription;
+import org.netbeans.spi.editor.hints.ErrorDescriptionFactory;
+import org.netbeans.spi.editor.hints.HintsController;
+import org.netbeans.spi.editor.hints.Severity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HintsPublisher is a utility class that publishes errors to the hints layers
+ * of a document only when they differ from the ones last published to the
+ * same layer.
+ *
+ * The last published errors are remembered as a property of the document, so
+ * that they are discarded along with it.
+ *
+ * @author mwi
+ */
+final class HintsPublisher {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(HintsPublisher.class);
+
+    private static final String PROPERTY_PREFIX =
+            HintsPublisher.class.getName() + ".";
+
+    /** this cannot be instantiated */
+    private HintsPublisher() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires document != null && layerId != null && errors != null
+     * @modifies document
+     * @effects Sets the errors of the layer layerId of document to errors iff
+     *          they differ from the errors last published to that layer, else
+     *          does nothing.
+     * @return true iff the errors were published
+     */
+    static boolean publish(
+            Document document,
+            String layerId,
+            List<? extends Error> errors) {
+
+        Assert.notNull(document);
+        Assert.notNull(layerId);
+        Assert.notNull(errors);
+
+        Set<ErrorKey> current = new LinkedHashSet<>();
+
+        for (Error error : errors) {
+            current.add(ErrorKey.of(error, document.getLength()));
+        }
+
+        String property = PROPERTY_PREFIX + layerId;
+
+        @SuppressWarnings("unchecked")
+        Set<ErrorKey> previous = (Set<ErrorKey>) document.getProperty(property);
+
+        if (previous == null) {
+            previous = new HashSet<>();
+        }
+
+        int added = countMissing(current, previous);
+        int removed = countMissing(previous, current);
+
+        if (added == 0 && removed == 0) {
+            return false;
+        }
+
+        LOG.debug("publish - layer {}: {} added, {} removed",
+                layerId, added, removed);
+
+        List<ErrorDescription> descriptions = new ArrayList<>(current.size());
+
+        for (ErrorKey key : current) {
+            descriptions.add(key.toErrorDescription(document));
+        }
+
+        HintsController.setErrors(document, layerId, descriptions);
+        document.putProperty(property, current);
+
+        return true;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires set1 != null && set2 != null
+     * @return the number of elements of set1 that are not in set2
+     */
+    private static int countMissing(Set<ErrorKey> set1, Set<ErrorKey> set2) {
+        int count = 0;
+
+        for (ErrorKey key : set1) {
+            if (!set2.contains(key)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * ErrorKey represents the immutable identity of a published error, i.e.,
+     * its severity, message and highlighted range.
+     */
+    private static final class ErrorKey {
+
+        private final Severity severity;
+        private final String message;
+        private final int start;
+        private final int end;
+
+        /**
+         * @requires severity != null && message != null &&
+         *           0 <= start <= end
+         * @effects Makes this be a new error key.
+         */
+        private ErrorKey(Severity severity, String message, int start, int end) {
+            this.severity = severity;
+            this.message = message;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @requires error != null && length >= 0
+         * @return the key of error in a document of the given length, whose
+         *         range is widened to one character if it is empty
+         */
+        static ErrorKey of(Error error, int length) {
+            int start = Math.max(0, Math.min(error.getStartPosition(), length));
+            int end = Math.max(start, Math.min(error.getEndPosition(), length));
+
+            if (start == end) {
+                if (end < length) {
+                    end++;
+                } else if (start > 0) {
+                    start--;
+                }
+            }
+
+            return new ErrorKey(
+                    severityOf(error),
+                    error.getDisplayName(),
+                    start,
+                    end);
+        }
+
+        /**
+         * @requires document != null
+         * @return a new error description for this in document
+         */
+        ErrorDescription toErrorDescription(Document document) {
+            try {
+                return ErrorDescriptionFactory.createErrorDescription(
+                        severity,
+                        message,
+                        document,
+                        document.createPosition(start),
+                        document.createPosition(end));
+            } catch (BadLocationException ex) {
+                throw new FailureException(
+                        "HintsPublisher.toErrorDescription", ex);
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + severity.hashCode();
+            hash = 31 * hash + message.hashCode();
+            hash = 31 * hash + start;
+            hash = 31 * hash + end;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ErrorKey)) {
+                return false;
+            }
+            final ErrorKey other = (ErrorKey) obj;
+            return severity == other.severity
+                    && message.equals(other.message)
+                    && start == other.start
+                    && end == other.end;
+        }
+
+        /**
+         * @requires error != null
+         * @return the hints severity corresponding to the severity of error
+         */
+        private static Severity severityOf(Error error) {
+            switch (error.getSeverity()) {
+                case WARNING:
+                    return Severity.WARNING;
+                case INFO:
+                    return Severity.HINT;
+                default:
+                    return Severity.ERROR;
+            }
+        }
+    } // end ErrorKey
+}
@@ -1,13 +1,10 @@
 package com.marcowillemart.protobuf.editor.hints;
 
-import com.marcowillemart.common.lang.ParsingError;
 import com.marcowillemart.common.util.Assert;
 import com.marcowillemart.protobuf.Protobuf;
 import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
 import javax.swing.text.Document;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.modules.parsing.api.Snapshot;
@@ -16,15 +13,14 @@ import org.netbeans.modules.parsing.spi.Scheduler;
 import org.netbeans.modules.parsing.spi.SchedulerEvent;
 import org.netbeans.modules.parsing.spi.SchedulerTask;
 import org.netbeans.modules.parsing.spi.TaskFactory;
-import org.netbeans.spi.editor.hints.ErrorDescription;
-import org.netbeans.spi.editor.hints.ErrorDescriptionFactory;
-import org.netbeans.spi.editor.hints.HintsController;
-import org.netbeans.spi.editor.hints.Severity;
 
 /**
  * ParsingErrorHighlightingTask represents the task of highlighting Protobuf
  * parsing errors.
  *
+ * The hints of a document are only updated when its errors differ from the
+ * ones highlighted after the previous parsing.
+ *
  * @author mwi
  */
 public final class ParsingErrorHighlightingTask
@@ -44,18 +40,12 @@ public final class ParsingErrorHighlightingTask
         Assert.notNull(result);
 
         Document document = result.getSnapshot().getSource().getDocument(false);
-        List<ErrorDescription> errorDescriptions = new LinkedList<>();
 
-        for (ParsingError error : result.errors()) {
-            errorDescriptions.add(
-                    ErrorDescriptionFactory.createErrorDescription(
-                            Severity.ERROR,
-                            error.message(),
-                            document,
-                            error.line()));
+        if (document == null) {
+            return;
         }
 
-        HintsController.setErrors(document, LAYER_ID, errorDescriptions);
+        HintsPublisher.publish(document, LAYER_ID, result.getDiagnostics());
     }
 
     @Override
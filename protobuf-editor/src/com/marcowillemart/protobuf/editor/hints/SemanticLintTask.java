@@ -0,0 +1,147 @@
+package com.marcowillemart.protobuf.editor.hints;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.imports.ImportClosure;
+import com.marcowillemart.protobuf.lint.LintEngine;
+import com.marcowillemart.protobuf.lint.LintReport;
+import com.marcowillemart.protobuf.model.Import;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.text.Document;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.modules.csl.api.Error;
+import org.netbeans.modules.csl.api.Severity;
+import org.netbeans.modules.csl.spi.DefaultError;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.spi.ParserResultTask;
+import org.netbeans.modules.parsing.spi.Scheduler;
+import org.netbeans.modules.parsing.spi.SchedulerEvent;
+import org.netbeans.modules.parsing.spi.SchedulerTask;
+import org.netbeans.modules.parsing.spi.TaskFactory;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SemanticLintTask represents the task of highlighting the semantic issues
+ * found by the lint rules in a parsed Protobuf file, along with its imports
+ * that cannot be resolved.
+ *
+ * @author mwi
+ */
+public final class SemanticLintTask
+      extends ParserResultTask<ProtobufEditorParserResult> {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(SemanticLintTask.class);
+
+    private static final String LAYER_ID = "protobuf-lint";
+    private static final String ERROR_KEY = "protobuf.lint.error";
+    private static final String IMPORT_KEY = "protobuf.import.error";
+    private static final int PRIORITY = 200;
+
+    private static final LintEngine ENGINE = new LintEngine();
+
+    /**
+     * @effects Makes this be a new task.
+     */
+    private SemanticLintTask() {
+    }
+
+    @Override
+    public void run(ProtobufEditorParserResult result, SchedulerEvent event) {
+        Assert.notNull(result);
+
+        Snapshot snapshot = result.getSnapshot();
+        Document document = snapshot.getSource().getDocument(false);
+
+        if (document == null) {
+            return;
+        }
+
+        LintReport report = ENGINE.run(result.protoFile());
+
+        LOG.debug("run - {}", report);
+
+        List<Error> errors = new ArrayList<>(report.issues().size());
+
+        for (ParsingError issue : report.issues()) {
+            errors.add(new DefaultError(
+                    ERROR_KEY,
+                    issue.message(),
+                    issue.message(),
+                    snapshot.getSource().getFileObject(),
+                    snapshot.getOriginalOffset(issue.startOffset()),
+                    snapshot.getOriginalOffset(issue.endOffset()),
+                    Severity.ERROR));
+        }
+
+        FileObject file = snapshot.getSource().getFileObject();
+
+        if (file != null) {
+            ImportClosure<FileObject> closure = ProtobufImports.resolver()
+                    .closure(file, result.protoFile().imports());
+
+            LOG.debug("run - {}", closure);
+
+            for (Import anImport : closure.unresolved(file)) {
+                String message = String.format(
+                        "Import \"%s\" was not found", anImport.path());
+
+                errors.add(new DefaultError(
+                        IMPORT_KEY,
+                        message,
+                        message,
+                        file,
+                        snapshot.getOriginalOffset(
+                                anImport.location().startOffset()),
+                        snapshot.getOriginalOffset(
+                                anImport.location().endOffset()),
+                        Severity.ERROR));
+            }
+        }
+
+        HintsPublisher.publish(document, LAYER_ID, errors);
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public Class<? extends Scheduler> getSchedulerClass() {
+        return Scheduler.EDITOR_SENSITIVE_TASK_SCHEDULER;
+    }
+
+    @Override
+    public void cancel() {
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Stateless factory responsible for creating semantic lint tasks for
+     * Protobuf.
+     *
+     * @author mwi
+     */
+    @MimeRegistration(
+            mimeType = Protobuf.MIME_TYPE,
+            service = TaskFactory.class)
+    public static final class Factory extends TaskFactory {
+
+        @Override
+        public Collection<? extends SchedulerTask> create(Snapshot snapshot) {
+            return Collections.singleton(new SemanticLintTask());
+        }
+    }  // end Factory
+}
@@ -0,0 +1,114 @@
+package com.marcowillemart.protobuf.editor.imports;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.imports.FileView;
+import com.marcowillemart.protobuf.text.LineEndings;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufFileView represents the view of the Protobuf files of the IDE used
+ * to resolve imports.
+ *
+ * An imported path is looked up, in order, in the configured proto roots, in
+ * the source root owning the importing file and in the folder of the importing
+ * file.
+ *
+ * The text of a file is read with its line endings normalized, as in the
+ * editor, so that the offsets of its model are the ones of its document.
+ *
+ * @author mwi
+ */
+final class ProtobufFileView implements FileView<FileObject> {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufFileView.class);
+
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * @effects Makes this be a new view.
+     */
+    ProtobufFileView() {
+    }
+
+    @Override
+    public FileObject resolve(FileObject importer, String path) {
+        Assert.notNull(importer);
+        Assert.notNull(path);
+
+        for (FileObject root : rootsOf(importer)) {
+            FileObject file = root.getFileObject(path);
+
+            if (file != null && file.isData()) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public long lastModified(FileObject file) {
+        return file.lastModified().getTime();
+    }
+
+    @Override
+    public String text(FileObject file) {
+        if (!file.isValid()) {
+            return null;
+        }
+
+        try {
+            return LineEndings.normalize(file.asText(ENCODING));
+        } catch (IOException ex) {
+            LOG.debug("text - cannot read {}", file.getPath());
+            return null;
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires importer != null
+     * @return the folders in which the paths imported by importer are looked
+     *         up, in order
+     */
+    private static List<FileObject> rootsOf(FileObject importer) {
+        List<FileObject> roots = new ArrayList<>();
+
+        for (String path : ProtobufImports.protoRoots()) {
+            FileObject root =
+                    FileUtil.toFileObject(FileUtil.normalizeFile(new File(path)));
+
+            if (root != null && root.isFolder()) {
+                roots.add(root);
+            }
+        }
+
+        ClassPath sources = ClassPath.getClassPath(importer, ClassPath.SOURCE);
+
+        if (sources != null) {
+            FileObject root = sources.findOwnerRoot(importer);
+
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+
+        if (importer.getParent() != null) {
+            roots.add(importer.getParent());
+        }
+
+        return roots;
+    }
+}
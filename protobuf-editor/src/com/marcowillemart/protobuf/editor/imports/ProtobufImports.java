@@ -0,0 +1,96 @@
+package com.marcowillemart.protobuf.editor.imports;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.imports.ImportResolver;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.prefs.Preferences;
+import org.openide.filesystems.FileObject;
+import org.openide.util.NbPreferences;
+
+/**
+ * ProtobufImports is the entry point to the resolution of the imports of the
+ * Protobuf files of the IDE.
+ *
+ * The proto roots, i.e., the folders given to protoc with --proto_path, are
+ * configured in the Protobuf tab of the editor options, and stored in the
+ * PROTO_ROOTS preference of this module as a list of absolute paths separated
+ * by File.pathSeparator.
+ *
+ * @author mwi
+ */
+public final class ProtobufImports {
+
+    public static final String PROTO_ROOTS = "protoRoots";
+
+    private static final ImportResolver<FileObject> RESOLVER =
+            new ImportResolver<>(new ProtobufFileView());
+
+    /** this cannot be instantiated */
+    private ProtobufImports() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return the resolver shared by all the Protobuf files of the IDE
+     */
+    public static ImportResolver<FileObject> resolver() {
+        return RESOLVER;
+    }
+
+    /**
+     * @return the configured proto roots
+     */
+    public static List<String> protoRoots() {
+        String value = preferences().get(PROTO_ROOTS, "");
+
+        if (value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> roots = new ArrayList<>();
+
+        for (String path : value.split(File.pathSeparator)) {
+            if (!path.trim().isEmpty()) {
+                roots.add(path.trim());
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * @requires roots != null
+     * @modifies preferences of this module, resolver
+     * @effects Configures the proto roots to be roots and clears the results
+     *          memoized by the resolver.
+     */
+    public static void setProtoRoots(List<String> roots) {
+        Assert.noNullElement(roots);
+
+        StringBuilder value = new StringBuilder();
+
+        for (String root : roots) {
+            if (value.length() > 0) {
+                value.append(File.pathSeparator);
+            }
+            value.append(root);
+        }
+
+        preferences().put(PROTO_ROOTS, value.toString());
+        RESOLVER.clear();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the preferences of this module
+     */
+    private static Preferences preferences() {
+        return NbPreferences.forModule(ProtobufImports.class);
+    }
+}
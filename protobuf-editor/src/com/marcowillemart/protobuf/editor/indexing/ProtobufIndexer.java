@@ -0,0 +1,269 @@
+package com.marcowillemart.protobuf.editor.indexing;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import com.marcowillemart.protobuf.index.BatchParser;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Import;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.modules.parsing.spi.indexing.Context;
+import org.netbeans.modules.parsing.spi.indexing.CustomIndexer;
+import org.netbeans.modules.parsing.spi.indexing.CustomIndexerFactory;
+import org.netbeans.modules.parsing.spi.indexing.Indexable;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexDocument;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexingSupport;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.URLMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufIndexer represents the indexer storing the symbols, the package and
+ * the imports of the Protobuf files in the persistent index.
+ *
+ * Each indexed file is described by one document with the following fields:
+ * - FIELD_PACKAGE: the package of the file (searchable and stored);
+ * - FIELD_IMPORT: each imported path (searchable and stored);
+ * - FIELD_FQN: the full name of each symbol (searchable only);
+ * - FIELD_SYMBOL: the encoded form of each symbol (stored only);
+ * - FIELD_REF: each full name a type reference may denote (searchable only);
+ * - FIELD_USAGE: the encoded form of each type usage (stored only).
+ *
+ * FIELD_REF is the inverted index of the type references: the files that may
+ * use a type are found by an exact query of its full name, and their usages
+ * are then verified against the symbols of the index.
+ *
+ * The files of a batch are read sequentially but parsed in parallel, and the
+ * documents are then written sequentially, as required by IndexingSupport.
+ * Since the indexer is notified of each modified file, it also invalidates the
+ * imports memoized for it.
+ *
+ * @author mwi
+ */
+public final class ProtobufIndexer extends CustomIndexer {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufIndexer.class);
+
+    public static final String NAME = "protobuf";
+    public static final int VERSION = 2;
+
+    public static final String FIELD_PACKAGE = "package";
+    public static final String FIELD_IMPORT = "import";
+    public static final String FIELD_FQN = "fqn";
+    public static final String FIELD_SYMBOL = "symbol";
+    public static final String FIELD_REF = "ref";
+    public static final String FIELD_USAGE = "usage";
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final BatchParser PARSER = new BatchParser();
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    /**
+     * @effects Makes this be a new indexer.
+     */
+    private ProtobufIndexer() {
+    }
+
+    @Override
+    protected void index(Iterable<? extends Indexable> files, Context context) {
+        Assert.notNull(files);
+        Assert.notNull(context);
+
+        List<Indexable> indexables = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+
+        for (Indexable indexable : files) {
+            if (context.isCancelled()) {
+                return;
+            }
+
+            FileObject file = URLMapper.findFileObject(indexable.getURL());
+
+            if (file == null || !file.isValid()) {
+                continue;
+            }
+
+            ProtobufImports.resolver().invalidate(file);
+
+            String text = textOf(file);
+
+            if (text != null) {
+                indexables.add(indexable);
+                texts.add(text);
+            }
+        }
+
+        long start = System.nanoTime();
+
+        List<ProtoFile> models = PARSER.parse(texts);
+
+        LOG.debug("index - {} files parsed in {} ms",
+                models.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        IndexingSupport support = supportOf(context);
+
+        for (int i = 0; i < indexables.size(); i++) {
+            if (context.isCancelled()) {
+                return;
+            }
+
+            Indexable indexable = indexables.get(i);
+
+            support.removeDocuments(indexable);
+            support.addDocument(documentOf(support, indexable, models.get(i)));
+        }
+
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return the generation of the index, incremented each time documents
+     *         are added to or removed from the index
+     */
+    public static long generation() {
+        return GENERATION.get();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires context != null
+     * @return the support for writing the index of the root of context
+     */
+    private static IndexingSupport supportOf(Context context) {
+        try {
+            return IndexingSupport.getInstance(context);
+        } catch (IOException ex) {
+            throw new FailureException("ProtobufIndexer.supportOf", ex);
+        }
+    }
+
+    /**
+     * @requires file != null
+     * @return the content of file, or null if it cannot be read
+     */
+    private static String textOf(FileObject file) {
+        try {
+            return file.asText(ENCODING);
+        } catch (IOException ex) {
+            LOG.debug("textOf - cannot read {}", file.getPath());
+            return null;
+        }
+    }
+
+    /**
+     * @requires support != null && indexable != null && model != null
+     * @return the index document describing the file indexable whose model is
+     *         model
+     */
+    private static IndexDocument documentOf(
+            IndexingSupport support,
+            Indexable indexable,
+            ProtoFile model) {
+
+        IndexDocument document = support.createDocument(indexable);
+
+        document.addPair(FIELD_PACKAGE, model.packageName(), true, true);
+
+        for (Import anImport : model.imports()) {
+            document.addPair(FIELD_IMPORT, anImport.path(), true, true);
+        }
+
+        for (IndexedSymbol symbol : IndexedSymbol.of(model)) {
+            document.addPair(FIELD_FQN, symbol.fullName(), true, false);
+            document.addPair(FIELD_SYMBOL, symbol.encode(), false, true);
+        }
+
+        Set<String> candidates = new HashSet<>();
+
+        for (IndexedReference usage : IndexedReference.of(model)) {
+            for (String candidate : usage.candidates()) {
+                if (candidates.add(candidate)) {
+                    document.addPair(FIELD_REF, candidate, true, false);
+                }
+            }
+
+            document.addPair(FIELD_USAGE, usage.encode(), false, true);
+        }
+
+        return document;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Stateless factory responsible for creating Protobuf indexers and for
+     * keeping the index up to date when files are deleted or modified.
+     *
+     * @author mwi
+     */
+    @MimeRegistration(
+            mimeType = Protobuf.MIME_TYPE,
+            service = CustomIndexerFactory.class)
+    public static final class Factory extends CustomIndexerFactory {
+
+        @Override
+        public CustomIndexer createIndexer() {
+            return new ProtobufIndexer();
+        }
+
+        @Override
+        public boolean supportsEmbeddedIndexers() {
+            return false;
+        }
+
+        @Override
+        public void filesDeleted(
+                Iterable<? extends Indexable> deleted,
+                Context context) {
+
+            IndexingSupport support = supportOf(context);
+
+            for (Indexable indexable : deleted) {
+                support.removeDocuments(indexable);
+            }
+
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void filesDirty(
+                Iterable<? extends Indexable> dirty,
+                Context context) {
+
+            IndexingSupport support = supportOf(context);
+
+            for (Indexable indexable : dirty) {
+                support.markDirtyDocuments(indexable);
+            }
+        }
+
+        @Override
+        public String getIndexerName() {
+            return NAME;
+        }
+
+        @Override
+        public int getIndexVersion() {
+            return VERSION;
+        }
+    }  // end Factory
+}
@@ -0,0 +1,39 @@
+package com.marcowillemart.protobuf.editor.indexing;
+
+import com.marcowillemart.protobuf.Protobuf;
+import java.util.Collections;
+import java.util.Set;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.modules.parsing.spi.indexing.PathRecognizer;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * ProtobufPathRecognizer declares that the Protobuf files are found in the
+ * source roots of the projects, so that they are indexed and reindexed when
+ * they change.
+ *
+ * @author mwi
+ */
+@ServiceProvider(service = PathRecognizer.class)
+public final class ProtobufPathRecognizer extends PathRecognizer {
+
+    @Override
+    public Set<String> getSourcePathIds() {
+        return Collections.singleton(ClassPath.SOURCE);
+    }
+
+    @Override
+    public Set<String> getLibraryPathIds() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getBinaryLibraryPathIds() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getMimeTypes() {
+        return Collections.singleton(Protobuf.MIME_TYPE);
+    }
+}
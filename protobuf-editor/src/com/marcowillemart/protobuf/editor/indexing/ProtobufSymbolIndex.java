@@ -0,0 +1,266 @@
+package com.marcowillemart.protobuf.editor.indexing;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexResult;
+import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufSymbolIndex is the entry point to the queries of the symbols stored
+ * in the persistent index by the ProtobufIndexer.
+ *
+ * @author mwi
+ */
+public final class ProtobufSymbolIndex {
+
+    /** this cannot be instantiated */
+    private ProtobufSymbolIndex() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires context != null && fullName != null
+     * @return the symbols whose full name is fullName indexed in the source
+     *         roots visible from context, along with their file
+     */
+    public static List<Pair<FileObject, IndexedSymbol>> find(
+            FileObject context,
+            String fullName) {
+
+        Assert.notNull(context);
+        Assert.notNull(fullName);
+
+        List<Pair<FileObject, IndexedSymbol>> symbols = new ArrayList<>();
+
+        for (IndexResult result : query(context,
+                ProtobufIndexer.FIELD_FQN,
+                fullName,
+                QuerySupport.Kind.EXACT,
+                ProtobufIndexer.FIELD_SYMBOL)) {
+
+            FileObject file = result.getFile();
+
+            if (file == null) {
+                continue;
+            }
+
+            for (String value
+                    : result.getValues(ProtobufIndexer.FIELD_SYMBOL)) {
+
+                IndexedSymbol symbol = IndexedSymbol.decode(value);
+
+                if (symbol != null && symbol.fullName().equals(fullName)) {
+                    symbols.add(new Pair<>(file, symbol));
+                }
+            }
+        }
+
+        return symbols;
+    }
+
+    /**
+     * @requires context != null
+     * @return the messages and enums indexed in the source roots visible from
+     *         context, along with their file
+     */
+    public static List<Pair<FileObject, IndexedSymbol>> findTypes(
+            FileObject context) {
+
+        Assert.notNull(context);
+
+        List<Pair<FileObject, IndexedSymbol>> types = new ArrayList<>();
+
+        for (IndexResult result : query(context,
+                ProtobufIndexer.FIELD_FQN,
+                "",
+                QuerySupport.Kind.PREFIX,
+                ProtobufIndexer.FIELD_SYMBOL)) {
+
+            FileObject file = result.getFile();
+
+            if (file == null) {
+                continue;
+            }
+
+            for (String value
+                    : result.getValues(ProtobufIndexer.FIELD_SYMBOL)) {
+
+                IndexedSymbol symbol = IndexedSymbol.decode(value);
+
+                if (symbol != null && isType(symbol)) {
+                    types.add(new Pair<>(file, symbol));
+                }
+            }
+        }
+
+        return types;
+    }
+
+    /**
+     * @requires context != null
+     * @return the source roots visible from context
+     */
+    public static Collection<FileObject> rootsOf(FileObject context) {
+        Assert.notNull(context);
+
+        return QuerySupport.findRoots(
+                context,
+                Collections.singleton(ClassPath.SOURCE),
+                Collections.<String>emptySet(),
+                Collections.<String>emptySet());
+    }
+
+    /**
+     * @requires context != null && fullName != null
+     * @return the usages of the type whose full name is fullName indexed in
+     *         the source roots visible from context, along with their file
+     */
+    public static List<Pair<FileObject, IndexedReference>> findUsages(
+            FileObject context,
+            String fullName) {
+
+        Assert.notNull(context);
+        Assert.notNull(fullName);
+
+        List<Pair<FileObject, IndexedReference>> usages = new ArrayList<>();
+        IndexTypeTable types = new IndexTypeTable(context);
+
+        for (IndexResult result : query(context,
+                ProtobufIndexer.FIELD_REF,
+                fullName,
+                QuerySupport.Kind.EXACT,
+                ProtobufIndexer.FIELD_USAGE)) {
+
+            FileObject file = result.getFile();
+
+            if (file == null) {
+                continue;
+            }
+
+            for (String value
+                    : result.getValues(ProtobufIndexer.FIELD_USAGE)) {
+
+                IndexedReference usage = IndexedReference.decode(value);
+
+                if (usage != null && usage.resolvesTo(fullName, types)) {
+                    usages.add(new Pair<>(file, usage));
+                }
+            }
+        }
+
+        return usages;
+    }
+
+    /**
+     * @requires context != null
+     * @return the table of the messages and enums indexed in the source roots
+     *         visible from context, whose lookups are memoized
+     */
+    public static TypeTable typeTable(FileObject context) {
+        Assert.notNull(context);
+
+        return new IndexTypeTable(context);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires context != null && field != null && value != null &&
+     *           kind != null
+     * @return the results of the query of the given field and value in the
+     *         source roots visible from context, loading the fields toLoad
+     */
+    private static Collection<? extends IndexResult> query(
+            FileObject context,
+            String field,
+            String value,
+            QuerySupport.Kind kind,
+            String... toLoad) {
+
+        Collection<FileObject> roots = rootsOf(context);
+
+        if (roots.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return QuerySupport.forRoots(
+                    ProtobufIndexer.NAME,
+                    ProtobufIndexer.VERSION,
+                    roots.toArray(new FileObject[roots.size()]))
+                    .query(field, value, kind, toLoad);
+        } catch (IOException ex) {
+            throw new FailureException("ProtobufSymbolIndex.query", ex);
+        }
+    }
+
+    /**
+     * @requires symbol != null
+     * @return true iff symbol is a message or an enum
+     */
+    private static boolean isType(IndexedSymbol symbol) {
+        return symbol.kind() == Kind.MESSAGE || symbol.kind() == Kind.ENUM;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * IndexTypeTable represents the table of the types stored in the index of
+     * the source roots visible from a file. Each lookup is memoized.
+     */
+    private static final class IndexTypeTable implements TypeTable {
+
+        private final FileObject context;
+        private final Map<String, Boolean> types;
+
+        /**
+         * @requires context != null
+         * @effects Makes this be a new table of the types visible from
+         *          context.
+         */
+        IndexTypeTable(FileObject context) {
+            this.context = context;
+            this.types = new HashMap<>();
+        }
+
+        @Override
+        public boolean isType(String fullName) {
+            Boolean known = types.get(fullName);
+
+            if (known == null) {
+                known = false;
+
+                for (Pair<FileObject, IndexedSymbol> symbol
+                        : find(context, fullName)) {
+
+                    if (isType(symbol.right())) {
+                        known = true;
+                        break;
+                    }
+                }
+
+                types.put(fullName, known);
+            }
+
+            return known;
+        }
+    } // end IndexTypeTable
+}
@@ -58,7 +58,7 @@ final class ProtobufEditorLexer implements Lexer<ProtobufTokenId> {
 
         if (token.getType() != ProtobufLexer.EOF) {
             tokenId  = ProtobufTokenIdSet.INSTANCE.get(token.getType());
-            LOG.debug("nextToken - {}", tokenId.toString());
+            LOG.debug("nextToken - {}", tokenId);
         }  else if (info.input().readLength() > 0) {
             // Remaining chars on the input should be tokenized
             // see https://netbeans.org/bugzilla/show_bug.cgi?id=240826
@@ -80,8 +80,19 @@ final class ProtobufEditorLexer implements Lexer<ProtobufTokenId> {
     public void release() {
     }
 
+    /**
+     * @return the state of the lexer, or null if it is in its initial state,
+     *         i.e., in the default mode with no mode pushed, which spares a
+     *         state per token as long as the grammar has a single mode
+     */
     @Override
     public Object state() {
+        if (lexer._mode == ProtobufLexer.DEFAULT_MODE
+                && lexer._modeStack.isEmpty()) {
+
+            return null;
+        }
+
         return new AntlrLexerState(lexer._mode, lexer._modeStack);
     }
 }
@@ -0,0 +1,112 @@
+package com.marcowillemart.protobuf.editor.navigation;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import javax.swing.text.Document;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.modules.csl.api.DeclarationFinder;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufDeclarationFinder represents the finder of the declaration of the
+ * message or enum type whose name is under the caret.
+ *
+ * The name is resolved by the ProtobufTypeResolver, from the persistent index
+ * and the model of the edited file only.
+ *
+ * @author mwi
+ */
+public final class ProtobufDeclarationFinder implements DeclarationFinder {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufDeclarationFinder.class);
+
+    @Override
+    public DeclarationLocation findDeclaration(
+            ParserResult info,
+            int caretOffset) {
+
+        if (!(info instanceof ProtobufEditorParserResult)) {
+            return DeclarationLocation.NONE;
+        }
+
+        long start = System.nanoTime();
+
+        Pair<FileObject, IndexedSymbol> type =
+                ProtobufTypeResolver.referencedType(
+                        (ProtobufEditorParserResult) info, caretOffset);
+
+        LOG.debug("findDeclaration - {} resolved in {} ms",
+                type,
+                (System.nanoTime() - start) / 1_000_000);
+
+        return type == null
+                ? DeclarationLocation.NONE
+                : new DeclarationLocation(type.left(), type.right().offset());
+    }
+
+    @Override
+    public OffsetRange getReferenceSpan(
+            final Document document,
+            final int caretOffset) {
+
+        final OffsetRange[] span = { OffsetRange.NONE };
+
+        document.render(new Runnable() {
+
+            @Override
+            public void run() {
+                TokenSequence<ProtobufTokenId> tokens =
+                        TokenHierarchy.get(document).tokenSequence(
+                                ProtobufLanguageHierarchy.instance());
+
+                if (tokens == null) {
+                    return;
+                }
+
+                tokens.move(caretOffset);
+
+                if (tokens.moveNext() && isIdentifier(tokens)) {
+                    span[0] = spanOf(tokens);
+                } else if (tokens.movePrevious() && isIdentifier(tokens)
+                        && tokens.offset() + tokens.token().length()
+                                == caretOffset) {
+                    span[0] = spanOf(tokens);
+                }
+            }
+        });
+
+        return span[0];
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires tokens is positioned on a token
+     * @return true iff the current token of tokens is an identifier
+     */
+    private static boolean isIdentifier(TokenSequence<ProtobufTokenId> tokens) {
+        return tokens.token().id().ordinal() == ProtobufLexer.Ident;
+    }
+
+    /**
+     * @requires tokens is positioned on a token
+     * @return the range of the current token of tokens
+     */
+    private static OffsetRange spanOf(TokenSequence<ProtobufTokenId> tokens) {
+        return new OffsetRange(
+                tokens.offset(),
+                tokens.offset() + tokens.token().length());
+    }
+}
@@ -0,0 +1,153 @@
+package com.marcowillemart.protobuf.editor.navigation;
+
+import com.marcowillemart.protobuf.editor.completion.ProtobufTypeNames;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.navigation.OccurrenceTable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.netbeans.modules.csl.api.ColoringAttributes;
+import org.netbeans.modules.csl.api.OccurrencesFinder;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.spi.Scheduler;
+import org.netbeans.modules.parsing.spi.SchedulerEvent;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufOccurrencesFinder represents the finder of the occurrences of the
+ * symbol under the caret in the edited file: its declaration and the type
+ * references that denote it.
+ *
+ * The occurrence table of a parsed file is built once and shared by all the
+ * finders, so that a move of the caret costs a binary search and a map lookup.
+ *
+ * @author mwi
+ */
+public final class ProtobufOccurrencesFinder
+        extends OccurrencesFinder<ProtobufEditorParserResult> {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufOccurrencesFinder.class);
+
+    private static final Map<ProtoFile, OccurrenceTable> TABLES =
+            new WeakHashMap<>();
+
+    private static final TypeTable NO_TYPE = new TypeTable() {
+
+        @Override
+        public boolean isType(String fullName) {
+            return false;
+        }
+    };
+
+    private int caretPosition;
+    private Map<OffsetRange, ColoringAttributes> occurrences;
+    private volatile boolean cancelled;
+
+    /**
+     * @effects Makes this be a new finder with no occurrence.
+     */
+    public ProtobufOccurrencesFinder() {
+        this.caretPosition = 0;
+        this.occurrences = Collections.emptyMap();
+        this.cancelled = false;
+    }
+
+    @Override
+    public void setCaretPosition(int position) {
+        this.caretPosition = position;
+    }
+
+    @Override
+    public Map<OffsetRange, ColoringAttributes> getOccurrences() {
+        return occurrences;
+    }
+
+    @Override
+    public void run(ProtobufEditorParserResult result, SchedulerEvent event) {
+        cancelled = false;
+        occurrences = Collections.emptyMap();
+
+        Snapshot snapshot = result.getSnapshot();
+        OccurrenceTable table = tableOf(result);
+
+        String symbol =
+                table.symbolAt(snapshot.getEmbeddedOffset(caretPosition));
+
+        if (symbol == null || cancelled) {
+            return;
+        }
+
+        int[] ranges = table.occurrences(symbol);
+        Map<OffsetRange, ColoringAttributes> found =
+                new HashMap<>(ranges.length);
+
+        for (int i = 0; i < ranges.length; i += 2) {
+            found.put(
+                    new OffsetRange(
+                            snapshot.getOriginalOffset(ranges[i]),
+                            snapshot.getOriginalOffset(ranges[i + 1])),
+                    ColoringAttributes.MARK_OCCURRENCES);
+        }
+
+        occurrences = found;
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public Class<? extends Scheduler> getSchedulerClass() {
+        return Scheduler.CURSOR_SENSITIVE_TASK_SCHEDULER;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires result != null
+     * @return the occurrence table of the model of result, built on first use
+     */
+    private static OccurrenceTable tableOf(ProtobufEditorParserResult result) {
+        ProtoFile model = result.protoFile();
+
+        synchronized (TABLES) {
+            OccurrenceTable table = TABLES.get(model);
+
+            if (table != null) {
+                return table;
+            }
+        }
+
+        long start = System.nanoTime();
+
+        FileObject file = result.getSnapshot().getSource().getFileObject();
+        OccurrenceTable table = OccurrenceTable.of(
+                model,
+                file == null ? NO_TYPE : ProtobufTypeNames.tableFor(file));
+
+        LOG.debug("tableOf - {} occurrences in {} ms",
+                table.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        synchronized (TABLES) {
+            TABLES.put(model, table);
+        }
+
+        return table;
+    }
+}
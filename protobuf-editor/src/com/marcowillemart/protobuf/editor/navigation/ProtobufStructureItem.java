@@ -0,0 +1,221 @@
+package com.marcowillemart.protobuf.editor.navigation;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.navigation.StructureNode;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.swing.ImageIcon;
+import org.netbeans.modules.csl.api.ElementHandle;
+import org.netbeans.modules.csl.api.ElementKind;
+import org.netbeans.modules.csl.api.HtmlFormatter;
+import org.netbeans.modules.csl.api.Modifier;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.csl.api.StructureItem;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufStructureItem represents an immutable item of the navigator of a
+ * Protobuf file, along with the handle to the element it displays.
+ *
+ * Items are equal iff their nodes are equal, i.e., iff they display the same
+ * element, so that the navigator maps the items of a new version of the file
+ * to the tree nodes of the previous one and only refreshes the nodes whose
+ * display changed.
+ *
+ * @specfield file : FileObject                         // The file.
+ * @specfield node : StructureNode                      // The element.
+ * @specfield startOffset : int                         // The offset of the
+ *                                                         element in the file.
+ * @specfield endOffset : int                           // The offset following
+ *                                                         the element.
+ * @specfield nestedItems : List<ProtobufStructureItem> // The items of the
+ *                                                         children of node.
+ *
+ * @author mwi
+ */
+final class ProtobufStructureItem implements StructureItem, ElementHandle {
+
+    private final FileObject file;
+    private final StructureNode node;
+    private final int startOffset;
+    private final int endOffset;
+    private final List<ProtobufStructureItem> nestedItems;
+
+    /*
+     * Representation Invariant:
+     *   node != null
+     *   startOffset <= endOffset
+     *   nestedItems != null && nestedItems.size = node.children.size
+     */
+
+    /**
+     * @requires node != null && startOffset <= endOffset &&
+     *           nestedItems are the items of node.children
+     * @effects Makes this be a new item of node in file.
+     */
+    ProtobufStructureItem(
+            FileObject file,
+            StructureNode node,
+            int startOffset,
+            int endOffset,
+            List<ProtobufStructureItem> nestedItems) {
+
+        Assert.notNull(node);
+        Assert.isTrue(startOffset <= endOffset);
+        Assert.equals(node.children().size(), nestedItems.size());
+
+        this.file = file;
+        this.node = node;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.nestedItems = Collections.unmodifiableList(nestedItems);
+    }
+
+    /**
+     * @return this.node
+     */
+    StructureNode node() {
+        return node;
+    }
+
+    /**
+     * @return a read-only view of this.nestedItems
+     */
+    List<ProtobufStructureItem> nestedItems() {
+        return nestedItems;
+    }
+
+    @Override
+    public String getName() {
+        return node.name();
+    }
+
+    @Override
+    public String getSortText() {
+        return node.name();
+    }
+
+    @Override
+    public String getHtml(HtmlFormatter formatter) {
+        formatter.reset();
+        formatter.appendText(node.name());
+
+        if (!node.detail().isEmpty()) {
+            formatter.type(true);
+            formatter.appendText(node.detail());
+            formatter.type(false);
+        }
+
+        return formatter.getText();
+    }
+
+    @Override
+    public ElementHandle getElementHandle() {
+        return this;
+    }
+
+    @Override
+    public ElementKind getKind() {
+        switch (node.kind()) {
+            case PACKAGE:
+                return ElementKind.PACKAGE;
+            case MESSAGE:
+            case ENUM:
+                return ElementKind.CLASS;
+            case SERVICE:
+                return ElementKind.INTERFACE;
+            case RPC:
+                return ElementKind.METHOD;
+            case ENUM_VALUE:
+                return ElementKind.CONSTANT;
+            default:
+                return ElementKind.FIELD;
+        }
+    }
+
+    @Override
+    public Set<Modifier> getModifiers() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return node.isLeaf();
+    }
+
+    @Override
+    public List<? extends StructureItem> getNestedItems() {
+        return nestedItems;
+    }
+
+    @Override
+    public long getPosition() {
+        return startOffset;
+    }
+
+    @Override
+    public long getEndPosition() {
+        return endOffset;
+    }
+
+    @Override
+    public ImageIcon getCustomIcon() {
+        return null;
+    }
+
+    @Override
+    public FileObject getFileObject() {
+        return file;
+    }
+
+    @Override
+    public String getMimeType() {
+        return Protobuf.MIME_TYPE;
+    }
+
+    @Override
+    public String getIn() {
+        int index = node.fullName().lastIndexOf('.');
+
+        return index < 0 || node.kind() == StructureNode.Kind.PACKAGE
+                ? null
+                : node.fullName().substring(0, index);
+    }
+
+    @Override
+    public boolean signatureEquals(ElementHandle handle) {
+        return handle instanceof ProtobufStructureItem
+                && node.equals(((ProtobufStructureItem) handle).node);
+    }
+
+    @Override
+    public OffsetRange getOffsetRange(ParserResult result) {
+        return new OffsetRange(startOffset, endOffset);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ProtobufStructureItem)) {
+            return false;
+        }
+
+        return node.equals(((ProtobufStructureItem) obj).node);
+    }
+
+    @Override
+    public int hashCode() {
+        return node.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+}
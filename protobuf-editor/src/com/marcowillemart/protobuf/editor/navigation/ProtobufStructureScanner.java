@@ -0,0 +1,148 @@
+package com.marcowillemart.protobuf.editor.navigation;
+
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.navigation.StructureNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.netbeans.modules.csl.api.OffsetRange;
+import org.netbeans.modules.csl.api.StructureItem;
+import org.netbeans.modules.csl.api.StructureScanner;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.api.Source;
+import org.openide.filesystems.FileObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufStructureScanner represents the scanner of the structure of a
+ * Protobuf file displayed by the navigator: its package, messages, enums,
+ * services and rpcs, along with their fields and values and their numbers.
+ *
+ * On each parse, the new structure is compared with the previous structure of
+ * the same source: the items of the elements that did not change are reused
+ * as is, and the items of the other elements are equal to the previous ones,
+ * so that the navigator only refreshes the tree nodes that changed.
+ *
+ * @author mwi
+ */
+public final class ProtobufStructureScanner implements StructureScanner {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufStructureScanner.class);
+
+    private static final Map<Source, List<ProtobufStructureItem>> ITEMS =
+            new WeakHashMap<>();
+
+    @Override
+    public List<? extends StructureItem> scan(ParserResult result) {
+        if (!(result instanceof ProtobufEditorParserResult)) {
+            return Collections.emptyList();
+        }
+
+        long start = System.nanoTime();
+
+        Snapshot snapshot = result.getSnapshot();
+        Source source = snapshot.getSource();
+
+        List<StructureNode> nodes = StructureNode.of(
+                ((ProtobufEditorParserResult) result).protoFile());
+
+        Map<StructureNode, ProtobufStructureItem> previous = new HashMap<>();
+
+        synchronized (ITEMS) {
+            List<ProtobufStructureItem> items = ITEMS.get(source);
+
+            if (items != null) {
+                collect(items, previous);
+            }
+        }
+
+        int size = previous.size();
+        List<ProtobufStructureItem> items = itemsOf(
+                nodes, previous, source.getFileObject(), snapshot);
+
+        synchronized (ITEMS) {
+            ITEMS.put(source, items);
+        }
+
+        LOG.debug("scan - {} top-level items ({} subtrees reused) in {} ms",
+                nodes.size(),
+                size - previous.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return items;
+    }
+
+    @Override
+    public Map<String, List<OffsetRange>> folds(ParserResult result) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        return new Configuration(true, true);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires items != null && previous != null
+     * @modifies previous
+     * @effects Maps in previous the node of each of items and of their nested
+     *          items to its item, keeping the first item of equal nodes.
+     */
+    private static void collect(
+            List<ProtobufStructureItem> items,
+            Map<StructureNode, ProtobufStructureItem> previous) {
+
+        for (ProtobufStructureItem item : items) {
+            if (!previous.containsKey(item.node())) {
+                previous.put(item.node(), item);
+            }
+
+            collect(item.nestedItems(), previous);
+        }
+    }
+
+    /**
+     * @requires nodes != null && previous != null && snapshot != null
+     * @modifies previous
+     * @effects Removes from previous the items that are reused.
+     * @return the items of nodes in file, the item in previous of a node
+     *         being reused iff the node did not change
+     */
+    private static List<ProtobufStructureItem> itemsOf(
+            List<StructureNode> nodes,
+            Map<StructureNode, ProtobufStructureItem> previous,
+            FileObject file,
+            Snapshot snapshot) {
+
+        List<ProtobufStructureItem> items = new ArrayList<>(nodes.size());
+
+        for (StructureNode node : nodes) {
+            ProtobufStructureItem item = previous.get(node);
+
+            if (item != null && item.node().sameAs(node)) {
+                previous.remove(node);
+            } else {
+                item = new ProtobufStructureItem(
+                        file,
+                        node,
+                        snapshot.getOriginalOffset(node.startOffset()),
+                        snapshot.getOriginalOffset(node.endOffset()),
+                        itemsOf(node.children(), previous, file, snapshot));
+            }
+
+            items.add(item);
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,177 @@
+package com.marcowillemart.protobuf.editor.navigation;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufSymbolIndex;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.model.TypeReference;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufTypeResolver is a utility class resolving the message and enum types
+ * designated in a parsed Protobuf file.
+ *
+ * A type name is resolved in the scopes enclosing the reference, from the
+ * innermost to the outermost. In each scope, the definitions of the parsed
+ * file are looked up first, then the symbols of the persistent index declared
+ * in the files visible from the parsed file, i.e., its direct imports and the
+ * files they import publicly. A type declared in no visible file is not
+ * resolved. No other file is parsed.
+ *
+ * @author mwi
+ */
+public final class ProtobufTypeResolver {
+
+    /** this cannot be instantiated */
+    private ProtobufTypeResolver() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires result != null
+     * @return the type whose name or declaration is at the given document
+     *         offset in result, along with the file that declares it, or null
+     *         if there is none or if it cannot be resolved
+     */
+    public static Pair<FileObject, IndexedSymbol> typeAt(
+            ProtobufEditorParserResult result,
+            int documentOffset) {
+
+        Assert.notNull(result);
+
+        Snapshot snapshot = result.getSnapshot();
+        FileObject file = snapshot.getSource().getFileObject();
+
+        if (file == null) {
+            return null;
+        }
+
+        int offset = snapshot.getEmbeddedOffset(documentOffset);
+
+        for (Definition definition : result.protoFile().allDefinitions()) {
+            if (definition.isType()
+                    && definition.location().contains(offset)) {
+
+                return new Pair<>(file, symbolOf(snapshot, definition));
+            }
+        }
+
+        return referencedType(result, documentOffset);
+    }
+
+    /**
+     * @requires result != null
+     * @return the type designated by the name or the prefix of the name of
+     *         the reference at the given document offset in result, along
+     *         with the file that declares it, or null if there is none or if it
+     *         cannot be resolved
+     */
+    public static Pair<FileObject, IndexedSymbol> referencedType(
+            ProtobufEditorParserResult result,
+            int documentOffset) {
+
+        Assert.notNull(result);
+
+        Snapshot snapshot = result.getSnapshot();
+        FileObject file = snapshot.getSource().getFileObject();
+        ProtoFile model = result.protoFile();
+
+        int offset = snapshot.getEmbeddedOffset(documentOffset);
+        TypeReference reference = model.reference(offset);
+
+        if (file == null || reference == null) {
+            return null;
+        }
+
+        Set<FileObject> visible = null;
+
+        for (String candidate : TypeNames.candidates(
+                reference.prefix(offset), reference.scope())) {
+
+            Definition definition = model.definition(candidate);
+
+            if (definition != null && definition.isType()) {
+                return new Pair<>(file, symbolOf(snapshot, definition));
+            }
+
+            List<Pair<FileObject, IndexedSymbol>> symbols =
+                    ProtobufSymbolIndex.find(file, candidate);
+
+            if (symbols.isEmpty()) {
+                continue;
+            }
+
+            if (visible == null) {
+                visible = visibleFiles(file, model);
+            }
+
+            Pair<FileObject, IndexedSymbol> symbol =
+                    preferred(symbols, visible);
+
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+
+        return null;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires snapshot != null && definition.isType()
+     * @return the symbol of definition located in the document of snapshot
+     */
+    private static IndexedSymbol symbolOf(
+            Snapshot snapshot,
+            Definition definition) {
+
+        return new IndexedSymbol(
+                definition.kind(),
+                definition.fullName(),
+                snapshot.getOriginalOffset(
+                        definition.location().startOffset()));
+    }
+
+    /**
+     * @requires file != null && model != null
+     * @return the set of the files visible from file, whose model is model,
+     *         i.e., its direct imports and the files they import publicly
+     */
+    private static Set<FileObject> visibleFiles(
+            FileObject file,
+            ProtoFile model) {
+
+        return new HashSet<>(ProtobufImports.resolver()
+                .closure(file, model.imports()).visibleFiles());
+    }
+
+    /**
+     * @requires symbols != null && visible != null
+     * @return the first symbol declared in a file of visible, or null if
+     *         there is none
+     */
+    private static Pair<FileObject, IndexedSymbol> preferred(
+            List<Pair<FileObject, IndexedSymbol>> symbols,
+            Set<FileObject> visible) {
+
+        for (Pair<FileObject, IndexedSymbol> symbol : symbols) {
+            if (visible.contains(symbol.left())) {
+                return symbol;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,218 @@
+package com.marcowillemart.protobuf.editor.options;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.editor.formatting.ProtobufPasteAction;
+import com.marcowillemart.protobuf.editor.imports.ProtobufImports;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.DefaultListModel;
+import javax.swing.GroupLayout;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import org.openide.awt.Mnemonics;
+import org.openide.filesystems.FileChooserBuilder;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * ProtobufOptionsPanel represents the panel of the Protobuf tab of the editor
+ * options.
+ *
+ * It edits the proto roots used to resolve the imports, i.e., the folders
+ * given to protoc with --proto_path, and whether the pasted fields whose
+ * numbers collide with the ones of their message are renumbered.
+ *
+ * @author mwi
+ */
+@Messages({
+    "LBL_ProtoRoots=&Proto roots (--proto_path):",
+    "BTN_AddProtoRoot=&Add Folder...",
+    "BTN_RemoveProtoRoot=&Remove",
+    "TTL_AddProtoRoot=Add Proto Root",
+    "CHK_RenumberPastedFields="
+            + "Re&number pasted fields whose numbers are already used"
+})
+final class ProtobufOptionsPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ProtobufOptionsPanelController controller;
+
+    private final DefaultListModel<String> roots;
+    private final JList<String> rootList;
+    private final JButton addButton;
+    private final JButton removeButton;
+    private final JCheckBox renumberBox;
+
+    /**
+     * @requires controller != null
+     * @effects Makes this be a new panel notifying controller of its changes.
+     */
+    ProtobufOptionsPanel(ProtobufOptionsPanelController controller) {
+        Assert.notNull(controller);
+
+        this.controller = controller;
+        this.roots = new DefaultListModel<>();
+        this.rootList = new JList<>(roots);
+        this.addButton = new JButton();
+        this.removeButton = new JButton();
+        this.renumberBox = new JCheckBox();
+
+        initComponents();
+    }
+
+    /**
+     * @modifies this
+     * @effects Shows the options stored in the preferences of this module.
+     */
+    void load() {
+        roots.clear();
+
+        for (String root : ProtobufImports.protoRoots()) {
+            roots.addElement(root);
+        }
+
+        renumberBox.setSelected(ProtobufPasteAction.renumbersPastedFields());
+        updateButtons();
+    }
+
+    /**
+     * @modifies preferences of this module
+     * @effects Stores the options shown by this in the preferences of this
+     *          module.
+     */
+    void store() {
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < roots.size(); i++) {
+            paths.add(roots.get(i));
+        }
+
+        if (!paths.equals(ProtobufImports.protoRoots())) {
+            ProtobufImports.setProtoRoots(paths);
+        }
+
+        ProtobufPasteAction.setRenumbersPastedFields(renumberBox.isSelected());
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Lays out the components of this.
+     */
+    private void initComponents() {
+        JLabel rootsLabel = new JLabel();
+        JScrollPane rootsPane = new JScrollPane(rootList);
+
+        Mnemonics.setLocalizedText(rootsLabel, Bundle.LBL_ProtoRoots());
+        Mnemonics.setLocalizedText(addButton, Bundle.BTN_AddProtoRoot());
+        Mnemonics.setLocalizedText(removeButton, Bundle.BTN_RemoveProtoRoot());
+        Mnemonics.setLocalizedText(
+                renumberBox, Bundle.CHK_RenumberPastedFields());
+        rootsLabel.setLabelFor(rootList);
+
+        rootList.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent event) {
+                updateButtons();
+            }
+        });
+        addButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                addRoot();
+            }
+        });
+        removeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                removeRoots();
+            }
+        });
+        renumberBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                controller.changed();
+            }
+        });
+
+        GroupLayout layout = new GroupLayout(this);
+        setLayout(layout);
+        layout.setAutoCreateGaps(true);
+        layout.setAutoCreateContainerGaps(true);
+
+        layout.setHorizontalGroup(layout.createParallelGroup()
+                .addComponent(rootsLabel)
+                .addGroup(layout.createSequentialGroup()
+                        .addComponent(rootsPane)
+                        .addGroup(layout.createParallelGroup()
+                                .addComponent(addButton,
+                                        GroupLayout.DEFAULT_SIZE,
+                                        GroupLayout.DEFAULT_SIZE,
+                                        Short.MAX_VALUE)
+                                .addComponent(removeButton,
+                                        GroupLayout.DEFAULT_SIZE,
+                                        GroupLayout.DEFAULT_SIZE,
+                                        Short.MAX_VALUE)))
+                .addComponent(renumberBox));
+        layout.setVerticalGroup(layout.createSequentialGroup()
+                .addComponent(rootsLabel)
+                .addGroup(layout.createParallelGroup()
+                        .addComponent(rootsPane)
+                        .addGroup(layout.createSequentialGroup()
+                                .addComponent(addButton)
+                                .addComponent(removeButton)))
+                .addComponent(renumberBox));
+    }
+
+    /**
+     * @modifies this, controller
+     * @effects Adds the folder chosen by the user to the shown proto roots.
+     */
+    private void addRoot() {
+        File folder = new FileChooserBuilder(ProtobufOptionsPanel.class)
+                .setTitle(Bundle.TTL_AddProtoRoot())
+                .setDirectoriesOnly(true)
+                .showOpenDialog();
+
+        if (folder != null && !roots.contains(folder.getAbsolutePath())) {
+            roots.addElement(folder.getAbsolutePath());
+            controller.changed();
+        }
+    }
+
+    /**
+     * @modifies this, controller
+     * @effects Removes the selected proto roots from the shown ones.
+     */
+    private void removeRoots() {
+        int[] selected = rootList.getSelectedIndices();
+
+        for (int i = selected.length - 1; i >= 0; i--) {
+            roots.remove(selected[i]);
+        }
+
+        if (selected.length > 0) {
+            controller.changed();
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Enables the remove button iff a proto root is selected.
+     */
+    private void updateButtons() {
+        removeButton.setEnabled(!rootList.isSelectionEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+package com.marcowillemart.protobuf.editor.options;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import javax.swing.JComponent;
+import org.netbeans.spi.options.OptionsPanelController;
+import org.openide.util.HelpCtx;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * ProtobufOptionsPanelController represents the controller of the Protobuf
+ * tab of the editor options.
+ *
+ * @author mwi
+ */
+@OptionsPanelController.SubRegistration(
+        location = "Editor",
+        id = "Protobuf",
+        displayName = "#AdvancedOption_DisplayName_Protobuf",
+        keywords = "#AdvancedOption_Keywords_Protobuf",
+        keywordsCategory = "Editor/Protobuf")
+@Messages({
+    "AdvancedOption_DisplayName_Protobuf=Protobuf",
+    "AdvancedOption_Keywords_Protobuf="
+            + "protobuf proto roots import path paste renumber fields"
+})
+public final class ProtobufOptionsPanelController
+        extends OptionsPanelController {
+
+    private final PropertyChangeSupport support;
+
+    private ProtobufOptionsPanel panel;
+    private boolean changed;
+
+    /**
+     * @effects Makes this be a new controller.
+     */
+    public ProtobufOptionsPanelController() {
+        this.support = new PropertyChangeSupport(this);
+        this.panel = null;
+        this.changed = false;
+    }
+
+    @Override
+    public void update() {
+        panel().load();
+        changed = false;
+    }
+
+    @Override
+    public void applyChanges() {
+        panel().store();
+        changed = false;
+    }
+
+    @Override
+    public void cancel() {
+        // nothing is stored before applyChanges
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    @Override
+    public boolean isChanged() {
+        return changed;
+    }
+
+    @Override
+    public HelpCtx getHelpCtx() {
+        return null;
+    }
+
+    @Override
+    public JComponent getComponent(Lookup masterLookup) {
+        return panel();
+    }
+
+    @Override
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        support.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        support.removePropertyChangeListener(listener);
+    }
+
+    /**
+     * @modifies this
+     * @effects Notifies the listeners of this that the options shown by its
+     *          panel were changed.
+     */
+    void changed() {
+        if (!changed) {
+            changed = true;
+            support.firePropertyChange(PROP_CHANGED, false, true);
+        }
+        support.firePropertyChange(PROP_VALID, null, null);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @return the panel of this, created on first use
+     */
+    private ProtobufOptionsPanel panel() {
+        if (panel == null) {
+            panel = new ProtobufOptionsPanel(this);
+        }
+        return panel;
+    }
+}
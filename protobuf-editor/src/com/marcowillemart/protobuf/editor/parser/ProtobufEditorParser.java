@@ -3,8 +3,11 @@ package com.marcowillemart.protobuf.editor.parser;
 import com.marcowillemart.common.lang.ParsingError;
 import com.marcowillemart.common.lang.ParsingErrorListener;
 import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
 import com.marcowillemart.protobuf.parser.ProtobufLexer;
 import com.marcowillemart.protobuf.parser.ProtobufParser;
+import com.marcowillemart.protobuf.parser.ProtobufParser.ProtoContext;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -14,8 +17,9 @@ import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Lexer;
-import org.antlr.v4.runtime.tree.ParseTree;
 import org.netbeans.modules.csl.api.Error;
+import org.netbeans.modules.csl.api.Severity;
+import org.netbeans.modules.csl.spi.DefaultError;
 import org.netbeans.modules.csl.spi.ParserResult;
 import org.netbeans.modules.parsing.api.Snapshot;
 import org.netbeans.modules.parsing.api.Task;
@@ -30,9 +34,19 @@ import org.netbeans.modules.parsing.spi.SourceModificationEvent;
  */
 public final class ProtobufEditorParser extends Parser {
 
+    /**
+     * The maximum number of errors reported for a file, which can be
+     * configured with the system property protobuf.editor.maxErrors.
+     */
+    private static final int MAX_ERRORS =
+            Math.max(1, Integer.getInteger(
+                    "protobuf.editor.maxErrors",
+                    ParsingErrorListener.DEFAULT_MAX_ERRORS));
+
     private final List<ParsingError> errors;
 
     private Snapshot snapshot;
+    private ProtoFile protoFile;
 
     /**
      * @effects Makes this be a new Protobuf editor parser.
@@ -40,6 +54,7 @@ public final class ProtobufEditorParser extends Parser {
     public ProtobufEditorParser() {
         this.errors = new LinkedList<>();
         this.snapshot = null;
+        this.protoFile = null;
     }
 
     @Override
@@ -60,19 +75,20 @@ public final class ProtobufEditorParser extends Parser {
         ProtobufParser parser = new ProtobufParser(tokens);
 
         parser.removeErrorListeners();
-        ParsingErrorListener listener = new ParsingErrorListener();
+        ParsingErrorListener listener = new ParsingErrorListener(MAX_ERRORS);
         parser.addErrorListener(listener);
 
-        ParseTree tree = parser.proto();
-        // TODO def and ref phases
+        ProtoContext tree = parser.proto();
+        // TODO ref phase
 
+        this.protoFile = ProtoFileBuilder.build(tree);
         this.errors.clear();
         this.errors.addAll(listener.errors());
     }
 
     @Override
     public Result getResult(Task task) throws ParseException {
-        return new ProtobufEditorParserResult(snapshot, errors);
+        return new ProtobufEditorParserResult(snapshot, protoFile, errors);
     }
 
     @Override
@@ -92,21 +108,28 @@ public final class ProtobufEditorParser extends Parser {
      */
     public static final class ProtobufEditorParserResult extends ParserResult {
 
+        private static final String ERROR_KEY = "protobuf.parsing.error";
+
+        private final ProtoFile protoFile;
         private final List<ParsingError> errors;
+        private List<Error> diagnostics;
         private boolean valid;
 
         /**
-         * @requires snapshot != null && parser != null
-         * @effects Makes this be a new result with the given snapshot and
-         *          parsing errors.
+         * @requires snapshot != null && protoFile != null && errors != null
+         * @effects Makes this be a new result with the given snapshot, model
+         *          and parsing errors.
          */
         ProtobufEditorParserResult(
                 Snapshot snapshot,
+                ProtoFile protoFile,
                 List<ParsingError> errors) {
 
             super(snapshot);
 
+            this.protoFile = protoFile;
             this.errors = new ArrayList<>(errors);
+            this.diagnostics = null;
             this.valid = true;
         }
 
@@ -120,14 +143,84 @@ public final class ProtobufEditorParser extends Parser {
             return Collections.unmodifiableList(errors);
         }
 
+        /**
+         * @requires this has not been invalidated yet
+         * @return the model of the parsed file
+         */
+        public ProtoFile protoFile() {
+            Assert.isTrue(valid);
+
+            return protoFile;
+        }
+
         @Override
         protected void invalidate() {
             valid = false;
         }
 
+        /**
+         * @return a read-only view of the errors of this as CSL errors whose
+         *         offsets are those of the original source
+         */
         @Override
-        public List<? extends Error> getDiagnostics() {
-            return Collections.emptyList();
+        public synchronized List<? extends Error> getDiagnostics() {
+            if (diagnostics == null) {
+                diagnostics = new ArrayList<>(errors.size());
+
+                for (ParsingError error : errors) {
+                    diagnostics.add(diagnosticOf(error));
+                }
+            }
+
+            return Collections.unmodifiableList(diagnostics);
+        }
+
+        /**
+         * @requires error != null
+         * @return a new CSL error for the given parsing error
+         */
+        private Error diagnosticOf(ParsingError error) {
+            Snapshot snapshot = getSnapshot();
+
+            int start;
+            int end;
+
+            if (error.hasOffsets()) {
+                start = error.startOffset();
+                end = error.endOffset();
+            } else {
+                start = offsetOf(snapshot.getText(), error.line(), error.col());
+                end = start;
+            }
+
+            return new DefaultError(
+                    ERROR_KEY,
+                    error.message(),
+                    error.message(),
+                    snapshot.getSource().getFileObject(),
+                    snapshot.getOriginalOffset(start),
+                    snapshot.getOriginalOffset(end),
+                    !error.hasOffsets(),
+                    Severity.ERROR);
+        }
+
+        /**
+         * @requires text != null && line > 0 && col > 0
+         * @return the offset in text of the given line and column, bounded by
+         *         the length of text
+         */
+        private static int offsetOf(CharSequence text, int line, int col) {
+            int currentLine = 1;
+            int offset = 0;
+
+            while (currentLine < line && offset < text.length()) {
+                if (text.charAt(offset) == '\n') {
+                    currentLine++;
+                }
+                offset++;
+            }
+
+            return Math.min(offset + col - 1, text.length());
         }
     } // end ProtobufEditorParserResult
 }
@@ -0,0 +1,347 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.editor.navigation.ProtobufTypeResolver;
+import com.marcowillemart.protobuf.editor.parser.ProtobufEditorParser.ProtobufEditorParserResult;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.refactoring.Rename;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.JEditorPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.Document;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.modules.parsing.api.ParserManager;
+import org.netbeans.modules.parsing.api.ResultIterator;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.parsing.api.UserTask;
+import org.netbeans.modules.parsing.spi.ParseException;
+import org.netbeans.modules.parsing.spi.Parser;
+import org.netbeans.modules.refactoring.spi.ui.ActionsImplementationProvider;
+import org.netbeans.modules.refactoring.spi.ui.UI;
+import org.openide.awt.StatusDisplayer;
+import org.openide.cookies.EditorCookie;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Lookup;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.RequestProcessor;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.windows.TopComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufActionsProvider provides the refactoring actions available in the
+ * Protobuf editor.
+ *
+ * The subject of an action is the definition whose name or declaration is
+ * under the caret of the editor. It is looked up by parsing the editor and
+ * querying the index outside the event dispatch thread, under a progress
+ * handle, and the refactoring UI is then opened in the event dispatch thread.
+ *
+ * @author mwi
+ */
+@ServiceProvider(service = ActionsImplementationProvider.class)
+public final class ProtobufActionsProvider
+        extends ActionsImplementationProvider {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufActionsProvider.class);
+
+    private static final String MIME_TYPE_PROP = "mimeType";
+
+    private static final RequestProcessor PROCESSOR =
+            new RequestProcessor(ProtobufActionsProvider.class.getName(), 1);
+
+    @Override
+    public boolean canFindUsages(Lookup lookup) {
+        return editorOf(lookup) != null;
+    }
+
+    @Override
+    @Messages({
+        "LBL_FindingType=Finding the type at the caret",
+        "MSG_NoType=No message or enum type at the caret"
+    })
+    public void doFindUsages(Lookup lookup) {
+        final TopComponent activated =
+                TopComponent.getRegistry().getActivated();
+
+        atCaret(lookup, Bundle.LBL_FindingType(), typeQuery(),
+                new CaretAction<ProtobufTypeHandle>() {
+
+            @Override
+            public void run(ProtobufTypeHandle handle) {
+                if (handle == null) {
+                    StatusDisplayer.getDefault().setStatusText(
+                            Bundle.MSG_NoType());
+                    return;
+                }
+
+                UI.openRefactoringUI(
+                        new ProtobufWhereUsedUI(handle),
+                        activated);
+            }
+        });
+    }
+
+    @Override
+    public boolean canRename(Lookup lookup) {
+        return editorOf(lookup) != null;
+    }
+
+    @Override
+    @Messages({
+        "LBL_FindingRenameable=Finding the definition at the caret",
+        "MSG_NoRenameable="
+                + "No message, enum, service or enum value at the caret"
+    })
+    public void doRename(Lookup lookup) {
+        final TopComponent activated =
+                TopComponent.getRegistry().getActivated();
+
+        atCaret(lookup, Bundle.LBL_FindingRenameable(), renameableQuery(),
+                new CaretAction<ProtobufRenameHandle>() {
+
+            @Override
+            public void run(ProtobufRenameHandle handle) {
+                if (handle == null) {
+                    StatusDisplayer.getDefault().setStatusText(
+                            Bundle.MSG_NoRenameable());
+                    return;
+                }
+
+                UI.openRefactoringUI(
+                        new ProtobufRenameUI(handle),
+                        activated);
+            }
+        });
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires lookup != null
+     * @return the pane of the Protobuf editor of lookup, or null if lookup is
+     *         not the one of a Protobuf editor
+     */
+    static JEditorPane editorOf(Lookup lookup) {
+        EditorCookie editor = lookup.lookup(EditorCookie.class);
+
+        if (editor == null) {
+            return null;
+        }
+
+        JEditorPane[] panes = editor.getOpenedPanes();
+        Document document = editor.getDocument();
+
+        if (panes == null || panes.length == 0 || document == null) {
+            return null;
+        }
+
+        return Protobuf.MIME_TYPE.equals(document.getProperty(MIME_TYPE_PROP))
+                ? panes[0]
+                : null;
+    }
+
+    /**
+     * @return the query of the type at the caret of an editor
+     */
+    private static CaretQuery<ProtobufTypeHandle> typeQuery() {
+        return new CaretQuery<ProtobufTypeHandle>() {
+
+            @Override
+            public ProtobufTypeHandle run(
+                    ProtobufEditorParserResult result,
+                    int caret) {
+
+                Pair<FileObject, IndexedSymbol> type =
+                        ProtobufTypeResolver.typeAt(result, caret);
+
+                return type == null
+                        ? null
+                        : new ProtobufTypeHandle(type.left(), type.right());
+            }
+        };
+    }
+
+    /**
+     * @return the query of the renameable definition at the caret of an
+     *         editor, i.e., a message or an enum declared or referenced at the
+     *         caret, or a service or an enum value declared at the caret
+     */
+    private static CaretQuery<ProtobufRenameHandle> renameableQuery() {
+        return new CaretQuery<ProtobufRenameHandle>() {
+
+            @Override
+            public ProtobufRenameHandle run(
+                    ProtobufEditorParserResult result,
+                    int caret) {
+
+                Snapshot snapshot = result.getSnapshot();
+                FileObject source = snapshot.getSource().getFileObject();
+
+                if (source == null) {
+                    return null;
+                }
+
+                Pair<FileObject, IndexedSymbol> type =
+                        ProtobufTypeResolver.typeAt(result, caret);
+
+                if (type != null) {
+                    return new ProtobufRenameHandle(
+                            type.left(),
+                            type.right().kind(),
+                            type.right().fullName(),
+                            type.right().offset(),
+                            source,
+                            result.protoFile());
+                }
+
+                int offset = snapshot.getEmbeddedOffset(caret);
+
+                for (Definition definition
+                        : result.protoFile().allDefinitions()) {
+
+                    if (Rename.isRenameable(definition.kind())
+                            && definition.location().contains(offset)) {
+
+                        return new ProtobufRenameHandle(
+                                source,
+                                definition.kind(),
+                                definition.fullName(),
+                                snapshot.getOriginalOffset(
+                                        definition.location().startOffset()),
+                                source,
+                                result.protoFile());
+                    }
+                }
+
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @requires lookup != null && title != null && query != null
+     *           && action != null
+     * @effects Answers query on the parser result of the Protobuf editor of
+     *          lookup at its caret, outside the event dispatch thread and
+     *          under a progress handle titled title, then runs action on the
+     *          answer, or on null if there is none, in the event dispatch
+     *          thread.
+     */
+    private static <T> void atCaret(
+            Lookup lookup,
+            final String title,
+            final CaretQuery<T> query,
+            final CaretAction<T> action) {
+
+        JEditorPane pane = editorOf(lookup);
+
+        if (pane == null) {
+            action.run(null);
+            return;
+        }
+
+        final Document document = pane.getDocument();
+        final int caret = pane.getCaretPosition();
+
+        PROCESSOR.post(new Runnable() {
+
+            @Override
+            public void run() {
+                ProgressHandle progress =
+                        ProgressHandleFactory.createHandle(title);
+                progress.start();
+
+                final T answer;
+
+                try {
+                    answer = answer(document, caret, query);
+                } finally {
+                    progress.finish();
+                }
+
+                SwingUtilities.invokeLater(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        action.run(answer);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @requires document != null && query != null
+     * @return the answer of query on the parser result of document at the
+     *         offset caret, or null if there is none
+     */
+    private static <T> T answer(
+            Document document,
+            final int caret,
+            final CaretQuery<T> query) {
+
+        final List<T> answer = new ArrayList<>(1);
+
+        try {
+            ParserManager.parse(
+                    Collections.singleton(Source.create(document)),
+                    new UserTask() {
+
+                @Override
+                public void run(ResultIterator iterator) throws Exception {
+                    Parser.Result result = iterator.getParserResult();
+
+                    if (result instanceof ProtobufEditorParserResult) {
+                        answer.add(query.run(
+                                (ProtobufEditorParserResult) result, caret));
+                    }
+                }
+            });
+        } catch (ParseException ex) {
+            LOG.debug("answer - {}", ex.getMessage());
+        }
+
+        return answer.isEmpty() ? null : answer.get(0);
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * CaretQuery represents a query on the parser result of an editor at its
+     * caret.
+     */
+    private interface CaretQuery<T> {
+
+        /**
+         * @requires result != null
+         * @return the answer of this on result at the document offset caret,
+         *         or null if there is none
+         */
+        T run(ProtobufEditorParserResult result, int caret);
+    } // end CaretQuery
+
+    /**
+     * CaretAction represents an action on the answer of a caret query, run in
+     * the event dispatch thread.
+     */
+    private interface CaretAction<T> {
+
+        /**
+         * @effects Acts on answer, which is null if the query had none.
+         */
+        void run(T answer);
+    } // end CaretAction
+}
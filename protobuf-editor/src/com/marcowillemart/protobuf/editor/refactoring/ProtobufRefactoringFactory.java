@@ -0,0 +1,42 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import org.netbeans.modules.refactoring.api.AbstractRefactoring;
+import org.netbeans.modules.refactoring.api.RenameRefactoring;
+import org.netbeans.modules.refactoring.api.WhereUsedQuery;
+import org.netbeans.modules.refactoring.spi.RefactoringPlugin;
+import org.netbeans.modules.refactoring.spi.RefactoringPluginFactory;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Stateless factory responsible for creating the refactoring plugins of the
+ * definitions of Protobuf.
+ *
+ * @author mwi
+ */
+@ServiceProvider(service = RefactoringPluginFactory.class)
+public final class ProtobufRefactoringFactory
+        implements RefactoringPluginFactory {
+
+    @Override
+    public RefactoringPlugin createInstance(AbstractRefactoring refactoring) {
+        Lookup source = refactoring.getRefactoringSource();
+
+        ProtobufTypeHandle handle = source.lookup(ProtobufTypeHandle.class);
+
+        if (handle != null && refactoring instanceof WhereUsedQuery) {
+            return new ProtobufWhereUsedPlugin(
+                    (WhereUsedQuery) refactoring, handle);
+        }
+
+        ProtobufRenameHandle renameHandle =
+                source.lookup(ProtobufRenameHandle.class);
+
+        if (renameHandle != null && refactoring instanceof RenameRefactoring) {
+            return new ProtobufRenamePlugin(
+                    (RenameRefactoring) refactoring, renameHandle);
+        }
+
+        return null;
+    }
+}
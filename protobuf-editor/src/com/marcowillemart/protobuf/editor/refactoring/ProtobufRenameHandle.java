@@ -0,0 +1,121 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.refactoring.Rename;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufRenameHandle represents an immutable handle to a message, an enum, a
+ * service or an enum value, the subject of a rename refactoring.
+ *
+ * The handle also holds the model of the edited file from which the
+ * refactoring was invoked, as parsed from its document. The usages of that
+ * file are taken from this model rather than from the index, which may be
+ * out of date while the document is modified.
+ *
+ * @specfield file : FileObject      // The file declaring the definition.
+ * @specfield kind : Kind            // The kind of the definition.
+ * @specfield fullName : String      // The full name of the definition.
+ * @specfield offset : int           // The document offset of the name of
+ *                                      the declaration in file.
+ * @specfield source : FileObject    // The edited file.
+ * @specfield sourceModel : ProtoFile // The model of the document of source.
+ *
+ * @author mwi
+ */
+public final class ProtobufRenameHandle {
+
+    private final FileObject file;
+    private final Kind kind;
+    private final String fullName;
+    private final int offset;
+    private final FileObject source;
+    private final ProtoFile sourceModel;
+
+    /**
+     * @requires file != null && Rename.isRenameable(kind) &&
+     *           fullName not empty && offset >= 0 && source != null &&
+     *           sourceModel != null
+     * @effects Makes this be a new handle to the definition of the given kind
+     *          and full name declared at offset in file, for a refactoring
+     *          invoked from source whose model is sourceModel.
+     */
+    public ProtobufRenameHandle(
+            FileObject file,
+            Kind kind,
+            String fullName,
+            int offset,
+            FileObject source,
+            ProtoFile sourceModel) {
+
+        Assert.notNull(file);
+        Assert.isTrue(Rename.isRenameable(kind));
+        Assert.notEmpty(fullName);
+        Assert.isTrue(offset >= 0);
+        Assert.notNull(source);
+        Assert.notNull(sourceModel);
+
+        this.file = file;
+        this.kind = kind;
+        this.fullName = fullName;
+        this.offset = offset;
+        this.source = source;
+        this.sourceModel = sourceModel;
+    }
+
+    /**
+     * @return this.file
+     */
+    public FileObject file() {
+        return file;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.fullName
+     */
+    public String fullName() {
+        return fullName;
+    }
+
+    /**
+     * @return this.offset
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return this.source
+     */
+    public FileObject source() {
+        return source;
+    }
+
+    /**
+     * @return this.sourceModel
+     */
+    public ProtoFile sourceModel() {
+        return sourceModel;
+    }
+
+    /**
+     * @return the simple name of the definition
+     */
+    public String simpleName() {
+        return fullName.substring(fullName.lastIndexOf('.') + 1);
+    }
+
+    @Override
+    public String toString() {
+        return fullName;
+    }
+}
@@ -0,0 +1,109 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import org.netbeans.modules.refactoring.spi.ui.CustomRefactoringPanel;
+import org.openide.awt.Mnemonics;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * ProtobufRenamePanel represents the panel in which the new name of a renamed
+ * definition is entered.
+ *
+ * @author mwi
+ */
+final class ProtobufRenamePanel extends JPanel
+        implements CustomRefactoringPanel {
+
+    private static final int GAP = 12;
+
+    private final String oldName;
+    private final ChangeListener parent;
+    private final JTextField nameField;
+
+    /**
+     * @requires oldName not empty && parent != null
+     * @effects Makes this be a new panel whose new name is initially oldName,
+     *          notifying parent of each change of the new name.
+     */
+    @Messages("LBL_NewName=&New Name:")
+    ProtobufRenamePanel(String oldName, ChangeListener parent) {
+        super(new BorderLayout(GAP, 0));
+
+        Assert.notEmpty(oldName);
+        Assert.notNull(parent);
+
+        this.oldName = oldName;
+        this.parent = parent;
+        this.nameField = new JTextField(oldName);
+
+        JLabel label = new JLabel();
+        Mnemonics.setLocalizedText(label, Bundle.LBL_NewName());
+        label.setLabelFor(nameField);
+
+        add(label, BorderLayout.WEST);
+        add(nameField, BorderLayout.CENTER);
+        setBorder(BorderFactory.createEmptyBorder(GAP, GAP, GAP, GAP));
+    }
+
+    @Override
+    public void initialize() {
+        nameField.getDocument().addDocumentListener(new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent event) {
+                fireChange();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent event) {
+                fireChange();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent event) {
+                fireChange();
+            }
+        });
+
+        nameField.selectAll();
+        nameField.requestFocusInWindow();
+    }
+
+    @Override
+    public Component getComponent() {
+        return this;
+    }
+
+    /**
+     * @return the new name entered in this
+     */
+    String newName() {
+        return nameField.getText().trim();
+    }
+
+    @Override
+    public String toString() {
+        return oldName + " -> " + newName();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @effects Notifies the parent of this that the new name changed.
+     */
+    private void fireChange() {
+        parent.stateChanged(new ChangeEvent(this));
+    }
+}
@@ -0,0 +1,291 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufSymbolIndex;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.refactoring.Rename;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.netbeans.modules.refactoring.api.Problem;
+import org.netbeans.modules.refactoring.api.RenameRefactoring;
+import org.netbeans.modules.refactoring.spi.RefactoringElementsBag;
+import org.netbeans.modules.refactoring.spi.RefactoringPlugin;
+import org.openide.filesystems.FileObject;
+import org.openide.util.NbBundle.Messages;
+
+/**
+ * ProtobufRenamePlugin represents the plugin renaming a message, an enum, a
+ * service or an enum value.
+ *
+ * The usages of a renamed type are found in the inverted type-reference index
+ * maintained by the ProtobufIndexer, except those of the edited file which are
+ * taken from its current model: no file is parsed. Services and enum values
+ * are never referenced by a type name, so only their declaration is renamed.
+ *
+ * The edits are applied by a single transaction, as one atomic edit per file.
+ *
+ * @author mwi
+ */
+final class ProtobufRenamePlugin implements RefactoringPlugin {
+
+    private final RenameRefactoring refactoring;
+    private final ProtobufRenameHandle handle;
+    private final AtomicBoolean cancelled;
+
+    /**
+     * @requires refactoring != null && handle != null
+     * @effects Makes this be a new plugin renaming the definition of handle
+     *          for refactoring.
+     */
+    ProtobufRenamePlugin(
+            RenameRefactoring refactoring,
+            ProtobufRenameHandle handle) {
+
+        Assert.notNull(refactoring);
+        Assert.notNull(handle);
+
+        this.refactoring = refactoring;
+        this.handle = handle;
+        this.cancelled = new AtomicBoolean(false);
+    }
+
+    @Override
+    @Messages({"# {0} - file name",
+        "ERR_ReadOnly=The file {0} is read-only"})
+    public Problem preCheck() {
+        if (!handle.file().canWrite()) {
+            return new Problem(
+                    true, Bundle.ERR_ReadOnly(handle.file().getNameExt()));
+        }
+
+        return null;
+    }
+
+    @Override
+    @Messages({
+        "# {0} - name",
+        "ERR_InvalidName={0} is not a valid identifier",
+        "ERR_SameName=The new name is the current name",
+        "# {0} - full name",
+        "ERR_NameClash={0} is already defined"})
+    public Problem fastCheckParameters() {
+        String newName = refactoring.getNewName();
+
+        if (!Rename.isIdentifier(newName)) {
+            return new Problem(true, Bundle.ERR_InvalidName(newName));
+        }
+
+        if (newName.equals(handle.simpleName())) {
+            return new Problem(true, Bundle.ERR_SameName());
+        }
+
+        Rename rename = renameOf(newName);
+
+        if (isDefinedLocally(rename)) {
+            return new Problem(
+                    true, Bundle.ERR_NameClash(rename.newFullName()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public Problem checkParameters() {
+        Problem problem = fastCheckParameters();
+
+        if (problem != null) {
+            return problem;
+        }
+
+        Rename rename = renameOf(refactoring.getNewName());
+
+        if (rename.isTypeRename()
+                && ProtobufSymbolIndex.typeTable(handle.source())
+                        .isType(rename.newFullName())) {
+
+            return new Problem(
+                    true, Bundle.ERR_NameClash(rename.newFullName()));
+        }
+
+        return null;
+    }
+
+    @Override
+    public void cancelRequest() {
+        cancelled.set(true);
+    }
+
+    @Override
+    @Messages({"# {0} - number of usages",
+        "WRN_StaleUsages={0} usage(s) no longer match the index and were "
+                + "skipped; save the modified files and try again"})
+    public Problem prepare(RefactoringElementsBag elements) {
+        Rename rename = renameOf(refactoring.getNewName());
+        Map<FileObject, SortedMap<Integer, TextEdit>> edits =
+                new LinkedHashMap<>();
+
+        addEdit(edits, handle.file(), rename.declarationEdit(handle.offset()));
+
+        if (rename.isTypeRename()) {
+            TypeTable types = typeTable();
+
+            for (IndexedReference usage
+                    : IndexedReference.of(handle.sourceModel())) {
+
+                addEdit(edits, handle.source(), rename.usageEdit(usage, types));
+            }
+
+            for (Pair<FileObject, IndexedReference> usage
+                    : ProtobufSymbolIndex.findUsages(
+                            handle.source(), handle.fullName())) {
+
+                if (cancelled.get()) {
+                    return null;
+                }
+
+                if (!usage.left().equals(handle.source())) {
+                    addEdit(edits, usage.left(),
+                            rename.usageEdit(usage.right(), types));
+                }
+            }
+        }
+
+        ProtobufUsageElement.Factory factory =
+                new ProtobufUsageElement.Factory();
+        ProtobufRenameTransaction transaction =
+                new ProtobufRenameTransaction();
+        int stale = 0;
+
+        for (Map.Entry<FileObject, SortedMap<Integer, TextEdit>> entry
+                : edits.entrySet()) {
+
+            FileObject file = entry.getKey();
+
+            for (TextEdit edit : entry.getValue().values()) {
+                if (cancelled.get()) {
+                    return null;
+                }
+
+                ProtobufUsageElement element = factory.create(
+                        file, edit.startOffset(), edit.endOffset());
+
+                if (element == null || !rename.oldName().equals(
+                        factory.textOf(file).substring(
+                                edit.startOffset(), edit.endOffset()))) {
+
+                    stale++;
+                    continue;
+                }
+
+                elements.add(refactoring, element);
+                transaction.add(element, edit, rename.oldName());
+            }
+        }
+
+        elements.registerTransaction(transaction);
+
+        return stale == 0
+                ? null
+                : new Problem(false, Bundle.WRN_StaleUsages(stale));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires Rename.isIdentifier(newName)
+     * @return the renaming of the definition of this.handle to newName
+     */
+    private Rename renameOf(String newName) {
+        return new Rename(handle.kind(), handle.fullName(), newName);
+    }
+
+    /**
+     * @return true iff the new name of rename clashes with a definition of
+     *         the edited file, e.g., a sibling message or, for an enum value,
+     *         a value of an enum of the same scope
+     */
+    private boolean isDefinedLocally(Rename rename) {
+        ProtoFile model = handle.sourceModel();
+
+        if (model.definition(rename.newFullName()) != null) {
+            return true;
+        }
+
+        if (rename.kind() != Kind.ENUM_VALUE) {
+            return false;
+        }
+
+        String scope =
+                TypeNames.parentOf(TypeNames.parentOf(handle.fullName()));
+
+        for (Definition definition : model.allDefinitions()) {
+            if (definition.kind() == Kind.ENUM_VALUE
+                    && definition.name().equals(rename.newName())
+                    && TypeNames.parentOf(definition.parent().fullName())
+                            .equals(scope)) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the table of the types defined in the edited file or indexed in
+     *         the source roots visible from it
+     */
+    private TypeTable typeTable() {
+        final ProtoFile model = handle.sourceModel();
+        final TypeTable index = ProtobufSymbolIndex.typeTable(handle.source());
+
+        return new TypeTable() {
+
+            @Override
+            public boolean isType(String fullName) {
+                Definition definition = model.definition(fullName);
+
+                return definition != null && definition.isType()
+                        || index.isType(fullName);
+            }
+        };
+    }
+
+    /**
+     * @modifies edits
+     * @effects Adds edit to the edits of file, unless it is null or an edit
+     *          of file already starts at the same offset.
+     */
+    private static void addEdit(
+            Map<FileObject, SortedMap<Integer, TextEdit>> edits,
+            FileObject file,
+            TextEdit edit) {
+
+        if (edit == null) {
+            return;
+        }
+
+        SortedMap<Integer, TextEdit> fileEdits = edits.get(file);
+
+        if (fileEdits == null) {
+            fileEdits = new TreeMap<>();
+            edits.put(file, fileEdits);
+        }
+
+        if (!fileEdits.containsKey(edit.startOffset())) {
+            fileEdits.put(edit.startOffset(), edit);
+        }
+    }
+}
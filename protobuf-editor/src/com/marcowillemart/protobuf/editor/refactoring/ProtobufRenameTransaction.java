@@ -0,0 +1,297 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.Segment;
+import org.netbeans.modules.refactoring.spi.Transaction;
+import org.openide.awt.StatusDisplayer;
+import org.openide.filesystems.FileObject;
+import org.openide.text.CloneableEditorSupport;
+import org.openide.text.NbDocument;
+import org.openide.util.NbBundle.Messages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ProtobufRenameTransaction represents the transaction applying the edits of
+ * a rename refactoring.
+ *
+ * The edits of each file are applied to its document as a single atomic and
+ * undoable edit, from the last to the first so that the offsets of the
+ * pending edits remain valid. An edit is only applied if its element is
+ * enabled in the refactoring preview. A document that was not modified before
+ * the transaction is saved after it.
+ *
+ * The transaction is all or nothing: if a document no longer contains the
+ * expected text at the range of one of its edits, e.g., because it was
+ * edited since the refactoring was prepared, none of its edits is applied,
+ * the files already renamed are rolled back and the user is told so.
+ *
+ * @specfield changes : FileObject -> List<Change> // The edits of each file,
+ *                                                    sorted by offset.
+ * @specfield applied : FileObject -> List<Change> // The edits undoing the
+ *                                                    last commit.
+ *
+ * @author mwi
+ */
+final class ProtobufRenameTransaction implements Transaction {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(ProtobufRenameTransaction.class);
+
+    private final Map<FileObject, List<Change>> changes;
+    private final Map<FileObject, List<Change>> applied;
+
+    /**
+     * @effects Makes this be a new transaction with no edit.
+     */
+    ProtobufRenameTransaction() {
+        this.changes = new LinkedHashMap<>();
+        this.applied = new LinkedHashMap<>();
+    }
+
+    /**
+     * @requires element != null && edit != null && expected != null &&
+     *           edit follows the edits of element.file already added
+     * @modifies this
+     * @effects Adds edit, replacing expected, to the changes of the file of
+     *          element.
+     */
+    void add(ProtobufUsageElement element, TextEdit edit, String expected) {
+        Assert.notNull(element);
+        Assert.notNull(edit);
+        Assert.notNull(expected);
+
+        List<Change> fileChanges = changes.get(element.getParentFile());
+
+        if (fileChanges == null) {
+            fileChanges = new ArrayList<>();
+            changes.put(element.getParentFile(), fileChanges);
+        }
+
+        fileChanges.add(new Change(element, edit, expected));
+    }
+
+    @Override
+    @Messages({"# {0} - file name",
+        "MSG_StaleFile=Rename rolled back: {0} was modified since the "
+                + "refactoring was prepared"})
+    public void commit() {
+        applied.clear();
+
+        for (Map.Entry<FileObject, List<Change>> entry : changes.entrySet()) {
+            List<Change> enabled = new ArrayList<>();
+
+            for (Change change : entry.getValue()) {
+                if (change.element.isEnabled()) {
+                    enabled.add(change);
+                }
+            }
+
+            if (enabled.isEmpty()) {
+                continue;
+            }
+
+            List<Change> inverse = perform(enabled);
+
+            if (inverse == null) {
+                LOG.warn("commit - {} is stale, rolling back",
+                        entry.getKey());
+
+                rollback();
+
+                StatusDisplayer.getDefault().setStatusText(
+                        Bundle.MSG_StaleFile(entry.getKey().getNameExt()),
+                        StatusDisplayer.IMPORTANCE_ERROR_HIGHLIGHT);
+
+                return;
+            }
+
+            applied.put(entry.getKey(), inverse);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        for (List<Change> inverse : applied.values()) {
+            perform(inverse);
+        }
+
+        applied.clear();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires fileChanges not empty, sorted by offset and in the same file
+     * @effects Applies fileChanges to the document of their file as a single
+     *          atomic edit if the document contains the expected text of
+     *          each of them, else leaves it unchanged.
+     * @return the changes undoing those applied, sorted by offset, or null if
+     *         the document was left unchanged
+     */
+    private static List<Change> perform(final List<Change> fileChanges) {
+        ProtobufUsageElement first = fileChanges.get(0).element;
+        CloneableEditorSupport support =
+                first.getPosition().getBegin().getCloneableEditorSupport();
+
+        final StyledDocument document;
+
+        try {
+            document = support.openDocument();
+        } catch (IOException ex) {
+            throw new FailureException(
+                    "ProtobufRenameTransaction.perform", ex);
+        }
+
+        boolean modified = support.isModified();
+        final boolean[] done = new boolean[1];
+
+        try {
+            NbDocument.runAtomicAsUser(document, new Runnable() {
+
+                @Override
+                public void run() {
+                    if (!matches(document, fileChanges)) {
+                        return;
+                    }
+
+                    for (int i = fileChanges.size() - 1; i >= 0; i--) {
+                        replace(document, fileChanges.get(i));
+                    }
+
+                    done[0] = true;
+                }
+            });
+        } catch (BadLocationException ex) {
+            throw new FailureException(
+                    "ProtobufRenameTransaction.perform", ex);
+        }
+
+        if (!done[0]) {
+            return null;
+        }
+
+        List<Change> inverse = new ArrayList<>();
+        int delta = 0;
+
+        for (int i = 0; i < fileChanges.size(); i++) {
+            inverse.add(fileChanges.get(i).inverse(delta));
+            delta += fileChanges.get(i).delta();
+        }
+
+        if (!modified) {
+            try {
+                support.saveDocument();
+            } catch (IOException ex) {
+                throw new FailureException(
+                        "ProtobufRenameTransaction.perform", ex);
+            }
+        }
+
+        return inverse;
+    }
+
+    /**
+     * @requires document != null && fileChanges != null && document is
+     *           locked
+     * @return true iff document contains the expected text of each of
+     *         fileChanges at its range
+     */
+    private static boolean matches(
+            StyledDocument document,
+            List<Change> fileChanges) {
+
+        Segment text = new Segment();
+
+        try {
+            document.getText(0, document.getLength(), text);
+        } catch (BadLocationException ex) {
+            throw new FailureException(
+                    "ProtobufRenameTransaction.matches", ex);
+        }
+
+        for (Change change : fileChanges) {
+            if (!change.edit.replaces(text, change.expected)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @requires document != null && change != null &&
+     *           change.edit.replaces(document text, change.expected)
+     * @modifies document
+     * @effects Applies change to document.
+     */
+    private static void replace(StyledDocument document, Change change) {
+        TextEdit edit = change.edit;
+
+        try {
+            document.remove(edit.startOffset(), edit.length());
+            document.insertString(edit.startOffset(), edit.text(), null);
+        } catch (BadLocationException ex) {
+            throw new FailureException(
+                    "ProtobufRenameTransaction.replace", ex);
+        }
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Change represents an immutable edit of a refactoring element, along with
+     * the text it is expected to replace.
+     */
+    private static final class Change {
+
+        final ProtobufUsageElement element;
+        final TextEdit edit;
+        final String expected;
+
+        /**
+         * @requires all arguments are not null
+         * @effects Makes this be a new change of element replacing expected
+         *          by edit.
+         */
+        Change(ProtobufUsageElement element, TextEdit edit, String expected) {
+            this.element = element;
+            this.edit = edit;
+            this.expected = expected;
+        }
+
+        /**
+         * @return the change of the document length made by this
+         */
+        int delta() {
+            return edit.text().length() - edit.length();
+        }
+
+        /**
+         * @requires delta is the change of the document length made by the
+         *           changes preceding this
+         * @return the change undoing this once applied
+         */
+        Change inverse(int delta) {
+            int start = edit.startOffset() + delta;
+
+            return new Change(
+                    element,
+                    new TextEdit(start, start + edit.text().length(), expected),
+                    edit.text());
+        }
+    } // end Change
+}
@@ -0,0 +1,93 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import javax.swing.event.ChangeListener;
+import org.netbeans.modules.refactoring.api.AbstractRefactoring;
+import org.netbeans.modules.refactoring.api.Problem;
+import org.netbeans.modules.refactoring.api.RenameRefactoring;
+import org.netbeans.modules.refactoring.spi.ui.CustomRefactoringPanel;
+import org.netbeans.modules.refactoring.spi.ui.RefactoringUI;
+import org.openide.util.HelpCtx;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * ProtobufRenameUI represents the user interface of the renaming of a message,
+ * an enum, a service or an enum value. Its only parameter is the new name.
+ *
+ * @author mwi
+ */
+final class ProtobufRenameUI implements RefactoringUI {
+
+    private final ProtobufRenameHandle handle;
+    private final RenameRefactoring refactoring;
+    private ProtobufRenamePanel panel;
+
+    /**
+     * @requires handle != null
+     * @effects Makes this be a new user interface of the renaming of the
+     *          definition of handle.
+     */
+    ProtobufRenameUI(ProtobufRenameHandle handle) {
+        Assert.notNull(handle);
+
+        this.handle = handle;
+        this.refactoring = new RenameRefactoring(Lookups.singleton(handle));
+        this.refactoring.setNewName(handle.simpleName());
+        this.panel = null;
+    }
+
+    @Override
+    @Messages({"# {0} - full name", "LBL_Rename=Rename {0}"})
+    public String getName() {
+        return Bundle.LBL_Rename(handle.fullName());
+    }
+
+    @Override
+    public String getDescription() {
+        return getName();
+    }
+
+    @Override
+    public boolean isQuery() {
+        return false;
+    }
+
+    @Override
+    public CustomRefactoringPanel getPanel(ChangeListener parent) {
+        if (panel == null) {
+            panel = new ProtobufRenamePanel(handle.simpleName(), parent);
+        }
+
+        return panel;
+    }
+
+    @Override
+    public Problem setParameters() {
+        refactoring.setNewName(panel.newName());
+
+        return refactoring.checkParameters();
+    }
+
+    @Override
+    public Problem checkParameters() {
+        refactoring.setNewName(panel.newName());
+
+        return refactoring.fastCheckParameters();
+    }
+
+    @Override
+    public boolean hasParameters() {
+        return true;
+    }
+
+    @Override
+    public AbstractRefactoring getRefactoring() {
+        return refactoring;
+    }
+
+    @Override
+    public HelpCtx getHelpCtx() {
+        return HelpCtx.DEFAULT_HELP;
+    }
+}
@@ -0,0 +1,67 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufTypeHandle represents an immutable handle to a message or an enum
+ * type, the subject of a refactoring.
+ *
+ * @specfield file : FileObject      // The file declaring the type.
+ * @specfield symbol : IndexedSymbol // The type.
+ *
+ * @author mwi
+ */
+public final class ProtobufTypeHandle {
+
+    private final FileObject file;
+    private final IndexedSymbol symbol;
+
+    /**
+     * @requires file != null && symbol != null
+     * @effects Makes this be a new handle to symbol declared in file.
+     */
+    public ProtobufTypeHandle(FileObject file, IndexedSymbol symbol) {
+        Assert.notNull(file);
+        Assert.notNull(symbol);
+
+        this.file = file;
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return this.file
+     */
+    public FileObject file() {
+        return file;
+    }
+
+    /**
+     * @return this.symbol
+     */
+    public IndexedSymbol symbol() {
+        return symbol;
+    }
+
+    /**
+     * @return the full name of this.symbol
+     */
+    public String fullName() {
+        return symbol.fullName();
+    }
+
+    /**
+     * @return the simple name of this.symbol
+     */
+    public String simpleName() {
+        String fullName = symbol.fullName();
+
+        return fullName.substring(fullName.lastIndexOf('.') + 1);
+    }
+
+    @Override
+    public String toString() {
+        return symbol.fullName();
+    }
+}
@@ -0,0 +1,251 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.text.LineEndings;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import org.netbeans.modules.refactoring.spi.SimpleRefactoringElementImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.loaders.DataObject;
+import org.openide.text.CloneableEditorSupport;
+import org.openide.text.PositionBounds;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * ProtobufUsageElement represents an element of a refactoring located at a
+ * usage or at the declaration of a name.
+ *
+ * @specfield file : FileObject          // The file of the element.
+ * @specfield startOffset : int          // The offset of the first character
+ *                                          of the name.
+ * @specfield endOffset : int            // The offset following the name.
+ * @specfield line : String              // The line of the name.
+ *
+ * @author mwi
+ */
+class ProtobufUsageElement extends SimpleRefactoringElementImplementation {
+
+    private static final String ENCODING = "UTF-8";
+
+    private final FileObject file;
+    private final int startOffset;
+    private final int endOffset;
+    private final PositionBounds bounds;
+    private final String line;
+    private final int lineStart;
+
+    /**
+     * @requires all arguments are not null &&
+     *           lineStart <= startOffset <= endOffset
+     * @effects Makes this be a new element located at
+     *          [startOffset..endOffset[ in file, whose line starting at
+     *          lineStart is line.
+     */
+    ProtobufUsageElement(
+            FileObject file,
+            int startOffset,
+            int endOffset,
+            PositionBounds bounds,
+            String line,
+            int lineStart) {
+
+        this.file = file;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.bounds = bounds;
+        this.line = line;
+        this.lineStart = lineStart;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    int endOffset() {
+        return endOffset;
+    }
+
+    @Override
+    public String getText() {
+        return line.trim();
+    }
+
+    @Override
+    public String getDisplayText() {
+        int start = Math.min(startOffset - lineStart, line.length());
+        int end = Math.min(endOffset - lineStart, line.length());
+
+        return escape(line.substring(0, start)).replaceFirst("^\\s+", "")
+                + "<b>" + escape(line.substring(start, end)) + "</b>"
+                + escape(line.substring(end));
+    }
+
+    @Override
+    public void performChange() {
+    }
+
+    @Override
+    public Lookup getLookup() {
+        return Lookups.singleton(file);
+    }
+
+    @Override
+    public FileObject getParentFile() {
+        return file;
+    }
+
+    @Override
+    public PositionBounds getPosition() {
+        return bounds;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires text != null
+     * @return text where the HTML special characters are escaped
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;");
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Factory responsible for creating usage elements. The content and the
+     * editor support of each file are loaded once per factory, the content of
+     * an opened file being the one of its document.
+     *
+     * @author mwi
+     */
+    static final class Factory {
+
+        private final Map<FileObject, String> texts;
+        private final Map<FileObject, CloneableEditorSupport> supports;
+
+        /**
+         * @effects Makes this be a new factory.
+         */
+        Factory() {
+            this.texts = new HashMap<>();
+            this.supports = new HashMap<>();
+        }
+
+        /**
+         * @requires file != null && usage != null
+         * @return a new element located at usage in file, or null if file
+         *         cannot be read or is no longer consistent with the index
+         */
+        ProtobufUsageElement create(FileObject file, IndexedReference usage) {
+            Assert.notNull(usage);
+
+            return create(file, usage.startOffset(), usage.endOffset());
+        }
+
+        /**
+         * @requires file != null && 0 <= startOffset <= endOffset
+         * @return a new element located at [startOffset..endOffset[ in file,
+         *         or null if file cannot be read or is too short
+         */
+        ProtobufUsageElement create(
+                FileObject file,
+                int startOffset,
+                int endOffset) {
+
+            Assert.notNull(file);
+            Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+
+            String text = textOf(file);
+            CloneableEditorSupport support = supportOf(file);
+
+            if (text == null || support == null || endOffset > text.length()) {
+                return null;
+            }
+
+            int lineStart = text.lastIndexOf('\n', startOffset - 1) + 1;
+            int lineEnd = text.indexOf('\n', endOffset);
+
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+
+            PositionBounds bounds = new PositionBounds(
+                    support.createPositionRef(
+                            startOffset, Position.Bias.Forward),
+                    support.createPositionRef(
+                            endOffset, Position.Bias.Backward));
+
+            return new ProtobufUsageElement(
+                    file,
+                    startOffset,
+                    endOffset,
+                    bounds,
+                    text.substring(lineStart, lineEnd),
+                    lineStart);
+        }
+
+        /**
+         * @requires file != null
+         * @return the content of file, or null if it cannot be read
+         */
+        String textOf(FileObject file) {
+            if (!texts.containsKey(file)) {
+                CloneableEditorSupport support = supportOf(file);
+                Document document =
+                        support == null ? null : support.getDocument();
+                String text = null;
+
+                try {
+                    text = document != null
+                            ? document.getText(0, document.getLength())
+                            : LineEndings.normalize(file.asText(ENCODING));
+                } catch (IOException | BadLocationException ex) {
+                    // the file is skipped
+                }
+
+                texts.put(file, text);
+            }
+
+            return texts.get(file);
+        }
+
+        /**
+         * @requires file != null
+         * @return the editor support of file, or null if there is none
+         */
+        private CloneableEditorSupport supportOf(FileObject file) {
+            if (!supports.containsKey(file)) {
+                CloneableEditorSupport support = null;
+
+                try {
+                    support = DataObject.find(file).getLookup()
+                            .lookup(CloneableEditorSupport.class);
+                } catch (IOException ex) {
+                    // the file is skipped
+                }
+
+                supports.put(file, support);
+            }
+
+            return supports.get(file);
+        }
+    } // end Factory
+}
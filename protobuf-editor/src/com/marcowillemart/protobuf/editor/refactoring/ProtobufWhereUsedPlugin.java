@@ -0,0 +1,89 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.editor.indexing.ProtobufSymbolIndex;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.netbeans.modules.refactoring.api.Problem;
+import org.netbeans.modules.refactoring.api.WhereUsedQuery;
+import org.netbeans.modules.refactoring.spi.RefactoringElementsBag;
+import org.netbeans.modules.refactoring.spi.RefactoringPlugin;
+import org.openide.filesystems.FileObject;
+
+/**
+ * ProtobufWhereUsedPlugin represents the plugin finding the usages of a
+ * message or an enum type, i.e., the fields, the rpc inputs and the rpc
+ * outputs that reference it.
+ *
+ * The usages are found in the inverted type-reference index maintained by the
+ * ProtobufIndexer: no file is parsed.
+ *
+ * @author mwi
+ */
+final class ProtobufWhereUsedPlugin implements RefactoringPlugin {
+
+    private final WhereUsedQuery query;
+    private final ProtobufTypeHandle handle;
+    private final AtomicBoolean cancelled;
+
+    /**
+     * @requires query != null && handle != null
+     * @effects Makes this be a new plugin finding the usages of the type of
+     *          handle for query.
+     */
+    ProtobufWhereUsedPlugin(WhereUsedQuery query, ProtobufTypeHandle handle) {
+        Assert.notNull(query);
+        Assert.notNull(handle);
+
+        this.query = query;
+        this.handle = handle;
+        this.cancelled = new AtomicBoolean(false);
+    }
+
+    @Override
+    public Problem preCheck() {
+        return null;
+    }
+
+    @Override
+    public Problem checkParameters() {
+        return null;
+    }
+
+    @Override
+    public Problem fastCheckParameters() {
+        return null;
+    }
+
+    @Override
+    public void cancelRequest() {
+        cancelled.set(true);
+    }
+
+    @Override
+    public Problem prepare(RefactoringElementsBag elements) {
+        List<Pair<FileObject, IndexedReference>> usages =
+                ProtobufSymbolIndex.findUsages(
+                        handle.file(), handle.fullName());
+
+        ProtobufUsageElement.Factory factory =
+                new ProtobufUsageElement.Factory();
+
+        for (Pair<FileObject, IndexedReference> usage : usages) {
+            if (cancelled.get()) {
+                return null;
+            }
+
+            ProtobufUsageElement element =
+                    factory.create(usage.left(), usage.right());
+
+            if (element != null) {
+                elements.add(query, element);
+            }
+        }
+
+        return null;
+    }
+}
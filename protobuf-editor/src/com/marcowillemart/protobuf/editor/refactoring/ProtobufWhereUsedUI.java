@@ -0,0 +1,82 @@
+package com.marcowillemart.protobuf.editor.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import javax.swing.event.ChangeListener;
+import org.netbeans.modules.refactoring.api.AbstractRefactoring;
+import org.netbeans.modules.refactoring.api.Problem;
+import org.netbeans.modules.refactoring.api.WhereUsedQuery;
+import org.netbeans.modules.refactoring.spi.ui.CustomRefactoringPanel;
+import org.netbeans.modules.refactoring.spi.ui.RefactoringUI;
+import org.openide.util.HelpCtx;
+import org.openide.util.NbBundle.Messages;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * ProtobufWhereUsedUI represents the user interface of the query of the
+ * usages of a message or an enum type. The query has no parameter.
+ *
+ * @author mwi
+ */
+final class ProtobufWhereUsedUI implements RefactoringUI {
+
+    private final ProtobufTypeHandle handle;
+    private final WhereUsedQuery query;
+
+    /**
+     * @requires handle != null
+     * @effects Makes this be a new user interface of the query of the usages
+     *          of the type of handle.
+     */
+    ProtobufWhereUsedUI(ProtobufTypeHandle handle) {
+        Assert.notNull(handle);
+
+        this.handle = handle;
+        this.query = new WhereUsedQuery(Lookups.singleton(handle));
+    }
+
+    @Override
+    @Messages({"# {0} - type name", "LBL_WhereUsed=Usages of {0}"})
+    public String getName() {
+        return Bundle.LBL_WhereUsed(handle.fullName());
+    }
+
+    @Override
+    public String getDescription() {
+        return getName();
+    }
+
+    @Override
+    public boolean isQuery() {
+        return true;
+    }
+
+    @Override
+    public CustomRefactoringPanel getPanel(ChangeListener parent) {
+        return null;
+    }
+
+    @Override
+    public Problem setParameters() {
+        return null;
+    }
+
+    @Override
+    public Problem checkParameters() {
+        return null;
+    }
+
+    @Override
+    public boolean hasParameters() {
+        return false;
+    }
+
+    @Override
+    public AbstractRefactoring getRefactoring() {
+        return query;
+    }
+
+    @Override
+    public HelpCtx getHelpCtx() {
+        return HelpCtx.DEFAULT_HELP;
+    }
+}
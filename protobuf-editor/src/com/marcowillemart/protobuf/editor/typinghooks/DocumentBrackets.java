@@ -0,0 +1,225 @@
+package com.marcowillemart.protobuf.editor.typinghooks;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufTokenId;
+import com.marcowillemart.protobuf.typing.BracketIndex;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenHierarchyEvent;
+import org.netbeans.api.lexer.TokenHierarchyEventType;
+import org.netbeans.api.lexer.TokenHierarchyListener;
+import org.netbeans.api.lexer.TokenSequence;
+
+/**
+ * DocumentBrackets represents the brackets of a Protobuf document, as needed
+ * to decide whether a typed bracket must be completed or skipped.
+ *
+ * The brackets are indexed in the background by the analysis of the
+ * document, out of its lock, and the index is then updated from the region
+ * of each change of the tokens of the document. A change that cannot be
+ * located, e.g., a change of the language of the document, schedules the
+ * indexing again. The brackets are never indexed while typing: until the
+ * index is ready, every typed opening bracket is completed and the closing
+ * brackets are only checked against the positions they were inserted at. The
+ * pairs of brackets completed while typing are tracked with positions of the
+ * document, so that only the closing brackets that were inserted
+ * automatically are skipped when typed over.
+ *
+ * @author mwi
+ */
+final class DocumentBrackets implements TokenHierarchyListener {
+
+    private static final int MAX_AUTO_PAIRS = 16;
+
+    private final Document document;
+    private BracketIndex index;
+    private final List<Position[]> autoPairs;
+    private boolean scanned;
+
+    /*
+     * Representation Invariant:
+     *   document != null && index != null && autoPairs != null
+     *   scanned => index indexes the brackets of the tokens of document
+     *   autoPairs = [opening, closing] positions of the pairs of brackets
+     *   completed while typing, most recent last
+     *   autoPairs.size <= MAX_AUTO_PAIRS
+     */
+
+    /**
+     * @requires document != null
+     * @effects Makes this be the brackets of document, not indexed yet.
+     */
+    private DocumentBrackets(Document document) {
+        this.document = document;
+        this.index = new BracketIndex();
+        this.autoPairs = new ArrayList<>();
+        this.scanned = false;
+    }
+
+    /**
+     * @requires document != null
+     * @modifies document
+     * @effects Attaches brackets to document if it has none yet.
+     * @return the brackets of document
+     */
+    static DocumentBrackets of(Document document) {
+        Assert.notNull(document);
+
+        synchronized (document) {
+            DocumentBrackets brackets = (DocumentBrackets)
+                    document.getProperty(DocumentBrackets.class);
+
+            if (brackets == null) {
+                brackets = new DocumentBrackets(document);
+                document.putProperty(DocumentBrackets.class, brackets);
+                TokenHierarchy.get(document)
+                        .addTokenHierarchyListener(brackets);
+            }
+
+            return brackets;
+        }
+    }
+
+    /**
+     * @return true iff the brackets of the document of this are indexed
+     */
+    synchronized boolean isIndexed() {
+        return scanned;
+    }
+
+    /**
+     * @requires index != null && index indexes the brackets of the tokens of
+     *           the document of this && the caller holds a lock on the
+     *           document
+     * @modifies this
+     * @effects Makes index be the index of the brackets of this.
+     */
+    synchronized void indexed(BracketIndex index) {
+        Assert.notNull(index);
+
+        this.index = index;
+        this.scanned = true;
+    }
+
+    /**
+     * @requires type is the type of an opening bracket && 0 <= offset &&
+     *           the caller holds a lock on the document of this
+     * @return true iff an opening bracket of the given type typed at offset
+     *         must be completed, i.e., iff it would not match a closing
+     *         bracket that is unmatched so far or the brackets are not
+     *         indexed yet
+     */
+    synchronized boolean needsClosing(int type, int offset) {
+        return !scanned || !index.closesUnmatched(type, offset);
+    }
+
+    /**
+     * @requires the brackets at opening and opening + 1 were just inserted
+     *           while typing
+     * @modifies this
+     * @effects Tracks the given pair of brackets as completed while typing.
+     */
+    synchronized void autoClosed(int opening) {
+        try {
+            autoPairs.add(new Position[] {
+                document.createPosition(opening),
+                document.createPosition(opening + 1)
+            });
+        } catch (BadLocationException ex) {
+            throw new FailureException("DocumentBrackets.autoClosed", ex);
+        }
+
+        if (autoPairs.size() > MAX_AUTO_PAIRS) {
+            autoPairs.remove(0);
+        }
+    }
+
+    /**
+     * @requires 0 <= offset && the caller holds a lock on the document of
+     *           this
+     * @modifies this
+     * @return true iff the bracket at offset is a closing bracket that was
+     *         inserted while typing and still pairs with its opening bracket,
+     *         as far as the brackets are indexed, which stops being tracked
+     */
+    synchronized boolean skipsClosing(int offset) {
+        Iterator<Position[]> pairs = autoPairs.iterator();
+
+        while (pairs.hasNext()) {
+            Position[] pair = pairs.next();
+            int opening = pair[0].getOffset();
+            int closing = pair[1].getOffset();
+
+            if (opening >= closing
+                    || scanned && !index.pairs(opening, closing)) {
+
+                pairs.remove();
+            } else if (closing == offset) {
+                pairs.remove();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public synchronized void tokenHierarchyChanged(TokenHierarchyEvent event) {
+        if (!scanned) {
+            return;
+        }
+
+        if (event.type() != TokenHierarchyEventType.MODIFICATION
+                && event.type() != TokenHierarchyEventType.RELEX) {
+
+            scanned = false;
+            DocumentRegions.of(document).reschedule();
+            return;
+        }
+
+        int start = Math.min(
+                event.affectedStartOffset(), event.modificationOffset());
+        int end = Math.max(
+                event.affectedEndOffset(),
+                event.modificationOffset() + event.insertedLength());
+
+        index.remove(
+                start, end - event.insertedLength() + event.removedLength());
+        index.insert(start, end - start);
+        scan(start, end);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Adds the brackets of the document starting in [from..to[ to
+     *          the index of this.
+     */
+    private void scan(int from, int to) {
+        TokenSequence<ProtobufTokenId> sequence =
+                TokenHierarchy.get(document).tokenSequence(
+                        ProtobufLanguageHierarchy.instance());
+
+        if (sequence == null) {
+            return;
+        }
+
+        sequence.move(from);
+
+        while (sequence.moveNext() && sequence.offset() < to) {
+            if (sequence.offset() >= from) {
+                index.add(sequence.token().id().ordinal(), sequence.offset());
+            }
+        }
+    }
+}
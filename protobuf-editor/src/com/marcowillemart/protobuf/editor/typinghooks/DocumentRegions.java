@@ -0,0 +1,301 @@
+package com.marcowillemart.protobuf.editor.typinghooks;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.typing.BracketIndex;
+import com.marcowillemart.protobuf.typing.TokenRegions;
+import com.marcowillemart.protobuf.typing.TypingDocument;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import org.openide.util.RequestProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * DocumentRegions represents the analysis of a Protobuf document needed by
+ * the typing hooks, i.e., the snapshot of the regions of its string literals
+ * and comments, together with the index of its brackets.
+ *
+ * The snapshot is patched for each change of the document in constant time,
+ * and relexed around the changes when a keystroke reads it, so that a
+ * keystroke never walks the whole document and yet knows the string literals
+ * and comments typed since. A background task, scheduled after each change
+ * and postponed while the changes keep coming but for at most MAX_DELAY after
+ * the first of them, relexes the snapshot around the changes no keystroke
+ * read, under the read lock of the document, so that they do not pile up.
+ *
+ * The document is only analyzed as a whole when it is first analyzed or its
+ * brackets must be indexed again: its text is then copied under its read
+ * lock, lexed out of it, and the result is published unless the document was
+ * changed meanwhile, in which case the analysis is scheduled again.
+ *
+ * @author mwi
+ */
+final class DocumentRegions implements DocumentListener {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(DocumentRegions.class);
+
+    private static final RequestProcessor PROCESSOR =
+            new RequestProcessor(DocumentRegions.class.getName(), 1);
+
+    private static final int DELAY = 100;
+    private static final int MAX_DELAY = 500;
+    private static final long NONE = -1;
+
+    private final Document document;
+    private final RequestProcessor.Task task;
+    private TokenRegions snapshot;
+    private long pendingSince;
+    private int changes;
+
+    /*
+     * Representation Invariant:
+     *   document != null && task != null
+     *   snapshot = null || snapshot is the last published snapshot of the
+     *   regions of document, patched or relexed for the changes of document
+     *   since
+     *   pendingSince = the time in ms of the first change of document since
+     *   the last update ran, or NONE if there is none
+     *   changes = the number of changes of document since this was made,
+     *   modulo 2^32
+     */
+
+    /**
+     * @requires document != null
+     * @effects Makes this be the analysis of document, not published yet.
+     */
+    private DocumentRegions(Document document) {
+        this.document = document;
+        this.task = PROCESSOR.create(new Runnable() {
+
+            @Override
+            public void run() {
+                refresh();
+            }
+        });
+        this.snapshot = null;
+        this.pendingSince = NONE;
+        this.changes = 0;
+    }
+
+    /**
+     * @requires document != null
+     * @modifies document
+     * @effects Attaches an analysis to document if it has none yet, and
+     *          schedules its first update.
+     * @return the analysis of document
+     */
+    static DocumentRegions of(Document document) {
+        Assert.notNull(document);
+
+        synchronized (document) {
+            DocumentRegions regions = (DocumentRegions)
+                    document.getProperty(DocumentRegions.class);
+
+            if (regions == null) {
+                regions = new DocumentRegions(document);
+                document.putProperty(DocumentRegions.class, regions);
+                document.addDocumentListener(regions);
+                regions.task.schedule(0);
+            }
+
+            return regions;
+        }
+    }
+
+    /**
+     * @requires the caller holds a lock on the document of this
+     * @modifies this
+     * @return the document of this as seen by the latest published snapshot,
+     *         relexed around the changes made since, or null if no snapshot
+     *         was published yet; it is only valid until the next change of
+     *         the document
+     */
+    synchronized TypingDocument document() {
+        if (snapshot == null || snapshot.length() != document.getLength()) {
+            return null;
+        }
+
+        return new TypingDocument(new DocumentText(document), snapshot);
+    }
+
+    /**
+     * @modifies this
+     * @effects Schedules the update of the analysis of this, e.g., after a
+     *          change of the tokens of the document that no edit accounts
+     *          for.
+     */
+    synchronized void reschedule() {
+        schedule();
+    }
+
+    @Override
+    public synchronized void insertUpdate(DocumentEvent event) {
+        edited(event.getOffset(), 0, event.getLength());
+    }
+
+    @Override
+    public synchronized void removeUpdate(DocumentEvent event) {
+        edited(event.getOffset(), event.getLength(), 0);
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent event) {
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Patches the snapshot of this for the given change of the
+     *          document, and schedules the update of the analysis.
+     */
+    private void edited(int offset, int removedLength, int insertedLength) {
+        if (snapshot != null) {
+            snapshot.edit(offset, removedLength, insertedLength);
+        }
+
+        changes++;
+        schedule();
+    }
+
+    /**
+     * @modifies this
+     * @effects Schedules the update of the analysis in DELAY, or sooner so
+     *          that it runs at most MAX_DELAY after the first change since
+     *          it last ran.
+     */
+    private void schedule() {
+        long now = System.currentTimeMillis();
+
+        if (pendingSince == NONE) {
+            pendingSince = now;
+        }
+
+        task.schedule((int) Math.max(0,
+                Math.min(DELAY, pendingSince + MAX_DELAY - now)));
+    }
+
+    /**
+     * @modifies this
+     * @effects Relexes the snapshot of this around the changes of the
+     *          document, or analyzes the whole document if there is no
+     *          snapshot yet or its brackets are not indexed.
+     */
+    private void refresh() {
+        long start = System.nanoTime();
+        DocumentBrackets brackets = DocumentBrackets.of(document);
+
+        if (!brackets.isIndexed() || !relex()) {
+            analyze(brackets);
+        }
+
+        LOG.debug("refresh - {} chars in {} ms",
+                document.getLength(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @modifies this
+     * @effects Relexes the snapshot of this around the changes of the
+     *          document, under the read lock of the document.
+     * @return false iff there is no snapshot to relex
+     */
+    private boolean relex() {
+        final boolean[] relexed = new boolean[1];
+
+        document.render(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (DocumentRegions.this) {
+                    if (snapshot == null
+                            || snapshot.length() != document.getLength()) {
+
+                        return;
+                    }
+
+                    snapshot.relex(new DocumentText(document));
+                    pendingSince = NONE;
+                    relexed[0] = true;
+                }
+            }
+        });
+
+        return relexed[0];
+    }
+
+    /**
+     * @requires brackets are the ones of the document of this
+     * @modifies this, brackets
+     * @effects Publishes the snapshot of the regions of the document and the
+     *          index of its brackets, built from a copy of its text taken
+     *          under its read lock, or schedules the update of the analysis
+     *          again if the document was changed since the copy.
+     */
+    private void analyze(final DocumentBrackets brackets) {
+        final String[] text = new String[1];
+        final int[] copied = new int[1];
+
+        document.render(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    text[0] = document.getText(0, document.getLength());
+                } catch (BadLocationException ex) {
+                    throw new FailureException(
+                            "DocumentRegions.analyze", ex);
+                }
+
+                synchronized (DocumentRegions.this) {
+                    copied[0] = changes;
+                }
+            }
+        });
+
+        TokenRegions.Builder builder = new TokenRegions.Builder();
+        final BracketIndex index = new BracketIndex();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text[0]));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(
+                    token.getType(),
+                    token.getStartIndex(),
+                    token.getStopIndex() + 1,
+                    token.getText());
+            index.add(token.getType(), token.getStartIndex());
+        }
+
+        final TokenRegions regions = builder.build(text[0].length());
+
+        document.render(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (DocumentRegions.this) {
+                    if (changes != copied[0]) {
+                        schedule();
+                        return;
+                    }
+
+                    snapshot = regions;
+                    pendingSince = NONE;
+                }
+
+                brackets.indexed(index);
+            }
+        });
+    }
+}
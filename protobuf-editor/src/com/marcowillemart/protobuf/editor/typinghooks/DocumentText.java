@@ -0,0 +1,105 @@
+package com.marcowillemart.protobuf.editor.typinghooks;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.FailureException;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * DocumentText represents the text of a document as a character sequence,
+ * read from the document a window at a time rather than copied as a whole.
+ *
+ * Since the typing hooks only look at the characters around the caret,
+ * reading them through a small window keeps the cost of a keystroke
+ * independent of the length of the document.
+ *
+ * @author mwi
+ */
+final class DocumentText implements CharSequence {
+
+    private static final int WINDOW = 256;
+
+    private final Document document;
+    private final int length;
+    private final Segment window;
+    private int windowStart;
+
+    /*
+     * Representation Invariant:
+     *   document != null && window != null
+     *   length = document.length
+     *   windowStart < 0 || window holds the characters of document at
+     *   [windowStart..windowStart + window.count[
+     */
+
+    /**
+     * @requires document != null && the caller holds a lock on document for
+     *           as long as this is used
+     * @effects Makes this be the current text of document.
+     */
+    DocumentText(Document document) {
+        Assert.notNull(document);
+
+        this.document = document;
+        this.length = document.getLength();
+        this.window = new Segment();
+        this.windowStart = -1;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+
+        if (windowStart < 0
+                || index < windowStart
+                || index >= windowStart + window.count) {
+
+            windowStart = Math.max(0, index - WINDOW / 2);
+            read(windowStart, Math.min(WINDOW, length - windowStart), window);
+        }
+
+        return window.array[window.offset + index - windowStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException(start + ".." + end);
+        }
+
+        Segment segment = new Segment();
+        read(start, end - start, segment);
+
+        return segment.toString();
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies segment
+     * @effects Makes segment hold the characters of the document of this at
+     *          [offset..offset + count[.
+     */
+    private void read(int offset, int count, Segment segment) {
+        try {
+            document.getText(offset, count, segment);
+        } catch (BadLocationException ex) {
+            throw new FailureException("DocumentText.read", ex);
+        }
+    }
+}
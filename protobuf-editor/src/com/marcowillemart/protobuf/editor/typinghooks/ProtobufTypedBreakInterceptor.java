@@ -3,7 +3,7 @@ package com.marcowillemart.protobuf.editor.typinghooks;
 import com.marcowillemart.common.lang.Document;
 import com.marcowillemart.common.util.FailureException;
 import com.marcowillemart.protobuf.Protobuf;
-import com.marcowillemart.protobuf.ProtobufDocument;
+import com.marcowillemart.protobuf.typing.TypingDocument;
 import javax.swing.text.BadLocationException;
 import org.netbeans.api.editor.mimelookup.MimePath;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
@@ -13,13 +13,15 @@ import org.netbeans.spi.editor.typinghooks.TypedBreakInterceptor;
  * ProtobufTypedBreakInterceptor is a mutable interceptor which is called when
  * a line break is typed into a Protobuf document.
  *
+ * The comments around the caret are told by the latest snapshot of the
+ * analysis of the document, patched for the changes made since, so that no
+ * line break lexes the document.
+ *
  * @author mwi
  */
 public final class ProtobufTypedBreakInterceptor
         implements TypedBreakInterceptor {
 
-    private static final int ZERO = 0;
-
     private static final String PAIR_OF_CURLY_BRACES = "{}";
 
     /**
@@ -35,7 +37,12 @@ public final class ProtobufTypedBreakInterceptor
 
     @Override
     public void insert(MutableContext context) throws BadLocationException {
-        Document document = documentFrom(context);
+        TypingDocument document =
+                DocumentRegions.of(context.getDocument()).document();
+
+        if (document == null) {
+            return;
+        }
 
         addExtraLineBetweenBraces(context, document);
         closeBlockComment(context, document);
@@ -62,7 +69,7 @@ public final class ProtobufTypedBreakInterceptor
      */
     private static void addExtraLineBetweenBraces(
             MutableContext context,
-            Document document) {
+            TypingDocument document) {
 
         int offset = context.getBreakInsertOffset();
 
@@ -70,7 +77,7 @@ public final class ProtobufTypedBreakInterceptor
             String surroundingchars = surroundingCharacters(context, offset);
 
             if (PAIR_OF_CURLY_BRACES.equals(surroundingchars)) {
-                String indentation = document.lineAt(offset).indentation();
+                String indentation = document.indentationAt(offset);
 
                 context.setText(String.format("\n\n%s", indentation), 1, 1);
             }
@@ -127,21 +134,6 @@ public final class ProtobufTypedBreakInterceptor
         }
     }
 
-    /**
-     * @requires context != null
-     * @return a new Document from the given context.
-     */
-    private static Document documentFrom(MutableContext context) {
-        try {
-            return new ProtobufDocument(
-                    context.getDocument()
-                            .getText(ZERO, context.getDocument().getLength()));
-        } catch (BadLocationException ex) {
-            throw new FailureException(
-                    "ProtobufTypedBreakInterceptor.documentFrom", ex);
-        }
-    }
-
     ////////////////////
     // INNER CLASSES
     ////////////////////
@@ -2,9 +2,8 @@ package com.marcowillemart.protobuf.editor.typinghooks;
 
 import com.marcowillemart.common.lang.CharTyping;
 import com.marcowillemart.common.lang.Document;
-import com.marcowillemart.common.util.FailureException;
 import com.marcowillemart.protobuf.Protobuf;
-import com.marcowillemart.protobuf.ProtobufDocument;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
 import javax.swing.text.BadLocationException;
 import org.netbeans.api.editor.mimelookup.MimePath;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
@@ -14,6 +13,16 @@ import org.netbeans.spi.editor.typinghooks.TypedTextInterceptor;
  * ProtobufTypedTextInterceptor is a mutable interceptor which is called when
  * text is typed into a Protobuf document.
  *
+ * An opening bracket is completed only if it would not match a closing
+ * bracket that is unmatched so far, and a closing bracket is typed over only
+ * if it was inserted by such a completion and still pairs with its opening
+ * bracket, as told by the brackets of the document.
+ *
+ * The string literals and comments around the caret are told by the latest
+ * snapshot of the analysis of the document, patched for the changes made
+ * since, so that no keystroke lexes the document. Until the first snapshot
+ * is published, the typed chars are inserted as is.
+ *
  * @author mwi
  */
 public final class ProtobufTypedTextInterceptor
@@ -22,12 +31,14 @@ public final class ProtobufTypedTextInterceptor
     private static final int ZERO = 0;
 
     private CharTyping charTyping;
+    private boolean autoClosed;
 
     /**
      * @effects Makes this be a new ProtobufTypedTextInterceptor.
      */
     private ProtobufTypedTextInterceptor() {
         this.charTyping = null;
+        this.autoClosed = false;
     }
 
     @Override
@@ -39,35 +50,64 @@ public final class ProtobufTypedTextInterceptor
     public void insert(MutableContext context) throws BadLocationException {
         char typedChar = context.getText().charAt(0);
 
+        charTyping = null;
+        autoClosed = false;
+
+        if (!isHooked(typedChar)) {
+            return;
+        }
+
+        Document document =
+                DocumentRegions.of(context.getDocument()).document();
+
+        if (document == null) {
+            return;
+        }
+
+        DocumentBrackets brackets;
+
         switch (typedChar) {
             case '(':
             case '{':
             case '[':
-                charTyping = charTypingFrom(context, typedChar);
-                charTyping.completeOpeningChar();
+                brackets = DocumentBrackets.of(context.getDocument());
+                charTyping = charTypingFrom(document, context, typedChar);
+
+                if (brackets.needsClosing(
+                        typeOf(typedChar), context.getOffset())) {
+
+                    charTyping.completeOpeningChar();
+                }
+
+                autoClosed = charTyping.insertionText().length() > 1;
                 break;
             case ')':
             case '}':
             case ']':
-                charTyping = charTypingFrom(context, typedChar);
-                charTyping.skipClosingChar();
+                brackets = DocumentBrackets.of(context.getDocument());
+                charTyping = charTypingFrom(document, context, typedChar);
+
+                if (brackets.skipsClosing(context.getOffset())) {
+                    charTyping.skipClosingChar();
+                }
                 break;
-            case '\"':
-            case '\'':
-                charTyping = charTypingFrom(context, typedChar);
+            default:
+                charTyping = charTypingFrom(document, context, typedChar);
                 charTyping.completeQuote();
                 break;
-            default:
-                charTyping = null;
         }
 
-        if (charTyping != null) {
-            context.setText(charTyping.insertionText(), ZERO);
-        }
+        context.setText(charTyping.insertionText(), ZERO);
     }
 
     @Override
     public void afterInsert(Context context) throws BadLocationException {
+        if (autoClosed) {
+            DocumentBrackets.of(context.getDocument())
+                    .autoClosed(context.getOffset());
+            autoClosed = false;
+        }
+
         if (charTyping != null) {
             context.getComponent().setCaretPosition(
                     charTyping.insertionOffset());
@@ -77,6 +117,8 @@ public final class ProtobufTypedTextInterceptor
 
     @Override
     public void cancelled(Context context) {
+        charTyping = null;
+        autoClosed = false;
     }
 
     ////////////////////
@@ -84,31 +126,38 @@ public final class ProtobufTypedTextInterceptor
     ////////////////////
 
     /**
-     * @requires context != null
-     * @return a new CharTyping from the givne context and typed char.
+     * @return true iff typedChar is a bracket or a quote, i.e., a char
+     *         completed or skipped by this
+     */
+    private static boolean isHooked(char typedChar) {
+        return "(){}[]\"'".indexOf(typedChar) >= 0;
+    }
+
+    /**
+     * @requires document != null && context != null
+     * @return a new CharTyping from the given document, context and typed
+     *         char.
      */
     private static CharTyping charTypingFrom(
+            Document document,
             MutableContext context,
             char typedChar) {
 
-        return new CharTyping(
-                documentFrom(context),
-                context.getOffset(),
-                typedChar);
+        return new CharTyping(document, context.getOffset(), typedChar);
     }
 
     /**
-     * @requires context != null
-     * @return a new Document from the given context.
+     * @requires bracket is either '(', '{' or '['
+     * @return the type of the token of the given opening bracket
      */
-    private static Document documentFrom(MutableContext context) {
-        try {
-            return new ProtobufDocument(
-                    context.getDocument()
-                            .getText(ZERO, context.getDocument().getLength()));
-        } catch (BadLocationException ex) {
-            throw new FailureException(
-                    "ProtobufTypedTextInterceptor.documentFrom", ex);
+    private static int typeOf(char bracket) {
+        switch (bracket) {
+            case '(':
+                return ProtobufLexer.LPAREN;
+            case '{':
+                return ProtobufLexer.LBRACE;
+            default:
+                return ProtobufLexer.LBRACK;
         }
     }
 
@@ -0,0 +1,234 @@
+package com.marcowillemart.protobuf.folding;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FoldIndex represents the mutable index of the top-level blocks of an edited
+ * Protobuf document, telling which region of the document must be scanned
+ * again after an edit to update its folds.
+ *
+ * As long as the braces of the document are balanced, an edit can only
+ * change the folds of the top-level blocks it touches: the region to scan is
+ * the edited text extended to these blocks, which starts and ends outside of
+ * any block. Otherwise, the whole document must be scanned.
+ *
+ * @specfield blocks : List<FoldRange>  // The top-level blocks, sorted by
+ *                                         offset.
+ * @specfield balanced : boolean        // True iff the braces of the
+ *                                         document are balanced.
+ *
+ * @author mwi
+ */
+public final class FoldIndex {
+
+    private final List<FoldRange> blocks;
+    private boolean balanced;
+
+    /*
+     * Abstraction Function:
+     *   blocks = blocks
+     *   balanced = balanced
+     *
+     * Representation Invariant:
+     *   blocks != null && sorted by start offset
+     */
+
+    /**
+     * @effects Makes this be a new index of a document that must be scanned
+     *          as a whole.
+     */
+    public FoldIndex() {
+        this.blocks = new ArrayList<>();
+        this.balanced = false;
+    }
+
+    /**
+     * @return a read-only view of this.blocks
+     */
+    public List<FoldRange> blocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return this.balanced
+     */
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    /**
+     * @requires tokens are the tokens of the document
+     * @modifies this
+     * @effects Indexes the blocks of the whole document.
+     * @return the update replacing all the folds of the document
+     */
+    public FoldUpdate rescan(Tokens tokens) {
+        Assert.notNull(tokens);
+
+        FoldScanner scanner = new FoldScanner();
+        tokens.scan(0, Integer.MAX_VALUE, scanner);
+
+        blocks.clear();
+        blocks.addAll(scanner.blocks());
+        balanced = scanner.isBalanced();
+
+        return new FoldUpdate(0, Integer.MAX_VALUE, scanner.folds());
+    }
+
+    /**
+     * @requires 0 <= offset && 0 <= removedLength && 0 <= insertedLength &&
+     *           tokens are the tokens of the document after the replacement
+     *           of removedLength characters at offset with insertedLength
+     *           characters
+     * @modifies this
+     * @effects Updates this after the replacement, scanning the tokens of
+     *          the region it affects, or of the whole document if it is not
+     *          balanced.
+     * @return the update replacing the folds of the region affected by the
+     *         replacement
+     */
+    public FoldUpdate update(
+            Tokens tokens,
+            int offset,
+            int removedLength,
+            int insertedLength) {
+
+        Assert.notNull(tokens);
+        Assert.isTrue(0 <= offset);
+        Assert.isTrue(0 <= removedLength && 0 <= insertedLength);
+
+        edit(offset, removedLength, insertedLength);
+
+        int[] region = region(offset, offset + Math.max(1, insertedLength));
+
+        while (region != null) {
+            FoldScanner scanner = new FoldScanner();
+            int[] scanned = tokens.scan(region[0], region[1], scanner);
+            int[] extended = region(
+                    Math.min(region[0], scanned[0]),
+                    Math.max(region[1], scanned[1]));
+
+            if (extended[0] == region[0] && extended[1] == region[1]) {
+                return merge(region[0], region[1], scanner)
+                        ? new FoldUpdate(region[0], region[1], scanner.folds())
+                        : rescan(tokens);
+            }
+
+            region = extended;
+        }
+
+        return rescan(tokens);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Shifts this.blocks after the replacement of removedLength
+     *          characters at offset with insertedLength characters, a block
+     *          touched by the replacement being extended over the inserted
+     *          text.
+     */
+    private void edit(int offset, int removedLength, int insertedLength) {
+        int removedEnd = offset + removedLength;
+        int delta = insertedLength - removedLength;
+
+        for (int i = 0; i < blocks.size(); i++) {
+            FoldRange block = blocks.get(i);
+
+            if (block.endOffset() < offset) {
+                continue;
+            }
+
+            int start = block.startOffset() < offset
+                    ? block.startOffset()
+                    : Math.max(offset, block.startOffset() + delta);
+            int end = block.endOffset() > removedEnd
+                    ? block.endOffset() + delta
+                    : offset + insertedLength;
+
+            blocks.set(i, new FoldRange(start, end, FoldRange.Kind.BLOCK));
+        }
+    }
+
+    /**
+     * @requires 0 <= from <= to
+     * @return [start, end], the smallest region including [from..to] and the
+     *         blocks it touches, or null if this is not balanced and the
+     *         whole document must be scanned
+     */
+    private int[] region(int from, int to) {
+        if (!balanced) {
+            return null;
+        }
+
+        int start = from;
+        int end = to;
+
+        for (FoldRange block : blocks) {
+            if (block.touches(from, to)) {
+                start = Math.min(start, block.startOffset());
+                end = Math.max(end, block.endOffset());
+            }
+        }
+
+        return new int[] { start, end };
+    }
+
+    /**
+     * @requires region(start, end) = [start, end] &&
+     *           scanner scanned the tokens of the document in [start..end[
+     * @modifies this
+     * @effects Replaces the blocks touching [start..end] with the blocks of
+     *          scanner, if scanner is balanced, else makes this unbalanced.
+     * @return true iff scanner is balanced, i.e., iff the folds of scanner
+     *         replace the folds of the document in [start..end]
+     */
+    private boolean merge(int start, int end, FoldScanner scanner) {
+        if (!scanner.isBalanced()) {
+            balanced = false;
+            return false;
+        }
+
+        int index = 0;
+
+        while (index < blocks.size()
+                && blocks.get(index).endOffset() < start) {
+            index++;
+        }
+
+        while (index < blocks.size()
+                && blocks.get(index).touches(start, end)) {
+            blocks.remove(index);
+        }
+
+        blocks.addAll(index, scanner.blocks());
+
+        return true;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Tokens represents the tokens of a document.
+     */
+    public interface Tokens {
+
+        /**
+         * @requires 0 <= from < to && scanner != null
+         * @modifies scanner
+         * @effects Feeds scanner with the tokens of the document that
+         *          overlap [from..to[, in order.
+         * @return [start, end], the region of the fed tokens, or [from, to]
+         *         if there is none
+         */
+        int[] scan(int from, int to, FoldScanner scanner);
+    } // end Tokens
+}
@@ -0,0 +1,105 @@
+package com.marcowillemart.protobuf.folding;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * FoldRange represents an immutable range of a Protobuf file that can be
+ * folded: a block between braces or a block comment.
+ *
+ * @specfield startOffset : int  // The offset of the first character.
+ * @specfield endOffset : int    // The offset following the last character.
+ * @specfield kind : Kind        // The kind of the range.
+ *
+ * @invariant 0 <= startOffset <= endOffset
+ *
+ * @author mwi
+ */
+public final class FoldRange {
+
+    /**
+     * The kind of a fold range.
+     */
+    public enum Kind {
+        /** A block from an opening brace to the matching closing brace. */
+        BLOCK,
+        /** A block comment. */
+        COMMENT
+    }
+
+    private final int startOffset;
+    private final int endOffset;
+    private final Kind kind;
+
+    /**
+     * @requires 0 <= startOffset <= endOffset && kind != null
+     * @effects Makes this be a new range with the given elements.
+     */
+    public FoldRange(int startOffset, int endOffset, Kind kind) {
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+        Assert.notNull(kind);
+
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.kind = kind;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return true iff this and [from..to] have at least one offset in
+     *         common, bounds included
+     */
+    public boolean touches(int from, int to) {
+        return startOffset <= to && from <= endOffset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof FoldRange)) {
+            return false;
+        }
+
+        FoldRange other = (FoldRange) obj;
+
+        return startOffset == other.startOffset
+                && endOffset == other.endOffset
+                && kind == other.kind;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + startOffset;
+        hash = 31 * hash + endOffset;
+        hash = 31 * hash + kind.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return kind + "[" + startOffset + ".." + endOffset + "[";
+    }
+}
@@ -0,0 +1,174 @@
+package com.marcowillemart.protobuf.folding;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * FoldScanner represents a mutable scanner of the fold ranges of a sequence
+ * of contiguous Protobuf tokens, fed one at a time in the order of the text.
+ *
+ * A block between braces or a block comment is a fold iff it spans several
+ * lines. The scanner also records the top-level blocks, whatever their
+ * number of lines, and whether the braces of the tokens are balanced.
+ *
+ * @specfield folds : List<FoldRange>   // The folds of the scanned tokens.
+ * @specfield blocks : List<FoldRange>  // The top-level blocks of the scanned
+ *                                         tokens.
+ * @specfield balanced : boolean        // True iff each brace of the scanned
+ *                                         tokens is matched.
+ *
+ * @author mwi
+ */
+public final class FoldScanner {
+
+    private static final Comparator<FoldRange> BY_START =
+            new Comparator<FoldRange>() {
+
+                @Override
+                public int compare(FoldRange a, FoldRange b) {
+                    return Integer.compare(a.startOffset(), b.startOffset());
+                }
+            };
+
+    private final List<FoldRange> folds;
+    private final List<FoldRange> blocks;
+    private final List<int[]> open;
+    private int lines;
+    private boolean unmatched;
+
+    /*
+     * Abstraction Function:
+     *   folds = folds sorted by start offset
+     *   blocks = blocks
+     *   balanced = !unmatched && open is empty
+     *
+     * Representation Invariant:
+     *   folds != null && blocks != null && open != null
+     *   open = [start offset, line] of each unmatched opening brace scanned
+     *   lines = number of line terminators scanned
+     */
+
+    /**
+     * @effects Makes this be a new scanner that scanned no token.
+     */
+    public FoldScanner() {
+        this.folds = new ArrayList<>();
+        this.blocks = new ArrayList<>();
+        this.open = new ArrayList<>();
+        this.lines = 0;
+        this.unmatched = false;
+    }
+
+    /**
+     * @requires start <= end && text is the text of the token of type type
+     *           at [start..end[, that follows the tokens scanned so far
+     * @modifies this
+     * @effects Scans the given token.
+     */
+    public void token(int type, int start, int end, CharSequence text) {
+        switch (type) {
+            case ProtobufLexer.NEWLINE:
+                lines++;
+                break;
+            case ProtobufLexer.BLOCK_COMMENT:
+                comment(start, end, text);
+                break;
+            case ProtobufLexer.LBRACE:
+                open.add(new int[] { start, lines });
+                break;
+            case ProtobufLexer.RBRACE:
+                close(end);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return this.folds
+     */
+    public List<FoldRange> folds() {
+        List<FoldRange> sorted = new ArrayList<>(folds);
+        Collections.sort(sorted, BY_START);
+
+        return sorted;
+    }
+
+    /**
+     * @return a read-only view of this.blocks
+     */
+    public List<FoldRange> blocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return this.balanced
+     */
+    public boolean isBalanced() {
+        return !unmatched && open.isEmpty();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires text is the text of the block comment at [start..end[
+     * @modifies this
+     * @effects Scans the given block comment, a fold iff it spans several
+     *          lines.
+     */
+    private void comment(int start, int end, CharSequence text) {
+        int terminators = terminatorsOf(text);
+
+        if (terminators > 0) {
+            folds.add(new FoldRange(start, end, FoldRange.Kind.COMMENT));
+            lines += terminators;
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Matches the last unmatched opening brace with a closing brace
+     *          ending at end.
+     */
+    private void close(int end) {
+        if (open.isEmpty()) {
+            unmatched = true;
+            return;
+        }
+
+        int[] brace = open.remove(open.size() - 1);
+        FoldRange block = new FoldRange(brace[0], end, FoldRange.Kind.BLOCK);
+
+        if (brace[1] < lines) {
+            folds.add(block);
+        }
+
+        if (open.isEmpty()) {
+            blocks.add(block);
+        }
+    }
+
+    /**
+     * @requires text != null
+     * @return the number of line terminators in text
+     */
+    private static int terminatorsOf(CharSequence text) {
+        Assert.notNull(text);
+
+        int count = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
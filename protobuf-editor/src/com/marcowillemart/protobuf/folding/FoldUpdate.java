@@ -0,0 +1,79 @@
+package com.marcowillemart.protobuf.folding;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FoldUpdate represents an immutable update of the folds of a region of a
+ * Protobuf document: the folds lying in the region are replaced by the folds
+ * of the update.
+ *
+ * @specfield startOffset : int        // The offset of the region.
+ * @specfield endOffset : int          // The offset following the region.
+ * @specfield folds : List<FoldRange>  // The new folds of the region, sorted
+ *                                        by offset.
+ *
+ * @invariant startOffset <= endOffset
+ * @invariant for all f in folds, startOffset <= f.startOffset &&
+ *            f.endOffset <= endOffset
+ *
+ * @author mwi
+ */
+public final class FoldUpdate {
+
+    private final int startOffset;
+    private final int endOffset;
+    private final List<FoldRange> folds;
+
+    /**
+     * @requires startOffset <= endOffset && folds != null && sorted by
+     *           offset && lie in [startOffset..endOffset]
+     * @effects Makes this be a new update of the given region.
+     */
+    FoldUpdate(int startOffset, int endOffset, List<FoldRange> folds) {
+        Assert.isTrue(startOffset <= endOffset);
+        Assert.noNullElement(folds);
+
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.folds = new ArrayList<>(folds);
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return a read-only view of this.folds
+     */
+    public List<FoldRange> folds() {
+        return Collections.unmodifiableList(folds);
+    }
+
+    /**
+     * @requires fold != null
+     * @return true iff fold lies in the region of this, i.e., iff it is
+     *         replaced by this
+     */
+    public boolean replaces(FoldRange fold) {
+        return startOffset <= fold.startOffset()
+                && fold.endOffset() <= endOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + startOffset + ".." + endOffset + "[ " + folds;
+    }
+}
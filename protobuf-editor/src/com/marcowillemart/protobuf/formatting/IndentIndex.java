@@ -0,0 +1,343 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.Arrays;
+
+/**
+ * IndentIndex represents the mutable index of the indentation of the lines of
+ * an edited Protobuf document, so that the indentation of any line is a
+ * lookup.
+ *
+ * For each line, the index stores the number of braces, brackets and
+ * parentheses open at its start, whether it continues a block comment and
+ * whether it is blank or starts with a closing token. The edits of the
+ * document are merged into a single pending replacement as they come. When
+ * the index is updated, the lines are scanned again from the last line before
+ * the replacement that does not continue a block comment, up to the first
+ * line after the replacement whose state did not change: the lines that
+ * follow are only shifted.
+ *
+ * @specfield lines : sequence of line  // The lines of the document.
+ * @specfield line.start : int          // The offset of the line.
+ * @specfield line.indent : int         // The indentation of the line, in
+ *                                         levels and columns.
+ * @specfield line.blank : boolean      // True iff the line holds no token
+ *                                         but whitespace.
+ * @specfield current : boolean         // True iff the lines match the
+ *                                         document.
+ *
+ * @author mwi
+ */
+public final class IndentIndex {
+
+    private static final int INITIAL_CHUNK = 256;
+
+    private int[] starts;
+    private int[] depths;
+    private int[] nestings;
+    private int[] kinds;
+    private int lines;
+    private boolean scanned;
+    private int editStart;
+    private int removedEnd;
+    private int insertedEnd;
+
+    /*
+     * Abstraction Function:
+     *   lines[i] = the line of index i described by starts[i], depths[i],
+     *   nestings[i] and kinds[i], as in IndentScanner, for 0 <= i < lines
+     *   current = scanned && editStart < 0
+     *
+     * Representation Invariant:
+     *   starts, depths, nestings and kinds have the same length >= lines
+     *   scanned => lines >= 1 && starts[0] = 0 &&
+     *              starts[0..lines[ is strictly increasing
+     *   editStart < 0 <=> no edit is pending
+     *   editStart >= 0 => the document changed by the replacement of
+     *                     [editStart..removedEnd[ of the text the lines
+     *                     describe with the text at [editStart..insertedEnd[
+     */
+
+    /**
+     * @effects Makes this be a new index of a document that must be scanned
+     *          as a whole.
+     */
+    public IndentIndex() {
+        this.starts = new int[0];
+        this.depths = new int[0];
+        this.nestings = new int[0];
+        this.kinds = new int[0];
+        this.lines = 0;
+        this.scanned = false;
+        this.editStart = -1;
+    }
+
+    /**
+     * @return this.current
+     */
+    public boolean isCurrent() {
+        return scanned && editStart < 0;
+    }
+
+    /**
+     * @requires 0 <= offset && 0 <= removedLength && 0 <= insertedLength
+     * @modifies this
+     * @effects Records the replacement of removedLength characters of the
+     *          document at offset with insertedLength characters, making this
+     *          not current.
+     */
+    public void edit(int offset, int removedLength, int insertedLength) {
+        Assert.isTrue(0 <= offset);
+        Assert.isTrue(0 <= removedLength && 0 <= insertedLength);
+
+        if (editStart < 0) {
+            editStart = offset;
+            removedEnd = offset + removedLength;
+            insertedEnd = offset + insertedLength;
+            return;
+        }
+
+        int end = Math.max(insertedEnd, offset + removedLength);
+
+        removedEnd += end - insertedEnd;
+        editStart = Math.min(editStart, offset);
+        insertedEnd = end - removedLength + insertedLength;
+    }
+
+    /**
+     * @requires tokens are the tokens of the document
+     * @modifies this
+     * @effects Makes this current, scanning the lines affected by the
+     *          pending edits, or the whole document if it was never scanned.
+     */
+    public void update(Tokens tokens) {
+        Assert.notNull(tokens);
+
+        if (!scanned) {
+            IndentScanner scanner = new IndentScanner();
+            tokens.scan(0, Integer.MAX_VALUE, scanner);
+            replace(0, scanner, scanner.lines(), lines, 0);
+
+            scanned = true;
+            editStart = -1;
+        } else if (editStart >= 0) {
+            int offset = editStart;
+            int removed = removedEnd - editStart;
+            int inserted = insertedEnd - editStart;
+
+            editStart = -1;
+            rescan(tokens, offset, removed, inserted);
+        }
+    }
+
+    /**
+     * @requires this is current
+     * @return the number of lines of this
+     */
+    public int lines() {
+        Assert.isTrue(isCurrent());
+
+        return lines;
+    }
+
+    /**
+     * @requires this is current && 0 <= offset
+     * @return the index of the line of this holding offset
+     */
+    public int lineAt(int offset) {
+        Assert.isTrue(isCurrent());
+        Assert.isTrue(0 <= offset);
+
+        return lineOf(offset);
+    }
+
+    /**
+     * @requires this is current && 0 <= line < lines
+     * @return this.lines[line].start
+     */
+    public int lineStart(int line) {
+        Assert.isTrue(isCurrent());
+        Assert.isTrue(0 <= line && line < lines);
+
+        return starts[line];
+    }
+
+    /**
+     * @requires this is current && 0 <= line < lines
+     * @return this.lines[line].blank
+     */
+    public boolean isBlank(int line) {
+        Assert.isTrue(isCurrent());
+        Assert.isTrue(0 <= line && line < lines);
+
+        return kinds[line] == IndentScanner.BLANK;
+    }
+
+    /**
+     * @requires this is current && 0 <= line < lines && 0 <= levelSize
+     * @return the indentation, in columns, of the line of index line, when
+     *         each level is indented by levelSize columns
+     */
+    public int indent(int line, int levelSize) {
+        Assert.isTrue(isCurrent());
+        Assert.isTrue(0 <= line && line < lines);
+        Assert.isTrue(0 <= levelSize);
+
+        return IndentScanner.indent(
+                depths[line] + nestings[line], kinds[line], levelSize);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the index of the line of this holding offset
+     */
+    private int lineOf(int offset) {
+        int index = Arrays.binarySearch(starts, 0, lines, offset);
+
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @requires tokens are the tokens of the document after the replacement
+     *           of removed characters at offset with inserted characters
+     * @modifies this
+     * @effects Scans again the lines affected by the replacement, until the
+     *          state of a line that follows it is unchanged, and shifts the
+     *          lines after it.
+     */
+    private void rescan(Tokens tokens, int offset, int removed, int inserted) {
+        int delta = inserted - removed;
+        int first = lineOf(offset);
+
+        while (first > 0 && kinds[first] == IndentScanner.COMMENT) {
+            first--;
+        }
+
+        IndentScanner scanner = new IndentScanner(
+                starts[first], depths[first], nestings[first]);
+
+        int old = lineOf(offset + removed);
+
+        if (starts[old] < offset + removed) {
+            old++;
+        }
+
+        int line = 1;
+        int from = starts[first];
+        int chunk = INITIAL_CHUNK;
+        int to = offset + inserted + chunk;
+        boolean more = true;
+
+        while (more) {
+            more = tokens.scan(from, to, scanner);
+
+            for (; line < scanner.lines(); line++) {
+                int start = scanner.lineStart(line);
+
+                if (start < offset + inserted) {
+                    continue;
+                }
+
+                while (old < lines && starts[old] + delta < start) {
+                    old++;
+                }
+
+                if (old < lines
+                        && starts[old] + delta == start
+                        && sameState(scanner, line, old)) {
+
+                    replace(first, scanner, line, old, delta);
+                    return;
+                }
+            }
+
+            from = to;
+            chunk *= 2;
+            to = (int) Math.min(Integer.MAX_VALUE, (long) to + chunk);
+        }
+
+        replace(first, scanner, scanner.lines(), lines, delta);
+    }
+
+    /**
+     * @return true iff the line of index line of scanner starts in the same
+     *         state as the line of index old of this
+     */
+    private boolean sameState(IndentScanner scanner, int line, int old) {
+        return scanner.depth(line) == depths[old]
+                && scanner.nesting(line) == nestings[old]
+                && (scanner.kind(line) == IndentScanner.COMMENT)
+                        == (kinds[old] == IndentScanner.COMMENT);
+    }
+
+    /**
+     * @requires 0 <= first <= lines && 0 <= count <= scanner.lines() &&
+     *           first <= old <= lines
+     * @modifies this
+     * @effects Replaces the lines [first..old[ of this with the first count
+     *          lines of scanner, and shifts the lines after them by delta.
+     */
+    private void replace(
+            int first,
+            IndentScanner scanner,
+            int count,
+            int old,
+            int delta) {
+
+        int size = first + count + lines - old;
+
+        int[] newStarts = new int[size];
+        int[] newDepths = new int[size];
+        int[] newNestings = new int[size];
+        int[] newKinds = new int[size];
+
+        System.arraycopy(starts, 0, newStarts, 0, first);
+        System.arraycopy(depths, 0, newDepths, 0, first);
+        System.arraycopy(nestings, 0, newNestings, 0, first);
+        System.arraycopy(kinds, 0, newKinds, 0, first);
+
+        for (int i = 0; i < count; i++) {
+            newStarts[first + i] = scanner.lineStart(i);
+            newDepths[first + i] = scanner.depth(i);
+            newNestings[first + i] = scanner.nesting(i);
+            newKinds[first + i] = scanner.kind(i);
+        }
+
+        for (int i = old; i < lines; i++) {
+            newStarts[i - old + first + count] = starts[i] + delta;
+        }
+
+        System.arraycopy(depths, old, newDepths, first + count, lines - old);
+        System.arraycopy(
+                nestings, old, newNestings, first + count, lines - old);
+        System.arraycopy(kinds, old, newKinds, first + count, lines - old);
+
+        starts = newStarts;
+        depths = newDepths;
+        nestings = newNestings;
+        kinds = newKinds;
+        lines = size;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Tokens represents the tokens of a document.
+     */
+    public interface Tokens {
+
+        /**
+         * @requires 0 <= from <= to && scanner != null
+         * @modifies scanner
+         * @effects Feeds scanner with the tokens of the document that start
+         *          in [from..to[, in order.
+         * @return true iff the document has tokens starting at or after to
+         */
+        boolean scan(int from, int to, IndentScanner scanner);
+    } // end Tokens
+}
@@ -0,0 +1,293 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.Arrays;
+
+/**
+ * IndentScanner represents a mutable scanner of the indentation of the lines
+ * of a Protobuf document, fed one token at a time from the start of the
+ * document in the order of the text.
+ *
+ * The indentation level of a line is the number of braces, brackets and
+ * parentheses open at its start, the brackets and parentheses being closed by
+ * the end of their statement. A line starting with a closing brace, bracket or
+ * parenthesis is indented one level less, and a line continuing a block
+ * comment one column more, so that its '*' is aligned with the one of the
+ * first line of the comment.
+ *
+ * @specfield lines : sequence of line  // The lines of the scanned tokens.
+ * @specfield line.start : int          // The offset of the line.
+ * @specfield line.level : int          // The indentation level of the line.
+ * @specfield line.blank : boolean      // True iff the line holds no token
+ *                                         but whitespace.
+ *
+ * @author mwi
+ */
+public final class IndentScanner {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    static final int BLANK = 0;
+    static final int CODE = 1;
+    static final int CLOSING = 2;
+    static final int COMMENT = 3;
+
+    private int[] starts;
+    private int[] depths;
+    private int[] nestings;
+    private int[] kinds;
+    private int lines;
+    private int depth;
+    private int nesting;
+
+    /*
+     * Abstraction Function:
+     *   lines[i].start = starts[i] for 0 <= i < lines
+     *   lines[i].level = depths[i] + nestings[i]
+     *   lines[i].blank = kinds[i] = BLANK
+     *
+     * Representation Invariant:
+     *   starts, depths, nestings and kinds have the same length >= lines
+     *   starts[0..lines[ is strictly increasing
+     *   kinds[i] tells whether the line i is blank, starts with a closing
+     *   token, continues a block comment, or else starts with a token
+     *   depth = number of braces open after the scanned tokens
+     *   nesting = number of brackets and parentheses open in the current
+     *   statement
+     *   depths[i] and nestings[i] are the values of depth and nesting at the
+     *   start of the line i
+     */
+
+    /**
+     * @effects Makes this be a new scanner of the first line, at offset 0,
+     *          of a document.
+     */
+    public IndentScanner() {
+        this(0, 0, 0);
+    }
+
+    /**
+     * @requires 0 <= start && 0 <= depth && 0 <= nesting && start is the
+     *           offset of a line of a document that does not continue a
+     *           block comment, where depth braces and nesting brackets and
+     *           parentheses are open
+     * @effects Makes this be a new scanner of the line at start.
+     */
+    IndentScanner(int start, int depth, int nesting) {
+        Assert.isTrue(0 <= start && 0 <= depth && 0 <= nesting);
+
+        this.starts = new int[INITIAL_CAPACITY];
+        this.depths = new int[INITIAL_CAPACITY];
+        this.nestings = new int[INITIAL_CAPACITY];
+        this.kinds = new int[INITIAL_CAPACITY];
+        this.lines = 0;
+        this.depth = depth;
+        this.nesting = nesting;
+
+        startLine(start, BLANK);
+    }
+
+    /**
+     * @requires start <= end && text is the text of the token of type type
+     *           at [start..end[, that follows the tokens scanned so far
+     * @modifies this
+     * @effects Scans the given token.
+     */
+    public void token(int type, int start, int end, CharSequence text) {
+        switch (type) {
+            case ProtobufLexer.NEWLINE:
+                startLine(end, BLANK);
+                break;
+            case ProtobufLexer.WS:
+                break;
+            case ProtobufLexer.BLOCK_COMMENT:
+                first(type);
+                comment(start, text);
+                break;
+            default:
+                first(type);
+                nest(type);
+                break;
+        }
+    }
+
+    /**
+     * @return the number of lines of this
+     */
+    public int lines() {
+        return lines;
+    }
+
+    /**
+     * @requires 0 <= offset
+     * @return the index of the line of this holding offset
+     */
+    public int lineAt(int offset) {
+        Assert.isTrue(0 <= offset);
+
+        int index = Arrays.binarySearch(starts, 0, lines, offset);
+
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @requires 0 <= line < lines
+     * @return this.lines[line].start
+     */
+    public int lineStart(int line) {
+        Assert.isTrue(0 <= line && line < lines);
+
+        return starts[line];
+    }
+
+    /**
+     * @requires 0 <= line < lines
+     * @return this.lines[line].blank
+     */
+    public boolean isBlank(int line) {
+        Assert.isTrue(0 <= line && line < lines);
+
+        return kinds[line] == BLANK;
+    }
+
+    /**
+     * @requires 0 <= line < lines && 0 <= levelSize
+     * @return the indentation, in columns, of the line of index line, when
+     *         each level is indented by levelSize columns
+     */
+    public int indent(int line, int levelSize) {
+        Assert.isTrue(0 <= line && line < lines);
+        Assert.isTrue(0 <= levelSize);
+
+        return indent(depths[line] + nestings[line], kinds[line], levelSize);
+    }
+
+    /**
+     * @requires 0 <= line < lines
+     * @return the number of braces open at the start of the line of index
+     *         line
+     */
+    int depth(int line) {
+        return depths[line];
+    }
+
+    /**
+     * @requires 0 <= line < lines
+     * @return the number of brackets and parentheses open at the start of
+     *         the line of index line
+     */
+    int nesting(int line) {
+        return nestings[line];
+    }
+
+    /**
+     * @requires 0 <= line < lines
+     * @return the kind of the line of index line, i.e., BLANK, CODE, CLOSING
+     *         or COMMENT
+     */
+    int kind(int line) {
+        return kinds[line];
+    }
+
+    /**
+     * @requires 0 <= level && kind is BLANK, CODE, CLOSING or COMMENT &&
+     *           0 <= levelSize
+     * @return the indentation, in columns, of a line of the given level and
+     *         kind, when each level is indented by levelSize columns
+     */
+    static int indent(int level, int kind, int levelSize) {
+        switch (kind) {
+            case CLOSING:
+                return Math.max(0, level - 1) * levelSize;
+            case COMMENT:
+                return level * levelSize + 1;
+            default:
+                return level * levelSize;
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies this
+     * @effects Marks the current line as starting with a token of the given
+     *          type, if it is blank so far.
+     */
+    private void first(int type) {
+        if (kinds[lines - 1] != BLANK) {
+            return;
+        }
+
+        kinds[lines - 1] = type == ProtobufLexer.RBRACE
+                || type == ProtobufLexer.RBRACK
+                || type == ProtobufLexer.RPAREN
+                ? CLOSING
+                : CODE;
+    }
+
+    /**
+     * @requires text is the text of the block comment starting at start
+     * @modifies this
+     * @effects Starts a new line continuing the block comment after each of
+     *          its line terminators.
+     */
+    private void comment(int start, CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                startLine(start + i + 1, COMMENT);
+            }
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Updates the nesting of this after a token of the given type.
+     */
+    private void nest(int type) {
+        switch (type) {
+            case ProtobufLexer.LBRACE:
+                depth++;
+                nesting = 0;
+                break;
+            case ProtobufLexer.RBRACE:
+                depth = Math.max(0, depth - 1);
+                nesting = 0;
+                break;
+            case ProtobufLexer.LBRACK:
+            case ProtobufLexer.LPAREN:
+                nesting++;
+                break;
+            case ProtobufLexer.RBRACK:
+            case ProtobufLexer.RPAREN:
+                nesting = Math.max(0, nesting - 1);
+                break;
+            case ProtobufLexer.SEMI:
+                nesting = 0;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Starts a new line of the given kind at offset start.
+     */
+    private void startLine(int start, int kind) {
+        if (lines == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * lines);
+            depths = Arrays.copyOf(depths, 2 * lines);
+            nestings = Arrays.copyOf(nestings, 2 * lines);
+            kinds = Arrays.copyOf(kinds, 2 * lines);
+        }
+
+        starts[lines] = start;
+        depths[lines] = depth;
+        nestings[lines] = nesting;
+        kinds[lines] = kind;
+        lines++;
+    }
+}
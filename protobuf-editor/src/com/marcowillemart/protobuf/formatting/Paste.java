@@ -0,0 +1,48 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * Paste represents the immutable result of the formatting of a fragment
+ * pasted in a Protobuf document.
+ *
+ * @specfield text : String        // The text replacing the selection.
+ * @specfield renumbered : int     // The number of pasted fields whose
+ *                                    number was changed.
+ *
+ * @invariant renumbered >= 0
+ *
+ * @author mwi
+ */
+public final class Paste {
+
+    private final String text;
+    private final int renumbered;
+
+    /**
+     * @requires text != null && renumbered >= 0
+     * @effects Makes this be a new paste of text, whose given number of
+     *          fields were renumbered.
+     */
+    public Paste(String text, int renumbered) {
+        Assert.notNull(text);
+        Assert.isTrue(renumbered >= 0);
+
+        this.text = text;
+        this.renumbered = renumbered;
+    }
+
+    /**
+     * @return this.text
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return this.renumbered
+     */
+    public int renumbered() {
+        return renumbered;
+    }
+}
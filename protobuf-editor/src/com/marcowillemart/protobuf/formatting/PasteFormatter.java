@@ -0,0 +1,465 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * PasteFormatter represents an immutable formatter of the Protobuf fragments
+ * pasted in a Protobuf document.
+ *
+ * The pasted fragment is normalized as a whole rather than line by line: its
+ * line terminators are converted to '\n', then it is formatted in its target
+ * position by a SourceFormatter, so that it gets the indentation and spacing
+ * of the surrounding code in a single pass over the tokens of the text.
+ *
+ * When renumbering, the pasted fields whose number is already used by
+ * another field of the same message, or reserved by it, are given the next
+ * free numbers of the message, skipping the numbers reserved by Protobuf.
+ *
+ * @specfield indentUnit : String  // The indentation of a nesting level.
+ * @specfield renumbering : boolean  // Whether colliding field numbers are
+ *                                      changed.
+ *
+ * @author mwi
+ */
+public final class PasteFormatter {
+
+    private static final long MAX_FIELD_NUMBER = 536_870_911;
+    private static final long FIRST_RESERVED_NUMBER = 19_000;
+    private static final long LAST_RESERVED_NUMBER = 19_999;
+    private static final int NONE = -1;
+
+    private final SourceFormatter formatter;
+    private final boolean renumbering;
+
+    /*
+     * Abstraction Function:
+     *   indentUnit = formatter.indentUnit
+     *   renumbering = renumbering
+     *
+     * Representation Invariant:
+     *   formatter != null
+     */
+
+    /**
+     * @requires indentUnit != null && indentUnit contains only spaces and
+     *           tabs
+     * @effects Makes this be a new formatter indenting each nesting level
+     *          with indentUnit, changing colliding field numbers iff
+     *          renumbering.
+     */
+    public PasteFormatter(String indentUnit, boolean renumbering) {
+        this.formatter = new SourceFormatter(indentUnit);
+        this.renumbering = renumbering;
+    }
+
+    /**
+     * @requires text != null && its line terminators are '\n' &&
+     *           0 <= startOffset <= endOffset <= text.length &&
+     *           pasted != null
+     * @return the text replacing text[startOffset..endOffset[ when pasted is
+     *         pasted over it, i.e., pasted once normalized, renumbered if
+     *         this.renumbering, and formatted in its target position
+     */
+    public String format(
+            CharSequence text,
+            int startOffset,
+            int endOffset,
+            String pasted) {
+
+        return paste(text, startOffset, endOffset, pasted).text();
+    }
+
+    /**
+     * @requires text != null && its line terminators are '\n' &&
+     *           0 <= startOffset <= endOffset <= text.length &&
+     *           pasted != null
+     * @return the paste of pasted over text[startOffset..endOffset[, whose
+     *         text is format(text, startOffset, endOffset, pasted)
+     */
+    public Paste paste(
+            CharSequence text,
+            int startOffset,
+            int endOffset,
+            String pasted) {
+
+        Assert.notNull(text);
+        Assert.isTrue(0 <= startOffset
+                && startOffset <= endOffset
+                && endOffset <= text.length());
+        Assert.notNull(pasted);
+
+        String fragment = pasted.replace("\r\n", "\n").replace('\r', '\n');
+        int suffix = text.length() - endOffset;
+
+        StringBuilder result = new StringBuilder(
+                text.length() - endOffset + startOffset + fragment.length());
+        result.append(text, 0, startOffset)
+                .append(fragment)
+                .append(text, endOffset, text.length());
+
+        List<TextEdit> renumbered = renumbering
+                ? renumbered(
+                        result, startOffset, startOffset + fragment.length())
+                : Collections.<TextEdit>emptyList();
+
+        if (!renumbered.isEmpty()) {
+            result = new StringBuilder(TextEdit.apply(result, renumbered));
+        }
+
+        String formatted = TextEdit.apply(
+                result,
+                formatter.format(
+                        result,
+                        startOffset,
+                        result.length() - suffix));
+
+        return new Paste(
+                formatted.substring(startOffset, formatted.length() - suffix),
+                renumbered.size());
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires text != null && 0 <= start <= end <= text.length
+     * @return the edits, sorted by offset, changing the numbers of the fields
+     *         of text[start..end[ that collide with the other fields of
+     *         their message
+     */
+    private static List<TextEdit> renumbered(
+            CharSequence text,
+            int start,
+            int end) {
+
+        List<Field> fields = new ArrayList<>();
+        Map<Integer, Numbers> messages = new HashMap<>();
+
+        scan(text, fields, messages);
+
+        for (Field field : fields) {
+            Numbers numbers = messages.get(field.message);
+
+            if (field.start < start || field.end > end) {
+                numbers.use(field.number);
+            } else {
+                numbers.raise(field.number);
+            }
+        }
+
+        List<TextEdit> edits = new ArrayList<>();
+
+        for (Field field : fields) {
+            if (field.start < start || field.end > end) {
+                continue;
+            }
+
+            Numbers numbers = messages.get(field.message);
+
+            if (numbers.free(field.number) == field.number) {
+                numbers.use(field.number);
+                continue;
+            }
+
+            long number = numbers.free(numbers.max() + 1);
+
+            if (number != NONE) {
+                numbers.use(number);
+                edits.add(new TextEdit(
+                        field.start, field.end, Long.toString(number)));
+            }
+        }
+
+        return edits;
+    }
+
+    /**
+     * @requires text != null && fields and messages are empty
+     * @modifies fields, messages
+     * @effects Adds the fields of the messages of text to fields, sorted by
+     *          offset, and maps each message of text to the numbers it
+     *          reserves.
+     */
+    private static void scan(
+            CharSequence text,
+            List<Field> fields,
+            Map<Integer, Numbers> messages) {
+
+        ProtobufLexer lexer = new ProtobufLexer(
+                new ANTLRInputStream(text.toString()));
+
+        List<Integer> owners = new ArrayList<>();
+        int owner = NONE;
+        int first = NONE;
+        int previous = NONE;
+        int brackets = 0;
+        boolean to = false;
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            int type = token.getType();
+
+            if (isHidden(type)) {
+                continue;
+            }
+
+            if (first == NONE) {
+                first = type;
+            }
+
+            switch (type) {
+                case ProtobufLexer.LBRACE:
+                    owners.add(owner);
+                    owner = ownerOf(first, owner, messages);
+                    first = NONE;
+                    brackets = 0;
+                    break;
+                case ProtobufLexer.RBRACE:
+                    owner = owners.isEmpty()
+                            ? NONE
+                            : owners.remove(owners.size() - 1);
+                    first = NONE;
+                    brackets = 0;
+                    break;
+                case ProtobufLexer.SEMI:
+                    first = NONE;
+                    brackets = 0;
+                    break;
+                case ProtobufLexer.LPAREN:
+                case ProtobufLexer.LBRACK:
+                case ProtobufLexer.LCHEVR:
+                    brackets++;
+                    break;
+                case ProtobufLexer.RPAREN:
+                case ProtobufLexer.RBRACK:
+                case ProtobufLexer.RCHEVR:
+                    brackets = Math.max(0, brackets - 1);
+                    break;
+                case ProtobufLexer.IntLit:
+                    if (owner == NONE) {
+                        break;
+                    }
+
+                    long number = numberOf(token.getText());
+
+                    if (first == ProtobufLexer.RESERVED && number != NONE) {
+                        messages.get(owner).reserve(number, to);
+                    } else if (previous == ProtobufLexer.ASSIGN
+                            && brackets == 0
+                            && first != ProtobufLexer.OPTION
+                            && number != NONE) {
+
+                        fields.add(new Field(
+                                owner,
+                                token.getStartIndex(),
+                                token.getStopIndex() + 1,
+                                number));
+                    }
+                    break;
+                case ProtobufLexer.Ident:
+                    if (owner != NONE
+                            && first == ProtobufLexer.RESERVED
+                            && to
+                            && "max".equals(token.getText())) {
+
+                        messages.get(owner).reserve(MAX_FIELD_NUMBER, true);
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            to = type == ProtobufLexer.TO;
+            previous = type;
+        }
+    }
+
+    /**
+     * @requires messages != null
+     * @modifies messages
+     * @return the message whose fields are declared in the block following
+     *         a statement starting with a token of type first, in the block
+     *         of the given owner, a new one being added to messages if needed
+     */
+    private static int ownerOf(
+            int first,
+            int owner,
+            Map<Integer, Numbers> messages) {
+
+        switch (first) {
+            case ProtobufLexer.MESSAGE:
+                int message = messages.size();
+                messages.put(message, new Numbers());
+                return message;
+            case ProtobufLexer.ONEOF:
+                return owner;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * @return the value of the integer literal, or -1 if it is not a valid
+     *         field number
+     */
+    private static long numberOf(String literal) {
+        try {
+            long number = Long.decode(literal);
+
+            return 0 < number && number <= MAX_FIELD_NUMBER ? number : NONE;
+        } catch (NumberFormatException ex) {
+            return NONE;
+        }
+    }
+
+    /**
+     * @return true iff the given type is the type of a token that is not
+     *         part of a statement
+     */
+    private static boolean isHidden(int type) {
+        return type == ProtobufLexer.WS
+                || type == ProtobufLexer.NEWLINE
+                || type == ProtobufLexer.BLOCK_COMMENT
+                || type == ProtobufLexer.LINE_COMMENT;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Field represents the number of a field declaration.
+     */
+    private static final class Field {
+
+        private final int message;
+        private final int start;
+        private final int end;
+        private final long number;
+
+        /**
+         * @effects Makes this be the given number of a field of message,
+         *          written at [start..end[.
+         */
+        Field(int message, int start, int end, long number) {
+            this.message = message;
+            this.start = start;
+            this.end = end;
+            this.number = number;
+        }
+    } // end Field
+
+    /**
+     * Numbers represents the mutable set of the numbers that are used or
+     * reserved by the fields of a message.
+     */
+    private static final class Numbers {
+
+        private final Set<Long> used;
+        private final TreeMap<Long, Long> reserved;
+        private long max;
+        private long last;
+
+        /*
+         * Representation Invariant:
+         *   used != null && reserved != null
+         *   reserved maps the first number of each reserved range to its
+         *   last number
+         *   max = the greatest number used, raised or reserved by a finite
+         *   range, or 0
+         *   last = the first number of the last reserved range, or -1
+         */
+
+        /**
+         * @effects Makes this be a new set of no number.
+         */
+        Numbers() {
+            this.used = new HashSet<>();
+            this.reserved = new TreeMap<>();
+            this.max = 0;
+            this.last = NONE;
+        }
+
+        /**
+         * @return the greatest number of this
+         */
+        long max() {
+            return max;
+        }
+
+        /**
+         * @modifies this
+         * @effects Adds number to the numbers used by the fields.
+         */
+        void use(long number) {
+            used.add(number);
+            raise(number);
+        }
+
+        /**
+         * @modifies this
+         * @effects Makes the greatest number of this be at least number.
+         */
+        void raise(long number) {
+            max = Math.max(max, number);
+        }
+
+        /**
+         * @modifies this
+         * @effects Reserves number, as the last number of the last reserved
+         *          range if to, or as a new range otherwise.
+         */
+        void reserve(long number, boolean to) {
+            if (to && last != NONE && reserved.get(last) <= number) {
+                reserved.put(last, number);
+            } else {
+                last = number;
+                reserved.put(number, number);
+            }
+
+            if (number < MAX_FIELD_NUMBER) {
+                raise(number);
+            }
+        }
+
+        /**
+         * @return the smallest number at or after number that is neither
+         *         used nor reserved, or -1 if there is none
+         */
+        long free(long number) {
+            long result = number;
+
+            while (result <= MAX_FIELD_NUMBER) {
+                Map.Entry<Long, Long> range = reserved.floorEntry(result);
+
+                if (range != null && result <= range.getValue()) {
+                    result = range.getValue() + 1;
+                } else if (FIRST_RESERVED_NUMBER <= result
+                        && result <= LAST_RESERVED_NUMBER) {
+                    result = LAST_RESERVED_NUMBER + 1;
+                } else if (used.contains(result)) {
+                    result++;
+                } else {
+                    return result;
+                }
+            }
+
+            return NONE;
+        }
+    } // end Numbers
+}
@@ -0,0 +1,668 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * SourceFormatter represents an immutable formatter of Protobuf source code.
+ *
+ * The formatter only changes the whitespace between the tokens of the text,
+ * which it walks once:
+ * - each line is indented by its nesting level in braces and brackets, the
+ *   continuation lines of block comments being aligned on their first line;
+ * - no space precedes ';', ',', the closing brackets and a '.' qualifying a
+ *   name, nor follows the opening brackets, '.' and signs, and other tokens
+ *   on a line are separated by a single space, trailing comments being left
+ *   where they are;
+ * - the line breaks are kept, but at most one blank line separates two lines,
+ *   none follows '{' nor precedes '}', exactly one separates the top-level
+ *   definitions and the text ends with a single line terminator;
+ * - a block written on a single line is kept as is, but the content of a
+ *   block spanning several lines starts on the line following '{' and its
+ *   '}' is alone on its line;
+ * - the '=' of consecutive field and enum value declarations are aligned.
+ *
+ * The result is a minimal list of edits, sorted by offset, so that the
+ * unchanged parts of the text are not touched.
+ *
+ * @specfield indentUnit : String  // The indentation of a nesting level.
+ *
+ * @author mwi
+ */
+public final class SourceFormatter {
+
+    private static final int MAX_NEWLINES = 2;
+    private static final int NONE = -1;
+
+    private final String indentUnit;
+
+    /**
+     * @requires indentUnit != null && indentUnit contains only spaces and
+     *           tabs
+     * @effects Makes this be a new formatter indenting each nesting level
+     *          with indentUnit.
+     */
+    public SourceFormatter(String indentUnit) {
+        Assert.notNull(indentUnit);
+
+        this.indentUnit = indentUnit;
+    }
+
+    /**
+     * @requires text != null && its line terminators are '\n' &&
+     *           0 <= startOffset <= endOffset
+     * @return the minimal edits, sorted by offset, that format text, except
+     *         the ones that do not lie in [startOffset..endOffset]
+     */
+    public List<TextEdit> format(
+            CharSequence text,
+            int startOffset,
+            int endOffset) {
+
+        Assert.notNull(text);
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+
+        Run run = new Run(text);
+        run.layout();
+
+        return run.edits(startOffset, endOffset);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return true iff the whitespace around a token of the given type must
+     *         be left as is, i.e., iff it is not a valid token
+     */
+    private static boolean isOpaque(int type) {
+        return type == ProtobufLexer.ANYCHAR
+                || type == ProtobufLexer.Quote
+                || type == ProtobufLexer.UnterminatedStrLit;
+    }
+
+    /**
+     * @return true iff the given type is the type of a comment
+     */
+    private static boolean isComment(int type) {
+        return type == ProtobufLexer.LINE_COMMENT
+                || type == ProtobufLexer.BLOCK_COMMENT;
+    }
+
+    /**
+     * @return true iff the given type is the type of a closing bracket
+     */
+    private static boolean isClosing(int type) {
+        return type == ProtobufLexer.RBRACE
+                || type == ProtobufLexer.RBRACK
+                || type == ProtobufLexer.RPAREN;
+    }
+
+    /**
+     * @return true iff the given type is the type of the keyword starting a
+     *         top-level definition
+     */
+    private static boolean isDefinition(int type) {
+        return type == ProtobufLexer.MESSAGE
+                || type == ProtobufLexer.ENUM
+                || type == ProtobufLexer.SERVICE;
+    }
+
+    /**
+     * @return the number of line terminators in s[start..end[
+     */
+    private static int newlinesIn(CharSequence s, int start, int end) {
+        int count = 0;
+
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == '\n') {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the column following s[start..end[ written at column
+     */
+    private static int advance(CharSequence s, int start, int end, int column) {
+        for (int i = end - 1; i >= start; i--) {
+            if (s.charAt(i) == '\n') {
+                return end - i - 1;
+            }
+        }
+
+        return column + end - start;
+    }
+
+    /**
+     * @return a string of count times c
+     */
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Run represents the mutable state of the formatting of a text.
+     *
+     * The significant tokens of the text, i.e., all but the whitespace, are
+     * stored in parallel arrays; gaps[i] is the whitespace that must precede
+     * the token i, or null if the whitespace must be left as is, and
+     * gaps[size] the whitespace that must follow the last token.
+     */
+    private final class Run {
+
+        private final CharSequence text;
+        private final int size;
+        private final int[] types;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] newlines;
+        private final int[] levels;
+        private final boolean[] breaks;
+        private final String[] gaps;
+        private final List<String> indents;
+
+        private int depth;
+        private int nesting;
+        private int column;
+
+        private final List<int[]> group;
+        private int groupDepth;
+        private int lineFirst;
+        private boolean lineAligned;
+        private boolean lineAssigned;
+        private boolean lineBraced;
+
+        /**
+         * @requires text != null
+         * @effects Makes this be a new run over the tokens of text.
+         */
+        Run(CharSequence text) {
+            this.text = text;
+
+            List<Token> tokens = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            int pending = 0;
+
+            ProtobufLexer lexer =
+                    new ProtobufLexer(new ANTLRInputStream(text.toString()));
+
+            for (Token token = lexer.nextToken();
+                    token.getType() != Token.EOF;
+                    token = lexer.nextToken()) {
+
+                if (token.getType() == ProtobufLexer.NEWLINE) {
+                    pending++;
+                } else if (token.getType() != ProtobufLexer.WS) {
+                    tokens.add(token);
+                    counts.add(pending);
+                    pending = 0;
+                }
+            }
+
+            this.size = tokens.size();
+            this.types = new int[size];
+            this.starts = new int[size];
+            this.ends = new int[size];
+            this.newlines = new int[size + 1];
+            this.levels = new int[size];
+            this.breaks = new boolean[size];
+            this.gaps = new String[size + 1];
+            this.indents = new ArrayList<>();
+
+            for (int i = 0; i < size; i++) {
+                Token token = tokens.get(i);
+
+                types[i] = token.getType();
+                starts[i] = token.getStartIndex();
+                ends[i] = token.getStopIndex() + 1;
+                newlines[i] = counts.get(i);
+            }
+
+            newlines[size] = pending;
+
+            breakBlocks();
+
+            this.group = new ArrayList<>();
+            this.lineFirst = NONE;
+            this.lineAligned = true;
+        }
+
+        /**
+         * @modifies this
+         * @effects Computes the whitespace that must precede each token.
+         */
+        void layout() {
+            for (int i = 0; i < size; i++) {
+                int type = types[i];
+                String gap = gapBefore(i);
+                boolean lineStart = i == 0
+                        || (gap == null ? newlines[i] > 0 : gap.contains("\n"));
+
+                if (lineStart) {
+                    startLine(type, gap == null
+                            ? newlines[i]
+                            : newlinesIn(gap, 0, gap.length()));
+                }
+
+                int before = column;
+
+                gaps[i] = gap;
+                levels[i] = lineStart && gap != null ? level(type) : NONE;
+                column = gap == null
+                        ? advance(text, gapStart(i), starts[i], column)
+                        : advance(gap, 0, gap.length(), column);
+
+                if (type == ProtobufLexer.ASSIGN) {
+                    assign(i, before, lineStart);
+                }
+
+                column = advance(text, starts[i], ends[i], column);
+                nest(type);
+            }
+
+            gaps[size] = size > 0 && !isOpaque(types[size - 1]) ? "\n" : null;
+
+            flush();
+        }
+
+        /**
+         * @requires layout was called
+         * @return the minimal edits applying the layout of this, except the
+         *         ones that do not lie in [from..to]
+         */
+        List<TextEdit> edits(int from, int to) {
+            List<TextEdit> edits = new ArrayList<>();
+
+            for (int i = 0; i <= size; i++) {
+                if (gaps[i] != null) {
+                    add(edits, gapStart(i), gapEnd(i), gaps[i], from, to);
+                }
+
+                if (i < size
+                        && types[i] == ProtobufLexer.BLOCK_COMMENT
+                        && levels[i] != NONE) {
+
+                    addCommentEdits(edits, i, from, to);
+                }
+            }
+
+            return edits;
+        }
+
+        /**
+         * @modifies this
+         * @effects Marks the tokens that must start a line because they
+         *          begin or end the content of a block spanning several
+         *          lines, except a trailing comment following its '{'.
+         */
+        private void breakBlocks() {
+            List<Integer> opened = new ArrayList<>();
+
+            for (int i = 0; i < size; i++) {
+                if (types[i] == ProtobufLexer.LBRACE) {
+                    opened.add(i);
+                } else if (types[i] == ProtobufLexer.RBRACE
+                        && !opened.isEmpty()) {
+
+                    int open = opened.remove(opened.size() - 1);
+                    boolean multiline = false;
+
+                    for (int k = open + 1; k <= i && !multiline; k++) {
+                        multiline = newlines[k] > 0;
+                    }
+
+                    if (multiline) {
+                        breaks[open + 1] = !isComment(types[open + 1]);
+                        breaks[i] = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the whitespace that must precede the token i, or null if
+         *         it must be left as is
+         */
+        private String gapBefore(int i) {
+            if (i == 0) {
+                return "";
+            }
+
+            int previous = types[i - 1];
+            int type = types[i];
+
+            if (isOpaque(previous) || isOpaque(type)) {
+                return null;
+            }
+
+            boolean topLevelEnd = depth == 0
+                    && previous == ProtobufLexer.RBRACE;
+            int lines = Math.min(newlines[i], MAX_NEWLINES);
+
+            if (lines == 0 && breaks[i]) {
+                lines = 1;
+            }
+
+            if (lines == 0) {
+                return topLevelEnd
+                        && type != ProtobufLexer.SEMI
+                        && !isComment(type)
+                        ? repeat('\n', MAX_NEWLINES)
+                        : spacing(i, previous, type);
+            }
+
+            if (previous == ProtobufLexer.LBRACE
+                    || type == ProtobufLexer.RBRACE) {
+
+                lines = 1;
+            }
+
+            if (topLevelEnd
+                    || depth == 0
+                    && previous == ProtobufLexer.SEMI
+                    && isDefinition(type)) {
+
+                lines = MAX_NEWLINES;
+            }
+
+            return repeat('\n', lines) + indent(level(type));
+        }
+
+        /**
+         * @requires the token i follows the token i - 1 on the same line
+         * @return the whitespace that must separate them, or null if it must
+         *         be left as is
+         */
+        private String spacing(int i, int previous, int type) {
+            if (isComment(type)) {
+                return gapStart(i) == gapEnd(i) ? " " : null;
+            }
+
+            if (previous == ProtobufLexer.LBRACE
+                    && type == ProtobufLexer.RBRACE) {
+
+                return "";
+            }
+
+            if (type == ProtobufLexer.DOT
+                    && (previous == ProtobufLexer.Ident
+                            || previous == ProtobufLexer.RPAREN)) {
+
+                return "";
+            }
+
+            switch (type) {
+                case ProtobufLexer.SEMI:
+                case ProtobufLexer.COMMA:
+                case ProtobufLexer.RPAREN:
+                case ProtobufLexer.RBRACK:
+                case ProtobufLexer.LCHEVR:
+                case ProtobufLexer.RCHEVR:
+                    return "";
+                case ProtobufLexer.LPAREN:
+                    if (i >= 2 && types[i - 2] == ProtobufLexer.RPC) {
+                        return "";
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            switch (previous) {
+                case ProtobufLexer.LPAREN:
+                case ProtobufLexer.LBRACK:
+                case ProtobufLexer.LCHEVR:
+                case ProtobufLexer.DOT:
+                case ProtobufLexer.MINUS:
+                case ProtobufLexer.PLUS:
+                    return "";
+                default:
+                    return " ";
+            }
+        }
+
+        /**
+         * @return the indentation level of a line starting with a token of
+         *         the given type
+         */
+        private int level(int type) {
+            return Math.max(0, depth + nesting - (isClosing(type) ? 1 : 0));
+        }
+
+        /**
+         * @return the indentation of the given level
+         */
+        private String indent(int level) {
+            if (indents.isEmpty()) {
+                indents.add("");
+            }
+
+            while (indents.size() <= level) {
+                indents.add(indents.get(indents.size() - 1) + indentUnit);
+            }
+
+            return indents.get(level);
+        }
+
+        /**
+         * @modifies this
+         * @effects Updates the nesting of this after a token of the given
+         *          type.
+         */
+        private void nest(int type) {
+            switch (type) {
+                case ProtobufLexer.LBRACE:
+                    depth++;
+                    nesting = 0;
+                    lineBraced = true;
+                    break;
+                case ProtobufLexer.RBRACE:
+                    depth = Math.max(0, depth - 1);
+                    nesting = 0;
+                    lineBraced = true;
+                    break;
+                case ProtobufLexer.LPAREN:
+                case ProtobufLexer.LBRACK:
+                    nesting++;
+                    break;
+                case ProtobufLexer.RPAREN:
+                case ProtobufLexer.RBRACK:
+                    nesting = Math.max(0, nesting - 1);
+                    break;
+                case ProtobufLexer.SEMI:
+                    nesting = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * @modifies this
+         * @effects Starts a new line with a token of the given type, after
+         *          the given number of line terminators, ending the current
+         *          group of aligned declarations unless the previous line
+         *          belongs to it and directly precedes the new line.
+         */
+        private void startLine(int type, int terminators) {
+            if (!lineAligned || terminators > 1) {
+                flush();
+            }
+
+            lineFirst = type;
+            lineAligned = false;
+            lineAssigned = false;
+            lineBraced = false;
+        }
+
+        /**
+         * @modifies this
+         * @effects Adds the '=' token i, preceded by column before, to the
+         *          current group of aligned declarations iff it is the first
+         *          '=' of a field or enum value declaration starting its
+         *          line.
+         */
+        private void assign(int i, int before, boolean lineStart) {
+            if (lineAssigned) {
+                return;
+            }
+
+            lineAssigned = true;
+
+            if (lineStart
+                    || gaps[i] == null
+                    || depth == 0
+                    || nesting > 0
+                    || lineBraced
+                    || lineFirst == ProtobufLexer.OPTION
+                    || isComment(lineFirst)) {
+
+                return;
+            }
+
+            if (!group.isEmpty() && groupDepth != depth) {
+                flush();
+            }
+
+            group.add(new int[] { i, before });
+            groupDepth = depth;
+            lineAligned = true;
+        }
+
+        /**
+         * @modifies this
+         * @effects Aligns the '=' of the current group of declarations and
+         *          starts a new empty group.
+         */
+        private void flush() {
+            int max = 0;
+
+            for (int[] member : group) {
+                max = Math.max(max, member[1]);
+            }
+
+            for (int[] member : group) {
+                gaps[member[0]] = repeat(' ', 1 + max - member[1]);
+            }
+
+            group.clear();
+        }
+
+        /**
+         * @modifies edits
+         * @effects Adds to edits the edits aligning the continuation lines of
+         *          the block comment i on its indentation.
+         */
+        private void addCommentEdits(
+                List<TextEdit> edits,
+                int i,
+                int from,
+                int to) {
+
+            String indent = indent(levels[i]) + " ";
+
+            for (int k = starts[i]; k < ends[i]; k++) {
+                if (text.charAt(k) != '\n') {
+                    continue;
+                }
+
+                int start = k + 1;
+                int end = start;
+
+                while (end < ends[i]
+                        && (text.charAt(end) == ' '
+                                || text.charAt(end) == '\t')) {
+                    end++;
+                }
+
+                if (end < ends[i] && text.charAt(end) == '*') {
+                    add(edits, start, end, indent, from, to);
+                }
+
+                k = end - 1;
+            }
+        }
+
+        /**
+         * @modifies edits
+         * @effects Adds to edits the minimal edit replacing text[start..end[
+         *          with replacement, if any and if it lies in [from..to].
+         */
+        private void add(
+                List<TextEdit> edits,
+                int start,
+                int end,
+                String replacement,
+                int from,
+                int to) {
+
+            int prefix = 0;
+            int length = end - start;
+
+            while (prefix < length
+                    && prefix < replacement.length()
+                    && text.charAt(start + prefix)
+                            == replacement.charAt(prefix)) {
+                prefix++;
+            }
+
+            int suffix = 0;
+
+            while (suffix < length - prefix
+                    && suffix < replacement.length() - prefix
+                    && text.charAt(end - 1 - suffix)
+                            == replacement.charAt(
+                                    replacement.length() - 1 - suffix)) {
+                suffix++;
+            }
+
+            if (prefix == length && prefix == replacement.length()) {
+                return;
+            }
+
+            int editStart = start + prefix;
+            int editEnd = end - suffix;
+
+            if (from <= editStart && editEnd <= to) {
+                edits.add(new TextEdit(
+                        editStart,
+                        editEnd,
+                        replacement.substring(
+                                prefix, replacement.length() - suffix)));
+            }
+        }
+
+        /**
+         * @return the offset of the whitespace preceding the token i
+         */
+        private int gapStart(int i) {
+            return i == 0 ? 0 : ends[i - 1];
+        }
+
+        /**
+         * @return the offset following the whitespace preceding the token i
+         */
+        private int gapEnd(int i) {
+            return i == size ? text.length() : starts[i];
+        }
+    } // end Run
+}
@@ -0,0 +1,231 @@
+package com.marcowillemart.protobuf.highlighting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BracePairs represents the immutable table of the brackets of a Protobuf
+ * document, i.e., its '{', '}', '(', ')', '[', ']', '<' and '>' tokens, with
+ * the bracket matching each of them, if any.
+ *
+ * Since the table is built from the tokens of the document, the brackets of
+ * the string literals and comments are not part of it. A closing bracket
+ * matches the last unmatched opening bracket of the same kind before it, the
+ * unmatched opening brackets of other kinds between them being left
+ * unmatched.
+ *
+ * @specfield brackets : set of int          // The offsets of the brackets.
+ * @specfield match : int -> int             // The offset of the bracket
+ *                                              matching each bracket, or -1.
+ *
+ * @author mwi
+ */
+public final class BracePairs {
+
+    private static final int NONE = -1;
+
+    private final int[] offsets;
+    private final int[] partners;
+
+    /*
+     * Abstraction Function:
+     *   brackets = { offsets[i] | 0 <= i < offsets.length }
+     *   match(offsets[i]) = partners[i] < 0 ? -1 : offsets[partners[i]]
+     *
+     * Representation Invariant:
+     *   offsets != null && partners != null
+     *   offsets.length = partners.length
+     *   offsets is strictly increasing
+     *   partners[i] = -1 || partners[partners[i]] = i
+     */
+
+    /**
+     * @requires offsets and partners satisfy the rep invariant
+     * @effects Makes this be a new table of the given brackets.
+     */
+    private BracePairs(int[] offsets, int[] partners) {
+        this.offsets = offsets;
+        this.partners = partners;
+    }
+
+    /**
+     * @return the number of brackets of this
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return true iff offset is in this.brackets
+     */
+    public boolean isBracket(int offset) {
+        return Arrays.binarySearch(offsets, offset) >= 0;
+    }
+
+    /**
+     * @requires isBracket(offset)
+     * @return this.match(offset)
+     */
+    public int matchOf(int offset) {
+        int index = Arrays.binarySearch(offsets, offset);
+
+        Assert.isTrue(index >= 0);
+
+        return partners[index] == NONE ? NONE : offsets[partners[index]];
+    }
+
+    /**
+     * @requires from <= to
+     * @return the smallest offset of this.brackets in [from..to[, or -1 if
+     *         there is none
+     */
+    public int firstBracket(int from, int to) {
+        Assert.isTrue(from <= to);
+
+        int index = insertionPoint(from);
+
+        return index < offsets.length && offsets[index] < to
+                ? offsets[index]
+                : NONE;
+    }
+
+    /**
+     * @requires from <= to
+     * @return the greatest offset of this.brackets in [from..to[, or -1 if
+     *         there is none
+     */
+    public int lastBracket(int from, int to) {
+        Assert.isTrue(from <= to);
+
+        int index = insertionPoint(to) - 1;
+
+        return index >= 0 && offsets[index] >= from
+                ? offsets[index]
+                : NONE;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the index of the first bracket of this at or after offset
+     */
+    private int insertionPoint(int offset) {
+        int index = Arrays.binarySearch(offsets, offset);
+
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * @return the type of the opening bracket matching a closing bracket of
+     *         the given type, or -1 if type is not the type of a closing
+     *         bracket
+     */
+    private static int openingOf(int type) {
+        switch (type) {
+            case ProtobufLexer.RBRACE:
+                return ProtobufLexer.LBRACE;
+            case ProtobufLexer.RPAREN:
+                return ProtobufLexer.LPAREN;
+            case ProtobufLexer.RBRACK:
+                return ProtobufLexer.LBRACK;
+            case ProtobufLexer.RCHEVR:
+                return ProtobufLexer.LCHEVR;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * @return true iff type is the type of an opening bracket
+     */
+    private static boolean isOpening(int type) {
+        return type == ProtobufLexer.LBRACE
+                || type == ProtobufLexer.LPAREN
+                || type == ProtobufLexer.LBRACK
+                || type == ProtobufLexer.LCHEVR;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Builder represents a mutable builder of the table of the brackets of a
+     * document, fed with the tokens of the document in the order of the text.
+     */
+    public static final class Builder {
+
+        private final List<Integer> offsets;
+        private final List<Integer> partners;
+        private final List<Integer> open;
+        private final List<Integer> openTypes;
+
+        /**
+         * @effects Makes this be a new builder fed with no token.
+         */
+        public Builder() {
+            this.offsets = new ArrayList<>();
+            this.partners = new ArrayList<>();
+            this.open = new ArrayList<>();
+            this.openTypes = new ArrayList<>();
+        }
+
+        /**
+         * @requires start is the offset of a token of type type that follows
+         *           the tokens fed so far
+         * @modifies this
+         * @effects Feeds this with the given token.
+         */
+        public void token(int type, int start) {
+            int opening = openingOf(type);
+
+            if (!isOpening(type) && opening == NONE) {
+                return;
+            }
+
+            int index = offsets.size();
+
+            offsets.add(start);
+            partners.add(NONE);
+
+            if (isOpening(type)) {
+                open.add(index);
+                openTypes.add(type);
+                return;
+            }
+
+            int last = openTypes.lastIndexOf(opening);
+
+            if (last >= 0) {
+                int partner = open.get(last);
+
+                partners.set(index, partner);
+                partners.set(partner, index);
+
+                open.subList(last, open.size()).clear();
+                openTypes.subList(last, openTypes.size()).clear();
+            }
+        }
+
+        /**
+         * @return the table of the brackets of the tokens fed to this
+         */
+        public BracePairs build() {
+            int size = offsets.size();
+            int[] offsetArray = new int[size];
+            int[] partnerArray = new int[size];
+
+            for (int i = 0; i < size; i++) {
+                offsetArray[i] = offsets.get(i);
+                partnerArray[i] = partners.get(i);
+            }
+
+            return new BracePairs(offsetArray, partnerArray);
+        }
+    } // end Builder
+}
@@ -0,0 +1,131 @@
+package com.marcowillemart.protobuf.highlighting;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * Highlight represents an immutable semantic highlight of an identifier of a
+ * Protobuf file.
+ *
+ * @specfield startOffset : int    // The offset of the first character.
+ * @specfield endOffset : int      // The offset following the last character.
+ * @specfield kind : Kind          // The kind of the designated symbol.
+ * @specfield declaration : boolean // True iff the identifier declares the
+ *                                     symbol.
+ *
+ * @invariant 0 <= startOffset <= endOffset
+ *
+ * @author mwi
+ */
+public final class Highlight {
+
+    /**
+     * The kind of the symbol designated by a highlighted identifier.
+     */
+    public enum Kind {
+        MESSAGE,
+        ENUM,
+        SERVICE,
+        RPC,
+        FIELD,
+        ENUM_VALUE,
+        ONEOF,
+        /** A type name that denotes no known type. */
+        UNRESOLVED
+    }
+
+    private final int startOffset;
+    private final int endOffset;
+    private final Kind kind;
+    private final boolean declaration;
+
+    /**
+     * @requires 0 <= startOffset <= endOffset && kind != null
+     * @effects Makes this be a new highlight with the given elements.
+     */
+    public Highlight(
+            int startOffset,
+            int endOffset,
+            Kind kind,
+            boolean declaration) {
+
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+        Assert.notNull(kind);
+
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.kind = kind;
+        this.declaration = declaration;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.declaration
+     */
+    public boolean isDeclaration() {
+        return declaration;
+    }
+
+    /**
+     * @requires delta >= -this.startOffset
+     * @return a new highlight equal to this but whose offsets are shifted by
+     *         delta
+     */
+    public Highlight shift(int delta) {
+        return new Highlight(
+                startOffset + delta, endOffset + delta, kind, declaration);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof Highlight)) {
+            return false;
+        }
+
+        Highlight other = (Highlight) obj;
+
+        return startOffset == other.startOffset
+                && endOffset == other.endOffset
+                && kind == other.kind
+                && declaration == other.declaration;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + startOffset;
+        hash = 31 * hash + endOffset;
+        hash = 31 * hash + kind.hashCode();
+        hash = 31 * hash + (declaration ? 1 : 0);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (declaration ? " declaration" : "")
+                + "[" + startOffset + ".." + endOffset + "[";
+    }
+}
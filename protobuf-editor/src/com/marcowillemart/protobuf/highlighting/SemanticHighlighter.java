@@ -0,0 +1,308 @@
+package com.marcowillemart.protobuf.highlighting;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.completion.TypeNameTable;
+import com.marcowillemart.protobuf.highlighting.Highlight.Kind;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Import;
+import com.marcowillemart.protobuf.model.Location;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.model.TypeReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SemanticHighlighter represents the thread-safe, incremental semantic
+ * highlighter of the successive versions of a Protobuf file.
+ *
+ * The identifiers of declarations are highlighted by the kind of the declared
+ * definition, and the identifiers of type references by the kind of the type
+ * they denote, the last identifier of a reference to no known type being
+ * highlighted as unresolved. An external type is only known if its file is
+ * visible from the highlighted file, i.e., imported directly or publicly.
+ *
+ * The highlights of each top-level definition are memoized along with its
+ * text, relative to its start. As long as the environment of the file, i.e.,
+ * its package, imports, declared types and known external types, does not
+ * change, the highlights of a definition whose text is unchanged are reused
+ * and only shifted to its new offset.
+ *
+ * @specfield environment : String                   // The environment of the
+ *                                                      last version.
+ * @specfield blocks : String -> List<Highlight>     // The highlights of the
+ *                                                      top-level definitions
+ *                                                      of the last version,
+ *                                                      by text.
+ *
+ * @author mwi
+ */
+public final class SemanticHighlighter {
+
+    private static final char SEPARATOR = '\n';
+
+    private String environment;
+    private Map<String, List<Highlight>> blocks;
+    private int reused;
+
+    /**
+     * @effects Makes this be a new highlighter with no memoized highlight.
+     */
+    public SemanticHighlighter() {
+        this.environment = null;
+        this.blocks = new HashMap<>();
+        this.reused = 0;
+    }
+
+    /**
+     * @requires text != null && file is the model of text && types != null &&
+     *           visible != null
+     * @modifies this
+     * @effects Memoizes the highlights of the top-level definitions of file.
+     * @return the highlights of file, sorted by offset, the type references
+     *         being resolved against the definitions of file and the types of
+     *         the visible files, the known external types at the given
+     *         generation
+     */
+    public synchronized <F> List<Highlight> highlight(
+            CharSequence text,
+            ProtoFile file,
+            TypeNameTable<F> types,
+            Set<? extends F> visible,
+            long generation) {
+
+        Assert.notNull(text);
+        Assert.notNull(file);
+        Assert.notNull(types);
+        Assert.notNull(visible);
+
+        String currentEnvironment = environmentOf(file, generation);
+
+        if (!currentEnvironment.equals(environment)) {
+            blocks.clear();
+            environment = currentEnvironment;
+        }
+
+        List<Definition> definitions = file.definitions();
+        List<List<TypeReference>> references =
+                referencesOf(definitions, file.references());
+
+        Map<String, List<Highlight>> nextBlocks = new HashMap<>();
+        List<Highlight> highlights = new ArrayList<>();
+        reused = 0;
+
+        for (int i = 0; i < definitions.size(); i++) {
+            Definition definition = definitions.get(i);
+            int start = definition.startOffset();
+            int end = Math.min(definition.endOffset(), text.length());
+            String key = text.subSequence(start, end).toString();
+
+            List<Highlight> block = nextBlocks.get(key);
+
+            if (block == null) {
+                block = blocks.get(key);
+            }
+
+            if (block == null) {
+                block = highlightsOf(definition, references.get(i),
+                        file, types, visible, start);
+            } else {
+                reused++;
+            }
+
+            nextBlocks.put(key, block);
+
+            for (Highlight highlight : block) {
+                highlights.add(highlight.shift(start));
+            }
+        }
+
+        blocks = nextBlocks;
+
+        Collections.sort(highlights, new Comparator<Highlight>() {
+
+            @Override
+            public int compare(Highlight a, Highlight b) {
+                return Integer.compare(a.startOffset(), b.startOffset());
+            }
+        });
+
+        return highlights;
+    }
+
+    /**
+     * @return the number of top-level definitions whose highlights were
+     *         reused by the last call to highlight
+     */
+    public synchronized int reused() {
+        return reused;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires file != null
+     * @return the environment of file at the given generation of the known
+     *         external types
+     */
+    private static String environmentOf(ProtoFile file, long generation) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(generation).append(SEPARATOR)
+                .append(file.packageName()).append(SEPARATOR);
+
+        for (Import anImport : file.imports()) {
+            builder.append(anImport.modifier()).append(' ')
+                    .append(anImport.path()).append(SEPARATOR);
+        }
+
+        for (Definition definition : file.allDefinitions()) {
+            if (definition.isType()) {
+                builder.append(definition.fullName()).append(SEPARATOR);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @requires definitions and references are sorted by offset
+     * @return the references of each of the definitions, in order
+     */
+    private static List<List<TypeReference>> referencesOf(
+            List<Definition> definitions,
+            List<TypeReference> references) {
+
+        List<List<TypeReference>> result =
+                new ArrayList<>(definitions.size());
+        int next = 0;
+
+        for (Definition definition : definitions) {
+            List<TypeReference> contained = new ArrayList<>();
+
+            while (next < references.size()
+                    && references.get(next).location().startOffset()
+                            < definition.startOffset()) {
+                next++;
+            }
+
+            while (next < references.size()
+                    && references.get(next).location().endOffset()
+                            <= definition.endOffset()) {
+
+                contained.add(references.get(next));
+                next++;
+            }
+
+            result.add(contained);
+        }
+
+        return result;
+    }
+
+    /**
+     * @requires all arguments are not null
+     * @return the highlights of definition, its descendants and its
+     *         references, relative to origin
+     */
+    private static <F> List<Highlight> highlightsOf(
+            Definition definition,
+            List<TypeReference> references,
+            ProtoFile file,
+            TypeNameTable<F> types,
+            Set<? extends F> visible,
+            int origin) {
+
+        List<Highlight> highlights = new ArrayList<>();
+
+        addDeclarations(highlights, definition, origin);
+
+        for (TypeReference reference : references) {
+            List<Location> segments = reference.segments();
+
+            for (int i = 0; i < segments.size(); i++) {
+                Location segment = segments.get(i);
+                Kind kind = resolve(
+                        reference.prefix(segment.startOffset()),
+                        reference.scope(),
+                        file,
+                        types,
+                        visible);
+
+                if (kind == null && i == segments.size() - 1) {
+                    kind = Kind.UNRESOLVED;
+                }
+
+                if (kind != null) {
+                    highlights.add(new Highlight(
+                            segment.startOffset() - origin,
+                            segment.endOffset() - origin,
+                            kind,
+                            false));
+                }
+            }
+        }
+
+        return highlights;
+    }
+
+    /**
+     * @modifies highlights
+     * @effects Adds to highlights the declarations of definition and of its
+     *          descendants, relative to origin.
+     */
+    private static void addDeclarations(
+            List<Highlight> highlights,
+            Definition definition,
+            int origin) {
+
+        Location location = definition.location();
+
+        highlights.add(new Highlight(
+                location.startOffset() - origin,
+                location.endOffset() - origin,
+                Kind.valueOf(definition.kind().name()),
+                true));
+
+        for (Definition child : definition.children()) {
+            addDeclarations(highlights, child, origin);
+        }
+    }
+
+    /**
+     * @requires name not empty && scope != null && file != null &&
+     *           types != null && visible != null
+     * @return the kind of the type denoted by name in scope, or null if it
+     *         denotes no type of file or of the visible files
+     */
+    private static <F> Kind resolve(
+            String name,
+            String scope,
+            ProtoFile file,
+            TypeNameTable<F> types,
+            Set<? extends F> visible) {
+
+        for (String candidate : TypeNames.candidates(name, scope)) {
+            Definition definition = file.definition(candidate);
+
+            if (definition != null && definition.isType()) {
+                return Kind.valueOf(definition.kind().name());
+            }
+
+            Definition.Kind kind = types.kindOf(candidate, visible);
+
+            if (kind != null) {
+                return Kind.valueOf(kind.name());
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.marcowillemart.protobuf.imports;
+
+/**
+ * FileView represents the view of a file system needed to resolve the imports
+ * of Protobuf files whose type is F.
+ *
+ * The files F must have a meaningful equals and hashCode, and the view must be
+ * safe for use by multiple threads.
+ *
+ * @author mwi
+ */
+public interface FileView<F> {
+
+    /**
+     * @requires importer != null && path != null
+     * @return the file denoted by the import of path in importer, or null if
+     *         there is none
+     */
+    F resolve(F importer, String path);
+
+    /**
+     * @requires file != null
+     * @return the time of the last modification of file
+     */
+    long lastModified(F file);
+
+    /**
+     * @requires file != null
+     * @return the content of file, or null if it cannot be read
+     */
+    String text(F file);
+}
@@ -0,0 +1,151 @@
+package com.marcowillemart.protobuf.imports;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Import;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ImportClosure represents the immutable transitive closure of the imports of
+ * a Protobuf file.
+ *
+ * @specfield root : F                         // The importing file.
+ * @specfield files : List<F>                   // The files transitively
+ *                                                 imported by root, in
+ *                                                 breadth-first order.
+ * @specfield models : F -> ProtoFile           // The model of each file.
+ * @specfield stamps : F -> long                // The modification time of
+ *                                                 each file when it was
+ *                                                 parsed.
+ * @specfield visibleFiles : List<F>            // The files whose definitions
+ *                                                 can be used by root, i.e.,
+ *                                                 its direct imports and the
+ *                                                 files they import publicly.
+ * @specfield unresolved : F -> List<Import>    // The imports of each file
+ *                                                 that denote no readable
+ *                                                 file.
+ *
+ * @invariant root not in files
+ * @invariant visibleFiles is a subset of files
+ *
+ * @author mwi
+ */
+public final class ImportClosure<F> {
+
+    private final F root;
+    private final List<F> files;
+    private final Map<F, ProtoFile> models;
+    private final Map<F, Long> stamps;
+    private final List<F> visibleFiles;
+    private final Map<F, List<Import>> unresolved;
+
+    /**
+     * @requires all arguments are not null
+     * @effects Makes this be a new closure with the given elements.
+     */
+    ImportClosure(
+            F root,
+            List<F> files,
+            Map<F, ProtoFile> models,
+            Map<F, Long> stamps,
+            List<F> visibleFiles,
+            Map<F, List<Import>> unresolved) {
+
+        Assert.notNull(root);
+        Assert.notNull(files);
+        Assert.notNull(models);
+        Assert.notNull(stamps);
+        Assert.notNull(visibleFiles);
+        Assert.notNull(unresolved);
+
+        this.root = root;
+        this.files = files;
+        this.models = models;
+        this.stamps = stamps;
+        this.visibleFiles = visibleFiles;
+        this.unresolved = unresolved;
+    }
+
+    /**
+     * @return this.root
+     */
+    public F root() {
+        return root;
+    }
+
+    /**
+     * @return a read-only view of this.files
+     */
+    public List<F> files() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @return a read-only view of this.visibleFiles
+     */
+    public List<F> visibleFiles() {
+        return Collections.unmodifiableList(visibleFiles);
+    }
+
+    /**
+     * @return true iff file in this.files
+     */
+    public boolean contains(F file) {
+        return models.containsKey(file);
+    }
+
+    /**
+     * @requires file in this.files
+     * @return this.models[file]
+     */
+    public ProtoFile model(F file) {
+        Assert.isTrue(contains(file));
+
+        return models.get(file);
+    }
+
+    /**
+     * @requires file in this.files
+     * @return this.stamps[file]
+     */
+    long stamp(F file) {
+        Assert.isTrue(contains(file));
+
+        return stamps.get(file);
+    }
+
+    /**
+     * @requires file = this.root || file in this.files
+     * @return a read-only view of this.unresolved[file]
+     */
+    public List<Import> unresolved(F file) {
+        Assert.isTrue(file.equals(root) || contains(file));
+
+        List<Import> imports = unresolved.get(file);
+
+        return imports == null
+                ? Collections.<Import>emptyList()
+                : Collections.unmodifiableList(imports);
+    }
+
+    /**
+     * @return the list of the models of this.visibleFiles, in order
+     */
+    public List<ProtoFile> visibleModels() {
+        List<ProtoFile> result = new ArrayList<>(visibleFiles.size());
+
+        for (F file : visibleFiles) {
+            result.add(models.get(file));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return root + " -> " + files;
+    }
+}
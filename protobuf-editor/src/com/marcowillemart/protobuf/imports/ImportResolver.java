@@ -0,0 +1,512 @@
+package com.marcowillemart.protobuf.imports;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.ForkJoinPools;
+import com.marcowillemart.protobuf.model.Import;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ImportResolver represents a thread-safe resolver of the imports of Protobuf
+ * files whose type is F.
+ *
+ * The transitive closure of the imports of a file is loaded in parallel: each
+ * imported file is read and parsed by its own task of a shared fork/join pool,
+ * which then forks the tasks loading its own imports.
+ *
+ * The model of each file is memoized along with its modification time, and is
+ * only parsed again when the file changes. The closure of each root is
+ * memoized as well: a change to a file only invalidates the closures of the
+ * files that depend on it, i.e., that import it transitively. A closure with
+ * unresolved imports is also computed again once one of them denotes a
+ * readable file, e.g., after the imported file has been created.
+ *
+ * @specfield view : FileView<F>                 // The view of the files.
+ * @specfield units : F -> (long, ProtoFile)     // The memoized models.
+ * @specfield closures : F -> ImportClosure<F>   // The memoized closures.
+ *
+ * @author mwi
+ */
+public final class ImportResolver<F> {
+
+    private final FileView<F> view;
+    private final ConcurrentMap<F, Unit<F>> units;
+    private final ConcurrentMap<F, Entry<F>> closures;
+
+    /*
+     * Abstraction Function:
+     *   view = view
+     *   units = units
+     *   closures = { f -> closures[f].closure | f in closures }
+     *
+     * Representation Invariant:
+     *   view != null
+     *   units != null
+     *   closures != null
+     */
+
+    /**
+     * @requires view != null
+     * @effects Makes this be a new resolver of the files of view with no
+     *          memoized result.
+     */
+    public ImportResolver(FileView<F> view) {
+        Assert.notNull(view);
+
+        this.view = view;
+        this.units = new ConcurrentHashMap<>();
+        this.closures = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @requires importer != null && path != null
+     * @return the file denoted by the import of path in importer, or null if
+     *         there is none
+     */
+    public F resolve(F importer, String path) {
+        Assert.notNull(importer);
+        Assert.notNull(path);
+
+        return view.resolve(importer, path);
+    }
+
+    /**
+     * @requires file != null
+     * @modifies this
+     * @effects Memoizes the model of file if it is not already memoized for
+     *          its current modification time.
+     * @return the model of file, or null if it cannot be read
+     */
+    public ProtoFile model(F file) {
+        Assert.notNull(file);
+
+        Unit<F> unit = load(file);
+
+        return unit == null ? null : unit.model;
+    }
+
+    /**
+     * @requires root != null && imports != null
+     * @modifies this
+     * @effects Memoizes the closure of root and the models of the files it
+     *          contains.
+     * @return the transitive closure of imports, the current imports of root
+     */
+    public ImportClosure<F> closure(F root, List<Import> imports) {
+        Assert.notNull(root);
+        Assert.noNullElement(imports);
+
+        List<String> key = keyOf(imports);
+        Entry<F> entry = closures.get(root);
+
+        if (entry != null && entry.key.equals(key) && isFresh(entry.closure)) {
+            return entry.closure;
+        }
+
+        List<F> targets = new ArrayList<>(imports.size());
+
+        for (Import anImport : imports) {
+            targets.add(view.resolve(root, anImport.path()));
+        }
+
+        Set<F> visited =
+                Collections.newSetFromMap(new ConcurrentHashMap<F, Boolean>());
+        ConcurrentMap<F, Unit<F>> loaded = new ConcurrentHashMap<>();
+
+        visited.add(root);
+
+        List<LoadTask> tasks = new ArrayList<>();
+
+        for (F target : targets) {
+            if (target != null && visited.add(target)) {
+                tasks.add(new LoadTask(target, visited, loaded));
+            }
+        }
+
+        if (!tasks.isEmpty()) {
+            ForkJoinPools.shared().invoke(new LoadAllTask(tasks));
+        }
+
+        ImportClosure<F> closure =
+                closureOf(root, imports, targets, loaded);
+
+        closures.put(root, new Entry<>(key, closure));
+
+        return closure;
+    }
+
+    /**
+     * @requires file != null
+     * @modifies this
+     * @effects Forgets the memoized model of file and the memoized closures
+     *          of the files that depend on it.
+     */
+    public void invalidate(F file) {
+        Assert.notNull(file);
+
+        units.remove(file);
+        closures.remove(file);
+
+        for (F dependent : dependents(file)) {
+            closures.remove(dependent);
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Forgets all the memoized models and closures, e.g., after the
+     *          way imported paths are resolved has changed.
+     */
+    public void clear() {
+        units.clear();
+        closures.clear();
+    }
+
+    /**
+     * @requires file != null
+     * @return the set of the roots whose memoized closure contains file
+     */
+    public Set<F> dependents(F file) {
+        Assert.notNull(file);
+
+        Set<F> result = new HashSet<>();
+
+        for (Map.Entry<F, Entry<F>> entry : closures.entrySet()) {
+            if (entry.getValue().closure.contains(file)) {
+                result.add(entry.getKey());
+            }
+        }
+
+        return result;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires file != null
+     * @modifies this.units
+     * @effects Memoizes the model of file if it is not already memoized for
+     *          its current modification time.
+     * @return the memoized unit of file, or null if file cannot be read
+     */
+    private Unit<F> load(F file) {
+        long stamp = view.lastModified(file);
+        Unit<F> unit = units.get(file);
+
+        if (unit != null && unit.stamp == stamp) {
+            return unit;
+        }
+
+        if (unit != null) {
+            invalidate(file);
+        }
+
+        String text = view.text(file);
+
+        if (text == null) {
+            return null;
+        }
+
+        ProtoFile model = ProtoFileBuilder.parse(text);
+        List<F> targets = new ArrayList<>(model.imports().size());
+
+        for (Import anImport : model.imports()) {
+            targets.add(view.resolve(file, anImport.path()));
+        }
+
+        unit = new Unit<>(stamp, model, targets);
+        units.put(file, unit);
+
+        return unit;
+    }
+
+    /**
+     * @requires closure != null
+     * @modifies this.units
+     * @return true iff no file of closure has been modified since it was
+     *         parsed, and none of its unresolved imports denotes a readable
+     *         file now, e.g., since the imported file has been created
+     */
+    private boolean isFresh(ImportClosure<F> closure) {
+        for (F file : closure.files()) {
+            if (view.lastModified(file) != closure.stamp(file)) {
+                return false;
+            }
+        }
+
+        if (!isStillUnresolved(closure, closure.root())) {
+            return false;
+        }
+
+        for (F file : closure.files()) {
+            if (!isStillUnresolved(closure, file)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @requires closure != null && file != null
+     * @modifies this.units
+     * @return true iff none of the unresolved imports of file in closure
+     *         denotes a readable file now
+     */
+    private boolean isStillUnresolved(ImportClosure<F> closure, F file) {
+        for (Import anImport : closure.unresolved(file)) {
+            F target = view.resolve(file, anImport.path());
+
+            if (target != null && load(target) != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @requires loaded contains the units of the files transitively imported
+     *           by targets, the files denoted by imports in root
+     * @return the closure of root built from loaded
+     */
+    private ImportClosure<F> closureOf(
+            F root,
+            List<Import> imports,
+            List<F> targets,
+            Map<F, Unit<F>> loaded) {
+
+        List<F> files = new ArrayList<>();
+        Map<F, ProtoFile> models = new HashMap<>();
+        Map<F, Long> stamps = new HashMap<>();
+        Map<F, List<Import>> unresolved = new HashMap<>();
+
+        addUnresolved(unresolved, root, imports, targets, loaded);
+
+        Set<F> seen = new HashSet<>();
+        seen.add(root);
+
+        List<F> queue = new ArrayList<>(targets);
+
+        for (int i = 0; i < queue.size(); i++) {
+            F file = queue.get(i);
+
+            if (file == null || !seen.add(file)) {
+                continue;
+            }
+
+            Unit<F> unit = loaded.get(file);
+
+            if (unit == null) {
+                continue;
+            }
+
+            files.add(file);
+            models.put(file, unit.model);
+            stamps.put(file, unit.stamp);
+
+            addUnresolved(unresolved, file,
+                    unit.model.imports(), unit.targets, loaded);
+
+            queue.addAll(unit.targets);
+        }
+
+        Set<F> visible = new LinkedHashSet<>();
+
+        for (F target : targets) {
+            addVisible(visible, target, loaded);
+        }
+
+        visible.remove(root);
+
+        return new ImportClosure<>(
+                root,
+                files,
+                models,
+                stamps,
+                new ArrayList<>(visible),
+                unresolved);
+    }
+
+    /**
+     * @modifies unresolved
+     * @effects Records in unresolved the imports of file whose target is not
+     *          loaded.
+     */
+    private void addUnresolved(
+            Map<F, List<Import>> unresolved,
+            F file,
+            List<Import> imports,
+            List<F> targets,
+            Map<F, Unit<F>> loaded) {
+
+        List<Import> missing = new ArrayList<>();
+
+        for (int i = 0; i < imports.size(); i++) {
+            F target = targets.get(i);
+
+            if (target == null || !loaded.containsKey(target)) {
+                missing.add(imports.get(i));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            unresolved.put(file, missing);
+        }
+    }
+
+    /**
+     * @modifies visible
+     * @effects Adds to visible the file target, if loaded, and the files it
+     *          imports publicly, transitively.
+     */
+    private void addVisible(Set<F> visible, F target, Map<F, Unit<F>> loaded) {
+        if (target == null || !loaded.containsKey(target)
+                || !visible.add(target)) {
+            return;
+        }
+
+        Unit<F> unit = loaded.get(target);
+
+        for (int i = 0; i < unit.targets.size(); i++) {
+            if (unit.model.imports().get(i).modifier()
+                    == Import.Modifier.PUBLIC) {
+
+                addVisible(visible, unit.targets.get(i), loaded);
+            }
+        }
+    }
+
+    /**
+     * @return the key identifying the given imports in the closure cache
+     */
+    private static List<String> keyOf(List<Import> imports) {
+        List<String> key = new ArrayList<>(imports.size());
+
+        for (Import anImport : imports) {
+            key.add(anImport.modifier() + " " + anImport.path());
+        }
+
+        return key;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Unit represents the immutable memoized model of a file.
+     */
+    private static final class Unit<F> {
+
+        final long stamp;
+        final ProtoFile model;
+        final List<F> targets;
+
+        /**
+         * @requires model != null && targets.size = model.imports.size
+         * @effects Makes this be a new unit whose model, parsed at stamp,
+         *          imports the files targets, null if unresolved.
+         */
+        Unit(long stamp, ProtoFile model, List<F> targets) {
+            this.stamp = stamp;
+            this.model = model;
+            this.targets = targets;
+        }
+    } // end Unit
+
+    /**
+     * Entry represents an immutable memoized closure along with the imports
+     * it was computed for.
+     */
+    private static final class Entry<F> {
+
+        final List<String> key;
+        final ImportClosure<F> closure;
+
+        /**
+         * @requires key != null && closure != null
+         * @effects Makes this be a new entry for closure computed for key.
+         */
+        Entry(List<String> key, ImportClosure<F> closure) {
+            this.key = key;
+            this.closure = closure;
+        }
+    } // end Entry
+
+    /**
+     * LoadTask represents the task of loading a file and, in parallel, the
+     * files it imports that are not already visited.
+     */
+    private final class LoadTask extends RecursiveAction {
+
+        private final F file;
+        private final Set<F> visited;
+        private final ConcurrentMap<F, Unit<F>> loaded;
+
+        /**
+         * @requires file in visited && loaded != null
+         * @effects Makes this be a new task loading file into loaded.
+         */
+        LoadTask(F file, Set<F> visited, ConcurrentMap<F, Unit<F>> loaded) {
+            this.file = file;
+            this.visited = visited;
+            this.loaded = loaded;
+        }
+
+        @Override
+        protected void compute() {
+            Unit<F> unit = load(file);
+
+            if (unit == null) {
+                return;
+            }
+
+            loaded.put(file, unit);
+
+            List<LoadTask> tasks = new ArrayList<>();
+
+            for (F target : unit.targets) {
+                if (target != null && visited.add(target)) {
+                    tasks.add(new LoadTask(target, visited, loaded));
+                }
+            }
+
+            invokeAll(tasks);
+        }
+    } // end LoadTask
+
+    /**
+     * LoadAllTask represents the task of running load tasks in parallel.
+     */
+    private final class LoadAllTask extends RecursiveAction {
+
+        private final List<LoadTask> tasks;
+
+        /**
+         * @requires tasks != null
+         * @effects Makes this be a new task running tasks.
+         */
+        LoadAllTask(List<LoadTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    } // end LoadAllTask
+}
@@ -0,0 +1,100 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.ForkJoinPools;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import com.marcowillemart.protobuf.text.LineEndings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BatchParser represents an immutable parser of batches of Protobuf files.
+ *
+ * The files of a batch are parsed independently, so that a large batch, e.g.,
+ * the one of a cold indexing, is split among the workers of a shared
+ * fork/join pool.
+ *
+ * The line endings of each text are normalized before it is parsed, so that
+ * the offsets of its model are the ones of the editor document of the file.
+ *
+ * @author mwi
+ */
+public final class BatchParser {
+
+    /** The number of files below which a task is no longer split. */
+    private static final int THRESHOLD = 8;
+
+    /**
+     * @effects Makes this be a new batch parser.
+     */
+    public BatchParser() {
+    }
+
+    /**
+     * @requires texts != null && texts contains no null element
+     * @return the list of models m such that m[i] is the model of the file
+     *         whose content is texts[i], with its line endings normalized
+     */
+    public List<ProtoFile> parse(List<String> texts) {
+        Assert.noNullElement(texts);
+
+        ProtoFile[] models = new ProtoFile[texts.size()];
+        ParseTask task = new ParseTask(texts, models, 0, texts.size());
+
+        if (texts.size() <= THRESHOLD) {
+            task.compute();
+        } else {
+            ForkJoinPools.shared().invoke(task);
+        }
+
+        return new ArrayList<>(Arrays.asList(models));
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * ParseTask represents the task of parsing a range of files of a batch.
+     */
+    private static final class ParseTask extends RecursiveAction {
+
+        private final List<String> texts;
+        private final ProtoFile[] models;
+        private final int from;
+        private final int to;
+
+        /**
+         * @requires texts != null && models.length = texts.size &&
+         *           0 <= from <= to <= texts.size
+         * @effects Makes this be a new task parsing texts[from..to[ into
+         *          models[from..to[.
+         */
+        ParseTask(List<String> texts, ProtoFile[] models, int from, int to) {
+            this.texts = texts;
+            this.models = models;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    models[i] = ProtoFileBuilder.parse(
+                            LineEndings.normalize(texts.get(i)));
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(
+                    new ParseTask(texts, models, from, middle),
+                    new ParseTask(texts, models, middle, to));
+        }
+    } // end ParseTask
+}
@@ -0,0 +1,237 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Location;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.model.TypeReference;
+import com.marcowillemart.protobuf.model.TypeReference.Kind;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IndexedReference represents an immutable usage of a type name, as stored in
+ * the persistent index.
+ *
+ * Each identifier of a type reference is a usage of the type denoted by the
+ * name up to that identifier, e.g., the reference "Outer.Inner" uses both
+ * "Outer" and "Outer.Inner". Since the names are not resolved at indexing
+ * time, a usage is indexed under all the full names it may denote, and is
+ * verified against a type table when queried.
+ *
+ * A usage is stored as a single string of the form
+ * "KIND;startOffset;endOffset;scope;name".
+ *
+ * @specfield kind : Kind          // Where the reference appears.
+ * @specfield startOffset : int    // The offset of the first character of
+ *                                    the identifier.
+ * @specfield endOffset : int      // The offset following the identifier.
+ * @specfield scope : String       // The full name of the definition in which
+ *                                    the name is resolved.
+ * @specfield name : String        // The used name, up to the identifier.
+ *
+ * @invariant 0 <= startOffset <= endOffset
+ * @invariant name not empty
+ *
+ * @author mwi
+ */
+public final class IndexedReference {
+
+    private static final char SEPARATOR = ';';
+    private static final int FIELDS = 5;
+
+    private final Kind kind;
+    private final int startOffset;
+    private final int endOffset;
+    private final String scope;
+    private final String name;
+
+    /**
+     * @requires kind != null && 0 <= startOffset <= endOffset &&
+     *           scope != null && name not empty
+     * @effects Makes this be a new usage with the given elements.
+     */
+    public IndexedReference(
+            Kind kind,
+            int startOffset,
+            int endOffset,
+            String scope,
+            String name) {
+
+        Assert.notNull(kind);
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+        Assert.notNull(scope);
+        Assert.notEmpty(name);
+
+        this.kind = kind;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.scope = scope;
+        this.name = name;
+    }
+
+    /**
+     * @requires file != null
+     * @return the usages of the references of file, in the order they appear
+     *         in file
+     */
+    public static List<IndexedReference> of(ProtoFile file) {
+        Assert.notNull(file);
+
+        List<IndexedReference> usages = new ArrayList<>();
+
+        for (TypeReference reference : file.references()) {
+            for (Location segment : reference.segments()) {
+                usages.add(new IndexedReference(
+                        reference.kind(),
+                        segment.startOffset(),
+                        segment.endOffset(),
+                        reference.scope(),
+                        reference.prefix(segment.startOffset())));
+            }
+        }
+
+        return usages;
+    }
+
+    /**
+     * @requires value != null
+     * @return the usage u such that u.encode() = value, or null if value is
+     *         not the encoding of a usage
+     */
+    public static IndexedReference decode(String value) {
+        Assert.notNull(value);
+
+        String[] fields = value.split(String.valueOf(SEPARATOR), FIELDS);
+
+        if (fields.length != FIELDS || fields[4].isEmpty()) {
+            return null;
+        }
+
+        try {
+            Kind kind = Kind.valueOf(fields[0]);
+            int start = Integer.parseInt(fields[1]);
+            int end = Integer.parseInt(fields[2]);
+
+            if (start < 0 || end < start) {
+                return null;
+            }
+
+            return new IndexedReference(kind, start, end, fields[3], fields[4]);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the string representation of this stored in the index
+     */
+    public String encode() {
+        return kind.name() + SEPARATOR
+                + startOffset + SEPARATOR
+                + endOffset + SEPARATOR
+                + scope + SEPARATOR
+                + name;
+    }
+
+    /**
+     * @return the full names this.name may denote in this.scope, in the order
+     *         they must be looked up
+     */
+    public List<String> candidates() {
+        return TypeNames.candidates(name, scope);
+    }
+
+    /**
+     * @requires fullName != null && types != null
+     * @return true iff this.name denotes fullName in this.scope given the
+     *         known types, i.e., fullName is a candidate of this and no
+     *         candidate looked up before it is a known type
+     */
+    public boolean resolvesTo(String fullName, TypeTable types) {
+        Assert.notNull(fullName);
+        Assert.notNull(types);
+
+        for (String candidate : candidates()) {
+            if (candidate.equals(fullName)) {
+                return true;
+            }
+
+            if (types.isType(candidate)) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return this.scope
+     */
+    public String scope() {
+        return scope;
+    }
+
+    /**
+     * @return this.name
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof IndexedReference)) {
+            return false;
+        }
+
+        IndexedReference other = (IndexedReference) obj;
+
+        return kind == other.kind
+                && startOffset == other.startOffset
+                && endOffset == other.endOffset
+                && scope.equals(other.scope)
+                && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + kind.hashCode();
+        hash = 31 * hash + startOffset;
+        hash = 31 * hash + endOffset;
+        hash = 31 * hash + scope.hashCode();
+        hash = 31 * hash + name.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
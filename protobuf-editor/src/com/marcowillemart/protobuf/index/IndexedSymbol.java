@@ -0,0 +1,175 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IndexedSymbol represents an immutable symbol of a Protobuf file, i.e., a
+ * message, an enum, a service or an rpc, as stored in the persistent index.
+ *
+ * A symbol is stored as a single string of the form "KIND;offset;fullName".
+ *
+ * @specfield kind : Kind       // The kind of the symbol.
+ * @specfield fullName : String // The fully qualified name, without leading
+ *                                 dot.
+ * @specfield offset : int      // The offset of the name in its file.
+ *
+ * @invariant kind in {MESSAGE, ENUM, SERVICE, RPC}
+ * @invariant fullName not empty
+ * @invariant offset >= 0
+ *
+ * @author mwi
+ */
+public final class IndexedSymbol {
+
+    private static final char SEPARATOR = ';';
+
+    private final Kind kind;
+    private final String fullName;
+    private final int offset;
+
+    /**
+     * @requires kind in {MESSAGE, ENUM, SERVICE, RPC} && fullName not empty &&
+     *           offset >= 0
+     * @effects Makes this be a new symbol with the given kind, full name and
+     *          offset.
+     */
+    public IndexedSymbol(Kind kind, String fullName, int offset) {
+        Assert.isTrue(isIndexed(kind));
+        Assert.notEmpty(fullName);
+        Assert.isTrue(offset >= 0);
+
+        this.kind = kind;
+        this.fullName = fullName;
+        this.offset = offset;
+    }
+
+    /**
+     * @requires file != null
+     * @return the symbols of file that are stored in the index, in the order
+     *         they appear in file
+     */
+    public static List<IndexedSymbol> of(ProtoFile file) {
+        Assert.notNull(file);
+
+        List<IndexedSymbol> symbols = new ArrayList<>();
+
+        for (Definition definition : file.allDefinitions()) {
+            if (isIndexed(definition.kind())) {
+                symbols.add(new IndexedSymbol(
+                        definition.kind(),
+                        definition.fullName(),
+                        definition.location().startOffset()));
+            }
+        }
+
+        return symbols;
+    }
+
+    /**
+     * @requires value != null
+     * @return the symbol s such that s.encode() = value, or null if value is
+     *         not the encoding of a symbol
+     */
+    public static IndexedSymbol decode(String value) {
+        Assert.notNull(value);
+
+        int first = value.indexOf(SEPARATOR);
+        int second = value.indexOf(SEPARATOR, first + 1);
+
+        if (first < 0 || second < 0 || second == value.length() - 1) {
+            return null;
+        }
+
+        try {
+            Kind kind = Kind.valueOf(value.substring(0, first));
+            int offset = Integer.parseInt(value.substring(first + 1, second));
+
+            if (!isIndexed(kind) || offset < 0) {
+                return null;
+            }
+
+            return new IndexedSymbol(kind, value.substring(second + 1), offset);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the string representation of this stored in the index
+     */
+    public String encode() {
+        return kind.name() + SEPARATOR + offset + SEPARATOR + fullName;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.fullName
+     */
+    public String fullName() {
+        return fullName;
+    }
+
+    /**
+     * @return this.offset
+     */
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof IndexedSymbol)) {
+            return false;
+        }
+
+        IndexedSymbol other = (IndexedSymbol) obj;
+
+        return kind == other.kind
+                && offset == other.offset
+                && fullName.equals(other.fullName);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + kind.hashCode();
+        hash = 31 * hash + fullName.hashCode();
+        hash = 31 * hash + offset;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return true iff the definitions of the given kind are stored in the
+     *         index
+     */
+    private static boolean isIndexed(Kind kind) {
+        return kind == Kind.MESSAGE
+                || kind == Kind.ENUM
+                || kind == Kind.SERVICE
+                || kind == Kind.RPC;
+    }
+}
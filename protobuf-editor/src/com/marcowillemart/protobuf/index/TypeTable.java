@@ -0,0 +1,17 @@
+package com.marcowillemart.protobuf.index;
+
+/**
+ * TypeTable represents a table of the message and enum types that are known
+ * when resolving type names.
+ *
+ * @author mwi
+ */
+public interface TypeTable {
+
+    /**
+     * @requires fullName != null
+     * @return true iff a message or an enum whose full name is fullName is
+     *         known by this
+     */
+    boolean isType(String fullName);
+}
@@ -0,0 +1,52 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DuplicateFieldNumberRule is a stateless rule reporting the fields of a
+ * message whose number is already used by another field of the same message.
+ *
+ * @author mwi
+ */
+final class DuplicateFieldNumberRule implements LintRule {
+
+    private static final String MESSAGE =
+            "Field number %d has already been used in \"%s\" by field \"%s\".";
+
+    @Override
+    public String name() {
+        return "duplicate-field-number";
+    }
+
+    @Override
+    public boolean appliesTo(Definition definition) {
+        return definition.kind() == Kind.MESSAGE;
+    }
+
+    @Override
+    public void check(Definition message, List<ParsingError> issues) {
+        Map<Integer, Definition> fieldsByNumber = new HashMap<>();
+
+        for (Definition field : message.fields()) {
+            if (!field.hasNumber()) {
+                continue;
+            }
+
+            Definition previous = fieldsByNumber.get(field.number());
+
+            if (previous == null) {
+                fieldsByNumber.put(field.number(), field);
+            } else {
+                issues.add(field.location().error(String.format(MESSAGE,
+                        field.number(),
+                        message.fullName(),
+                        previous.name())));
+            }
+        }
+    }
+}
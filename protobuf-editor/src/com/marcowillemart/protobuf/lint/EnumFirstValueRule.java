@@ -0,0 +1,40 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.List;
+
+/**
+ * EnumFirstValueRule is a stateless rule reporting the enums whose first
+ * value is not zero, as required by proto3.
+ *
+ * @author mwi
+ */
+final class EnumFirstValueRule implements LintRule {
+
+    private static final String MESSAGE =
+            "The first enum value must be zero in proto3.";
+
+    @Override
+    public String name() {
+        return "enum-first-value-zero";
+    }
+
+    @Override
+    public boolean appliesTo(Definition definition) {
+        return definition.kind() == Kind.ENUM;
+    }
+
+    @Override
+    public void check(Definition enumDefinition, List<ParsingError> issues) {
+        for (Definition value : enumDefinition.children()) {
+            if (value.kind() == Kind.ENUM_VALUE) {
+                if (value.hasNumber() && value.number() != 0) {
+                    issues.add(value.location().error(MESSAGE));
+                }
+                return;
+            }
+        }
+    }
+}
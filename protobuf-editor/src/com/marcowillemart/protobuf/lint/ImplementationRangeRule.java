@@ -0,0 +1,45 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.List;
+
+/**
+ * ImplementationRangeRule is a stateless rule reporting the fields of a
+ * message whose number lies in the range reserved for the implementation of
+ * Protocol Buffers.
+ *
+ * @author mwi
+ */
+final class ImplementationRangeRule implements LintRule {
+
+    private static final int FIRST_RESERVED_NUMBER = 19000;
+    private static final int LAST_RESERVED_NUMBER = 19999;
+
+    private static final String MESSAGE =
+            "Field numbers %d through %d are reserved for the protocol buffer "
+            + "library implementation.";
+
+    @Override
+    public String name() {
+        return "implementation-reserved-number";
+    }
+
+    @Override
+    public boolean appliesTo(Definition definition) {
+        return definition.kind() == Kind.MESSAGE;
+    }
+
+    @Override
+    public void check(Definition message, List<ParsingError> issues) {
+        for (Definition field : message.fields()) {
+            if (FIRST_RESERVED_NUMBER <= field.number()
+                    && field.number() <= LAST_RESERVED_NUMBER) {
+                issues.add(field.location().error(String.format(MESSAGE,
+                        FIRST_RESERVED_NUMBER,
+                        LAST_RESERVED_NUMBER)));
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.common.util.ForkJoinPools;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LintEngine represents an immutable engine applying lint rules to the model
+ * of a Protobuf file.
+ *
+ * Each message and enum of a file is a unit of work checked by all the rules
+ * that apply to it. The units are split among the workers of a shared
+ * fork/join pool, and the time spent by each rule is measured.
+ *
+ * @specfield rules : List<LintRule> // The rules applied by the engine.
+ *
+ * @author mwi
+ */
+public final class LintEngine {
+
+    /** The number of units below which a task is no longer split. */
+    private static final int THRESHOLD = 32;
+
+    private final List<LintRule> rules;
+
+    /**
+     * @requires rules != null && rules contains no null element
+     * @effects Makes this be a new engine applying the given rules.
+     */
+    public LintEngine(List<LintRule> rules) {
+        Assert.noNullElement(rules);
+
+        this.rules = new ArrayList<>(rules);
+    }
+
+    /**
+     * @effects Makes this be a new engine applying the built-in rules.
+     */
+    public LintEngine() {
+        this(LintRules.defaults());
+    }
+
+    /**
+     * @requires file != null
+     * @return the report of the application of this.rules to file
+     */
+    public LintReport run(ProtoFile file) {
+        Assert.notNull(file);
+
+        List<Definition> units = new ArrayList<>();
+
+        for (Definition definition : file.allDefinitions()) {
+            if (definition.isType()) {
+                units.add(definition);
+            }
+        }
+
+        AtomicLongArray nanos = new AtomicLongArray(rules.size());
+        CheckTask task = new CheckTask(units, 0, units.size(), nanos);
+
+        List<ParsingError> issues = units.size() <= THRESHOLD
+                ? task.compute()
+                : ForkJoinPools.shared().invoke(task);
+
+        Map<String, Long> timings = new LinkedHashMap<>();
+
+        for (int i = 0; i < rules.size(); i++) {
+            timings.put(rules.get(i).name(), nanos.get(i));
+        }
+
+        return new LintReport(issues, timings);
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * CheckTask represents the task of applying the rules of the engine to a
+     * range of units of work.
+     */
+    private final class CheckTask extends RecursiveTask<List<ParsingError>> {
+
+        private final List<Definition> units;
+        private final int from;
+        private final int to;
+        private final AtomicLongArray nanos;
+
+        /**
+         * @requires units != null && 0 <= from <= to <= units.size &&
+         *           nanos.length = rules.size
+         * @effects Makes this be a new task checking units[from..to[ and
+         *          accumulating the time spent by each rule in nanos.
+         */
+        CheckTask(
+                List<Definition> units,
+                int from,
+                int to,
+                AtomicLongArray nanos) {
+
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.nanos = nanos;
+        }
+
+        @Override
+        protected List<ParsingError> compute() {
+            if (to - from <= THRESHOLD) {
+                return check();
+            }
+
+            int middle = (from + to) >>> 1;
+
+            CheckTask left = new CheckTask(units, from, middle, nanos);
+            CheckTask right = new CheckTask(units, middle, to, nanos);
+
+            left.fork();
+            List<ParsingError> issues = right.compute();
+            List<ParsingError> result = left.join();
+            result.addAll(issues);
+
+            return result;
+        }
+
+        /**
+         * @return the issues found by the rules in units[from..to[
+         */
+        private List<ParsingError> check() {
+            List<ParsingError> issues = new ArrayList<>();
+
+            for (int i = from; i < to; i++) {
+                Definition unit = units.get(i);
+
+                for (int r = 0; r < rules.size(); r++) {
+                    LintRule rule = rules.get(r);
+
+                    if (rule.appliesTo(unit)) {
+                        long start = System.nanoTime();
+                        rule.check(unit, issues);
+                        nanos.addAndGet(r, System.nanoTime() - start);
+                    }
+                }
+            }
+
+            return issues;
+        }
+    } // end CheckTask
+}
@@ -0,0 +1,61 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LintReport represents the immutable outcome of linting a Protobuf file.
+ *
+ * @specfield issues : List<ParsingError> // The issues found, in the order
+ *                                           of the checked definitions.
+ * @specfield timings : Map<String, Long> // The time spent by each rule, in
+ *                                           nanoseconds, summed over all
+ *                                           threads, by rule name.
+ *
+ * @author mwi
+ */
+public final class LintReport {
+
+    private final List<ParsingError> issues;
+    private final Map<String, Long> timings;
+
+    /**
+     * @requires issues != null && timings != null
+     * @effects Makes this be a new report with the given issues and timings.
+     */
+    LintReport(List<ParsingError> issues, Map<String, Long> timings) {
+        Assert.noNullElement(issues);
+        Assert.notNull(timings);
+
+        this.issues = new ArrayList<>(issues);
+        this.timings = new LinkedHashMap<>(timings);
+    }
+
+    /**
+     * @return a read-only view of this.issues
+     */
+    public List<ParsingError> issues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    /**
+     * @return a read-only view of this.timings, ordered as the rules of the
+     *         engine that produced this
+     */
+    public Map<String, Long> timings() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    @Override
+    public String toString() {
+        return "LintReport{"
+                + "issues=" + issues.size()
+                + ", timings=" + timings
+                + '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import java.util.List;
+
+/**
+ * LintRule represents a semantic check of the definitions of a Protobuf file.
+ *
+ * A rule checks one definition at a time, i.e., a message or an enum along
+ * with its fields or values, so that the definitions of a file can be checked
+ * independently and in parallel. Implementations must therefore be
+ * thread-safe, which stateless rules trivially are.
+ *
+ * @author mwi
+ */
+public interface LintRule {
+
+    /**
+     * @return the unique name of this rule
+     */
+    String name();
+
+    /**
+     * @requires definition != null
+     * @return true iff this rule checks definitions such as definition
+     */
+    boolean appliesTo(Definition definition);
+
+    /**
+     * @requires definition != null && appliesTo(definition) && issues != null
+     * @modifies issues
+     * @effects Adds the issues found by this rule in definition to issues.
+     */
+    void check(Definition definition, List<ParsingError> issues);
+}
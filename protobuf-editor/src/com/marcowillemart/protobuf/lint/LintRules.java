@@ -0,0 +1,33 @@
+package com.marcowillemart.protobuf.lint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * LintRules is a utility class that provides the built-in lint rules.
+ *
+ * @author mwi
+ */
+public final class LintRules {
+
+    private static final List<LintRule> DEFAULTS =
+            Collections.unmodifiableList(Arrays.<LintRule>asList(
+                    new DuplicateFieldNumberRule(),
+                    new ReservedFieldNumberRule(),
+                    new ReservedFieldNameRule(),
+                    new EnumFirstValueRule(),
+                    new ImplementationRangeRule()));
+
+    /** this cannot be instantiated */
+    private LintRules() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @return a read-only list of the built-in rules
+     */
+    public static List<LintRule> defaults() {
+        return DEFAULTS;
+    }
+}
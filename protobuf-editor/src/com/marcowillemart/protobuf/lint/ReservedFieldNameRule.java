@@ -0,0 +1,47 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ReservedName;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ReservedFieldNameRule is a stateless rule reporting the fields of a message
+ * whose name is reserved by that message.
+ *
+ * @author mwi
+ */
+final class ReservedFieldNameRule implements LintRule {
+
+    private static final String MESSAGE = "Field name \"%s\" is reserved.";
+
+    @Override
+    public String name() {
+        return "reserved-field-name";
+    }
+
+    @Override
+    public boolean appliesTo(Definition definition) {
+        return definition.kind() == Kind.MESSAGE
+                && !definition.reservedNames().isEmpty();
+    }
+
+    @Override
+    public void check(Definition message, List<ParsingError> issues) {
+        Set<String> reservedNames = new HashSet<>();
+
+        for (ReservedName reservedName : message.reservedNames()) {
+            reservedNames.add(reservedName.name());
+        }
+
+        for (Definition field : message.fields()) {
+            if (reservedNames.contains(field.name())) {
+                issues.add(field.location().error(
+                        String.format(MESSAGE, field.name())));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.NumberRange;
+import java.util.List;
+
+/**
+ * ReservedFieldNumberRule is a stateless rule reporting the fields of a
+ * message whose number is reserved by that message.
+ *
+ * @author mwi
+ */
+final class ReservedFieldNumberRule implements LintRule {
+
+    private static final String MESSAGE =
+            "Field \"%s\" uses reserved number %d.";
+
+    @Override
+    public String name() {
+        return "reserved-field-number";
+    }
+
+    @Override
+    public boolean appliesTo(Definition definition) {
+        return definition.kind() == Kind.MESSAGE
+                && !definition.reservedRanges().isEmpty();
+    }
+
+    @Override
+    public void check(Definition message, List<ParsingError> issues) {
+        for (Definition field : message.fields()) {
+            if (field.hasNumber() && isReserved(message, field.number())) {
+                issues.add(field.location().error(String.format(MESSAGE,
+                        field.name(),
+                        field.number())));
+            }
+        }
+    }
+
+    /**
+     * @requires message != null
+     * @return true iff number is in a reserved range of message
+     */
+    private static boolean isReserved(Definition message, int number) {
+        for (NumberRange range : message.reservedRanges()) {
+            if (range.contains(number)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
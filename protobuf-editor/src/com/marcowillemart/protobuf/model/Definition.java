@@ -0,0 +1,294 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Definition represents a named element defined in a Protobuf file, i.e., a
+ * message, an enum, a service, an rpc, a field, an enum value or a oneof.
+ *
+ * A definition is only mutated by the ProtoFileBuilder that creates it, and is
+ * immutable afterwards.
+ *
+ * @specfield kind : Kind                      // The kind of the definition.
+ * @specfield name : String                    // The simple name.
+ * @specfield fullName : String                // The fully qualified name,
+ *                                                without leading dot.
+ * @specfield location : Location              // The location of the name.
+ * @specfield startOffset : int                // The offset of the first
+ *                                                character of the definition.
+ * @specfield endOffset : int                  // The offset following the
+ *                                                last character of the
+ *                                                definition.
+ * @specfield number : int                     // The number of a field or an
+ *                                                enum value, else NO_NUMBER.
+ * @specfield typeName : String                // The type of a field as
+ *                                                written, or the empty string.
+ * @specfield parent : Definition [0-1]        // The enclosing definition.
+ * @specfield children : List<Definition>      // The nested definitions.
+ * @specfield reservedRanges : List<NumberRange> // The reserved numbers.
+ * @specfield reservedNames : List<ReservedName> // The reserved names.
+ *
+ * @invariant name not empty
+ * @invariant fullName ends with name
+ * @invariant startOffset <= location.startOffset
+ * @invariant location.endOffset <= endOffset
+ * @invariant for all c in children, c.parent = this
+ *
+ * @author mwi
+ */
+public final class Definition {
+
+    /** The number of a definition that is neither a field nor an enum value. */
+    public static final int NO_NUMBER = Integer.MIN_VALUE;
+
+    /**
+     * The kind of a definition.
+     */
+    public enum Kind {
+        MESSAGE,
+        ENUM,
+        SERVICE,
+        RPC,
+        FIELD,
+        ENUM_VALUE,
+        ONEOF
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final String fullName;
+    private final Location location;
+    private final int startOffset;
+    private final int endOffset;
+    private final Definition parent;
+    private final List<Definition> children;
+    private final List<NumberRange> reservedRanges;
+    private final List<ReservedName> reservedNames;
+    private int number;
+    private String typeName;
+
+    /**
+     * @requires kind != null && name not empty && fullName not empty &&
+     *           location != null &&
+     *           startOffset <= location.startOffset &&
+     *           location.endOffset <= endOffset
+     * @effects Makes this be a new definition d with the given kind, name,
+     *          fullName, location, offsets and parent,
+     *          d.number = NO_NUMBER, d.typeName = "" and no children nor
+     *          reserved numbers and names.
+     */
+    Definition(
+            Kind kind,
+            String name,
+            String fullName,
+            Location location,
+            int startOffset,
+            int endOffset,
+            Definition parent) {
+
+        Assert.notNull(kind);
+        Assert.notEmpty(name);
+        Assert.notEmpty(fullName);
+        Assert.notNull(location);
+        Assert.isTrue(startOffset <= location.startOffset());
+        Assert.isTrue(location.endOffset() <= endOffset);
+
+        this.kind = kind;
+        this.name = name;
+        this.fullName = fullName;
+        this.location = location;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.parent = parent;
+        this.children = new ArrayList<>();
+        this.reservedRanges = new ArrayList<>();
+        this.reservedNames = new ArrayList<>();
+        this.number = NO_NUMBER;
+        this.typeName = "";
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return this.fullName
+     */
+    public String fullName() {
+        return fullName;
+    }
+
+    /**
+     * @return this.location
+     */
+    public Location location() {
+        return location;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return this.number
+     */
+    public int number() {
+        return number;
+    }
+
+    /**
+     * @return true iff this.number != NO_NUMBER
+     */
+    public boolean hasNumber() {
+        return number != NO_NUMBER;
+    }
+
+    /**
+     * @return this.typeName
+     */
+    public String typeName() {
+        return typeName;
+    }
+
+    /**
+     * @return this.parent, or null if this is a top-level definition
+     */
+    public Definition parent() {
+        return parent;
+    }
+
+    /**
+     * @return a read-only view of this.children
+     */
+    public List<Definition> children() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @return the fields of this including the ones of its oneofs, in the
+     *         order they are defined, if this is a message, else []
+     */
+    public List<Definition> fields() {
+        List<Definition> fields = new ArrayList<>();
+
+        for (Definition child : children) {
+            if (child.kind == Kind.FIELD) {
+                fields.add(child);
+            } else if (child.kind == Kind.ONEOF) {
+                fields.addAll(child.children);
+            }
+        }
+
+        return fields;
+    }
+
+    /**
+     * @return a read-only view of this.reservedRanges
+     */
+    public List<NumberRange> reservedRanges() {
+        return Collections.unmodifiableList(reservedRanges);
+    }
+
+    /**
+     * @return a read-only view of this.reservedNames
+     */
+    public List<ReservedName> reservedNames() {
+        return Collections.unmodifiableList(reservedNames);
+    }
+
+    /**
+     * @return true iff this is a message or an enum, i.e., a type
+     */
+    public boolean isType() {
+        return kind == Kind.MESSAGE || kind == Kind.ENUM;
+    }
+
+    @Override
+    public String toString() {
+        return "Definition{"
+                + "kind=" + kind
+                + ", fullName=" + fullName
+                + ", location=" + location
+                + ", number=" + number
+                + '}';
+    }
+
+    ////////////////////
+    // BUILDER METHODS
+    ////////////////////
+
+    /**
+     * @requires child != null && child.parent = this
+     * @modifies this
+     * @effects Adds child to this.children.
+     */
+    void addChild(Definition child) {
+        Assert.isTrue(child.parent == this);
+
+        children.add(child);
+    }
+
+    /**
+     * @requires range != null
+     * @modifies this
+     * @effects Adds range to this.reservedRanges.
+     */
+    void addReservedRange(NumberRange range) {
+        Assert.notNull(range);
+
+        reservedRanges.add(range);
+    }
+
+    /**
+     * @requires reservedName != null
+     * @modifies this
+     * @effects Adds reservedName to this.reservedNames.
+     */
+    void addReservedName(ReservedName reservedName) {
+        Assert.notNull(reservedName);
+
+        reservedNames.add(reservedName);
+    }
+
+    /**
+     * @modifies this
+     * @effects Sets this.number to number.
+     */
+    void setNumber(int number) {
+        this.number = number;
+    }
+
+    /**
+     * @requires typeName != null
+     * @modifies this
+     * @effects Sets this.typeName to typeName.
+     */
+    void setTypeName(String typeName) {
+        Assert.notNull(typeName);
+
+        this.typeName = typeName;
+    }
+}
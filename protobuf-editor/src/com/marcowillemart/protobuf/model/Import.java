@@ -0,0 +1,72 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * Import represents an immutable import statement of a Protobuf file.
+ *
+ * @specfield path : String       // The imported path, without quotes.
+ * @specfield modifier : Modifier // The modifier of the import.
+ * @specfield location : Location // The location of the path literal.
+ *
+ * @author mwi
+ */
+public final class Import {
+
+    /**
+     * The modifier of an import statement.
+     */
+    public enum Modifier {
+        NONE,
+        WEAK,
+        PUBLIC
+    }
+
+    private final String path;
+    private final Modifier modifier;
+    private final Location location;
+
+    /**
+     * @requires path != null && modifier != null && location != null
+     * @effects Makes this be a new import of path with the given modifier and
+     *          location.
+     */
+    public Import(String path, Modifier modifier, Location location) {
+        Assert.notNull(path);
+        Assert.notNull(modifier);
+        Assert.notNull(location);
+
+        this.path = path;
+        this.modifier = modifier;
+        this.location = location;
+    }
+
+    /**
+     * @return this.path
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * @return this.modifier
+     */
+    public Modifier modifier() {
+        return modifier;
+    }
+
+    /**
+     * @return this.location
+     */
+    public Location location() {
+        return location;
+    }
+
+    @Override
+    public String toString() {
+        return "Import{"
+                + "path=" + path
+                + ", modifier=" + modifier
+                + '}';
+    }
+}
@@ -0,0 +1,151 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.common.util.Assert;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Location represents the immutable location of an element in a Protobuf
+ * file.
+ *
+ * @specfield line : int        // The line of the first character.
+ * @specfield col : int         // The column of the first character.
+ * @specfield startOffset : int // The offset of the first character.
+ * @specfield endOffset : int   // The offset following the last character.
+ *
+ * @invariant line > 0
+ * @invariant col > 0
+ * @invariant 0 <= startOffset <= endOffset
+ *
+ * @author mwi
+ */
+public final class Location {
+
+    private final int line;
+    private final int col;
+    private final int startOffset;
+    private final int endOffset;
+
+    /**
+     * @requires line > 0 && col > 0 && 0 <= startOffset <= endOffset
+     * @effects Makes this be a new location with the given line, column and
+     *          offsets.
+     */
+    public Location(int line, int col, int startOffset, int endOffset) {
+        Assert.isTrue(line > 0);
+        Assert.isTrue(col > 0);
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+
+        this.line = line;
+        this.col = col;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * @return this.line
+     */
+    public int line() {
+        return line;
+    }
+
+    /**
+     * @return this.col
+     */
+    public int col() {
+        return col;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return true iff offset in [this.startOffset..this.endOffset]
+     */
+    public boolean contains(int offset) {
+        return startOffset <= offset && offset <= endOffset;
+    }
+
+    /**
+     * @requires message != null && message not empty
+     * @return a new parsing error with the given message located at this
+     */
+    public ParsingError error(String message) {
+        return new ParsingError(message, line, col, startOffset, endOffset);
+    }
+
+    /**
+     * @requires delta >= -this.startOffset
+     * @return a new location equal to this but whose offsets are shifted by
+     *         delta
+     */
+    public Location shift(int delta) {
+        return new Location(line, col, startOffset + delta, endOffset + delta);
+    }
+
+    /**
+     * @requires token != null
+     * @return the location of token, or null if token has no valid position,
+     *         e.g., if it was conjured up by the error recovery of the parser.
+     */
+    public static Location of(Token token) {
+        if (token.getStartIndex() < 0 || token.getLine() <= 0) {
+            return null;
+        }
+
+        return new Location(
+                token.getLine(),
+                token.getCharPositionInLine() + 1,
+                token.getStartIndex(),
+                Math.max(token.getStartIndex(), token.getStopIndex() + 1));
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 37 * hash + line;
+        hash = 37 * hash + col;
+        hash = 37 * hash + startOffset;
+        hash = 37 * hash + endOffset;
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Location)) {
+            return false;
+        }
+        final Location other = (Location) obj;
+        return line == other.line
+                && col == other.col
+                && startOffset == other.startOffset
+                && endOffset == other.endOffset;
+    }
+
+    @Override
+    public String toString() {
+        return "Location{"
+                + "line=" + line
+                + ", col=" + col
+                + ", startOffset=" + startOffset
+                + ", endOffset=" + endOffset
+                + '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * NumberRange represents an immutable range of reserved numbers.
+ *
+ * @specfield from : int          // The first number of the range.
+ * @specfield to : int            // The last number of the range.
+ * @specfield location : Location // The location of the range.
+ *
+ * @invariant from <= to
+ *
+ * @author mwi
+ */
+public final class NumberRange {
+
+    private final int from;
+    private final int to;
+    private final Location location;
+
+    /**
+     * @requires from <= to && location != null
+     * @effects Makes this be a new range with the given bounds and location.
+     */
+    public NumberRange(int from, int to, Location location) {
+        Assert.isTrue(from <= to);
+        Assert.notNull(location);
+
+        this.from = from;
+        this.to = to;
+        this.location = location;
+    }
+
+    /**
+     * @return this.from
+     */
+    public int from() {
+        return from;
+    }
+
+    /**
+     * @return this.to
+     */
+    public int to() {
+        return to;
+    }
+
+    /**
+     * @return this.location
+     */
+    public Location location() {
+        return location;
+    }
+
+    /**
+     * @return true iff number in [this.from..this.to]
+     */
+    public boolean contains(int number) {
+        return from <= number && number <= to;
+    }
+
+    @Override
+    public String toString() {
+        return from == to
+                ? String.valueOf(from)
+                : String.format("%d to %d", from, to);
+    }
+}
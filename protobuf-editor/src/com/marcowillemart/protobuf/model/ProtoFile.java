@@ -0,0 +1,183 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ProtoFile represents the immutable model of a parsed Protobuf file.
+ *
+ * @specfield packageName : String             // The package of the file, or
+ *                                                the empty string if none.
+ * @specfield packageLocation : Location        // The location of the package
+ *                                                name, or null if unknown.
+ * @specfield imports : List<Import>            // The import statements.
+ * @specfield definitions : List<Definition>    // The top-level definitions.
+ * @specfield references : List<TypeReference>  // The references to messages
+ *                                                and enums, in the order they
+ *                                                appear in the file.
+ *
+ * @author mwi
+ */
+public final class ProtoFile {
+
+    private final String packageName;
+    private final Location packageLocation;
+    private final List<Import> imports;
+    private final List<Definition> definitions;
+    private final List<TypeReference> references;
+    private final List<Definition> allDefinitions;
+    private final Map<String, Definition> definitionsByFullName;
+
+    /*
+     * Abstraction Function:
+     *   packageName = packageName
+     *   packageLocation = packageLocation
+     *   imports = imports
+     *   definitions = definitions
+     *   references = references
+     *
+     * Representation Invariant:
+     *   packageName != null
+     *   packageName is empty => packageLocation = null
+     *   imports != null
+     *   definitions != null
+     *   references != null
+     *   allDefinitions = definitions and their descendants in preorder
+     *   definitionsByFullName maps the full name of each definition in
+     *     allDefinitions to its first occurrence
+     */
+
+    /**
+     * @requires packageName != null &&
+     *           (packageName is empty => packageLocation = null) &&
+     *           imports != null && definitions != null && references != null
+     * @effects Makes this be a new Protobuf file with the given package,
+     *          imports, top-level definitions and references.
+     */
+    ProtoFile(
+            String packageName,
+            Location packageLocation,
+            List<Import> imports,
+            List<Definition> definitions,
+            List<TypeReference> references) {
+
+        Assert.notNull(packageName);
+        Assert.isTrue(!packageName.isEmpty() || packageLocation == null);
+        Assert.noNullElement(imports);
+        Assert.noNullElement(definitions);
+        Assert.noNullElement(references);
+
+        this.packageName = packageName;
+        this.packageLocation = packageLocation;
+        this.imports = new ArrayList<>(imports);
+        this.definitions = new ArrayList<>(definitions);
+        this.references = new ArrayList<>(references);
+        this.allDefinitions = new ArrayList<>();
+        this.definitionsByFullName = new HashMap<>();
+
+        for (Definition definition : definitions) {
+            collect(definition);
+        }
+    }
+
+    /**
+     * @return this.packageName
+     */
+    public String packageName() {
+        return packageName;
+    }
+
+    /**
+     * @return this.packageLocation
+     */
+    public Location packageLocation() {
+        return packageLocation;
+    }
+
+    /**
+     * @return a read-only view of this.imports
+     */
+    public List<Import> imports() {
+        return Collections.unmodifiableList(imports);
+    }
+
+    /**
+     * @return a read-only view of this.definitions
+     */
+    public List<Definition> definitions() {
+        return Collections.unmodifiableList(definitions);
+    }
+
+    /**
+     * @return a read-only view of this.definitions and all their descendants
+     *         in preorder, i.e., in the order they appear in the file
+     */
+    public List<Definition> allDefinitions() {
+        return Collections.unmodifiableList(allDefinitions);
+    }
+
+    /**
+     * @return a read-only view of this.references
+     */
+    public List<TypeReference> references() {
+        return Collections.unmodifiableList(references);
+    }
+
+    /**
+     * @return the reference r of this with offset in r.location, or null if
+     *         there is none
+     */
+    public TypeReference reference(int offset) {
+        int low = 0;
+        int high = references.size() - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Location location = references.get(middle).location();
+
+            if (offset < location.startOffset()) {
+                high = middle - 1;
+            } else if (offset > location.endOffset()) {
+                low = middle + 1;
+            } else {
+                return references.get(middle);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @requires fullName != null
+     * @return the first definition d of this with d.fullName = fullName, or
+     *         null if there is none
+     */
+    public Definition definition(String fullName) {
+        return definitionsByFullName.get(fullName);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires definition != null
+     * @modifies this
+     * @effects Adds definition and its descendants to the indexes of this.
+     */
+    private void collect(Definition definition) {
+        allDefinitions.add(definition);
+
+        if (!definitionsByFullName.containsKey(definition.fullName())) {
+            definitionsByFullName.put(definition.fullName(), definition);
+        }
+
+        for (Definition child : definition.children()) {
+            collect(child);
+        }
+    }
+}
@@ -0,0 +1,654 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.parser.ProtobufBaseListener;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.parser.ProtobufParser;
+import com.marcowillemart.protobuf.parser.ProtobufParser.EnumDefinitionContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.EnumFieldContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.FieldContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.FullIdentContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.ImportStatementContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.MapFieldContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.MessageContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.OneofContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.OneofFieldContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.PackageStatementContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.ProtoContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.RangeContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.ReservedContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.RpcContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.ServiceContext;
+import com.marcowillemart.protobuf.parser.ProtobufParser.TypeContext;
+import java.util.ArrayList;
+import java.util.List;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * ProtoFileBuilder represents a mutable builder of the model of a Protobuf
+ * file from its parse tree.
+ *
+ * The builder is tolerant to syntax errors: the elements whose name could not
+ * be recognized by the parser are ignored along with their content.
+ *
+ * @author mwi
+ */
+public final class ProtoFileBuilder extends ProtobufBaseListener {
+
+    private static final char DOT = '.';
+
+    private final String packageName;
+    private final Location packageLocation;
+    private final List<Import> imports;
+    private final List<Definition> definitions;
+    private final List<TypeReference> references;
+    private final List<Definition> scopes;
+
+    /*
+     * Representation Invariant:
+     *   packageName != null
+     *   packageName is empty => packageLocation = null
+     *   imports != null
+     *   definitions != null
+     *   references != null
+     *   scopes != null, scopes.last is the enclosing definition being built,
+     *     or null if it is being ignored
+     */
+
+    /**
+     * @requires packageName != null &&
+     *           (packageName is empty => packageLocation = null)
+     * @effects Makes this be a new builder for a file of the given package.
+     */
+    private ProtoFileBuilder(String packageName, Location packageLocation) {
+        this.packageName = packageName;
+        this.packageLocation = packageLocation;
+        this.imports = new ArrayList<>();
+        this.definitions = new ArrayList<>();
+        this.references = new ArrayList<>();
+        this.scopes = new ArrayList<>();
+    }
+
+    /**
+     * @requires tree != null
+     * @return the model of the file whose parse tree is tree
+     */
+    public static ProtoFile build(ProtoContext tree) {
+        Assert.notNull(tree);
+
+        FullIdentContext packageIdent = packageIdentOf(tree);
+        ProtoFileBuilder builder = packageIdent == null
+                ? new ProtoFileBuilder("", null)
+                : new ProtoFileBuilder(
+                        packageIdent.getText(),
+                        locationOf(packageIdent));
+
+        ParseTreeWalker.DEFAULT.walk(builder, tree);
+
+        return builder.result();
+    }
+
+    /**
+     * @requires text != null
+     * @return the model of the Protobuf file whose content is text, ignoring
+     *         any syntax error
+     */
+    public static ProtoFile parse(String text) {
+        Assert.notNull(text);
+
+        ProtobufParser parser =
+                new ProtobufParser(
+                        new CommonTokenStream(
+                                new ProtobufLexer(new ANTLRInputStream(text))));
+        parser.removeErrorListeners();
+
+        return build(parser.proto());
+    }
+
+    ////////////////////
+    // LISTENER METHODS
+    ////////////////////
+
+    @Override
+    public void enterImportStatement(ImportStatementContext ctx) {
+        TerminalNode path = ctx.StrLit();
+
+        if (path == null) {
+            return;
+        }
+
+        Location location = Location.of(path.getSymbol());
+
+        if (location == null) {
+            return;
+        }
+
+        Import.Modifier modifier = Import.Modifier.NONE;
+
+        if (ctx.getToken(ProtobufParser.WEAK, 0) != null) {
+            modifier = Import.Modifier.WEAK;
+        } else if (ctx.getToken(ProtobufParser.PUBLIC, 0) != null) {
+            modifier = Import.Modifier.PUBLIC;
+        }
+
+        imports.add(new Import(unquote(path.getText()), modifier, location));
+    }
+
+    @Override
+    public void enterMessage(MessageContext ctx) {
+        enterScope(define(Kind.MESSAGE, nameOf(ctx.messageName()), ctx));
+    }
+
+    @Override
+    public void exitMessage(MessageContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterEnumDefinition(EnumDefinitionContext ctx) {
+        enterScope(define(Kind.ENUM, nameOf(ctx.enumName()), ctx));
+    }
+
+    @Override
+    public void exitEnumDefinition(EnumDefinitionContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterService(ServiceContext ctx) {
+        enterScope(define(Kind.SERVICE, nameOf(ctx.serviceName()), ctx));
+    }
+
+    @Override
+    public void exitService(ServiceContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterRpc(RpcContext ctx) {
+        Definition rpc = define(Kind.RPC, nameOf(ctx.rpcName()), ctx);
+
+        if (rpc != null && ctx.messageType().size() == 2) {
+            String scope = rpc.parent().fullName();
+
+            addReference(TypeReference.Kind.RPC_INPUT,
+                    ctx.messageType(0), scope);
+            addReference(TypeReference.Kind.RPC_OUTPUT,
+                    ctx.messageType(1), scope);
+        }
+
+        enterScope(rpc);
+    }
+
+    @Override
+    public void exitRpc(RpcContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterOneof(OneofContext ctx) {
+        enterScope(define(Kind.ONEOF, nameOf(ctx.oneofName()), ctx));
+    }
+
+    @Override
+    public void exitOneof(OneofContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterField(FieldContext ctx) {
+        addFieldReference(ctx.type());
+
+        Definition field = define(Kind.FIELD, nameOf(ctx.fieldName()), ctx);
+
+        if (field != null) {
+            field.setNumber(numberOf(ctx.fieldNumber()));
+            field.setTypeName(textOf(ctx.type()));
+        }
+    }
+
+    @Override
+    public void enterOneofField(OneofFieldContext ctx) {
+        addFieldReference(ctx.type());
+
+        Definition field = define(Kind.FIELD, nameOf(ctx.fieldName()), ctx);
+
+        if (field != null) {
+            field.setNumber(numberOf(ctx.fieldNumber()));
+            field.setTypeName(textOf(ctx.type()));
+        }
+    }
+
+    @Override
+    public void enterMapField(MapFieldContext ctx) {
+        addFieldReference(ctx.type());
+
+        Definition field = define(Kind.FIELD, nameOf(ctx.mapName()), ctx);
+
+        if (field != null) {
+            field.setNumber(numberOf(ctx.fieldNumber()));
+            field.setTypeName(String.format("map<%s, %s>",
+                    textOf(ctx.keyType()), textOf(ctx.type())));
+        }
+    }
+
+    @Override
+    public void enterEnumField(EnumFieldContext ctx) {
+        Definition value = define(Kind.ENUM_VALUE, ctx.Ident(), ctx);
+
+        if (value != null) {
+            int number = numberOf(ctx.IntLit());
+            boolean negative = ctx.getToken(ProtobufParser.MINUS, 0) != null;
+
+            value.setNumber(negative && number != Definition.NO_NUMBER
+                    ? -number
+                    : number);
+        }
+    }
+
+    @Override
+    public void enterReserved(ReservedContext ctx) {
+        Definition message = currentScope();
+
+        if (message == null || message.kind() != Kind.MESSAGE) {
+            return;
+        }
+
+        if (ctx.ranges() != null) {
+            for (RangeContext range : ctx.ranges().range()) {
+                addReservedRange(message, range);
+            }
+        }
+
+        if (ctx.fieldNames() != null) {
+            for (TerminalNode name : ctx.fieldNames().StrLit()) {
+                Location location = Location.of(name.getSymbol());
+
+                if (location != null) {
+                    message.addReservedName(
+                            new ReservedName(unquote(name.getText()), location));
+                }
+            }
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the model built by this
+     */
+    private ProtoFile result() {
+        return new ProtoFile(
+                packageName, packageLocation, imports, definitions, references);
+    }
+
+    /**
+     * @requires kind != null && ctx != null
+     * @modifies this
+     * @effects Adds a new definition of the given kind named by nameNode and
+     *          spanning ctx to the current scope of this, unless nameNode is
+     *          missing or the current scope is ignored.
+     * @return the new definition, or null if none was added
+     */
+    private Definition define(
+            Kind kind,
+            TerminalNode nameNode,
+            ParserRuleContext ctx) {
+
+        if (nameNode == null || isIgnoringScope()) {
+            return null;
+        }
+
+        Location location = Location.of(nameNode.getSymbol());
+
+        if (location == null) {
+            return null;
+        }
+
+        Definition parent = currentScope();
+        String name = nameNode.getText();
+
+        Definition definition = new Definition(
+                kind,
+                name,
+                fullNameOf(parent, kind, name),
+                location,
+                Math.min(location.startOffset(), startOf(ctx)),
+                Math.max(location.endOffset(), endOf(ctx)),
+                parent);
+
+        if (parent == null) {
+            definitions.add(definition);
+        } else {
+            parent.addChild(definition);
+        }
+
+        return definition;
+    }
+
+    /**
+     * @modifies this
+     * @effects Adds the reference to a message or an enum made by the type of
+     *          a field of the current message of this, if any.
+     */
+    private void addFieldReference(TypeContext type) {
+        if (type == null || type.messageOrEnumType() == null) {
+            return;
+        }
+
+        Definition scope = currentScope();
+
+        if (scope != null && scope.kind() == Kind.ONEOF) {
+            scope = scope.parent();
+        }
+
+        if (scope != null) {
+            addReference(TypeReference.Kind.FIELD,
+                    type.messageOrEnumType(), scope.fullName());
+        }
+    }
+
+    /**
+     * @requires kind != null && scope != null
+     * @modifies this
+     * @effects Adds the reference of the given kind made by the type name ctx
+     *          resolved in scope, unless ctx is missing or incomplete.
+     */
+    private void addReference(
+            TypeReference.Kind kind,
+            ParserRuleContext ctx,
+            String scope) {
+
+        if (ctx == null) {
+            return;
+        }
+
+        List<Token> identifiers = new ArrayList<>();
+        collectIdentifiers(ctx, identifiers);
+
+        if (identifiers.isEmpty()) {
+            return;
+        }
+
+        List<Location> segments = new ArrayList<>(identifiers.size());
+        StringBuilder name = new StringBuilder();
+
+        Location first = Location.of(ctx.getStart());
+
+        if (first == null) {
+            return;
+        }
+
+        if (ctx.getStart().getType() == ProtobufParser.DOT) {
+            name.append(DOT);
+        }
+
+        for (Token identifier : identifiers) {
+            Location segment = Location.of(identifier);
+
+            if (segment == null) {
+                return;
+            }
+
+            if (!segments.isEmpty()) {
+                name.append(DOT);
+            }
+
+            segments.add(segment);
+            name.append(identifier.getText());
+        }
+
+        Location last = segments.get(segments.size() - 1);
+
+        references.add(new TypeReference(
+                name.toString(),
+                kind,
+                scope,
+                new Location(
+                        first.line(),
+                        first.col(),
+                        first.startOffset(),
+                        last.endOffset()),
+                segments));
+    }
+
+    /**
+     * @requires tree != null && identifiers != null
+     * @modifies identifiers
+     * @effects Adds the identifier tokens of tree to identifiers, in order.
+     */
+    private static void collectIdentifiers(
+            ParseTree tree,
+            List<Token> identifiers) {
+
+        if (tree instanceof TerminalNode) {
+            Token token = ((TerminalNode) tree).getSymbol();
+
+            if (token.getType() == ProtobufParser.Ident) {
+                identifiers.add(token);
+            }
+            return;
+        }
+
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            collectIdentifiers(tree.getChild(i), identifiers);
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Makes definition be the current scope of this. If definition
+     *          is null, the content of the scope is ignored.
+     */
+    private void enterScope(Definition definition) {
+        scopes.add(definition);
+    }
+
+    /**
+     * @requires this has a current scope
+     * @modifies this
+     * @effects Restores the scope enclosing the current scope of this.
+     */
+    private void exitScope() {
+        scopes.remove(scopes.size() - 1);
+    }
+
+    /**
+     * @return the current scope of this, or null if this is at the top-level
+     *         or the current scope is ignored
+     */
+    private Definition currentScope() {
+        return scopes.isEmpty() ? null : scopes.get(scopes.size() - 1);
+    }
+
+    /**
+     * @return true iff the content of the current scope of this is ignored
+     */
+    private boolean isIgnoringScope() {
+        return !scopes.isEmpty() && scopes.get(scopes.size() - 1) == null;
+    }
+
+    /**
+     * @requires parent is null or a definition of this && name not empty
+     * @return the full name of a definition of the given kind and name nested
+     *         in parent. The fields of a oneof belong to its message.
+     */
+    private String fullNameOf(Definition parent, Kind kind, String name) {
+        Definition scope = parent;
+
+        if (scope != null && scope.kind() == Kind.ONEOF && kind == Kind.FIELD) {
+            scope = scope.parent();
+        }
+
+        if (scope != null) {
+            return scope.fullName() + DOT + name;
+        }
+
+        return packageName.isEmpty() ? name : packageName + DOT + name;
+    }
+
+    /**
+     * @requires message != null && range != null
+     * @modifies message
+     * @effects Adds the reserved range described by range to message.
+     */
+    private static void addReservedRange(Definition message, RangeContext range) {
+        List<TerminalNode> bounds = range.IntLit();
+
+        if (bounds.isEmpty()) {
+            return;
+        }
+
+        int from = numberOf(bounds.get(0));
+        int to = numberOf(bounds.get(bounds.size() - 1));
+        Location first = Location.of(bounds.get(0).getSymbol());
+        Location last = Location.of(bounds.get(bounds.size() - 1).getSymbol());
+
+        if (from == Definition.NO_NUMBER
+                || to == Definition.NO_NUMBER
+                || from > to
+                || first == null
+                || last == null) {
+            return;
+        }
+
+        message.addReservedRange(new NumberRange(
+                from,
+                to,
+                new Location(
+                        first.line(),
+                        first.col(),
+                        first.startOffset(),
+                        last.endOffset())));
+    }
+
+    /**
+     * @requires tree != null
+     * @return the name of the package declared in tree, or null if none
+     */
+    private static FullIdentContext packageIdentOf(ProtoContext tree) {
+        for (PackageStatementContext statement : tree.packageStatement()) {
+            if (statement.fullIdent() != null
+                    && !statement.fullIdent().getText().isEmpty()) {
+
+                return statement.fullIdent();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @requires ctx != null
+     * @return the location spanning the tokens of ctx, or null if it is
+     *         unknown
+     */
+    private static Location locationOf(ParserRuleContext ctx) {
+        Location first = Location.of(ctx.getStart());
+        Location last = Location.of(ctx.getStop());
+
+        if (first == null || last == null) {
+            return null;
+        }
+
+        return new Location(
+                first.line(),
+                first.col(),
+                first.startOffset(),
+                Math.max(first.startOffset(), last.endOffset()));
+    }
+
+    /**
+     * @return the identifier of ctx, or null if ctx is missing
+     */
+    private static TerminalNode nameOf(ParserRuleContext ctx) {
+        if (ctx == null) {
+            return null;
+        }
+
+        return ctx.getToken(ProtobufParser.Ident, 0);
+    }
+
+    /**
+     * @return the value of the integer literal of ctx, or NO_NUMBER if ctx is
+     *         missing or not a valid number
+     */
+    private static int numberOf(ParserRuleContext ctx) {
+        if (ctx == null) {
+            return Definition.NO_NUMBER;
+        }
+
+        return numberOf(ctx.getToken(ProtobufParser.IntLit, 0));
+    }
+
+    /**
+     * @return the value of the integer literal node, or NO_NUMBER if node is
+     *         missing or not a valid number
+     */
+    private static int numberOf(TerminalNode node) {
+        if (node == null || node.getSymbol().getStartIndex() < 0) {
+            return Definition.NO_NUMBER;
+        }
+
+        try {
+            long value = Long.decode(node.getText());
+
+            return (int) Math.min(value, Integer.MAX_VALUE);
+        } catch (NumberFormatException ex) {
+            return Definition.NO_NUMBER;
+        }
+    }
+
+    /**
+     * @return the text of ctx without hidden tokens, or the empty string if
+     *         ctx is missing
+     */
+    private static String textOf(ParserRuleContext ctx) {
+        return ctx == null ? "" : ctx.getText();
+    }
+
+    /**
+     * @requires ctx != null
+     * @return the offset of the first character of ctx
+     */
+    private static int startOf(ParserRuleContext ctx) {
+        Token start = ctx.getStart();
+
+        return start != null && start.getStartIndex() >= 0
+                ? start.getStartIndex()
+                : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @requires ctx != null
+     * @return the offset following the last character of ctx
+     */
+    private static int endOf(ParserRuleContext ctx) {
+        Token stop = ctx.getStop();
+
+        return stop != null && stop.getStopIndex() >= 0
+                ? stop.getStopIndex() + 1
+                : 0;
+    }
+
+    /**
+     * @requires literal != null
+     * @return literal without its enclosing quotes
+     */
+    private static String unquote(String literal) {
+        if (literal.length() >= 2) {
+            return literal.substring(1, literal.length() - 1);
+        }
+
+        return literal;
+    }
+}
@@ -0,0 +1,49 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * ReservedName represents an immutable field name reserved by a message.
+ *
+ * @specfield name : String       // The reserved name, without quotes.
+ * @specfield location : Location // The location of the string literal.
+ *
+ * @author mwi
+ */
+public final class ReservedName {
+
+    private final String name;
+    private final Location location;
+
+    /**
+     * @requires name != null && location != null
+     * @effects Makes this be a new reserved name with the given name and
+     *          location.
+     */
+    public ReservedName(String name, Location location) {
+        Assert.notNull(name);
+        Assert.notNull(location);
+
+        this.name = name;
+        this.location = location;
+    }
+
+    /**
+     * @return this.name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return this.location
+     */
+    public Location location() {
+        return location;
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + name + "\"";
+    }
+}
@@ -0,0 +1,66 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TypeNames is a utility class implementing the resolution rules of the names
+ * of messages and enums.
+ *
+ * As in C++, a relative name is first looked up in the innermost scope, then
+ * in the next-innermost one, and so on up to the root package, each package
+ * being considered to be inner to its parent package.
+ *
+ * @author mwi
+ */
+public final class TypeNames {
+
+    private static final char DOT = '.';
+
+    /** this cannot be instantiated */
+    private TypeNames() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires name not empty && scope != null
+     * @return the full names that the type name may denote when written in
+     *         scope, in the order they must be looked up
+     */
+    public static List<String> candidates(String name, String scope) {
+        Assert.notEmpty(name);
+        Assert.notNull(scope);
+
+        List<String> candidates = new ArrayList<>();
+
+        if (name.charAt(0) == DOT) {
+            candidates.add(name.substring(1));
+            return candidates;
+        }
+
+        String current = scope;
+
+        while (!current.isEmpty()) {
+            candidates.add(current + DOT + name);
+            current = parentOf(current);
+        }
+
+        candidates.add(name);
+
+        return candidates;
+    }
+
+    /**
+     * @requires fullName != null
+     * @return the full name of the scope enclosing fullName, or the empty
+     *         string if fullName is at the root
+     */
+    public static String parentOf(String fullName) {
+        Assert.notNull(fullName);
+
+        int index = fullName.lastIndexOf(DOT);
+
+        return index < 0 ? "" : fullName.substring(0, index);
+    }
+}
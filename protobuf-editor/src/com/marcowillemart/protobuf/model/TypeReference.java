@@ -0,0 +1,188 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TypeReference represents an immutable reference to a message or an enum in a
+ * Protobuf file.
+ *
+ * @specfield name : String              // The referenced name as written,
+ *                                          without whitespaces, e.g., ".a.B".
+ * @specfield kind : Kind                // Where the reference appears.
+ * @specfield scope : String             // The full name of the definition
+ *                                          in which the name is resolved.
+ * @specfield location : Location        // The location of the name.
+ * @specfield segments : List<Location>  // The location of each identifier
+ *                                          of the name.
+ *
+ * @invariant segments not empty
+ * @invariant segments.size = number of identifiers in name
+ *
+ * @author mwi
+ */
+public final class TypeReference {
+
+    private static final char DOT = '.';
+
+    /**
+     * The kind of a type reference.
+     */
+    public enum Kind {
+        FIELD,
+        RPC_INPUT,
+        RPC_OUTPUT
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final String scope;
+    private final Location location;
+    private final List<Location> segments;
+
+    /**
+     * @requires name not empty && kind != null && scope != null &&
+     *           location != null && segments not empty &&
+     *           segments.size = number of identifiers in name
+     * @effects Makes this be a new reference to name of the given kind,
+     *          resolved in scope, located at location and whose identifiers
+     *          are at segments.
+     */
+    public TypeReference(
+            String name,
+            Kind kind,
+            String scope,
+            Location location,
+            List<Location> segments) {
+
+        Assert.notEmpty(name);
+        Assert.notNull(kind);
+        Assert.notNull(scope);
+        Assert.notNull(location);
+        Assert.notEmpty(segments);
+        Assert.noNullElement(segments);
+
+        this.name = name;
+        this.kind = kind;
+        this.scope = scope;
+        this.location = location;
+        this.segments = new ArrayList<>(segments);
+
+        Assert.equals(this.segments.size(), segmentNames().length);
+    }
+
+    /**
+     * @return this.name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.scope
+     */
+    public String scope() {
+        return scope;
+    }
+
+    /**
+     * @return this.location
+     */
+    public Location location() {
+        return location;
+    }
+
+    /**
+     * @return a read-only view of this.segments
+     */
+    public List<Location> segments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * @return the identifiers of this.name, in order
+     */
+    public String[] segmentNames() {
+        String relative = isAbsolute() ? name.substring(1) : name;
+
+        return relative.split("\\.");
+    }
+
+    /**
+     * @return the last identifier of this.name
+     */
+    public String simpleName() {
+        return name.substring(name.lastIndexOf(DOT) + 1);
+    }
+
+    /**
+     * @return true iff this.name is fully qualified, i.e., starts with a dot
+     */
+    public boolean isAbsolute() {
+        return name.charAt(0) == DOT;
+    }
+
+    /**
+     * @return the name made of the identifiers of this.name up to the one at
+     *         offset, or this.name if no identifier is at offset
+     */
+    public String prefix(int offset) {
+        String[] names = segmentNames();
+
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).contains(offset)) {
+                StringBuilder prefix = new StringBuilder();
+
+                if (isAbsolute()) {
+                    prefix.append(DOT);
+                }
+
+                for (int j = 0; j <= i; j++) {
+                    if (j > 0) {
+                        prefix.append(DOT);
+                    }
+                    prefix.append(names[j]);
+                }
+
+                return prefix.toString();
+            }
+        }
+
+        return name;
+    }
+
+    /**
+     * @requires delta >= -this.location.startOffset
+     * @return a new reference equal to this but whose offsets are shifted by
+     *         delta
+     */
+    public TypeReference shift(int delta) {
+        List<Location> shifted = new ArrayList<>(segments.size());
+
+        for (Location segment : segments) {
+            shifted.add(segment.shift(delta));
+        }
+
+        return new TypeReference(
+                name, kind, scope, location.shift(delta), shifted);
+    }
+
+    @Override
+    public String toString() {
+        return "TypeReference{"
+                + "name=" + name
+                + ", kind=" + kind
+                + ", scope=" + scope
+                + ", location=" + location
+                + '}';
+    }
+}
@@ -0,0 +1,244 @@
+package com.marcowillemart.protobuf.navigation;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Location;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.model.TypeReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OccurrenceTable represents the immutable table of the occurrences of the
+ * symbols of a Protobuf file, i.e., the names of its declarations and the
+ * identifiers of its type references.
+ *
+ * The table is built once per parsed file: the symbol at an offset is found by
+ * a binary search on the sorted occurrences, and the occurrences of a symbol
+ * by a single map lookup.
+ *
+ * A declaration is the symbol of its full name, and an identifier of a type
+ * reference the symbol of the full name of the type it denotes. An identifier
+ * that denotes no known type is the symbol of its name as written, so that
+ * the identical unresolved names of the file still mark each other.
+ *
+ * @specfield occurrences : set of (int, int, String) // The ranges of the
+ *                                                      occurrences along
+ *                                                      with their symbol.
+ *
+ * @author mwi
+ */
+public final class OccurrenceTable {
+
+    private static final String UNRESOLVED = "?";
+
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] symbols;
+    private final Map<String, int[]> ranges;
+
+    /*
+     * Abstraction Function:
+     *   occurrences = { (starts[i], ends[i], symbols[i]) | 0 <= i < size }
+     *
+     * Representation Invariant:
+     *   starts, ends and symbols have the same length
+     *   starts is sorted
+     *   ranges[s] = [start0, end0, start1, end1, ...] for the occurrences of
+     *     s in the order of starts
+     */
+
+    /**
+     * @requires occurrences != null && sorted by start offset
+     * @effects Makes this be a new table of the given occurrences.
+     */
+    private OccurrenceTable(List<Occurrence> occurrences) {
+        int size = occurrences.size();
+
+        this.starts = new int[size];
+        this.ends = new int[size];
+        this.symbols = new String[size];
+
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            Occurrence occurrence = occurrences.get(i);
+
+            starts[i] = occurrence.start;
+            ends[i] = occurrence.end;
+            symbols[i] = occurrence.symbol;
+
+            Integer count = counts.get(occurrence.symbol);
+            counts.put(occurrence.symbol, count == null ? 1 : count + 1);
+        }
+
+        this.ranges = new HashMap<>(counts.size() * 2);
+        Map<String, Integer> filled = new HashMap<>(counts.size() * 2);
+
+        for (int i = 0; i < size; i++) {
+            int[] symbolRanges = ranges.get(symbols[i]);
+            Integer index = filled.get(symbols[i]);
+
+            if (symbolRanges == null) {
+                symbolRanges = new int[2 * counts.get(symbols[i])];
+                ranges.put(symbols[i], symbolRanges);
+                index = 0;
+            }
+
+            symbolRanges[index] = starts[i];
+            symbolRanges[index + 1] = ends[i];
+            filled.put(symbols[i], index + 2);
+        }
+    }
+
+    /**
+     * @requires file != null && types != null
+     * @return the table of the occurrences of file, the type references being
+     *         resolved against the definitions of file and the known types
+     */
+    public static OccurrenceTable of(ProtoFile file, TypeTable types) {
+        Assert.notNull(file);
+        Assert.notNull(types);
+
+        List<Occurrence> occurrences = new ArrayList<>();
+
+        for (Definition definition : file.allDefinitions()) {
+            Location location = definition.location();
+
+            occurrences.add(new Occurrence(
+                    location.startOffset(),
+                    location.endOffset(),
+                    definition.fullName()));
+        }
+
+        Map<String, String> resolved = new HashMap<>();
+
+        for (TypeReference reference : file.references()) {
+            for (Location segment : reference.segments()) {
+                String name = reference.prefix(segment.startOffset());
+                String key = reference.scope() + UNRESOLVED + name;
+                String symbol = resolved.get(key);
+
+                if (symbol == null) {
+                    symbol = resolve(name, reference.scope(), file, types);
+                    resolved.put(key, symbol);
+                }
+
+                occurrences.add(new Occurrence(
+                        segment.startOffset(),
+                        segment.endOffset(),
+                        symbol));
+            }
+        }
+
+        Collections.sort(occurrences, new Comparator<Occurrence>() {
+
+            @Override
+            public int compare(Occurrence a, Occurrence b) {
+                return Integer.compare(a.start, b.start);
+            }
+        });
+
+        return new OccurrenceTable(occurrences);
+    }
+
+    /**
+     * @return the number of occurrences of this
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return the symbol of the occurrence o of this such that
+     *         o.start <= offset <= o.end, or null if there is none
+     */
+    public String symbolAt(int offset) {
+        int index = Arrays.binarySearch(starts, offset);
+
+        if (index < 0) {
+            index = -index - 2;
+        }
+
+        return index >= 0 && offset <= ends[index]
+                ? symbols[index]
+                : null;
+    }
+
+    /**
+     * @requires symbol != null
+     * @return a new array [start0, end0, start1, end1, ...] of the ranges of
+     *         the occurrences of symbol, sorted by offset
+     */
+    public int[] occurrences(String symbol) {
+        Assert.notNull(symbol);
+
+        int[] symbolRanges = ranges.get(symbol);
+
+        return symbolRanges == null
+                ? new int[0]
+                : symbolRanges.clone();
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires name not empty && scope != null && file != null &&
+     *           types != null
+     * @return the full name of the type denoted by name in scope, or the
+     *         unresolved symbol of name if it denotes no known type
+     */
+    private static String resolve(
+            String name,
+            String scope,
+            ProtoFile file,
+            TypeTable types) {
+
+        List<String> candidates = TypeNames.candidates(name, scope);
+
+        for (String candidate : candidates) {
+            Definition definition = file.definition(candidate);
+
+            if (definition != null && definition.isType()
+                    || types.isType(candidate)) {
+
+                return candidate;
+            }
+        }
+
+        return UNRESOLVED + candidates.get(candidates.size() - 1);
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Occurrence represents an immutable occurrence of a symbol.
+     */
+    private static final class Occurrence {
+
+        final int start;
+        final int end;
+        final String symbol;
+
+        /**
+         * @requires start <= end && symbol != null
+         * @effects Makes this be a new occurrence of symbol at [start..end].
+         */
+        Occurrence(int start, int end, String symbol) {
+            this.start = start;
+            this.end = end;
+            this.symbol = symbol;
+        }
+    } // end Occurrence
+}
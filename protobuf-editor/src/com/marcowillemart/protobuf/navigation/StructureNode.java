@@ -0,0 +1,377 @@
+package com.marcowillemart.protobuf.navigation;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.Location;
+import com.marcowillemart.protobuf.model.ProtoFile;
+import com.marcowillemart.protobuf.model.TypeReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * StructureNode represents an immutable node of the outline of a Protobuf
+ * file: its package, messages, enums, services, rpcs and their members.
+ *
+ * Two nodes are equal iff they have the same kind and full name, whatever
+ * their offsets, details or children, so that the node of an element in the
+ * outline of a new version of a file is equal to its node in the outline of
+ * the previous version. Whether the element changed between both versions is
+ * told by sameAs.
+ *
+ * @specfield kind : Kind                     // The kind of the element.
+ * @specfield name : String                   // The simple name.
+ * @specfield fullName : String               // The fully qualified name.
+ * @specfield detail : String                 // The type and number of a field,
+ *                                               the number of an enum value,
+ *                                               the signature of an rpc, else
+ *                                               the empty string.
+ * @specfield offset : int                    // The offset of the name.
+ * @specfield startOffset : int               // The offset of the first
+ *                                               character of the element.
+ * @specfield endOffset : int                 // The offset following the last
+ *                                               character of the element.
+ * @specfield children : List<StructureNode>  // The nested elements.
+ *
+ * @invariant startOffset <= offset <= endOffset
+ *
+ * @author mwi
+ */
+public final class StructureNode {
+
+    /**
+     * The kind of an element of the outline.
+     */
+    public enum Kind {
+        PACKAGE,
+        MESSAGE,
+        ENUM,
+        SERVICE,
+        RPC,
+        FIELD,
+        ENUM_VALUE,
+        ONEOF
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final String fullName;
+    private final String detail;
+    private final int offset;
+    private final int startOffset;
+    private final int endOffset;
+    private final List<StructureNode> children;
+
+    /*
+     * Abstraction Function:
+     *   kind = kind
+     *   name = name
+     *   fullName = fullName
+     *   detail = detail
+     *   offset = offset
+     *   startOffset = startOffset
+     *   endOffset = endOffset
+     *   children = children
+     *
+     * Representation Invariant:
+     *   kind != null && name != null && fullName != null && detail != null
+     *   startOffset <= offset <= endOffset
+     *   children != null && contains no null
+     */
+
+    /**
+     * @requires kind, name, fullName, detail, children != null &&
+     *           startOffset <= offset <= endOffset
+     * @effects Makes this be a new node with the given elements.
+     */
+    private StructureNode(
+            Kind kind,
+            String name,
+            String fullName,
+            String detail,
+            int offset,
+            int startOffset,
+            int endOffset,
+            List<StructureNode> children) {
+
+        this.kind = kind;
+        this.name = name;
+        this.fullName = fullName;
+        this.detail = detail;
+        this.offset = offset;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.children = children;
+    }
+
+    /**
+     * @requires file != null
+     * @return the nodes of the outline of file, in the order they appear in
+     *         the file: its package, if any, followed by its top-level
+     *         definitions
+     */
+    public static List<StructureNode> of(ProtoFile file) {
+        Assert.notNull(file);
+
+        List<StructureNode> nodes = new ArrayList<>();
+        Location packageLocation = file.packageLocation();
+
+        if (packageLocation != null) {
+            nodes.add(new StructureNode(
+                    Kind.PACKAGE,
+                    file.packageName(),
+                    file.packageName(),
+                    "",
+                    packageLocation.startOffset(),
+                    packageLocation.startOffset(),
+                    packageLocation.endOffset(),
+                    Collections.<StructureNode>emptyList()));
+        }
+
+        NavigableMap<Integer, TypeReference> signatures = signaturesOf(file);
+
+        for (Definition definition : file.definitions()) {
+            nodes.add(nodeOf(definition, signatures));
+        }
+
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return this.fullName
+     */
+    public String fullName() {
+        return fullName;
+    }
+
+    /**
+     * @return this.detail
+     */
+    public String detail() {
+        return detail;
+    }
+
+    /**
+     * @return this.offset
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return a read-only view of this.children
+     */
+    public List<StructureNode> children() {
+        return children;
+    }
+
+    /**
+     * @return true iff this has no child
+     */
+    public boolean isLeaf() {
+        return children.isEmpty();
+    }
+
+    /**
+     * @return true iff other is not null and this and other have the same
+     *         kind, name, full name, detail and offsets, and pairwise same
+     *         children, i.e., iff this and other are displayed and navigated
+     *         to in the same way
+     */
+    public boolean sameAs(StructureNode other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (other == null
+                || kind != other.kind
+                || offset != other.offset
+                || startOffset != other.startOffset
+                || endOffset != other.endOffset
+                || children.size() != other.children.size()
+                || !name.equals(other.name)
+                || !fullName.equals(other.fullName)
+                || !detail.equals(other.detail)) {
+
+            return false;
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            if (!children.get(i).sameAs(other.children.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof StructureNode)) {
+            return false;
+        }
+
+        StructureNode other = (StructureNode) obj;
+
+        return kind == other.kind && fullName.equals(other.fullName);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + kind.hashCode();
+        hash = 31 * hash + fullName.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + detail
+                + "[" + startOffset + ".." + endOffset + "[";
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires definition != null && signatures != null
+     * @return the node of definition and of its descendants, the signature
+     *         of an rpc being the input and output types in signatures
+     */
+    private static StructureNode nodeOf(
+            Definition definition,
+            NavigableMap<Integer, TypeReference> signatures) {
+
+        List<StructureNode> nodes;
+
+        if (definition.children().isEmpty()) {
+            nodes = Collections.emptyList();
+        } else {
+            nodes = new ArrayList<>(definition.children().size());
+
+            for (Definition child : definition.children()) {
+                nodes.add(nodeOf(child, signatures));
+            }
+
+            nodes = Collections.unmodifiableList(nodes);
+        }
+
+        return new StructureNode(
+                Kind.valueOf(definition.kind().name()),
+                definition.name(),
+                definition.fullName(),
+                detailOf(definition, signatures),
+                definition.location().startOffset(),
+                definition.startOffset(),
+                definition.endOffset(),
+                nodes);
+    }
+
+    /**
+     * @requires definition != null && signatures != null
+     * @return the detail of the node of definition
+     */
+    private static String detailOf(
+            Definition definition,
+            NavigableMap<Integer, TypeReference> signatures) {
+
+        switch (definition.kind()) {
+            case FIELD:
+                return " : " + definition.typeName() + numberOf(definition);
+            case ENUM_VALUE:
+                return numberOf(definition);
+            case RPC:
+                return signatureOf(definition, signatures);
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * @requires definition != null
+     * @return " = number" if definition has a number, else the empty string
+     */
+    private static String numberOf(Definition definition) {
+        return definition.hasNumber() ? " = " + definition.number() : "";
+    }
+
+    /**
+     * @requires rpc is an rpc && signatures != null
+     * @return "(input) : output" if both the input and the output types of
+     *         rpc are in signatures, else the empty string
+     */
+    private static String signatureOf(
+            Definition rpc,
+            NavigableMap<Integer, TypeReference> signatures) {
+
+        String input = null;
+        String output = null;
+
+        for (TypeReference reference : signatures
+                .subMap(rpc.startOffset(), rpc.endOffset()).values()) {
+
+            if (reference.kind() == TypeReference.Kind.RPC_INPUT) {
+                input = reference.name();
+            } else {
+                output = reference.name();
+            }
+        }
+
+        return input == null || output == null
+                ? ""
+                : "(" + input + ") : " + output;
+    }
+
+    /**
+     * @requires file != null
+     * @return the input and output types of the rpcs of file, by offset
+     */
+    private static NavigableMap<Integer, TypeReference> signaturesOf(
+            ProtoFile file) {
+
+        NavigableMap<Integer, TypeReference> signatures = new TreeMap<>();
+
+        for (TypeReference reference : file.references()) {
+            if (reference.kind() != TypeReference.Kind.FIELD) {
+                signatures.put(reference.location().startOffset(), reference);
+            }
+        }
+
+        return signatures;
+    }
+}
@@ -0,0 +1,221 @@
+package com.marcowillemart.protobuf.refactoring;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.TypeNames;
+import com.marcowillemart.protobuf.text.TextEdit;
+
+/**
+ * Rename represents the immutable renaming of a message, an enum, a service or
+ * an enum value.
+ *
+ * The name of a renamed type is replaced in each of its usages, i.e., only the
+ * identifier denoting the type is replaced and the qualification of the usage
+ * is preserved. When the new name of a relative usage would denote another
+ * type, e.g., a type of an inner scope that has the new name, the usage is
+ * replaced by the fully-qualified name of the renamed type instead.
+ *
+ * @specfield kind : Kind          // The kind of the renamed definition.
+ * @specfield fullName : String    // The full name of the renamed definition.
+ * @specfield newName : String     // The new simple name of the definition.
+ *
+ * @author mwi
+ */
+public final class Rename {
+
+    private static final char DOT = '.';
+
+    private final Kind kind;
+    private final String fullName;
+    private final String newName;
+
+    /**
+     * @requires kind in {MESSAGE, ENUM, SERVICE, ENUM_VALUE} &&
+     *           fullName not empty && isIdentifier(newName)
+     * @effects Makes this be a new renaming of the definition of the given
+     *          kind and full name to newName.
+     */
+    public Rename(Kind kind, String fullName, String newName) {
+        Assert.isTrue(isRenameable(kind));
+        Assert.notEmpty(fullName);
+        Assert.isTrue(isIdentifier(newName));
+
+        this.kind = kind;
+        this.fullName = fullName;
+        this.newName = newName;
+    }
+
+    /**
+     * @return true iff the definitions of the given kind can be renamed
+     */
+    public static boolean isRenameable(Kind kind) {
+        return kind == Kind.MESSAGE
+                || kind == Kind.ENUM
+                || kind == Kind.SERVICE
+                || kind == Kind.ENUM_VALUE;
+    }
+
+    /**
+     * @return true iff name is a valid Protobuf identifier
+     */
+    public static boolean isIdentifier(String name) {
+        if (name == null || name.isEmpty() || !isLetter(name.charAt(0))) {
+            return false;
+        }
+
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (!isLetter(c) && !('0' <= c && c <= '9')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return this.kind
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return this.fullName
+     */
+    public String fullName() {
+        return fullName;
+    }
+
+    /**
+     * @return the current simple name of the renamed definition
+     */
+    public String oldName() {
+        return fullName.substring(fullName.lastIndexOf(DOT) + 1);
+    }
+
+    /**
+     * @return this.newName
+     */
+    public String newName() {
+        return newName;
+    }
+
+    /**
+     * @return the full name of the renamed definition after the renaming
+     */
+    public String newFullName() {
+        String parent = TypeNames.parentOf(fullName);
+
+        return parent.isEmpty() ? newName : parent + DOT + newName;
+    }
+
+    /**
+     * @return true iff this renames a message or an enum
+     */
+    public boolean isTypeRename() {
+        return kind == Kind.MESSAGE || kind == Kind.ENUM;
+    }
+
+    /**
+     * @requires types != null
+     * @return the table of the types of types once this is performed, i.e.,
+     *         where the renamed type and its nested types are known under
+     *         their new names only
+     */
+    public TypeTable apply(final TypeTable types) {
+        Assert.notNull(types);
+
+        if (!isTypeRename()) {
+            return types;
+        }
+
+        final String newFullName = newFullName();
+
+        return new TypeTable() {
+
+            @Override
+            public boolean isType(String name) {
+                if (isWithin(name, newFullName)) {
+                    return types.isType(
+                            fullName + name.substring(newFullName.length()));
+                }
+
+                return !isWithin(name, fullName) && types.isType(name);
+            }
+        };
+    }
+
+    /**
+     * @requires offset >= 0
+     * @return the edit renaming the declaration whose name starts at offset
+     */
+    public TextEdit declarationEdit(int offset) {
+        Assert.isTrue(offset >= 0);
+
+        return new TextEdit(offset, offset + oldName().length(), newName);
+    }
+
+    /**
+     * @requires usage != null && types != null
+     * @return the edit renaming usage given the known types, or null if usage
+     *         does not denote the renamed type
+     */
+    public TextEdit usageEdit(IndexedReference usage, TypeTable types) {
+        Assert.notNull(usage);
+        Assert.notNull(types);
+
+        if (!isTypeRename() || !usage.resolvesTo(fullName, types)) {
+            return null;
+        }
+
+        String name = usage.name();
+        String renamed = name.substring(0, name.length() - oldName().length())
+                + newName;
+
+        IndexedReference renamedUsage = new IndexedReference(
+                usage.kind(),
+                usage.startOffset(),
+                usage.startOffset() + newName.length(),
+                usage.scope(),
+                renamed);
+
+        String text = renamed.indexOf(DOT) < 0
+                && !renamedUsage.resolvesTo(newFullName(), apply(types))
+                ? DOT + newFullName()
+                : newName;
+
+        return new TextEdit(usage.startOffset(), usage.endOffset(), text);
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + fullName + " -> " + newName;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return true iff name is fullName or the full name of a definition
+     *         nested in fullName
+     */
+    private static boolean isWithin(String name, String fullName) {
+        return name.startsWith(fullName)
+                && (name.length() == fullName.length()
+                        || name.charAt(fullName.length()) == DOT);
+    }
+
+    /**
+     * @return true iff c may start a Protobuf identifier
+     */
+    private static boolean isLetter(char c) {
+        return c == '_'
+                || ('a' <= c && c <= 'z')
+                || ('A' <= c && c <= 'Z');
+    }
+}
@@ -0,0 +1,51 @@
+package com.marcowillemart.protobuf.text;
+
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * LineEndings is a utility class that normalizes the line endings of a text
+ * as the editor does when it loads a file, so that the offsets computed on a
+ * text read from disk are the ones of the editor document of the file.
+ *
+ * @author mwi
+ */
+public final class LineEndings {
+
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+
+    /** this cannot be instantiated */
+    private LineEndings() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @requires text != null
+     * @return text where each "\r\n" and each lone '\r' is replaced by '\n',
+     *         i.e., text itself if it contains no '\r'
+     */
+    public static String normalize(String text) {
+        Assert.notNull(text);
+
+        int index = text.indexOf(CR);
+
+        if (index < 0) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length());
+        result.append(text, 0, index);
+
+        for (int i = index; i < text.length(); i++) {
+            char ch = text.charAt(i);
+
+            if (ch != CR) {
+                result.append(ch);
+            } else if (i + 1 >= text.length() || text.charAt(i + 1) != LF) {
+                result.append(LF);
+            }
+        }
+
+        return result.toString();
+    }
+}
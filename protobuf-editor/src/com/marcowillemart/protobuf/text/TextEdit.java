@@ -0,0 +1,142 @@
+package com.marcowillemart.protobuf.text;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.List;
+
+/**
+ * TextEdit represents an immutable replacement of a range of a text.
+ *
+ * @specfield startOffset : int    // The offset of the first replaced
+ *                                    character.
+ * @specfield endOffset : int      // The offset following the last replaced
+ *                                    character.
+ * @specfield text : String        // The replacement text.
+ *
+ * @invariant 0 <= startOffset <= endOffset
+ *
+ * @author mwi
+ */
+public final class TextEdit {
+
+    private final int startOffset;
+    private final int endOffset;
+    private final String text;
+
+    /**
+     * @requires 0 <= startOffset <= endOffset && text != null
+     * @effects Makes this be a new edit replacing [startOffset..endOffset[ by
+     *          text.
+     */
+    public TextEdit(int startOffset, int endOffset, String text) {
+        Assert.isTrue(0 <= startOffset && startOffset <= endOffset);
+        Assert.notNull(text);
+
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.text = text;
+    }
+
+    /**
+     * @requires text != null && edits != null && the edits are sorted by
+     *           offset, do not overlap and lie within text
+     * @return text where all the edits are applied
+     */
+    public static String apply(CharSequence text, List<TextEdit> edits) {
+        Assert.notNull(text);
+        Assert.noNullElement(edits);
+
+        StringBuilder result = new StringBuilder(text.length());
+        int offset = 0;
+
+        for (TextEdit edit : edits) {
+            Assert.isTrue(offset <= edit.startOffset
+                    && edit.endOffset <= text.length());
+
+            result.append(text, offset, edit.startOffset).append(edit.text);
+            offset = edit.endOffset;
+        }
+
+        return result.append(text, offset, text.length()).toString();
+    }
+
+    /**
+     * @requires text != null && expected != null
+     * @return true iff text contains expected at [startOffset..endOffset[,
+     *         i.e., iff this still applies to text as it was computed
+     */
+    public boolean replaces(CharSequence text, String expected) {
+        Assert.notNull(text);
+        Assert.notNull(expected);
+
+        if (endOffset > text.length() || length() != expected.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(startOffset + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return this.startOffset
+     */
+    public int startOffset() {
+        return startOffset;
+    }
+
+    /**
+     * @return this.endOffset
+     */
+    public int endOffset() {
+        return endOffset;
+    }
+
+    /**
+     * @return the number of replaced characters
+     */
+    public int length() {
+        return endOffset - startOffset;
+    }
+
+    /**
+     * @return this.text
+     */
+    public String text() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof TextEdit)) {
+            return false;
+        }
+
+        TextEdit other = (TextEdit) obj;
+
+        return startOffset == other.startOffset
+                && endOffset == other.endOffset
+                && text.equals(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 31 * hash + startOffset;
+        hash = 31 * hash + endOffset;
+        hash = 31 * hash + text.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + startOffset + ".." + endOffset + "[ -> \"" + text + "\"";
+    }
+}
@@ -0,0 +1,428 @@
+package com.marcowillemart.protobuf.typing;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.Random;
+
+/**
+ * BracketIndex represents the mutable index of the brackets of an edited
+ * Protobuf document, i.e., its '{', '}', '(', ')', '[', ']', '<' and '>'
+ * tokens, telling whether the brackets of each kind are balanced around an
+ * offset.
+ *
+ * The balance of a kind of brackets at an offset is the number of opening
+ * brackets of that kind before the offset minus the number of closing ones.
+ * A closing bracket is unmatched iff the balance after it is lower than
+ * anywhere before it, and an opening and a closing bracket pair iff the
+ * balance between them never gets lower than after the opening one and is
+ * the same after the closing one as before the opening one.
+ *
+ * The brackets are stored in a treap ordered by offset, each subtree knowing
+ * the balance of each kind over its brackets and its lowest balance, so that
+ * the index is updated and queried in logarithmic time.
+ *
+ * @specfield brackets : set of <offset : int, type : int>
+ *
+ * @author mwi
+ */
+public final class BracketIndex {
+
+    private static final int NONE = -1;
+    private static final int KINDS = 4;
+
+    private final Random priorities;
+    private Node root;
+    private int size;
+
+    /*
+     * Abstraction Function:
+     *   brackets = { <n.offset, n.type> | n is a node of root }
+     *
+     * Representation Invariant:
+     *   priorities != null
+     *   root is a treap: its nodes are ordered by offset, with distinct
+     *   offsets, and the priority of a node is not lower than the ones of
+     *   its children
+     *   the aggregates of each node are the ones of its subtree, once the
+     *   shifts of its ancestors are pushed down
+     *   size = number of nodes of root
+     */
+
+    /**
+     * @effects Makes this be a new index of no bracket.
+     */
+    public BracketIndex() {
+        this.priorities = new Random();
+        this.root = null;
+        this.size = 0;
+    }
+
+    /**
+     * @return the number of brackets of this
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @modifies this
+     * @effects Removes all the brackets of this.
+     */
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * @requires 0 <= offset && no bracket of this is at offset
+     * @modifies this
+     * @effects Adds the token of the given type at offset to this.brackets,
+     *          iff it is a bracket.
+     */
+    public void add(int type, int offset) {
+        Assert.isTrue(0 <= offset);
+
+        if (kindOf(type) == NONE) {
+            return;
+        }
+
+        Node[] parts = split(root, offset);
+
+        Assert.isTrue(first(parts[1]) != offset);
+
+        root = merge(
+                merge(parts[0], new Node(type, offset, priorities.nextInt())),
+                parts[1]);
+        size++;
+    }
+
+    /**
+     * @requires 0 <= start <= end
+     * @modifies this
+     * @effects Removes the brackets of this at [start..end[, and shifts the
+     *          brackets after them by start - end, as when [start..end[ is
+     *          removed from the document.
+     */
+    public void remove(int start, int end) {
+        Assert.isTrue(0 <= start && start <= end);
+
+        Node[] left = split(root, start);
+        Node[] right = split(left[1], end);
+
+        size -= count(right[0]);
+        shift(right[1], start - end);
+
+        root = merge(left[0], right[1]);
+    }
+
+    /**
+     * @requires 0 <= offset && 0 <= length
+     * @modifies this
+     * @effects Shifts the brackets of this at or after offset by length, as
+     *          when length characters are inserted in the document at offset.
+     */
+    public void insert(int offset, int length) {
+        Assert.isTrue(0 <= offset && 0 <= length);
+
+        Node[] parts = split(root, offset);
+        shift(parts[1], length);
+
+        root = merge(parts[0], parts[1]);
+    }
+
+    /**
+     * @return the type of the bracket of this at offset, or -1 if there is
+     *         none
+     */
+    public int typeAt(int offset) {
+        Node node = root;
+        int pending = 0;
+
+        while (node != null) {
+            int nodeOffset = node.offset + pending;
+
+            if (nodeOffset == offset) {
+                return node.type;
+            }
+
+            pending += node.shift;
+            node = offset < nodeOffset ? node.left : node.right;
+        }
+
+        return NONE;
+    }
+
+    /**
+     * @requires type is the type of a bracket && 0 <= offset
+     * @return true iff an opening bracket of the kind of type inserted at
+     *         offset would match a closing bracket of this that is unmatched,
+     *         i.e., iff there is such a closing bracket after offset
+     */
+    public boolean closesUnmatched(int type, int offset) {
+        int kind = kindOf(type);
+
+        Assert.isTrue(kind != NONE);
+        Assert.isTrue(0 <= offset);
+
+        Node[] parts = split(root, offset);
+
+        boolean result = sum(parts[0], kind) + low(parts[1], kind)
+                < low(parts[0], kind);
+
+        root = merge(parts[0], parts[1]);
+
+        return result;
+    }
+
+    /**
+     * @requires 0 <= opening < closing
+     * @return true iff there is an opening bracket at opening and a closing
+     *         bracket of the same kind at closing in this, and they pair
+     */
+    public boolean pairs(int opening, int closing) {
+        Assert.isTrue(0 <= opening && opening < closing);
+
+        int openingType = typeAt(opening);
+        int closingType = typeAt(closing);
+
+        if (openingType == NONE
+                || closingType == NONE
+                || !isOpening(openingType)
+                || isOpening(closingType)
+                || kindOf(openingType) != kindOf(closingType)) {
+
+            return false;
+        }
+
+        int kind = kindOf(openingType);
+
+        Node[] left = split(root, opening + 1);
+        Node[] right = split(left[1], closing);
+
+        boolean result = sum(right[0], kind) == 0 && low(right[0], kind) == 0;
+
+        root = merge(left[0], merge(right[0], right[1]));
+
+        return result;
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the kind of the brackets of the given type, in [0..KINDS[, or
+     *         -1 if type is not the type of a bracket
+     */
+    private static int kindOf(int type) {
+        switch (type) {
+            case ProtobufLexer.LBRACE:
+            case ProtobufLexer.RBRACE:
+                return 0;
+            case ProtobufLexer.LPAREN:
+            case ProtobufLexer.RPAREN:
+                return 1;
+            case ProtobufLexer.LBRACK:
+            case ProtobufLexer.RBRACK:
+                return 2;
+            case ProtobufLexer.LCHEVR:
+            case ProtobufLexer.RCHEVR:
+                return 3;
+            default:
+                return NONE;
+        }
+    }
+
+    /**
+     * @requires type is the type of a bracket
+     * @return true iff type is the type of an opening bracket
+     */
+    private static boolean isOpening(int type) {
+        return type == ProtobufLexer.LBRACE
+                || type == ProtobufLexer.LPAREN
+                || type == ProtobufLexer.LBRACK
+                || type == ProtobufLexer.LCHEVR;
+    }
+
+    /**
+     * @return the number of nodes of node
+     */
+    private static int count(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * @return the balance of the given kind over the brackets of node
+     */
+    private static int sum(Node node, int kind) {
+        return node == null ? 0 : node.sums[kind];
+    }
+
+    /**
+     * @return the lowest balance of the given kind over the prefixes of the
+     *         brackets of node, including the empty one
+     */
+    private static int low(Node node, int kind) {
+        return node == null ? 0 : node.lows[kind];
+    }
+
+    /**
+     * @return the offset of the first bracket of node, or -1 if there is none
+     */
+    private static int first(Node node) {
+        if (node == null) {
+            return NONE;
+        }
+
+        push(node);
+
+        return node.left == null ? node.offset : first(node.left);
+    }
+
+    /**
+     * @modifies node
+     * @effects Shifts the offsets of the brackets of node by delta.
+     */
+    private static void shift(Node node, int delta) {
+        if (node != null) {
+            node.offset += delta;
+            node.shift += delta;
+        }
+    }
+
+    /**
+     * @modifies node
+     * @effects Pushes the pending shift of node down to its children.
+     */
+    private static void push(Node node) {
+        if (node.shift != 0) {
+            shift(node.left, node.shift);
+            shift(node.right, node.shift);
+            node.shift = 0;
+        }
+    }
+
+    /**
+     * @requires the children of node are up to date
+     * @modifies node
+     * @effects Updates the aggregates of node from the ones of its children.
+     */
+    private static void pull(Node node) {
+        node.count = 1 + count(node.left) + count(node.right);
+
+        for (int kind = 0; kind < KINDS; kind++) {
+            int before = sum(node.left, kind);
+            int self = before + node.value(kind);
+
+            node.sums[kind] = self + sum(node.right, kind);
+            node.lows[kind] = Math.min(
+                    low(node.left, kind),
+                    Math.min(self, self + low(node.right, kind)));
+        }
+    }
+
+    /**
+     * @modifies node
+     * @effects Splits node into the brackets before offset and the others.
+     * @return the roots of both parts
+     */
+    private static Node[] split(Node node, int offset) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+
+        push(node);
+
+        Node[] parts;
+
+        if (node.offset < offset) {
+            parts = split(node.right, offset);
+            node.right = parts[0];
+            parts[0] = node;
+        } else {
+            parts = split(node.left, offset);
+            node.left = parts[1];
+            parts[1] = node;
+        }
+
+        pull(node);
+
+        return parts;
+    }
+
+    /**
+     * @requires the brackets of left are before the ones of right
+     * @modifies left, right
+     * @return the root of the union of left and right
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+
+        if (right == null) {
+            return left;
+        }
+
+        if (left.priority >= right.priority) {
+            push(left);
+            left.right = merge(left.right, right);
+            pull(left);
+
+            return left;
+        }
+
+        push(right);
+        right.left = merge(left, right.left);
+        pull(right);
+
+        return right;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Node represents a mutable node of the treap of the brackets.
+     */
+    private static final class Node {
+
+        private final int type;
+        private final int priority;
+        private int offset;
+        private int shift;
+        private Node left;
+        private Node right;
+        private int count;
+        private final int[] sums;
+        private final int[] lows;
+
+        /**
+         * @effects Makes this be a new node of the bracket of the given type
+         *          at offset, with the given priority.
+         */
+        Node(int type, int offset, int priority) {
+            this.type = type;
+            this.priority = priority;
+            this.offset = offset;
+            this.shift = 0;
+            this.sums = new int[KINDS];
+            this.lows = new int[KINDS];
+
+            pull(this);
+        }
+
+        /**
+         * @return the change of the balance of the given kind over the
+         *         bracket of this
+         */
+        int value(int kind) {
+            if (kindOf(type) != kind) {
+                return 0;
+            }
+
+            return isOpening(type) ? 1 : -1;
+        }
+    } // end Node
+}
@@ -0,0 +1,585 @@
+package com.marcowillemart.protobuf.typing;
+
+import com.marcowillemart.common.util.Assert;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.Arrays;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+
+/**
+ * TokenRegions represents a mutable snapshot of the string literals and
+ * comments of a Protobuf document, as needed to tell how a typed character
+ * relates to them.
+ *
+ * A snapshot is taken from the tokens of the document at some point, and is
+ * then patched for each edit of the document in constant time: the regions
+ * before an edit are kept, the ones after it are shifted, and the ones across
+ * it are stretched over it. A patched snapshot is thus only an approximation
+ * of the regions of the edited document, which is made exact again by
+ * relexing the lines of its edits, the regions they span included.
+ *
+ * The regions are kept in a gap buffer whose gap is left where the regions
+ * were last relexed, the bounds of the regions after the gap being stored
+ * relative to a shift. Relexing thus costs the length of the relexed lines
+ * plus the number of regions between them and the previously relexed ones,
+ * amortized, however many regions the document contains.
+ *
+ * @specfield regions : sequence of <start : int, end : int, kind : int>
+ *                                   // The string literals and comments of
+ *                                      the document, sorted by offset.
+ * @specfield length : int           // The length of the document.
+ *
+ * @author mwi
+ */
+public final class TokenRegions {
+
+    public static final int STRING = 0;
+    public static final int UNCLOSED_STRING = 1;
+    public static final int LINE_COMMENT = 2;
+    public static final int BLOCK_COMMENT = 3;
+    // A block comment containing another "/*", hence not closed as intended.
+    public static final int NESTING_BLOCK_COMMENT = 4;
+
+    private static final int NONE = -1;
+    private static final char NEWLINE = '\n';
+    private static final String BLOCK_COMMENT_START = "/*";
+    private static final String BLOCK_COMMENT_END = "*/";
+
+    private int[] starts;
+    private int[] ends;
+    private int[] kinds;
+    private int gapStart;
+    private int gapEnd;
+    private int shift;
+    private int length;
+    private int editStart;
+    private int removedEnd;
+    private int insertedEnd;
+
+    /*
+     * Abstraction Function:
+     *   regions[i] = <current(raw(starts, p(i)), true),
+     *                 current(raw(ends, p(i)), false), kinds[p(i)]>
+     *   for 0 <= i < starts.length - (gapEnd - gapStart)
+     *   length = length + insertedEnd - removedEnd if editStart >= 0,
+     *            length otherwise
+     *   where p(i) is i if i < gapStart, i + gapEnd - gapStart otherwise,
+     *   raw(a, j) is a[j] if j < gapStart, a[j] + shift otherwise,
+     *   and current(b, start) is b if b < editStart or b = editStart and
+     *   not start, b + insertedEnd - removedEnd if b >= removedEnd, and
+     *   insertedEnd otherwise
+     *
+     * Representation Invariant:
+     *   starts, ends and kinds have the same length
+     *   0 <= gapStart <= gapEnd <= starts.length
+     *   0 <= raw(starts, p(i)) < raw(ends, p(i)) <= raw(starts, p(i + 1))
+     *     <= length
+     *   kinds[p(i)] in [STRING..NESTING_BLOCK_COMMENT]
+     *   editStart < 0 || editStart <= removedEnd && editStart <= insertedEnd
+     */
+
+    /**
+     * @requires the arguments satisfy the rep invariant
+     * @effects Makes this be a new exact snapshot of the given regions.
+     */
+    private TokenRegions(int[] starts, int[] ends, int[] kinds, int length) {
+        this.starts = starts;
+        this.ends = ends;
+        this.kinds = kinds;
+        this.gapStart = starts.length;
+        this.gapEnd = starts.length;
+        this.shift = 0;
+        this.length = length;
+        this.editStart = NONE;
+        this.removedEnd = NONE;
+        this.insertedEnd = NONE;
+    }
+
+    /**
+     * @return this.length
+     */
+    public int length() {
+        return editStart < 0
+                ? length
+                : length + insertedEnd - removedEnd;
+    }
+
+    /**
+     * @return true iff this is not patched for any edit
+     */
+    public boolean isExact() {
+        return editStart < 0;
+    }
+
+    /**
+     * @requires 0 <= offset && offset + removedLength <= this.length &&
+     *           0 <= removedLength && 0 <= insertedLength
+     * @modifies this
+     * @effects Patches this for the replacement of removedLength characters
+     *          of the document at offset with insertedLength characters.
+     */
+    public void edit(int offset, int removedLength, int insertedLength) {
+        Assert.isTrue(0 <= offset && offset + removedLength <= length());
+        Assert.isTrue(0 <= removedLength && 0 <= insertedLength);
+
+        if (editStart < 0) {
+            editStart = offset;
+            removedEnd = offset + removedLength;
+            insertedEnd = offset + insertedLength;
+            return;
+        }
+
+        int end = Math.max(insertedEnd, offset + removedLength);
+
+        editStart = Math.min(editStart, offset);
+        removedEnd = removedEnd + end - insertedEnd;
+        insertedEnd = end - removedLength + insertedLength;
+    }
+
+    /**
+     * @requires text != null && text.length = this.length &&
+     *           this is the snapshot of text, possibly patched
+     * @modifies this
+     * @effects Makes this be the exact snapshot of text, if it is not, whose
+     *          regions between the start of the line of the first edit and
+     *          the end of the line of the last one, stretched over the
+     *          regions they cross, are the ones of the tokens of text lexed
+     *          there.
+     */
+    public void relex(CharSequence text) {
+        Assert.notNull(text);
+        Assert.equals(length(), text.length());
+
+        if (editStart < 0) {
+            return;
+        }
+
+        int from = lineStart(text, editStart);
+        int first = lastStartingBefore(from);
+
+        if (first >= 0 && end(first) > from) {
+            from = start(first);
+        } else {
+            first++;
+        }
+
+        int to = lineEnd(text, insertedEnd);
+        int last = first;
+        TokenRegions window = null;
+
+        while (window == null) {
+            while (last < size()
+                    && (start(last) < to
+                            || raw(starts, physical(last)) < removedEnd)) {
+
+                to = lineEnd(text, Math.max(to, end(last)));
+                last++;
+            }
+
+            window = lexed(text, from, to);
+
+            int size = window.size();
+
+            if (size > 0
+                    && window.isBlockComment(size - 1)
+                    && window.end(size - 1) == to
+                    && to < text.length()
+                    && !endsWith(text, to, BLOCK_COMMENT_END)) {
+
+                to = lineEnd(
+                        text, endOfNext(text, BLOCK_COMMENT_END, to - 1));
+                window = null;
+            }
+        }
+
+        splice(first, last, window);
+
+        shift += insertedEnd - removedEnd;
+        length = text.length();
+        editStart = NONE;
+        removedEnd = NONE;
+        insertedEnd = NONE;
+    }
+
+    /**
+     * @requires 0 <= offset
+     * @return the index of the region of this containing offset, i.e., with
+     *         start <= offset < end, or -1 if there is none
+     */
+    public int regionAt(int offset) {
+        int index = lastStartingBefore(offset + 1);
+
+        return index >= 0 && offset < end(index) ? index : NONE;
+    }
+
+    /**
+     * @requires 0 < offset
+     * @return the index of the region of this ending at or containing the
+     *         character before offset, i.e., with start < offset <= end, or
+     *         -1 if there is none
+     */
+    public int regionBefore(int offset) {
+        int index = lastStartingBefore(offset);
+
+        return index >= 0 && offset <= end(index) ? index : NONE;
+    }
+
+    /**
+     * @requires 0 <= index < this.regions.length
+     * @return this.regions[index].start
+     */
+    public int start(int index) {
+        return current(raw(starts, physical(index)), true);
+    }
+
+    /**
+     * @requires 0 <= index < this.regions.length
+     * @return this.regions[index].end
+     */
+    public int end(int index) {
+        return current(raw(ends, physical(index)), false);
+    }
+
+    /**
+     * @requires 0 <= index < this.regions.length
+     * @return this.regions[index].kind
+     */
+    public int kind(int index) {
+        return kinds[physical(index)];
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the number of regions of this
+     */
+    private int size() {
+        return starts.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * @requires 0 <= index < this.regions.length
+     * @return the index in the arrays of this of the given region
+     */
+    private int physical(int index) {
+        return index < gapStart ? index : index + gapEnd - gapStart;
+    }
+
+    /**
+     * @return the bound stored in bounds at the given index of the arrays of
+     *         this, in the document of the snapshot
+     */
+    private int raw(int[] bounds, int index) {
+        return index < gapStart ? bounds[index] : bounds[index] + shift;
+    }
+
+    /**
+     * @requires 0 <= first <= last <= this.regions.length &&
+     *           window is exact
+     * @modifies this
+     * @effects Replaces the regions of this at [first..last[ with the regions
+     *          of window, leaving the gap after them.
+     */
+    private void splice(int first, int last, TokenRegions window) {
+        moveGap(first);
+        gapEnd += last - first;
+
+        int count = window.size();
+
+        if (gapEnd - gapStart < count) {
+            grow(count);
+        }
+
+        for (int i = 0; i < count; i++, gapStart++) {
+            starts[gapStart] = window.start(i);
+            ends[gapStart] = window.end(i);
+            kinds[gapStart] = window.kind(i);
+        }
+    }
+
+    /**
+     * @requires 0 <= index <= this.regions.length
+     * @modifies this
+     * @effects Moves the gap of this before the region at index, in time
+     *          linear in the number of regions it moves over.
+     */
+    private void moveGap(int index) {
+        while (gapStart > index) {
+            gapStart--;
+            gapEnd--;
+            starts[gapEnd] = starts[gapStart] - shift;
+            ends[gapEnd] = ends[gapStart] - shift;
+            kinds[gapEnd] = kinds[gapStart];
+        }
+
+        while (gapStart < index) {
+            starts[gapStart] = starts[gapEnd] + shift;
+            ends[gapStart] = ends[gapEnd] + shift;
+            kinds[gapStart] = kinds[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    /**
+     * @modifies this
+     * @effects Enlarges the arrays of this so that the gap holds at least
+     *          count regions, at least doubling their capacity.
+     */
+    private void grow(int count) {
+        int after = starts.length - gapEnd;
+        int capacity = Math.max(
+                2 * starts.length, gapStart + count + after);
+
+        starts = regrown(starts, capacity, after);
+        ends = regrown(ends, capacity, after);
+        kinds = regrown(kinds, capacity, after);
+        gapEnd = capacity - after;
+    }
+
+    /**
+     * @return a copy of array of the given capacity, whose part after the gap
+     *         of this, of length after, is moved to its end
+     */
+    private int[] regrown(int[] array, int capacity, int after) {
+        int[] result = Arrays.copyOf(array, capacity);
+
+        System.arraycopy(
+                array, array.length - after, result, capacity - after, after);
+
+        return result;
+    }
+
+    /**
+     * @return the index of the last region of this starting before offset,
+     *         or -1 if there is none
+     */
+    private int lastStartingBefore(int offset) {
+        int low = 0;
+        int high = size() - 1;
+        int result = NONE;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (start(middle) < offset) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return true iff the given region of this is a block comment
+     */
+    private boolean isBlockComment(int index) {
+        return kind(index) == BLOCK_COMMENT
+                || kind(index) == NESTING_BLOCK_COMMENT;
+    }
+
+    /**
+     * @return the offset of the first character of the line of offset in
+     *         text
+     */
+    private static int lineStart(CharSequence text, int offset) {
+        int start = offset;
+
+        while (start > 0 && text.charAt(start - 1) != NEWLINE) {
+            start--;
+        }
+
+        return start;
+    }
+
+    /**
+     * @return the offset of the line terminator ending the line of offset in
+     *         text, or text.length if it is the last line
+     */
+    private static int lineEnd(CharSequence text, int offset) {
+        int end = offset;
+
+        while (end < text.length() && text.charAt(end) != NEWLINE) {
+            end++;
+        }
+
+        return end;
+    }
+
+    /**
+     * @requires text != null && 0 <= from <= to <= text.length &&
+     *           from is not inside a token of text
+     * @return the exact snapshot of the regions of the tokens of
+     *         text[from..to[, at their offsets in text
+     */
+    private static TokenRegions lexed(CharSequence text, int from, int to) {
+        Builder builder = new Builder();
+        ProtobufLexer lexer = new ProtobufLexer(
+                new ANTLRInputStream(text.subSequence(from, to).toString()));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(
+                    token.getType(),
+                    from + token.getStartIndex(),
+                    from + token.getStopIndex() + 1,
+                    token.getText());
+        }
+
+        return builder.build(to);
+    }
+
+    /**
+     * @return true iff text[..offset[ ends with suffix
+     */
+    private static boolean endsWith(
+            CharSequence text,
+            int offset,
+            String suffix) {
+
+        if (offset < suffix.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < suffix.length(); i++) {
+            if (text.charAt(offset - suffix.length() + i)
+                    != suffix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the offset following the first occurrence of s in text at or
+     *         after offset, or text.length if there is none
+     */
+    private static int endOfNext(CharSequence text, String s, int offset) {
+        for (int i = offset; i + s.length() <= text.length(); i++) {
+            if (endsWith(text, i + s.length(), s)) {
+                return i + s.length();
+            }
+        }
+
+        return text.length();
+    }
+
+    /**
+     * @return the offset in the edited document of the bound of a region at
+     *         offset in the document of the snapshot, the start of a region
+     *         following the edits at their start and its end preceding them
+     */
+    private int current(int offset, boolean start) {
+        if (editStart < 0
+                || offset < editStart
+                || offset == editStart && !start) {
+
+            return offset;
+        }
+
+        if (offset >= removedEnd) {
+            return offset + insertedEnd - removedEnd;
+        }
+
+        return insertedEnd;
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Builder represents a mutable builder of a snapshot of the regions of a
+     * document, fed with the tokens of the document in the order of the text.
+     */
+    public static final class Builder {
+
+        private int[] starts;
+        private int[] ends;
+        private int[] kinds;
+        private int size;
+
+        /**
+         * @effects Makes this be a new builder fed with no token.
+         */
+        public Builder() {
+            this.starts = new int[16];
+            this.ends = new int[16];
+            this.kinds = new int[16];
+            this.size = 0;
+        }
+
+        /**
+         * @requires text is the text of the token of type type at
+         *           [start..end[, which follows the tokens fed so far
+         * @modifies this
+         * @effects Feeds this with the given token.
+         */
+        public void token(int type, int start, int end, CharSequence text) {
+            int kind = kindOf(type, text);
+
+            if (kind == NONE || start >= end) {
+                return;
+            }
+
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * size);
+                ends = Arrays.copyOf(ends, 2 * size);
+                kinds = Arrays.copyOf(kinds, 2 * size);
+            }
+
+            starts[size] = start;
+            ends[size] = end;
+            kinds[size] = kind;
+            size++;
+        }
+
+        /**
+         * @requires length is the length of the document of the tokens fed to
+         *           this
+         * @return the snapshot of the regions of the tokens fed to this
+         */
+        public TokenRegions build(int length) {
+            Assert.isTrue(size == 0 || ends[size - 1] <= length);
+
+            return new TokenRegions(
+                    Arrays.copyOf(starts, size),
+                    Arrays.copyOf(ends, size),
+                    Arrays.copyOf(kinds, size),
+                    length);
+        }
+
+        /**
+         * @return the kind of the region of a token of the given type and
+         *         text, or -1 if it is neither a string literal nor a comment
+         */
+        private static int kindOf(int type, CharSequence text) {
+            switch (type) {
+                case ProtobufLexer.StrLit:
+                case ProtobufLexer.PROTO3_DOUBLE:
+                case ProtobufLexer.PROTO3_SINGLE:
+                    return STRING;
+                case ProtobufLexer.UnterminatedStrLit:
+                    return UNCLOSED_STRING;
+                case ProtobufLexer.LINE_COMMENT:
+                    return LINE_COMMENT;
+                case ProtobufLexer.BLOCK_COMMENT:
+                    return text.length() > 4 && text.subSequence(
+                            2, text.length() - 2).toString()
+                            .contains(BLOCK_COMMENT_START)
+                            ? NESTING_BLOCK_COMMENT
+                            : BLOCK_COMMENT;
+                default:
+                    return NONE;
+            }
+        }
+    } // end Builder
+}
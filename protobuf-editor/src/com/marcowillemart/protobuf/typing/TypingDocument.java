@@ -0,0 +1,262 @@
+package com.marcowillemart.protobuf.typing;
+
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.common.lang.Line;
+import com.marcowillemart.common.lang.SimpleLine;
+import com.marcowillemart.common.util.Assert;
+
+/**
+ * TypingDocument represents a Protobuf document whose string literals and
+ * comments are told by a snapshot of its regions instead of by lexing its
+ * text, so that the questions asked while typing are answered in time
+ * logarithmic in the number of regions and linear in the length of the line
+ * at hand, whatever the length of the document.
+ *
+ * The answers are the ones of a ProtobufDocument of the same text, as long as
+ * the snapshot is exact. A snapshot patched for the edits made since it was
+ * taken is first made exact by lexing the lines of the edits, so that a
+ * string literal or a comment typed since is known; the answers then only
+ * differ when an edit opens or closes a block comment spanning beyond them.
+ * The snapshot is shared, not copied, so a TypingDocument only answers for
+ * its text until the snapshot is patched for the next edit.
+ *
+ * @author mwi
+ */
+public final class TypingDocument implements Document {
+
+    private static final char NEWLINE = '\n';
+    private static final String BLOCK_COMMENT_START = "/*";
+    private static final String BLOCK_COMMENT_LINE = "*";
+    private static final int NONE = -1;
+
+    private final CharSequence text;
+    private final TokenRegions regions;
+
+    /*
+     * Abstraction Function:
+     *   text = text
+     *
+     * Representation Invariant:
+     *   text != null && regions != null && regions.isExact()
+     *   regions.length = text.length
+     */
+
+    /**
+     * @requires text != null && regions != null &&
+     *           regions are the ones of text, possibly patched
+     * @modifies regions
+     * @effects Makes this be a new document of the given text and regions,
+     *          relexing regions around their edits if they are patched.
+     */
+    public TypingDocument(CharSequence text, TokenRegions regions) {
+        Assert.notNull(text);
+        Assert.notNull(regions);
+        Assert.equals(text.length(), regions.length());
+
+        regions.relex(text);
+
+        this.text = text;
+        this.regions = regions;
+    }
+
+    @Override
+    public CharSequence text() {
+        return text;
+    }
+
+    @Override
+    public boolean isInString(int offset) {
+        Assert.isTrue(offset >= 0);
+
+        int region = regions.regionAt(offset);
+
+        if (region != NONE && isString(region)) {
+            return offset != regions.start(region);
+        }
+
+        if (offset <= 0) {
+            return false;
+        }
+
+        region = regions.regionBefore(offset);
+
+        return region != NONE
+                && regions.kind(region) == TokenRegions.UNCLOSED_STRING;
+    }
+
+    @Override
+    public boolean isInComment(int offset) {
+        Assert.isTrue(offset >= 0);
+
+        int region = regions.regionAt(offset);
+
+        if (region != NONE && isComment(region)) {
+            return offset != regions.start(region);
+        }
+
+        if (offset <= 0) {
+            return false;
+        }
+
+        region = regions.regionBefore(offset);
+
+        return region != NONE
+                && regions.kind(region) == TokenRegions.LINE_COMMENT;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The number of the line is computed by counting the lines before it,
+     * in time linear in the offset.
+     */
+    @Override
+    public Line lineAt(int offset) {
+        Assert.isTrue(0 <= offset && offset <= text.length());
+
+        int start = lineStart(offset);
+        int end = offset;
+
+        while (end < text.length() && text.charAt(end) != NEWLINE) {
+            end++;
+        }
+
+        int number = 1;
+
+        for (int i = 0; i < start; i++) {
+            if (text.charAt(i) == NEWLINE) {
+                number++;
+            }
+        }
+
+        return new SimpleLine(
+                number, start, end, text.subSequence(start, end).toString());
+    }
+
+    /**
+     * @requires offset in [0..this.text.length]
+     * @return the indentation of the line at the given offset, i.e.,
+     *         lineAt(offset).indentation(), computed in time linear in the
+     *         length of the line
+     */
+    public String indentationAt(int offset) {
+        Assert.isTrue(0 <= offset && offset <= text.length());
+
+        int start = lineStart(offset);
+        int end = start;
+
+        while (end < text.length()
+                && text.charAt(end) != NEWLINE
+                && Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+
+        return text.subSequence(start, end).toString();
+    }
+
+    @Override
+    public boolean shouldCloseBlockComment(int offset) {
+        Assert.isTrue(0 <= offset && offset <= text.length());
+
+        if (offset <= 0) {
+            return false;
+        }
+
+        int region = regions.regionBefore(offset);
+
+        return region != NONE
+                && isUnclosedBlockComment(region)
+                && lineUpTo(offset).contains(BLOCK_COMMENT_START);
+    }
+
+    @Override
+    public boolean shouldAddLineToBlockComment(int offset) {
+        Assert.isTrue(0 <= offset && offset <= text.length());
+
+        int region = regions.regionAt(offset);
+
+        if (region == NONE || !isBlockComment(region)) {
+            return false;
+        }
+
+        String line = lineUpTo(offset);
+
+        if (isUnclosedBlockComment(region)) {
+            return !line.contains(BLOCK_COMMENT_START)
+                    && line.contains(BLOCK_COMMENT_LINE);
+        }
+
+        return line.contains(BLOCK_COMMENT_LINE);
+    }
+
+    @Override
+    public String toString() {
+        return "TypingDocument{"
+                + "length=" + text.length()
+                + ", exact=" + regions.isExact()
+                + '}';
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return true iff the given region of this is a string literal
+     */
+    private boolean isString(int region) {
+        int kind = regions.kind(region);
+
+        return kind == TokenRegions.STRING
+                || kind == TokenRegions.UNCLOSED_STRING;
+    }
+
+    /**
+     * @return true iff the given region of this is a comment
+     */
+    private boolean isComment(int region) {
+        return regions.kind(region) == TokenRegions.LINE_COMMENT
+                || isBlockComment(region);
+    }
+
+    /**
+     * @return true iff the given region of this is a block comment
+     */
+    private boolean isBlockComment(int region) {
+        int kind = regions.kind(region);
+
+        return kind == TokenRegions.BLOCK_COMMENT
+                || kind == TokenRegions.NESTING_BLOCK_COMMENT;
+    }
+
+    /**
+     * @return true iff the given region of this is a block comment that is
+     *         not closed, i.e., that contains another opening symbol or ends
+     *         the text
+     */
+    private boolean isUnclosedBlockComment(int region) {
+        return regions.kind(region) == TokenRegions.NESTING_BLOCK_COMMENT
+                || isBlockComment(region)
+                        && regions.end(region) >= text.length();
+    }
+
+    /**
+     * @return the offset of the first character of the line of offset
+     */
+    private int lineStart(int offset) {
+        int start = offset;
+
+        while (start > 0 && text.charAt(start - 1) != NEWLINE) {
+            start--;
+        }
+
+        return start;
+    }
+
+    /**
+     * @return the text of the line of offset up to offset (excluded)
+     */
+    private String lineUpTo(int offset) {
+        return text.subSequence(lineStart(offset), offset).toString();
+    }
+}
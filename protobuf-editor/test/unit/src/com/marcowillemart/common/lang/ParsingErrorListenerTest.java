@@ -0,0 +1,137 @@
+package com.marcowillemart.common.lang;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.parser.ProtobufParser;
+import java.util.List;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ParsingErrorListener class.
+ *
+ * @author mwi
+ */
+public class ParsingErrorListenerTest {
+
+    private static final String MSG = "My error";
+
+    private ParsingErrorListener target;
+
+    @Before
+    public void setUp() {
+        target = new ParsingErrorListener(3);
+    }
+
+    @Test
+    public void testConstructor() {
+        // Exercise
+        target = new ParsingErrorListener();
+
+        // Verify
+        assertEquals(ParsingErrorListener.DEFAULT_MAX_ERRORS,
+                target.maxErrors());
+        assertTrue(target.errors().isEmpty());
+        assertFalse(target.hasErrors());
+        assertEquals(0, target.elidedCount());
+    }
+
+    @Test
+    public void testSemanticError_offsets() {
+        // Exercise
+        target.semanticError(MSG, token(2, 4, 10, 14));
+
+        // Verify
+        assertEquals(1, target.errors().size());
+        assertEquals(new ParsingError(MSG, 2, 5, 10, 15),
+                target.errors().get(0));
+    }
+
+    @Test
+    public void testSyntaxError_withoutToken() {
+        // Exercise
+        target.syntaxError(null, null, 3, 0, MSG, null);
+
+        // Verify
+        assertEquals(new ParsingError(MSG, 3, 1), target.errors().get(0));
+    }
+
+    @Test
+    public void testSemanticError_cascadingOnSameLine() {
+        // Exercise
+        target.semanticError(MSG, token(1, 0, 0, 2));
+        target.semanticError(MSG, token(1, 4, 4, 6));
+        target.semanticError(MSG, token(2, 0, 8, 9));
+
+        // Verify
+        List<ParsingError> errors = target.errors();
+        assertEquals(1, target.elidedCount());
+        assertEquals(3, errors.size());
+        assertEquals(1, errors.get(0).line());
+        assertEquals(2, errors.get(1).line());
+        assertTrue(errors.get(2).message().contains("1 more"));
+        assertEquals(4, errors.get(2).startOffset());
+    }
+
+    @Test
+    public void testSemanticError_boundedCount() {
+        // Exercise
+        for (int line = 1; line <= 10; line++) {
+            target.semanticError(MSG, token(line, 0, line * 10, line * 10));
+        }
+
+        // Verify
+        assertEquals(7, target.elidedCount());
+        assertEquals(4, target.errors().size());
+        assertTrue(target.errors().get(3).message().contains("7 more"));
+    }
+
+    @Test
+    public void testSyntaxError_garbageInput() {
+        // Setup
+        StringBuilder garbage =
+                new StringBuilder("syntax = \"proto3\";\nmessage M {\n");
+        for (int i = 0; i < 5000; i++) {
+            garbage.append("<<<<<<< HEAD\n")
+                    .append("  int32 a = 1 string b 2;\n")
+                    .append("=======\n")
+                    .append("  \"key\": [1, 2], \"value\": null,\n");
+        }
+        target = new ParsingErrorListener();
+
+        // Exercise
+        parse(garbage.toString(), target);
+
+        // Verify
+        assertTrue(target.elidedCount() > 0);
+        assertEquals(ParsingErrorListener.DEFAULT_MAX_ERRORS + 1,
+                target.errors().size());
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private static Token token(int line, int col, int start, int stop) {
+        CommonToken token = new CommonToken(ProtobufLexer.Ident);
+        token.setLine(line);
+        token.setCharPositionInLine(col);
+        token.setStartIndex(start);
+        token.setStopIndex(stop);
+        return token;
+    }
+
+    private static void parse(String text, ParsingErrorListener listener) {
+        ProtobufParser parser =
+                new ProtobufParser(
+                        new CommonTokenStream(
+                                new ProtobufLexer(new ANTLRInputStream(text))));
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        parser.proto();
+    }
+}
@@ -59,6 +59,40 @@ public class ParsingErrorTest {
         assertEquals(col, target.col());
     }
 
+    @Test
+    public void testOffsets_unknown() {
+        // Exercise & Verify
+        assertFalse(target.hasOffsets());
+        assertEquals(-1, target.startOffset());
+        assertEquals(-1, target.endOffset());
+    }
+
+    @Test
+    public void testOffsets() {
+        // Setup
+        final int start = 42;
+        final int end = 47;
+
+        // Exercise
+        target = new ParsingError(MSG, LINE, COL, start, end);
+
+        // Verify
+        assertTrue(target.hasOffsets());
+        assertEquals(start, target.startOffset());
+        assertEquals(end, target.endOffset());
+    }
+
+    @Test
+    public void testOffsets_emptyRange() {
+        // Exercise
+        target = new ParsingError(MSG, LINE, COL, 0, 0);
+
+        // Verify
+        assertTrue(target.hasOffsets());
+        assertEquals(0, target.startOffset());
+        assertEquals(0, target.endOffset());
+    }
+
     @Test
     public void testEquals_same() {
         // Exercise & Verify
@@ -73,6 +107,17 @@ public class ParsingErrorTest {
         assertFalse(target.equals(different3));
     }
 
+    @Test
+    public void testEquals_differentOffsets() {
+        // Setup
+        ParsingError withOffsets = new ParsingError(MSG, LINE, COL, 3, 5);
+
+        // Exercise & Verify
+        assertFalse(target.equals(withOffsets));
+        assertFalse(withOffsets.equals(new ParsingError(MSG, LINE, COL, 3, 6)));
+        assertTrue(withOffsets.equals(new ParsingError(MSG, LINE, COL, 3, 5)));
+    }
+
     @Test
     public void testHashCode_same() {
         // Exercise & Verify
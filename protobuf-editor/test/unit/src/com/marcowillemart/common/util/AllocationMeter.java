@@ -0,0 +1,85 @@
+package com.marcowillemart.common.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * AllocationMeter represents a meter of the bytes allocated by an operation
+ * run on the current thread, as told by the allocated bytes per thread of
+ * com.sun.management.ThreadMXBean, for the allocation budget tests.
+ *
+ * An operation is first run a few times, so that its classes are loaded and
+ * its code is compiled, then measured as the least bytes allocated over a few
+ * more runs, which leaves out the allocations of the JVM itself.
+ *
+ * @author mwi
+ */
+public final class AllocationMeter {
+
+    private static final int WARMUPS = 5;
+    private static final int RUNS = 5;
+
+    private final com.sun.management.ThreadMXBean bean;
+
+    /*
+     * Abstraction Function:
+     *   the meter of the current thread, if bean != null
+     *
+     * Representation Invariant:
+     *   bean = null || bean.threadAllocatedMemoryEnabled
+     */
+
+    /**
+     * @effects Makes this be a new meter, supported iff the JVM provides the
+     *          allocated bytes per thread.
+     */
+    public AllocationMeter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads)
+                        .isThreadAllocatedMemorySupported()) {
+
+            this.bean = (com.sun.management.ThreadMXBean) threads;
+            this.bean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.bean = null;
+        }
+    }
+
+    /**
+     * @return true iff this can measure the bytes allocated by an operation
+     */
+    public boolean isSupported() {
+        return bean != null;
+    }
+
+    /**
+     * @requires this.isSupported() && operation != null
+     * @effects Runs operation WARMUPS + RUNS times on the current thread.
+     * @return the least bytes allocated by one of the last RUNS runs of
+     *         operation
+     */
+    public long bytesOf(Runnable operation) {
+        Assert.isTrue(isSupported());
+        Assert.notNull(operation);
+
+        long thread = Thread.currentThread().getId();
+        long least = Long.MAX_VALUE;
+
+        for (int i = 0; i < WARMUPS; i++) {
+            operation.run();
+        }
+
+        for (int i = 0; i < RUNS; i++) {
+            long before = bean.getThreadAllocatedBytes(thread);
+
+            operation.run();
+
+            least = Math.min(
+                    least, bean.getThreadAllocatedBytes(thread) - before);
+        }
+
+        return least;
+    }
+}
@@ -0,0 +1,340 @@
+package com.marcowillemart.protobuf;
+
+import com.marcowillemart.common.lang.CharTyping;
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.common.util.AllocationMeter;
+import com.marcowillemart.protobuf.corpus.ProtoCorpus;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.typing.TokenRegions;
+import com.marcowillemart.protobuf.typing.TypingDocument;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Allocation budget tests of the hot paths of the Protobuf editor: the
+ * construction of a ProtobufDocument, the lexing and the parsing of a whole
+ * file, which may allocate in proportion to its length, and the decisions
+ * taken on a typed char, which may allocate in proportion to the length of
+ * the line at hand only, whatever the length of the file. The decisions are
+ * measured both on a ProtobufDocument and as the typing hooks take them, on
+ * a TypingDocument whose snapshot of regions is patched for the keystroke
+ * and relexed around it, which may allocate in proportion to the length of
+ * the relexed text only.
+ *
+ * The budgets are about twice the bytes allocated when they were set, on
+ * files of 4 KB and 64 KB generated by ProtoCorpus, so that a change adding
+ * garbage on a hot path fails these tests. The keystrokes are also measured
+ * on a file of 1 MB, whose regions could not be copied within the budget. The tests are skipped on a JVM
+ * that does not provide the allocated bytes per thread.
+ *
+ * @author mwi
+ */
+public class AllocationBudgetTest {
+
+    private static final long SEED = 42;
+    private static final int[] SIZES = {4 * 1024, 64 * 1024};
+    private static final int LARGE_SIZE = 1024 * 1024;
+    private static final int OFFSETS = 64;
+
+    // Fixed bytes of each operation, e.g., of its buffers and caches.
+    private static final long BASE_BYTES = 64 * 1024;
+    private static final long DOCUMENT_BYTES_PER_CHAR = 80;
+    private static final long LEXER_BYTES_PER_CHAR = 72;
+    private static final long PARSER_BYTES_PER_CHAR = 160;
+    private static final long TYPING_BYTES = 512;
+    private static final long TYPING_BYTES_PER_LINE_CHAR = 8;
+    private static final long RELEX_BYTES = 4 * 1024;
+    private static final long RELEX_BYTES_PER_CHAR = 384;
+
+    private static volatile Object sink;
+
+    private AllocationMeter meter;
+
+    @Before
+    public void setUp() {
+        meter = new AllocationMeter();
+
+        assumeTrue(meter.isSupported());
+    }
+
+    @Test
+    public void testProtobufDocument_construction() {
+        for (final String text : texts()) {
+            // Exercise
+            long result = meter.bytesOf(new Runnable() {
+
+                @Override
+                public void run() {
+                    sink = new ProtobufDocument(text);
+                }
+            });
+
+            // Verify
+            assertWithinBudget("ProtobufDocument", text, result,
+                    DOCUMENT_BYTES_PER_CHAR);
+        }
+    }
+
+    @Test
+    public void testProtobufLexer_nextToken() {
+        for (final String text : texts()) {
+            // Exercise
+            long result = meter.bytesOf(new Runnable() {
+
+                @Override
+                public void run() {
+                    sink = tokenCount(text);
+                }
+            });
+
+            // Verify
+            assertWithinBudget("ProtobufLexer.nextToken", text, result,
+                    LEXER_BYTES_PER_CHAR);
+        }
+    }
+
+    @Test
+    public void testProtoFileBuilder_parse() {
+        for (final String text : texts()) {
+            // Exercise
+            long result = meter.bytesOf(new Runnable() {
+
+                @Override
+                public void run() {
+                    sink = ProtoFileBuilder.parse(text);
+                }
+            });
+
+            // Verify
+            assertWithinBudget("ProtoFileBuilder.parse", text, result,
+                    PARSER_BYTES_PER_CHAR);
+        }
+    }
+
+    @Test
+    public void testCharTyping_decisions() {
+        for (String text : texts()) {
+            // Setup
+            final Document document = new ProtobufDocument(text);
+            Random random = new Random(SEED);
+
+            for (int i = 0; i < OFFSETS; i++) {
+                final int offset = random.nextInt(text.length() + 1);
+                long budget = TYPING_BYTES
+                        + TYPING_BYTES_PER_LINE_CHAR
+                                * document.lineAt(offset).text().length();
+
+                // Exercise
+                long opening = meter.bytesOf(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        CharTyping typing =
+                                new CharTyping(document, offset, '{');
+                        typing.completeOpeningChar();
+                        sink = typing.insertionText();
+                    }
+                });
+                long closing = meter.bytesOf(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        CharTyping typing =
+                                new CharTyping(document, offset, '}');
+                        typing.skipClosingChar();
+                        sink = typing.insertionText();
+                    }
+                });
+                long quote = meter.bytesOf(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        CharTyping typing =
+                                new CharTyping(document, offset, '"');
+                        typing.completeQuote();
+                        sink = typing.insertionText();
+                    }
+                });
+
+                // Verify
+                String message = "CharTyping @ " + offset + " of "
+                        + text.length() + " chars, budget " + budget;
+                assertTrue(message + ": " + opening, opening <= budget);
+                assertTrue(message + ": " + closing, closing <= budget);
+                assertTrue(message + ": " + quote, quote <= budget);
+            }
+        }
+    }
+
+    @Test
+    public void testTypingDocument_keystroke() {
+        List<String> texts = new ArrayList<>(Arrays.asList(texts()));
+        texts.add(new ProtoCorpus(SEED).valid(LARGE_SIZE));
+
+        for (final String text : texts) {
+            // Setup
+            final TokenRegions regions = regionsOf(text);
+            Random random = new Random(SEED);
+
+            for (int i = 0; i < OFFSETS; i++) {
+                final int offset = random.nextInt(text.length());
+                long budget = TYPING_BYTES
+                        + RELEX_BYTES
+                        + RELEX_BYTES_PER_CHAR
+                                * relexedLength(regions, text, offset);
+
+                // Exercise
+                long result = meter.bytesOf(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        regions.edit(offset, 1, 1);
+
+                        Document document = new TypingDocument(text, regions);
+                        CharTyping opening =
+                                new CharTyping(document, offset, '{');
+                        CharTyping closing =
+                                new CharTyping(document, offset, '}');
+                        CharTyping quote =
+                                new CharTyping(document, offset, '"');
+
+                        opening.completeOpeningChar();
+                        closing.skipClosingChar();
+                        quote.completeQuote();
+                        sink = quote.insertionText();
+                    }
+                });
+
+                // Verify
+                String message = "TypingDocument @ " + offset + " of "
+                        + text.length() + " chars, budget " + budget;
+                assertTrue(message + ": " + result, result <= budget);
+            }
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the texts of the valid and broken files of SIZES
+     */
+    private static String[] texts() {
+        ProtoCorpus corpus = new ProtoCorpus(SEED);
+        String[] texts = new String[2 * SIZES.length];
+
+        for (int i = 0; i < SIZES.length; i++) {
+            texts[2 * i] = corpus.valid(SIZES[i]);
+            texts[2 * i + 1] = corpus.broken(SIZES[i]);
+        }
+
+        return texts;
+    }
+
+    /**
+     * @return the number of tokens of text, lexed by the Protobuf lexer
+     */
+    private static int tokenCount(String text) {
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+        int count = 0;
+
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the exact snapshot of the regions of text
+     */
+    private static TokenRegions regionsOf(String text) {
+        TokenRegions.Builder builder = new TokenRegions.Builder();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(
+                    token.getType(),
+                    token.getStartIndex(),
+                    token.getStopIndex() + 1,
+                    token.getText());
+        }
+
+        return builder.build(text.length());
+    }
+
+    /**
+     * @return the length of the text relexed when the char at offset is
+     *         typed again, i.e., of its lines stretched over the string
+     *         literals and comments crossing their bounds
+     */
+    private static int relexedLength(
+            TokenRegions regions,
+            String text,
+            int offset) {
+
+        int from = lineStart(text, offset);
+        int to = lineEnd(text, offset);
+        int first = regions.regionAt(from);
+
+        if (first >= 0 && regions.start(first) < from) {
+            from = regions.start(first);
+        }
+
+        int last = regions.regionBefore(to + 1);
+
+        while (last >= 0 && regions.end(last) > to) {
+            to = lineEnd(text, regions.end(last));
+            last = regions.regionBefore(to + 1);
+        }
+
+        return to - from;
+    }
+
+    /**
+     * @return the offset of the start of the line of offset in text
+     */
+    private static int lineStart(String text, int offset) {
+        return text.lastIndexOf('\n', offset - 1) + 1;
+    }
+
+    /**
+     * @return the offset of the end of the line of offset in text
+     */
+    private static int lineEnd(String text, int offset) {
+        int end = text.indexOf('\n', offset);
+
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * @effects Asserts that bytes, the bytes allocated by the named operation
+     *          on text, are within BASE_BYTES plus bytesPerChar per char of
+     *          text.
+     */
+    private static void assertWithinBudget(
+            String operation,
+            String text,
+            long bytes,
+            long bytesPerChar) {
+
+        long budget = BASE_BYTES + bytesPerChar * text.length();
+
+        assertTrue(String.format("%s of %d chars allocated %d bytes > %d",
+                        operation, text.length(), bytes, budget),
+                bytes <= budget);
+    }
+}
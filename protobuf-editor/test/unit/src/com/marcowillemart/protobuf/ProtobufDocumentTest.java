@@ -3,6 +3,9 @@ package com.marcowillemart.protobuf;
 import com.marcowillemart.common.lang.Document;
 import com.marcowillemart.common.lang.Line;
 import com.marcowillemart.common.lang.SimpleLine;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -105,6 +108,20 @@ public class ProtobufDocumentTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testLineAt_supplementaryCharacters() {
+        // Setup
+        String line = "// \ud83d\ude00\ud83d\ude01";
+        target = new ProtobufDocument("\n" + line + "\n");
+        Line expected = new SimpleLine(2, 1, 1 + line.length(), line);
+
+        // Exercise
+        Line actual = target.lineAt(1 + line.length());
+
+        // Verify
+        assertEquals(expected, actual);
+    }
+
     @Test
     public void testLineAt_emptyLine() {
         // Setup
@@ -277,4 +294,25 @@ public class ProtobufDocumentTest {
         assertTrue(target.shouldAddLineToBlockComment(7));
         assertFalse(target.shouldAddLineToBlockComment(8));
     }
+
+    @Test
+    public void testIsInString_digitZero() {
+        // Setup
+        final String input = "option o = \"v1.0\"; // x\n";
+        target = new ProtobufDocument(input);
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(input));
+        Token token = lexer.nextToken();
+
+        while (token.getType() != ProtobufLexer.StrLit
+                && token.getType() != Token.EOF) {
+            token = lexer.nextToken();
+        }
+
+        // Exercise & Verify
+        assertEquals("\"v1.0\"", token.getText());
+        assertTrue(target.isInString(input.indexOf('0')));
+        assertTrue(target.isInString(input.indexOf("\";")));
+        assertFalse(target.isInString(input.indexOf(';')));
+        assertTrue(target.isInComment(input.indexOf(" x")));
+    }
 }
@@ -0,0 +1,152 @@
+package com.marcowillemart.protobuf.completion;
+
+import com.marcowillemart.protobuf.completion.CompletionContext.Kind;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the CompletionContext class.
+ *
+ * @author mwi
+ */
+public class CompletionContextTest {
+
+    private static final String HEADER = "syntax = \"proto3\";\n";
+
+    @Test
+    public void testTopLevel() {
+        // Exercise
+        CompletionContext target = contextAtEnd(HEADER + "mes");
+
+        // Verify
+        assertEquals(Kind.TOP_LEVEL, target.kind());
+        assertEquals("mes", target.prefix());
+        assertTrue(target.keywords().contains("message"));
+        assertTrue(target.scalarTypes().isEmpty());
+        assertFalse(target.acceptsTypeNames());
+    }
+
+    @Test
+    public void testImport() {
+        // Exercise & Verify
+        assertEquals(Kind.IMPORT, contextAtEnd(HEADER + "import ").kind());
+    }
+
+    @Test
+    public void testMessage() {
+        // Exercise
+        CompletionContext target =
+                contextAtEnd(HEADER + "message M {\n  int32 x = 1;\n  Fo");
+
+        // Verify
+        assertEquals(Kind.MESSAGE, target.kind());
+        assertEquals("Fo", target.prefix());
+        assertTrue(target.keywords().contains("oneof"));
+        assertTrue(target.scalarTypes().contains("bytes"));
+        assertTrue(target.acceptsTypeNames());
+        assertFalse(target.messagesOnly());
+    }
+
+    @Test
+    public void testMessage_nested() {
+        // Exercise & Verify
+        assertEquals(Kind.MESSAGE, contextAtEnd(
+                HEADER + "message M {\n  enum E { A = 0; }\n  ").kind());
+        assertEquals(Kind.ENUM, contextAtEnd(
+                HEADER + "message M {\n  enum E { A = 0; ").kind());
+        assertEquals(Kind.ONEOF, contextAtEnd(
+                HEADER + "message M {\n  oneof o { ").kind());
+    }
+
+    @Test
+    public void testFieldName() {
+        // Exercise & Verify
+        assertEquals(Kind.NONE, contextAtEnd(
+                HEADER + "message M {\n  int32 ").kind());
+    }
+
+    @Test
+    public void testRepeated() {
+        // Exercise
+        CompletionContext target =
+                contextAtEnd(HEADER + "message M {\n  repeated a.B");
+
+        // Verify
+        assertEquals(Kind.FIELD_TYPE, target.kind());
+        assertEquals("a.B", target.prefix());
+        assertTrue(target.keywords().isEmpty());
+    }
+
+    @Test
+    public void testMap() {
+        // Exercise & Verify
+        CompletionContext key =
+                contextAtEnd(HEADER + "message M {\n  map<");
+        assertEquals(Kind.MAP_KEY_TYPE, key.kind());
+        assertFalse(key.scalarTypes().contains("bytes"));
+        assertFalse(key.acceptsTypeNames());
+
+        CompletionContext value =
+                contextAtEnd(HEADER + "message M {\n  map<string, ");
+        assertEquals(Kind.MAP_VALUE_TYPE, value.kind());
+        assertTrue(value.acceptsTypeNames());
+    }
+
+    @Test
+    public void testService() {
+        // Exercise & Verify
+        assertEquals(Kind.SERVICE,
+                contextAtEnd(HEADER + "service S {\n  ").kind());
+        assertEquals(Kind.RPC_TYPE,
+                contextAtEnd(HEADER + "service S {\n  rpc R (").kind());
+        assertEquals(Kind.RPC_STREAMED_TYPE,
+                contextAtEnd(HEADER + "service S {\n  rpc R (stream ").kind());
+        assertEquals(Kind.RPC_RETURNS,
+                contextAtEnd(HEADER + "service S {\n  rpc R (A) ").kind());
+        assertEquals(Kind.RPC_TYPE, contextAtEnd(
+                HEADER + "service S {\n  rpc R (A) returns (").kind());
+        assertTrue(contextAtEnd(HEADER + "service S {\n  rpc R (")
+                .messagesOnly());
+    }
+
+    @Test
+    public void testComment() {
+        // Exercise & Verify
+        assertEquals(Kind.NONE, contextAtEnd(
+                HEADER + "message M {\n  // Fo").kind());
+        assertEquals(Kind.NONE, contextAtEnd(
+                HEADER + "message M {\n  /* Fo").kind());
+        assertEquals(Kind.MESSAGE, contextAtEnd(
+                HEADER + "message M {\n  /* x */ Fo").kind());
+    }
+
+    @Test
+    public void testOf_middle() {
+        // Setup
+        String text = HEADER + "message M {\n  Fo\n}\n";
+
+        // Exercise
+        CompletionContext target =
+                CompletionContext.of(text, text.indexOf("Fo") + 2);
+
+        // Verify
+        assertEquals(Kind.MESSAGE, target.kind());
+        assertEquals("Fo", target.prefix());
+    }
+
+    @Test
+    public void testPrefixAt() {
+        // Exercise & Verify
+        assertEquals("", CompletionContext.prefixAt("a ", 2));
+        assertEquals(".a.B", CompletionContext.prefixAt("(.a.B", 5));
+        assertEquals("", CompletionContext.prefixAt("", 0));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private static CompletionContext contextAtEnd(String text) {
+        return CompletionContext.of(text, text.length());
+    }
+}
@@ -0,0 +1,171 @@
+package com.marcowillemart.protobuf.completion;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TypeNameTable class.
+ *
+ * @author mwi
+ */
+public class TypeNameTableTest {
+
+    private TypeNameTable<String> target;
+
+    @Before
+    public void setUp() {
+        List<Pair<String, IndexedSymbol>> symbols = new ArrayList<>();
+
+        symbols.add(symbol("a.proto", Kind.MESSAGE, "a.Foo"));
+        symbols.add(symbol("a.proto", Kind.ENUM, "a.Foo.Color"));
+        symbols.add(symbol("b.proto", Kind.MESSAGE, "b.foobar"));
+        symbols.add(symbol("b.proto", Kind.MESSAGE, "b.Bar"));
+        symbols.add(symbol("b.proto", Kind.SERVICE, "b.FooService"));
+        symbols.add(symbol("c.proto", Kind.MESSAGE, "c.Foo"));
+
+        target = new TypeNameTable<>(symbols);
+    }
+
+    @Test
+    public void testSize() {
+        // Exercise & Verify
+        assertEquals(5, target.size());
+    }
+
+    @Test
+    public void testIsType() {
+        // Exercise & Verify
+        assertTrue(target.isType("a.Foo"));
+        assertTrue(target.isType("a.Foo.Color"));
+        assertFalse(target.isType("a.foo"));
+        assertFalse(target.isType("a"));
+        assertFalse(target.isType("b.FooService"));
+    }
+
+    @Test
+    public void testKindOf() {
+        // Exercise & Verify
+        assertEquals(Kind.MESSAGE, target.kindOf("a.Foo"));
+        assertEquals(Kind.ENUM, target.kindOf("a.Foo.Color"));
+        assertNull(target.kindOf("a.Foo.color"));
+    }
+
+    @Test
+    public void testKindOf_files() {
+        // Setup
+        Set<String> files = Collections.singleton("a.proto");
+
+        // Exercise & Verify
+        assertEquals(Kind.MESSAGE, target.kindOf("a.Foo", files));
+        assertNull(target.kindOf("c.Foo", files));
+        assertNull(target.kindOf("c.Foo", Collections.<String>emptySet()));
+    }
+
+    @Test
+    public void testWithSimpleNamePrefix() {
+        // Exercise
+        List<Pair<String, IndexedSymbol>> result =
+                target.withSimpleNamePrefix("fo");
+
+        // Verify
+        assertEquals(3, result.size());
+        assertEquals("a.Foo", result.get(0).right().fullName());
+        assertEquals("c.Foo", result.get(1).right().fullName());
+        assertEquals("b.foobar", result.get(2).right().fullName());
+    }
+
+    @Test
+    public void testWithSimpleNamePrefix_empty() {
+        // Exercise & Verify
+        assertEquals(5, target.withSimpleNamePrefix("").size());
+        assertTrue(target.withSimpleNamePrefix("x").isEmpty());
+        assertTrue(target.withSimpleNamePrefix("zzz").isEmpty());
+    }
+
+    @Test
+    public void testWithSimpleNamePrefix_files() {
+        // Setup
+        Set<String> files = new HashSet<>(Arrays.asList("b.proto", "c.proto"));
+
+        // Exercise
+        List<Pair<String, IndexedSymbol>> result =
+                target.withSimpleNamePrefix("fo", files, 10);
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("c.Foo", result.get(0).right().fullName());
+        assertEquals("b.foobar", result.get(1).right().fullName());
+    }
+
+    @Test
+    public void testWithSimpleNamePrefix_max() {
+        // Setup
+        Set<String> files = new HashSet<>(Arrays.asList("a.proto", "c.proto"));
+
+        // Exercise
+        List<Pair<String, IndexedSymbol>> result =
+                target.withSimpleNamePrefix("", files, 2);
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("a.Foo.Color", result.get(0).right().fullName());
+        assertEquals("a.Foo", result.get(1).right().fullName());
+        assertTrue(target.withSimpleNamePrefix("", files, 0).isEmpty());
+    }
+
+    @Test
+    public void testWithFullNamePrefix() {
+        // Exercise
+        List<Pair<String, IndexedSymbol>> result =
+                target.withFullNamePrefix("a.Foo");
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("a.Foo", result.get(0).right().fullName());
+        assertEquals("a.Foo.Color", result.get(1).right().fullName());
+        assertEquals("a.proto", result.get(1).left());
+    }
+
+    @Test
+    public void testWithFullNamePrefix_files() {
+        // Setup
+        Set<String> files = Collections.singleton("c.proto");
+
+        // Exercise & Verify
+        assertTrue(target.withFullNamePrefix("a.", files, 10).isEmpty());
+        assertEquals(1, target.withFullNamePrefix("c.", files, 10).size());
+        assertEquals(
+                "c.Foo",
+                target.withFullNamePrefix("", files, 1).get(0).right()
+                        .fullName());
+    }
+
+    @Test
+    public void testSimpleNameOf() {
+        // Exercise & Verify
+        assertEquals("C", TypeNameTable.simpleNameOf("a.b.C"));
+        assertEquals("C", TypeNameTable.simpleNameOf("C"));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private static Pair<String, IndexedSymbol> symbol(
+            String file,
+            Kind kind,
+            String fullName) {
+
+        return new Pair<>(file, new IndexedSymbol(kind, fullName, 0));
+    }
+}
@@ -0,0 +1,716 @@
+package com.marcowillemart.protobuf.corpus;
+
+import com.marcowillemart.common.util.Assert;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ProtoCorpus represents a deterministic generator of synthetic Protobuf 3
+ * files of a target size, as inputs of the scaling tests and benchmarks.
+ *
+ * A valid file is emitted from the rules of grammar/Protobuf.g4, walked from
+ * the proto rule with choices drawn at random. Besides the usual messages,
+ * fields, maps, oneofs and options, it stresses the cases that are costly to
+ * edit: deep nesting, big enums, huge services, many imports, long block
+ * comments and pathological string literals, full of escapes, quotes,
+ * brackets and comment symbols. The number of items of a definition is drawn
+ * within what is left of the target size, so that small files stay small.
+ *
+ * A broken file is a valid one hit by random edits: stray tokens, deleted and
+ * duplicated spans, opened strings and comments, and a stray closing brace
+ * after the syntax statement so that it never parses without errors.
+ *
+ * The same seed and target size always give the same file.
+ *
+ * @specfield seed : long    // The seed of the random choices.
+ *
+ * @author mwi
+ */
+public final class ProtoCorpus {
+
+    private static final int KB = 1024;
+    private static final int MAX_IMPORTS = 2000;
+    private static final int MAX_NESTING = 48;
+    private static final int MAX_ENUM_VALUES = 5000;
+    private static final int MAX_RPCS = 5000;
+    private static final int MAX_COMMENT_LINES = 4000;
+    private static final int MAX_STRING_PIECES = 1000;
+    private static final int MAX_EDITS = 10_000;
+    private static final String INDENT = "    ";
+    private static final String PACKAGE = "corpus.synthetic";
+
+    private static final String[] SCALAR_TYPES = {
+        "double", "float", "int32", "int64", "uint32", "uint64", "sint32",
+        "sint64", "fixed32", "fixed64", "sfixed32", "sfixed64", "bool",
+        "string", "bytes"
+    };
+
+    private static final String[] KEY_TYPES = {
+        "int32", "int64", "uint32", "uint64", "sint32", "sint64", "fixed32",
+        "fixed64", "sfixed32", "sfixed64", "bool", "string"
+    };
+
+    private static final String[] FLOATS = {
+        "1.5", "0.25e-3", ".5", ".5E+10", "3e10", "42."
+    };
+
+    // Lexed as Ident, hence constants by fullIdent, that cannot be signed.
+    private static final String[] IDENTS = {
+        PACKAGE + ".CONSTANT", "inf", "nan", "MAX"
+    };
+
+    private static final String[] WORDS = {
+        "the", "field", "message", "of", "value", "returns", "id", "a", "is",
+        "repeated", "when", "set", "to", "(see", "below)", "[0..n[", "{}",
+        "x = 1;", "\"quoted\"", "'single'", "it's", "//", "*", "**", "/",
+        "<T>", "\u00e9t\u00e9", "\u20ac", "\ud83d\ude00", "e.g.,", "TODO:"
+    };
+
+    private static final String[] STRING_PIECES = {
+        "plain text", " ", "\\\"", "\\'", "\\\\", "\\n", "\\t", "\\r",
+        "\\x41", "\\X7f", "\\101", "\\177", "\\a\\b\\f\\v", "{", "}", "[",
+        "]", "(", ")", "<>", ";", "=", "/*", "*/", "//", "v1.0", "\u00e9",
+        "\u20ac", "\ud83d\ude00", "\u00a0", "message A {", "\\\\\\\"",
+        "\t"
+    };
+
+    private static final String[] STRAY_TOKENS = {
+        "}", "{", ";", "=", "\"", "'", "/*", "*/", "<", ">", ")", "(", "[",
+        "]", ",", ".", "message", "enum", "rpc", "= =", "@", "#", "\\",
+        "0x", "\"unterminated", "\n"
+    };
+
+    private final long seed;
+
+    /*
+     * Abstraction Function:
+     *   seed = seed
+     *
+     * Representation Invariant:
+     *   true
+     */
+
+    /**
+     * @effects Makes this be a new generator with the given seed.
+     */
+    public ProtoCorpus(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return this.seed
+     */
+    public long seed() {
+        return seed;
+    }
+
+    /**
+     * @requires size >= 0
+     * @return the text of a valid Protobuf 3 file of at least size chars,
+     *         generated from this.seed
+     */
+    public String valid(int size) {
+        Assert.isTrue(size >= 0);
+
+        return new Emitter(new Random(seed), size).proto().toString();
+    }
+
+    /**
+     * @requires size >= 0
+     * @return the text of a Protobuf 3 file of about size chars with syntax
+     *         errors, generated from this.seed
+     */
+    public String broken(int size) {
+        Assert.isTrue(size >= 0);
+
+        Random random = new Random(seed);
+        Emitter emitter = new Emitter(random, size);
+        StringBuilder text = emitter.proto();
+
+        return mutate(text, emitter.headerLength, random).toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ProtoCorpus{" + "seed=" + seed + '}';
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @requires the syntax statement of text ends at headerLength
+     * @modifies text
+     * @effects Breaks text by random edits following its syntax statement.
+     * @return text
+     */
+    private static StringBuilder mutate(
+            StringBuilder text,
+            int headerLength,
+            Random random) {
+
+        int edits = 1 + Math.min(MAX_EDITS - 1, text.length() / (2 * KB));
+
+        for (int i = 0; i < edits; i++) {
+            int offset = headerLength
+                    + random.nextInt(text.length() - headerLength + 1);
+            int length = Math.min(
+                    1 + random.nextInt(16), text.length() - offset);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    text.delete(offset, offset + length);
+                    break;
+                case 1:
+                    text.insert(
+                            offset,
+                            text.substring(offset, offset + length));
+                    break;
+                default:
+                    text.insert(offset, pick(STRAY_TOKENS, random));
+                    break;
+            }
+        }
+
+        if (random.nextInt(4) == 0) {
+            text.append(random.nextBoolean() ? "/* open" : "\"open");
+        }
+
+        return text.insert(headerLength, "}\n");
+    }
+
+    /**
+     * @requires values.length > 0
+     * @return one of values, drawn from random
+     */
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Emitter represents the walk of the grammar emitting a valid file of a
+     * target size, one rule per method.
+     */
+    private static final class Emitter {
+
+        private final Random random;
+        private final int size;
+        private final StringBuilder text;
+        private final List<String> types;
+        private int headerLength;
+        private int names;
+
+        /**
+         * @effects Makes this be a new emitter of a file of the given size,
+         *          drawing its choices from random.
+         */
+        Emitter(Random random, int size) {
+            this.random = random;
+            this.size = size;
+            this.text = new StringBuilder(size + KB);
+            this.types = new ArrayList<>();
+            this.headerLength = 0;
+            this.names = 0;
+        }
+
+        /**
+         * @modifies this
+         * @effects proto : syntax (importStatement | packageStatement |
+         *                   option | topLevelDef | emptyStatement)* EOF
+         * @return the text emitted
+         */
+        StringBuilder proto() {
+            text.append("syntax = ")
+                    .append(random.nextBoolean() ? "\"proto3\"" : "'proto3'")
+                    .append(";\n");
+            headerLength = text.length();
+
+            text.append("\npackage ").append(PACKAGE).append(";\n\n");
+
+            int imports = count(64, MAX_IMPORTS);
+
+            for (int i = 0; i < imports; i++) {
+                text.append("import ");
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        text.append("public ");
+                        break;
+                    case 1:
+                        text.append("weak ");
+                        break;
+                    default:
+                        break;
+                }
+
+                text.append("\"corpus/dir").append(i % 17)
+                        .append("/imported_").append(i)
+                        .append(".proto\";\n");
+            }
+
+            text.append('\n');
+            option("");
+            text.append('\n');
+
+            while (text.length() < size) {
+                topLevelDef();
+            }
+
+            return text;
+        }
+
+        /**
+         * @effects topLevelDef : message | enumDefinition | service, each
+         *          possibly preceded by comments or empty statements
+         */
+        private void topLevelDef() {
+            switch (random.nextInt(10)) {
+                case 0:
+                    blockComment("");
+                    message("", 0, 0);
+                    break;
+                case 1:
+                    message("", 0, count(80, MAX_NESTING));
+                    break;
+                case 2:
+                    enumDefinition("", MAX_ENUM_VALUES);
+                    break;
+                case 3:
+                    service();
+                    break;
+                case 4:
+                    text.append("// ");
+                    words(8);
+                    text.append("\n;\n");
+                    break;
+                default:
+                    message("", 0, 0);
+                    break;
+            }
+
+            text.append('\n');
+        }
+
+        /**
+         * @effects message : 'message' messageName messageBody, with levels
+         *          more levels of nested messages
+         */
+        private void message(String indent, int depth, int levels) {
+            String name = name("M");
+            String inner = indent + INDENT;
+            int members = count(40, 24);
+            int number = 1;
+
+            text.append(indent).append("message ").append(name)
+                    .append(" {\n");
+
+            for (int i = 0; i < members; i++) {
+                switch (random.nextInt(12)) {
+                    case 0:
+                        mapField(inner, number++);
+                        break;
+                    case 1:
+                        number = oneof(inner, number);
+                        break;
+                    case 2:
+                        reserved(inner, number);
+                        number += 3;
+                        break;
+                    case 3:
+                        option(inner);
+                        break;
+                    case 4:
+                        enumDefinition(inner, 16);
+                        break;
+                    case 5:
+                        if (depth < 3) {
+                            message(inner, depth + 1, 0);
+                        }
+                        break;
+                    case 6:
+                        text.append(inner).append(";\n");
+                        break;
+                    default:
+                        field(inner, random.nextInt(3) == 0, number++);
+                        break;
+                }
+            }
+
+            if (levels > 0) {
+                message(inner, depth + 1, levels - 1);
+            }
+
+            text.append(indent).append("}\n");
+            types.add(name);
+        }
+
+        /**
+         * @effects field : 'repeated'? type fieldName '=' fieldNumber
+         *          ('[' fieldOptions ']')? ';'
+         */
+        private void field(String indent, boolean repeated, int number) {
+            text.append(indent);
+
+            if (repeated) {
+                text.append("repeated ");
+            }
+
+            text.append(type()).append(' ').append(name("f"))
+                    .append(" = ").append(number);
+            fieldOptions();
+            text.append(';');
+
+            if (random.nextInt(8) == 0) {
+                text.append(" // ");
+                words(6);
+            }
+
+            text.append('\n');
+        }
+
+        /**
+         * @effects mapField : 'map' '<' keyType ',' type '>' mapName '='
+         *          fieldNumber ('[' fieldOptions ']')? ';'
+         */
+        private void mapField(String indent, int number) {
+            text.append(indent).append("map<")
+                    .append(pick(KEY_TYPES, random)).append(", ")
+                    .append(type()).append("> ").append(name("m"))
+                    .append(" = ").append(number);
+            fieldOptions();
+            text.append(";\n");
+        }
+
+        /**
+         * @effects oneof : 'oneof' oneofName '{' (oneofField |
+         *          emptyStatement)* '}', numbering its fields from number
+         * @return the number following the ones of the fields
+         */
+        private int oneof(String indent, int number) {
+            int fields = count(40, 8);
+            int next = number;
+
+            text.append(indent).append("oneof ").append(name("o"))
+                    .append(" {\n");
+
+            for (int i = 0; i < fields; i++) {
+                field(indent + INDENT, false, next++);
+            }
+
+            text.append(indent).append("}\n");
+
+            return next;
+        }
+
+        /**
+         * @effects reserved : 'reserved' (ranges | fieldNames) ';'
+         */
+        private void reserved(String indent, int number) {
+            text.append(indent).append("reserved ");
+
+            if (random.nextBoolean()) {
+                text.append(number).append(", ").append(number + 1)
+                        .append(" to ").append(number + 2);
+            } else {
+                string();
+                text.append(", ");
+                string();
+            }
+
+            text.append(";\n");
+        }
+
+        /**
+         * @effects enumDefinition : 'enum' enumName enumBody, with at most
+         *          maxValues values
+         */
+        private void enumDefinition(String indent, int maxValues) {
+            String name = name("E");
+            String inner = indent + INDENT;
+            int values = count(32, maxValues);
+
+            text.append(indent).append("enum ").append(name).append(" {\n");
+
+            if (random.nextBoolean()) {
+                text.append(inner).append("option allow_alias = true;\n");
+            }
+
+            for (int i = 0; i < values; i++) {
+                text.append(inner).append(name.toUpperCase()).append("_V")
+                        .append(i).append(" = ");
+
+                if (i > 0 && random.nextInt(16) == 0) {
+                    text.append('-');
+                }
+
+                text.append(intLit(i));
+
+                if (random.nextInt(8) == 0) {
+                    text.append(" [");
+                    optionName();
+                    text.append(" = ");
+                    constant();
+                    text.append(']');
+                }
+
+                text.append(";\n");
+            }
+
+            text.append(indent).append("}\n");
+            types.add(name);
+        }
+
+        /**
+         * @effects service : 'service' serviceName '{' (option | rpc |
+         *          emptyStatement)* '}'
+         */
+        private void service() {
+            int rpcs = count(80, MAX_RPCS);
+
+            text.append("service ").append(name("S")).append(" {\n");
+
+            if (random.nextBoolean()) {
+                option(INDENT);
+            }
+
+            for (int i = 0; i < rpcs; i++) {
+                text.append(INDENT).append("rpc ").append(name("Call"))
+                        .append(" (");
+                stream();
+                text.append(messageType()).append(") returns (");
+                stream();
+                text.append(messageType()).append(')');
+
+                if (random.nextInt(3) == 0) {
+                    text.append(" {\n");
+                    option(INDENT + INDENT);
+                    text.append(INDENT).append("}\n");
+                } else {
+                    text.append(";\n");
+                }
+            }
+
+            text.append("}\n");
+        }
+
+        /**
+         * @effects option : 'option' optionName '=' constant ';'
+         */
+        private void option(String indent) {
+            text.append(indent).append("option ");
+            optionName();
+            text.append(" = ");
+            constant();
+            text.append(";\n");
+        }
+
+        /**
+         * @effects ('[' fieldOptions ']')?, with fieldOptions : fieldOption
+         *          (',' fieldOption)*
+         */
+        private void fieldOptions() {
+            if (random.nextInt(4) != 0) {
+                return;
+            }
+
+            int options = 1 + random.nextInt(3);
+
+            text.append(" [");
+
+            for (int i = 0; i < options; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+
+                optionName();
+                text.append(" = ");
+                constant();
+            }
+
+            text.append(']');
+        }
+
+        /**
+         * @effects optionName : (Ident | '(' fullIdent ')') ('.' Ident)*
+         */
+        private void optionName() {
+            switch (random.nextInt(4)) {
+                case 0:
+                    text.append("deprecated");
+                    break;
+                case 1:
+                    text.append("(").append(PACKAGE).append(".opt)");
+                    break;
+                case 2:
+                    text.append("(opt").append(random.nextInt(10))
+                            .append(").sub.value");
+                    break;
+                default:
+                    text.append("java_package");
+                    break;
+            }
+        }
+
+        /**
+         * @effects constant : fullIdent | ('-' | '+')? IntLit |
+         *          ('-' | '+')? FloatLit | StrLit | BoolLit
+         */
+        private void constant() {
+            switch (random.nextInt(6)) {
+                case 0:
+                    text.append(pick(IDENTS, random));
+                    break;
+                case 1:
+                    text.append(random.nextBoolean() ? "-" : "+")
+                            .append(intLit(random.nextInt(1 << 20)));
+                    break;
+                case 2:
+                    text.append(random.nextBoolean() ? "-" : "")
+                            .append(pick(FLOATS, random));
+                    break;
+                case 3:
+                    text.append(random.nextBoolean() ? "true" : "false");
+                    break;
+                default:
+                    string();
+                    break;
+            }
+        }
+
+        /**
+         * @effects StrLit : '\'' CharValue* '\'' | '"' CharValue* '"', from
+         *          pathological pieces, possibly very long
+         */
+        private void string() {
+            char quote = random.nextBoolean() ? '"' : '\'';
+            int pieces = random.nextInt(8) == 0
+                    ? count(64, MAX_STRING_PIECES)
+                    : random.nextInt(6);
+
+            text.append(quote);
+
+            for (int i = 0; i < pieces; i++) {
+                text.append(pick(STRING_PIECES, random));
+            }
+
+            text.append(quote);
+        }
+
+        /**
+         * @effects a block comment of many lines of words, some of them
+         *          looking like code, strings or other comments
+         */
+        private void blockComment(String indent) {
+            int lines = count(48, MAX_COMMENT_LINES);
+
+            text.append(indent)
+                    .append(random.nextBoolean() ? "/**\n" : "/*\n");
+
+            for (int i = 0; i < lines; i++) {
+                text.append(indent).append(" * ");
+                words(12);
+                text.append('\n');
+
+                if (random.nextInt(64) == 0) {
+                    text.append(indent).append(" * /* nested\n");
+                }
+            }
+
+            text.append(indent).append(" */\n");
+        }
+
+        /**
+         * @effects at most max words separated by spaces, of which none
+         *          closes a block comment
+         */
+        private void words(int max) {
+            int words = 1 + random.nextInt(max);
+
+            for (int i = 0; i < words; i++) {
+                if (i > 0) {
+                    text.append(' ');
+                }
+
+                text.append(pick(WORDS, random));
+            }
+        }
+
+        /**
+         * @effects 'stream'?
+         */
+        private void stream() {
+            if (random.nextInt(4) == 0) {
+                text.append("stream ");
+            }
+        }
+
+        /**
+         * @return type : scalar type | messageOrEnumType
+         */
+        private String type() {
+            return random.nextInt(3) == 0 && !types.isEmpty()
+                    ? messageType()
+                    : pick(SCALAR_TYPES, random);
+        }
+
+        /**
+         * @return messageType : '.'? (Ident '.')* messageName, naming one of
+         *         the types emitted so far if any
+         */
+        private String messageType() {
+            String name = types.isEmpty()
+                    ? "Unresolved"
+                    : types.get(random.nextInt(types.size()));
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    return '.' + PACKAGE + '.' + name;
+                case 1:
+                    return "other.pkg." + name;
+                default:
+                    return name;
+            }
+        }
+
+        /**
+         * @return an IntLit of value, written as a decimal, octal or hex
+         *         literal
+         */
+        private String intLit(int value) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    return "0x" + Integer.toHexString(value).toUpperCase();
+                case 1:
+                    return "0" + Integer.toOctalString(value);
+                default:
+                    return Integer.toString(value);
+            }
+        }
+
+        /**
+         * @modifies this
+         * @return a new identifier starting with prefix, which is never a
+         *         keyword
+         */
+        private String name(String prefix) {
+            return prefix + names++;
+        }
+
+        /**
+         * @return a number of items in [1..max], of which there is room for
+         *         about the drawn number in what is left of the target size,
+         *         with about itemSize chars per item
+         */
+        private int count(int itemSize, int max) {
+            int room = (size - text.length()) / itemSize;
+
+            return 1 + random.nextInt(Math.max(1, Math.min(max, room)));
+        }
+    } // end Emitter
+}
@@ -0,0 +1,255 @@
+package com.marcowillemart.protobuf.corpus;
+
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.common.lang.ParsingErrorListener;
+import com.marcowillemart.protobuf.ProtobufDocument;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import com.marcowillemart.protobuf.parser.ProtobufParser;
+import com.marcowillemart.protobuf.typing.TokenRegions;
+import com.marcowillemart.protobuf.typing.TypingDocument;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ProtoCorpus class, and differential tests of the lexer
+ * and parser on the files it generates.
+ *
+ * The sizes swept go from 1 KB to the one given by the protobuf.corpus.maxSize
+ * system property, 64 KB by default, e.g., 52428800 to sweep up to 50 MB.
+ *
+ * @author mwi
+ */
+public class ProtoCorpusTest {
+
+    private static final String MAX_SIZE = "protobuf.corpus.maxSize";
+    private static final int KB = 1024;
+    private static final int DEFAULT_MAX_SIZE = 64 * KB;
+    private static final long[] SEEDS = {1, 42, 2016};
+    private static final int OFFSETS = 256;
+    private static final int LINE_OFFSETS = 16;
+
+    @Test
+    public void testValid_deterministic() {
+        // Setup
+        ProtoCorpus target = new ProtoCorpus(42);
+
+        // Exercise
+        String result = target.valid(8 * KB);
+
+        // Verify
+        assertEquals(result, new ProtoCorpus(42).valid(8 * KB));
+        assertFalse(result.equals(new ProtoCorpus(43).valid(8 * KB)));
+    }
+
+    @Test
+    public void testValid_size() {
+        for (int size : sizes()) {
+            // Exercise
+            String result = new ProtoCorpus(size).valid(size);
+
+            // Verify
+            assertTrue(result.length() >= size);
+            assertTrue(result.length() < 2 * size + 4 * KB);
+        }
+    }
+
+    @Test
+    public void testValid_parsesWithoutErrors() {
+        for (int size : sizes()) {
+            for (long seed : SEEDS) {
+                // Exercise
+                ParsingErrorListener errors =
+                        parse(new ProtoCorpus(seed).valid(size));
+
+                // Verify
+                assertFalse(size + " / " + seed + ": " + errors.errors(),
+                        errors.hasErrors());
+            }
+        }
+    }
+
+    @Test
+    public void testValid_coversStressedConstructs() {
+        // Exercise
+        String result = new ProtoCorpus(42).valid(256 * KB);
+
+        // Verify
+        assertTrue(result.contains("\nimport public "));
+        assertTrue(result.contains("\nimport weak "));
+        assertTrue(result.contains("\n/**\n"));
+        assertTrue(result.contains("\nservice "));
+        assertTrue(result.contains("stream "));
+        assertTrue(result.contains("map<"));
+        assertTrue(result.contains("oneof "));
+        assertTrue(result.contains("reserved "));
+        assertTrue(result.contains("\\x41"));
+        assertTrue(result.contains("\n" + indentation(8) + "message "));
+    }
+
+    @Test
+    public void testBroken_deterministic() {
+        // Setup
+        ProtoCorpus target = new ProtoCorpus(42);
+
+        // Exercise
+        String result = target.broken(8 * KB);
+
+        // Verify
+        assertEquals(result, new ProtoCorpus(42).broken(8 * KB));
+        assertFalse(result.equals(target.valid(8 * KB)));
+    }
+
+    @Test
+    public void testBroken_hasSyntaxErrors() {
+        for (int size : sizes()) {
+            for (long seed : SEEDS) {
+                // Exercise
+                ParsingErrorListener errors =
+                        parse(new ProtoCorpus(seed).broken(size));
+
+                // Verify
+                assertTrue(size + " / " + seed, errors.hasErrors());
+            }
+        }
+    }
+
+    @Test
+    public void testTypingDocument_sameAsProtobufDocument() {
+        for (int size : sizes()) {
+            for (long seed : SEEDS) {
+                ProtoCorpus corpus = new ProtoCorpus(seed);
+
+                for (String text : new String[] {
+                    corpus.valid(size), corpus.broken(size)}) {
+
+                    // Setup
+                    Document expected = new ProtobufDocument(text);
+
+                    // Exercise
+                    TypingDocument target =
+                            new TypingDocument(text, regionsOf(text));
+
+                    // Verify
+                    assertSameAnswers(expected, target, new Random(seed));
+                }
+            }
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the sizes to sweep, from 1 KB to the maximum size, each one
+     *         eight times the previous one
+     */
+    private static List<Integer> sizes() {
+        int max = Integer.getInteger(MAX_SIZE, DEFAULT_MAX_SIZE);
+        List<Integer> sizes = new ArrayList<>();
+
+        for (long size = KB; size <= max; size *= 8) {
+            sizes.add((int) size);
+        }
+
+        if (sizes.get(sizes.size() - 1) < max) {
+            sizes.add(max);
+        }
+
+        return sizes;
+    }
+
+    /**
+     * @return the errors of the parsing of text
+     */
+    private static ParsingErrorListener parse(String text) {
+        ParsingErrorListener errors = new ParsingErrorListener();
+        ProtobufParser parser = new ProtobufParser(
+                new CommonTokenStream(
+                        new ProtobufLexer(new ANTLRInputStream(text))));
+
+        parser.removeErrorListeners();
+        parser.addErrorListener(errors);
+        parser.proto();
+
+        return errors;
+    }
+
+    /**
+     * @return the regions of text
+     */
+    private static TokenRegions regionsOf(String text) {
+        TokenRegions.Builder builder = new TokenRegions.Builder();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(
+                    token.getType(),
+                    token.getStartIndex(),
+                    token.getStopIndex() + 1,
+                    token.getText());
+        }
+
+        return builder.build(text.length());
+    }
+
+    /**
+     * @effects Asserts that target answers as expected at both ends of the
+     *          text and at offsets drawn from random, comparing the lines,
+     *          linear in the offset, at a few of them only.
+     */
+    private static void assertSameAnswers(
+            Document expected,
+            TypingDocument target,
+            Random random) {
+
+        int length = expected.text().length();
+
+        for (int i = 0; i < OFFSETS; i++) {
+            int offset = i == 0 ? 0 : i == 1 ? length
+                    : random.nextInt(length + 1);
+            String message = "@ " + offset;
+
+            assertEquals(message,
+                    expected.isInString(offset),
+                    target.isInString(offset));
+            assertEquals(message,
+                    expected.isInComment(offset),
+                    target.isInComment(offset));
+            assertEquals(message,
+                    expected.shouldCloseBlockComment(offset),
+                    target.shouldCloseBlockComment(offset));
+            assertEquals(message,
+                    expected.shouldAddLineToBlockComment(offset),
+                    target.shouldAddLineToBlockComment(offset));
+
+            if (i < LINE_OFFSETS) {
+                assertEquals(message,
+                        expected.lineAt(offset),
+                        target.lineAt(offset));
+            }
+        }
+    }
+
+    /**
+     * @return n spaces
+     */
+    private static String indentation(int n) {
+        StringBuilder spaces = new StringBuilder();
+
+        for (int i = 0; i < n; i++) {
+            spaces.append(' ');
+        }
+
+        return spaces.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.marcowillemart.protobuf.editor.lexer;
+
+import com.marcowillemart.common.util.AllocationMeter;
+import com.marcowillemart.protobuf.corpus.ProtoCorpus;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import org.netbeans.api.lexer.Language;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ProtobufEditorLexer class.
+ *
+ * The allocation budget of its nextToken loop, driven by a token hierarchy
+ * over a file generated by ProtoCorpus, is the one of the Protobuf lexer
+ * alone on the same file, plus a budget per token for the token and its
+ * bookkeeping by the lexer infrastructure, so that a change adding garbage
+ * per token fails this test.
+ *
+ * @author mwi
+ */
+public class ProtobufEditorLexerTest {
+
+    private static final long SEED = 42;
+    private static final int[] SIZES = {4 * 1024, 64 * 1024};
+
+    private static final long BASE_BYTES = 64 * 1024;
+    private static final long BYTES_PER_TOKEN = 128;
+
+    private static volatile Object sink;
+
+    private AllocationMeter meter;
+
+    @Before
+    public void setUp() {
+        meter = new AllocationMeter();
+
+        assumeTrue(meter.isSupported());
+    }
+
+    @Test
+    public void testNextToken_allocationBudget() {
+        for (int size : SIZES) {
+            // Setup
+            final String text = new ProtoCorpus(SEED).valid(size);
+            final int tokens = editorTokenCount(text);
+            long antlrBytes = meter.bytesOf(new Runnable() {
+
+                @Override
+                public void run() {
+                    sink = antlrTokenCount(text);
+                }
+            });
+            long budget = antlrBytes + BASE_BYTES + BYTES_PER_TOKEN * tokens;
+
+            // Exercise
+            long result = meter.bytesOf(new Runnable() {
+
+                @Override
+                public void run() {
+                    sink = editorTokenCount(text);
+                }
+            });
+
+            // Verify
+            assertTrue(String.format(
+                            "%d tokens of %d chars allocated %d bytes > %d",
+                            tokens, text.length(), result, budget),
+                    result <= budget);
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the number of tokens of text, lexed by the editor lexer
+     */
+    private static int editorTokenCount(String text) {
+        Language<ProtobufTokenId> language =
+                ProtobufLanguageHierarchy.instance();
+        TokenSequence<ProtobufTokenId> sequence =
+                TokenHierarchy.create(text, language).tokenSequence(language);
+        int count = 0;
+
+        while (sequence.moveNext()) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return the number of tokens of text, lexed by the Protobuf lexer alone
+     */
+    private static int antlrTokenCount(String text) {
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+        int count = 0;
+
+        while (lexer.nextToken().getType() != Token.EOF) {
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,462 @@
+package com.marcowillemart.protobuf.editor.typinghooks;
+
+import com.marcowillemart.protobuf.Protobuf;
+import com.marcowillemart.protobuf.corpus.ProtoCorpus;
+import com.marcowillemart.protobuf.editor.lexer.ProtobufLanguageHierarchy;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JEditorPane;
+import javax.swing.text.BadLocationException;
+import org.netbeans.api.editor.mimelookup.MimePath;
+import org.netbeans.api.lexer.Language;
+import org.netbeans.editor.BaseDocument;
+import org.netbeans.junit.NbTestCase;
+import org.netbeans.modules.editor.indent.api.Indent;
+import org.netbeans.modules.editor.lib2.typinghooks.TypingHooksSpiAccessor;
+import org.netbeans.spi.editor.typinghooks.TypedBreakInterceptor;
+import org.netbeans.spi.editor.typinghooks.TypedTextInterceptor;
+
+/**
+ * Keystroke latency harness for the typing hooks of the Protobuf editor.
+ *
+ * For each configured size, a Protobuf file of that many KB generated by
+ * ProtoCorpus is loaded into an editor document, and scripts of keystrokes
+ * are replayed at the caret as the editor does: each char goes through the
+ * typed text interceptor, and each line break through the typed break
+ * interceptor then the indent task. The latency of each hook and of each
+ * whole keystroke is reported as its p50, p99 and max in microseconds, to
+ * the log of the test and to typing-latency.txt in its work directory.
+ *
+ * The generated files are seeded so that the runs are reproducible. The
+ * harness is skipped unless the protobuf.latency system property is true,
+ * e.g., when running the unit tests with
+ * -Dtest-unit-sys-prop.protobuf.latency=true, and the sizes are given by the
+ * protobuf.latency.sizes property as a comma-separated list of sizes in KB.
+ *
+ * @author mwi
+ */
+public class TypingLatencyTest extends NbTestCase {
+
+    private static final String ENABLED = "protobuf.latency";
+    private static final String SIZES = "protobuf.latency.sizes";
+    private static final String DEFAULT_SIZES = "32,256,1024";
+    private static final int KB = 1024;
+    private static final long SEED = 42;
+    private static final long TIMEOUT = 30_000;
+
+    private static final String TEXT_HOOK = "text interceptor";
+    private static final String BREAK_HOOK = "break interceptor";
+    private static final String INDENT_HOOK = "indent task";
+    private static final String KEYSTROKE = "keystroke";
+
+    private static final Script[] SCRIPTS = {
+        new Script(false,
+                "\nmessage Typed {\n"
+                + "int32 id = 1;\n"
+                + "string name = 2 [deprecated = true];\n"
+                + "map<string, int32> tags = 3;\n"
+                + "oneof choice {\n"
+                + "bytes raw = 4;\n"
+                + "}\n"),
+        new Script(true,
+                "repeated int64 values = 99; // typed (a) [b] {c}\n"),
+        new Script(true,
+                "/**\nTyped comment (with brackets).\n"),
+        new Script(true,
+                "option (typed) = \"a(b)[c]{d}\";\n")
+    };
+
+    private TypedTextInterceptor textInterceptor;
+    private TypedBreakInterceptor breakInterceptor;
+
+    /**
+     * @effects Makes this be the harness running the given test.
+     */
+    public TypingLatencyTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected boolean canRun() {
+        return Boolean.getBoolean(ENABLED) && super.canRun();
+    }
+
+    @Override
+    protected boolean runInEQ() {
+        return true;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        MimePath mimePath = MimePath.get(Protobuf.MIME_TYPE);
+
+        textInterceptor = new ProtobufTypedTextInterceptor.Factory()
+                .createTypedTextInterceptor(mimePath);
+        breakInterceptor = new ProtobufTypedBreakInterceptor.Factory()
+                .createTypedBreakInterceptor(mimePath);
+    }
+
+    public void testKeystrokeLatency() throws Exception {
+        StringBuilder report = new StringBuilder(String.format(
+                "%8s  %-18s %8s %8s %8s %8s%n",
+                "KB", "hook", "count", "p50", "p99", "max"));
+        ProtoCorpus corpus = new ProtoCorpus(SEED);
+
+        for (int size : sizes()) {
+            // Setup
+            BaseDocument document = load(corpus.valid(size * KB));
+            JEditorPane component = new JEditorPane();
+            component.setDocument(document);
+            awaitAnalysis(document);
+
+            Map<String, Latencies> latencies = new LinkedHashMap<>();
+
+            for (String hook : Arrays.asList(
+                    TEXT_HOOK, BREAK_HOOK, INDENT_HOOK, KEYSTROKE)) {
+
+                latencies.put(hook, new Latencies());
+            }
+
+            // Exercise
+            for (Script script : SCRIPTS) {
+                component.setCaretPosition(script.offsetIn(document));
+
+                for (char typed : script.keystrokes.toCharArray()) {
+                    long start = System.nanoTime();
+
+                    if (typed == '\n') {
+                        typeBreak(component, document, latencies);
+                    } else {
+                        typeText(component, document, typed, latencies);
+                    }
+
+                    latencies.get(KEYSTROKE).add(System.nanoTime() - start);
+                }
+            }
+
+            // Verify
+            for (Map.Entry<String, Latencies> entry : latencies.entrySet()) {
+                assertTrue(entry.getKey(), entry.getValue().count() > 0);
+
+                report.append(String.format("%8d  %-18s %s%n",
+                        size, entry.getKey(), entry.getValue()));
+            }
+        }
+
+        log(report.toString());
+        write(new File(getWorkDir(), "typing-latency.txt"), report);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @modifies component, document, latencies
+     * @effects Types typed at the caret of component through the typed text
+     *          interceptor, and records the latency of the interceptor.
+     */
+    private void typeText(
+            final JEditorPane component,
+            final BaseDocument document,
+            final char typed,
+            final Map<String, Latencies> latencies) throws Exception {
+
+        final BadLocationException[] failure = new BadLocationException[1];
+
+        document.runAtomicAsUser(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    int offset = component.getCaretPosition();
+                    TypedTextInterceptor.MutableContext context =
+                            TypingHooksSpiAccessor.get().createTtiContext(
+                                    component,
+                                    document.createPosition(offset),
+                                    String.valueOf(typed),
+                                    "");
+
+                    long start = System.nanoTime();
+                    textInterceptor.beforeInsert(context);
+                    textInterceptor.insert(context);
+                    long elapsed = System.nanoTime() - start;
+
+                    Object[] data = TypingHooksSpiAccessor.get()
+                            .getTtiContextData(context);
+                    String text = data == null
+                            ? String.valueOf(typed)
+                            : (String) data[0];
+
+                    document.insertString(offset, text, null);
+                    component.setCaretPosition(offset + (data == null
+                            ? text.length()
+                            : (Integer) data[1]));
+
+                    start = System.nanoTime();
+                    textInterceptor.afterInsert(context);
+                    elapsed += System.nanoTime() - start;
+
+                    latencies.get(TEXT_HOOK).add(elapsed);
+                } catch (BadLocationException ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * @modifies component, document, latencies
+     * @effects Types a line break at the caret of component through the typed
+     *          break interceptor and then the indent task, and records the
+     *          latency of both.
+     */
+    private void typeBreak(
+            final JEditorPane component,
+            final BaseDocument document,
+            final Map<String, Latencies> latencies) throws Exception {
+
+        final BadLocationException[] failure = new BadLocationException[1];
+        final int[] lineStart = new int[1];
+
+        document.runAtomicAsUser(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    int offset = component.getCaretPosition();
+                    TypedBreakInterceptor.MutableContext context =
+                            TypingHooksSpiAccessor.get().createTbiContext(
+                                    component,
+                                    document.createPosition(offset),
+                                    document.createPosition(offset));
+
+                    long start = System.nanoTime();
+                    breakInterceptor.beforeInsert(context);
+                    breakInterceptor.insert(context);
+                    long elapsed = System.nanoTime() - start;
+
+                    Object[] data = TypingHooksSpiAccessor.get()
+                            .getTbiContextData(context);
+                    String text = data == null ? "\n" : (String) data[0];
+                    int caret = data == null ? 1 : (Integer) data[2];
+
+                    document.insertString(offset, text, null);
+                    component.setCaretPosition(offset + caret);
+                    lineStart[0] = offset + text.indexOf('\n') + 1;
+
+                    start = System.nanoTime();
+                    breakInterceptor.afterInsert(context);
+                    elapsed += System.nanoTime() - start;
+
+                    latencies.get(BREAK_HOOK).add(elapsed);
+                } catch (BadLocationException ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        final Indent indent = Indent.get(document);
+        final int caret = component.getCaretPosition();
+
+        indent.lock();
+
+        try {
+            document.runAtomicAsUser(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        long start = System.nanoTime();
+                        indent.reindent(lineStart[0], caret);
+                        latencies.get(INDENT_HOOK).add(
+                                System.nanoTime() - start);
+                    } catch (BadLocationException ex) {
+                        failure[0] = ex;
+                    }
+                }
+            });
+        } finally {
+            indent.unlock();
+        }
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * @return a new editor document of the Protobuf language holding text
+     */
+    private static BaseDocument load(String text) throws Exception {
+        BaseDocument document = new BaseDocument(false, Protobuf.MIME_TYPE);
+        document.putProperty(
+                Language.class, ProtobufLanguageHierarchy.instance());
+        document.insertString(0, text, null);
+
+        return document;
+    }
+
+    /**
+     * @effects Waits for the first analysis of document to be published.
+     */
+    private static void awaitAnalysis(BaseDocument document)
+            throws InterruptedException {
+
+        DocumentRegions regions = DocumentRegions.of(document);
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (true) {
+            document.readLock();
+
+            try {
+                if (regions.document() != null) {
+                    return;
+                }
+            } finally {
+                document.readUnlock();
+            }
+
+            assertTrue("analysis published",
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @return the configured sizes, in KB
+     */
+    private static List<Integer> sizes() {
+        List<Integer> sizes = new ArrayList<>();
+
+        for (String size : System.getProperty(SIZES, DEFAULT_SIZES)
+                .split(",")) {
+
+            if (!size.trim().isEmpty()) {
+                sizes.add(Integer.parseInt(size.trim()));
+            }
+        }
+
+        return sizes;
+    }
+
+    /**
+     * @effects Writes report to file.
+     */
+    private static void write(File file, CharSequence report)
+            throws IOException {
+
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8)) {
+
+            writer.append(report);
+        }
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * Script represents a recorded sequence of keystrokes, typed either at
+     * the end of the document or at the start of its first block opened past
+     * its middle.
+     */
+    private static final class Script {
+
+        private final boolean middle;
+        private final String keystrokes;
+
+        /**
+         * @effects Makes this be the given keystrokes, typed in the middle of
+         *          the document iff middle.
+         */
+        Script(boolean middle, String keystrokes) {
+            this.middle = middle;
+            this.keystrokes = keystrokes;
+        }
+
+        /**
+         * @return the offset where the keystrokes of this are typed in
+         *         document
+         */
+        int offsetIn(BaseDocument document) throws BadLocationException {
+            String text = document.getText(0, document.getLength());
+
+            if (!middle) {
+                return text.length();
+            }
+
+            int brace = text.indexOf("{\n", text.length() / 2);
+
+            return brace < 0 ? text.length() : brace + 2;
+        }
+    } // end Script
+
+    /**
+     * Latencies represents the mutable samples of the latency of a hook.
+     */
+    private static final class Latencies {
+
+        private long[] samples = new long[256];
+        private int count = 0;
+
+        /**
+         * @modifies this
+         * @effects Adds the given latency, in nanoseconds, to this.
+         */
+        void add(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, 2 * count);
+            }
+
+            samples[count++] = nanos;
+        }
+
+        /**
+         * @return the number of samples of this
+         */
+        int count() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+
+            return String.format("%8d %8d %8d %8d",
+                    count,
+                    micros(sorted, 0.50),
+                    micros(sorted, 0.99),
+                    micros(sorted, 1.0));
+        }
+
+        /**
+         * @requires sorted not empty
+         * @return the given percentile of sorted, in microseconds
+         */
+        private static long micros(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+            return sorted[Math.max(0, index)] / 1_000;
+        }
+    } // end Latencies
+}
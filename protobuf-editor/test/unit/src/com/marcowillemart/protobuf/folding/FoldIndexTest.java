@@ -0,0 +1,291 @@
+package com.marcowillemart.protobuf.folding;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the FoldScanner and FoldIndex classes.
+ *
+ * @author mwi
+ */
+public class FoldIndexTest {
+
+    private static final String INPUT =
+            "/*\n * Header.\n */\n"
+            + "message A { int32 x = 1; }\n"
+            + "message B {\n"
+            + "  message C {\n"
+            + "    int32 y = 1;\n"
+            + "  }\n"
+            + "  /* one line */\n"
+            + "}\n"
+            + "enum E {\n"
+            + "  V = 0;\n"
+            + "}\n";
+
+    @Test
+    public void testScan() {
+        // Exercise
+        FoldScanner result = scan(INPUT);
+
+        // Verify
+        assertTrue(result.isBalanced());
+        assertEquals(4, result.folds().size());
+        assertEquals(
+                new FoldRange(0, INPUT.indexOf("\nmessage A"),
+                        FoldRange.Kind.COMMENT),
+                result.folds().get(0));
+        assertEquals(
+                new FoldRange(
+                        INPUT.indexOf("{\n  message C"),
+                        INPUT.indexOf("enum") - 1,
+                        FoldRange.Kind.BLOCK),
+                result.folds().get(1));
+        assertEquals(INPUT.indexOf("{\n    int32"),
+                result.folds().get(2).startOffset());
+        assertEquals(3, result.blocks().size());
+        assertEquals(INPUT.indexOf("{ int32 x"),
+                result.blocks().get(0).startOffset());
+    }
+
+    @Test
+    public void testScan_unbalanced() {
+        // Exercise & Verify
+        assertFalse(scan("message A {").isBalanced());
+        assertFalse(scan("}").isBalanced());
+    }
+
+    @Test
+    public void testRescan() {
+        // Setup
+        FoldIndex target = new FoldIndex();
+
+        // Exercise
+        FoldUpdate result = target.rescan(tokensOf(INPUT));
+
+        // Verify
+        assertEquals(4, result.folds().size());
+        assertEquals(3, target.blocks().size());
+        assertTrue(target.isBalanced());
+    }
+
+    @Test
+    public void testUpdate_region() {
+        // Setup
+        FoldIndex target = new FoldIndex();
+        target.rescan(tokensOf(INPUT));
+        int offset = INPUT.indexOf("y = 1");
+        String text = INPUT.substring(0, offset) + "\n"
+                + INPUT.substring(offset);
+
+        // Exercise
+        FoldUpdate result = target.update(tokensOf(text), offset, 0, 1);
+
+        // Verify
+        assertEquals(text.indexOf("{\n  message C"), result.startOffset());
+        assertEquals(text.indexOf("enum") - 1, result.endOffset());
+        assertEquals(2, result.folds().size());
+    }
+
+    @Test
+    public void testUpdate_outsideBlocks() {
+        // Setup
+        FoldIndex target = new FoldIndex();
+        target.rescan(tokensOf(INPUT));
+        int offset = INPUT.indexOf("Header");
+        String text = INPUT.substring(0, offset) + "A "
+                + INPUT.substring(offset);
+
+        // Exercise
+        FoldUpdate result = target.update(tokensOf(text), offset, 0, 2);
+
+        // Verify
+        assertEquals(0, result.startOffset());
+        assertEquals(text.indexOf("\nmessage A"), result.endOffset());
+        assertEquals(1, result.folds().size());
+    }
+
+    @Test
+    public void testUpdate_unbalanced() {
+        // Setup
+        FoldIndex target = new FoldIndex();
+        target.rescan(tokensOf("message A {"));
+
+        // Exercise
+        FoldUpdate result =
+                target.update(tokensOf("message A {\n}"), 11, 0, 2);
+
+        // Verify
+        assertEquals(0, result.startOffset());
+        assertEquals(Integer.MAX_VALUE, result.endOffset());
+        assertEquals(1, result.folds().size());
+        assertTrue(target.isBalanced());
+    }
+
+    @Test
+    public void testUpdate_sameAsRescan() {
+        // Setup
+        String[][] edits = {
+            { "y = 1", "", "\n" },
+            { "y = 1", "y = 1", "" },
+            { "  /* one", "", "  /* two\n   lines */\n" },
+            { "enum E", "", "message D {\n}\n" },
+            { "  message C {\n", "  message C {\n", "" },
+            { "int32 x", "", "{" },
+            { "message A", "", "/*" },
+            { "message B", "message B", "" },
+            { "\n * Header", "\n", "" },
+            { "\n * Header.\n", "\n * Header.\n", "" },
+            { "{\n  V", "{\n  V", "{ V" }
+        };
+
+        for (String[] edit : edits) {
+            int offset = INPUT.indexOf(edit[0]);
+            String text = INPUT.substring(0, offset)
+                    + edit[2]
+                    + INPUT.substring(offset + edit[1].length());
+
+            FoldIndex target = new FoldIndex();
+            List<FoldRange> folds = target.rescan(tokensOf(INPUT)).folds();
+
+            // Exercise
+            FoldUpdate result = target.update(
+                    tokensOf(text),
+                    offset,
+                    edit[1].length(),
+                    edit[2].length());
+
+            // Verify
+            FoldIndex expected = new FoldIndex();
+            List<FoldRange> expectedFolds =
+                    expected.rescan(tokensOf(text)).folds();
+
+            assertEquals(edit[0], expectedFolds, apply(
+                    folds,
+                    offset,
+                    edit[1].length(),
+                    edit[2].length(),
+                    result));
+            assertEquals(edit[0], expected.blocks(), target.blocks());
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return folds shifted by the replacement of removed characters at
+     *         offset with inserted characters, those in the removed text
+     *         being dropped, and then updated by update
+     */
+    private static List<FoldRange> apply(
+            List<FoldRange> folds,
+            int offset,
+            int removed,
+            int inserted,
+            FoldUpdate update) {
+
+        List<FoldRange> result = new ArrayList<>();
+        int delta = inserted - removed;
+
+        for (FoldRange fold : folds) {
+            FoldRange shifted = fold;
+
+            if (fold.startOffset() >= offset + removed) {
+                shifted = new FoldRange(
+                        fold.startOffset() + delta,
+                        fold.endOffset() + delta,
+                        fold.kind());
+            } else if (fold.endOffset() > offset) {
+                shifted = fold.endOffset() >= offset + removed
+                        ? new FoldRange(
+                                fold.startOffset(),
+                                fold.endOffset() + delta,
+                                fold.kind())
+                        : null;
+            }
+
+            if (shifted != null && !update.replaces(shifted)) {
+                result.add(shifted);
+            }
+        }
+
+        result.addAll(update.folds());
+
+        Collections.sort(result, new Comparator<FoldRange>() {
+
+            @Override
+            public int compare(FoldRange a, FoldRange b) {
+                return Integer.compare(a.startOffset(), b.startOffset());
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @return the tokens of text
+     */
+    private static FoldIndex.Tokens tokensOf(final String text) {
+        return new FoldIndex.Tokens() {
+
+            @Override
+            public int[] scan(int from, int to, FoldScanner scanner) {
+                return FoldIndexTest.scan(text, from, to, scanner);
+            }
+        };
+    }
+
+    /**
+     * @modifies scanner
+     * @effects Feeds scanner with the tokens of text that overlap
+     *          [from..to[.
+     * @return the region of the fed tokens, or [from, to] if there is none
+     */
+    private static int[] scan(
+            String text,
+            int from,
+            int to,
+            FoldScanner scanner) {
+
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+        int[] region = { from, to };
+        boolean fed = false;
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            int start = token.getStartIndex();
+            int end = token.getStopIndex() + 1;
+
+            if (end > from && start < to) {
+                scanner.token(token.getType(), start, end, token.getText());
+
+                region[0] = fed ? region[0] : start;
+                region[1] = end;
+                fed = true;
+            }
+        }
+
+        return region;
+    }
+
+    /**
+     * @return a scanner of all the tokens of text
+     */
+    private static FoldScanner scan(String text) {
+        FoldScanner scanner = new FoldScanner();
+        scan(text, 0, text.length(), scanner);
+
+        return scanner;
+    }
+}
@@ -0,0 +1,240 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the IndentIndex class.
+ *
+ * @author mwi
+ */
+public class IndentIndexTest {
+
+    private static final String INPUT =
+            "/*\n"
+            + " * Header.\n"
+            + " */\n"
+            + "message A {\n"
+            + "    int32 x = 1 [\n"
+            + "        deprecated = true];\n"
+            + "\n"
+            + "    message B {\n"
+            + "        int32 y = 1;\n"
+            + "    }\n"
+            + "}\n"
+            + "service S {\n"
+            + "    rpc Get(A) returns (A) {\n"
+            + "        option x = 1;\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void testUpdate_scan() {
+        // Setup
+        IndentIndex target = new IndentIndex();
+
+        // Exercise
+        target.update(tokensOf(INPUT));
+
+        // Verify
+        assertTrue(target.isCurrent());
+        assertEquals(17, target.lines());
+        assertEquals(1, target.indent(1, 4));
+        assertEquals(8, target.indent(5, 4));
+        assertEquals(4, target.indent(9, 4));
+        assertEquals(8, target.indent(13, 4));
+        assertEquals(0, target.indent(15, 4));
+        assertTrue(target.isBlank(6));
+        assertEquals(INPUT.indexOf("service"),
+                target.lineStart(target.lineAt(INPUT.indexOf("S {"))));
+    }
+
+    @Test
+    public void testEdit() {
+        // Setup
+        IndentIndex target = new IndentIndex();
+        target.update(tokensOf(INPUT));
+
+        // Exercise
+        target.edit(0, 0, 1);
+
+        // Verify
+        assertFalse(target.isCurrent());
+    }
+
+    @Test
+    public void testUpdate_sameAsScan() {
+        // Setup
+        String[][] edits = {
+            { "int32 y", "", "\n" },
+            { "int32 y", "int32 y = 1;", "" },
+            { "message B", "", "/* a\n b */\n" },
+            { "message B", "", "/* open\n" },
+            { " * Header.\n */", " * Header.\n */", "" },
+            { "/*\n", "/*", "" },
+            { "[\n", "[", "(" },
+            { "option x", "", "message C {\n" },
+            { "    }\n}\nservice", "    }\n}\n", "" },
+            { "}\nservice", "", "}\n" },
+            { "rpc Get", "", "\n\n\n\n" }
+        };
+
+        for (String[] edit : edits) {
+            int offset = INPUT.indexOf(edit[0]);
+            String text = INPUT.substring(0, offset)
+                    + edit[2]
+                    + INPUT.substring(offset + edit[1].length());
+
+            IndentIndex target = new IndentIndex();
+            target.update(tokensOf(INPUT));
+
+            // Exercise
+            target.edit(offset, edit[1].length(), edit[2].length());
+            target.update(tokensOf(text));
+
+            // Verify
+            assertSame(edit[0], text, target);
+        }
+    }
+
+    @Test
+    public void testUpdate_mergedEdits() {
+        // Setup
+        IndentIndex target = new IndentIndex();
+        target.update(tokensOf(INPUT));
+
+        String text = INPUT;
+        int first = text.indexOf("int32 x");
+        text = text.substring(0, first) + "{\n" + text.substring(first);
+        int second = text.indexOf("    }\n}\nservice");
+        text = text.substring(0, second) + text.substring(second + 6);
+        int third = 2;
+        text = text.substring(0, third) + "/" + text.substring(third + 1);
+
+        // Exercise
+        target.edit(first, 0, 2);
+        target.edit(second, 6, 0);
+        target.edit(third, 1, 1);
+        target.update(tokensOf(text));
+
+        // Verify
+        assertSame("merged", text, target);
+    }
+
+    @Test
+    public void testUpdate_local() {
+        // Setup
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 500; i++) {
+            builder.append("message M").append(i).append(" {\n")
+                    .append("    int32 x = 1;\n")
+                    .append("}\n");
+        }
+
+        String input = builder.toString();
+        IndentIndex target = new IndentIndex();
+        target.update(tokensOf(input));
+
+        int offset = input.indexOf("int32 x = 1;\n}\nmessage M250");
+        String inserted = "int32 y = 2;\n    ";
+        String text = input.substring(0, offset) + inserted
+                + input.substring(offset);
+        CountingTokens tokens = new CountingTokens(text);
+
+        // Exercise
+        target.edit(offset, 0, inserted.length());
+        target.update(tokens);
+
+        // Verify
+        assertSame("local", text, target);
+        assertTrue(tokens.fed < 1000);
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @effects Asserts that target indexes the lines of text like a scanner
+     *          of all its tokens.
+     */
+    private static void assertSame(
+            String message,
+            String text,
+            IndentIndex target) {
+
+        IndentScanner expected = new IndentScanner();
+        tokensOf(text).scan(0, Integer.MAX_VALUE, expected);
+
+        assertEquals(message, expected.lines(), target.lines());
+
+        for (int line = 0; line < expected.lines(); line++) {
+            String where = message + ", line " + line;
+
+            assertEquals(where,
+                    expected.lineStart(line), target.lineStart(line));
+            assertEquals(where,
+                    expected.indent(line, 4), target.indent(line, 4));
+            assertEquals(where,
+                    expected.isBlank(line), target.isBlank(line));
+        }
+    }
+
+    /**
+     * @return the tokens of text
+     */
+    private static IndentIndex.Tokens tokensOf(String text) {
+        return new CountingTokens(text);
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * CountingTokens represents the tokens of a text, counting the tokens it
+     * feeds.
+     */
+    private static final class CountingTokens implements IndentIndex.Tokens {
+
+        private final String text;
+        private int fed;
+
+        CountingTokens(String text) {
+            this.text = text;
+            this.fed = 0;
+        }
+
+        @Override
+        public boolean scan(int from, int to, IndentScanner scanner) {
+            ProtobufLexer lexer =
+                    new ProtobufLexer(new ANTLRInputStream(text));
+
+            for (Token token = lexer.nextToken();
+                    token.getType() != Token.EOF;
+                    token = lexer.nextToken()) {
+
+                int start = token.getStartIndex();
+
+                if (start >= to) {
+                    return true;
+                }
+
+                if (start >= from) {
+                    scanner.token(
+                            token.getType(),
+                            start,
+                            token.getStopIndex() + 1,
+                            token.getText());
+                    fed++;
+                }
+            }
+
+            return false;
+        }
+    } // end CountingTokens
+}
@@ -0,0 +1,98 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the IndentScanner class.
+ *
+ * @author mwi
+ */
+public class IndentScannerTest {
+
+    private static final String INPUT =
+            "/**\n"
+            + "* Header.\n"
+            + "*/\n"
+            + "message A {\n"
+            + "int32 x = 1 [\n"
+            + "deprecated = true];\n"
+            + "\n"
+            + "message B {\n"
+            + "}\n"
+            + "}\n"
+            + "service S {\n"
+            + "rpc Get(A) returns (A) {\n"
+            + "option x = 1; /* a\n"
+            + "b */ }\n"
+            + "}";
+
+    @Test
+    public void testIndent() {
+        // Setup
+        IndentScanner target = scan(INPUT);
+        int[] expected = { 0, 1, 1, 0, 4, 8, 4, 4, 4, 0, 0, 4, 8, 9, 0 };
+
+        // Exercise & Verify
+        assertEquals(expected.length, target.lines());
+
+        for (int line = 0; line < expected.length; line++) {
+            assertEquals(
+                    "line " + line, expected[line], target.indent(line, 4));
+        }
+    }
+
+    @Test
+    public void testLines() {
+        // Setup
+        IndentScanner target = scan(INPUT);
+        int line = target.lineAt(INPUT.indexOf("int32"));
+
+        // Exercise & Verify
+        assertEquals(4, line);
+        assertEquals(INPUT.indexOf("int32"), target.lineStart(line));
+        assertEquals(4, target.lineAt(INPUT.indexOf("= 1 [")));
+        assertEquals(0, target.lineAt(0));
+        assertFalse(target.isBlank(line));
+        assertTrue(target.isBlank(6));
+    }
+
+    @Test
+    public void testIndent_empty() {
+        // Setup
+        IndentScanner target = scan("");
+
+        // Exercise & Verify
+        assertEquals(1, target.lines());
+        assertEquals(0, target.indent(0, 4));
+        assertTrue(target.isBlank(0));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return a scanner of all the tokens of text
+     */
+    private static IndentScanner scan(String text) {
+        IndentScanner scanner = new IndentScanner();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            scanner.token(
+                    token.getType(),
+                    token.getStartIndex(),
+                    token.getStopIndex() + 1,
+                    token.getText());
+        }
+
+        return scanner;
+    }
+}
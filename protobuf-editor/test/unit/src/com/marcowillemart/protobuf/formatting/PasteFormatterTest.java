@@ -0,0 +1,131 @@
+package com.marcowillemart.protobuf.formatting;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the PasteFormatter class.
+ *
+ * @author mwi
+ */
+public class PasteFormatterTest {
+
+    private static final String TEXT =
+            "message A {\n"
+            + "    int32 x = 1;\n"
+            + "    reserved 3, 5 to 7;\n"
+            + "\n"
+            + "    oneof o {\n"
+            + "        int32 y = 2 [(z) = 4];\n"
+            + "    }\n"
+            + "}\n"
+            + "\n"
+            + "message B {\n"
+            + "    int32 w = 9;\n"
+            + "}\n";
+
+    private static final int CARET = TEXT.indexOf("\n}") + 1;
+
+    @Test
+    public void testFormat_reindents() {
+        // Setup
+        PasteFormatter target = new PasteFormatter("    ", false);
+        String pasted = "int32   a=1;\r\n  string b = 2;\r\n";
+
+        // Exercise
+        String result = target.format(TEXT, CARET, CARET, pasted);
+
+        // Verify
+        assertEquals("    int32 a  = 1;\n    string b = 2;\n", result);
+    }
+
+    @Test
+    public void testPaste_renumbered() {
+        // Setup
+        String pasted = "int32 a = 1;\nint32 b = 4;\nint32 c = 6;\n";
+
+        // Exercise
+        Paste result = new PasteFormatter("    ", true)
+                .paste(TEXT, CARET, CARET, pasted);
+        Paste kept = new PasteFormatter("    ", false)
+                .paste(TEXT, CARET, CARET, pasted);
+
+        // Verify
+        assertEquals(2, result.renumbered());
+        assertEquals(
+                new PasteFormatter("    ", true)
+                        .format(TEXT, CARET, CARET, pasted),
+                result.text());
+        assertEquals(0, kept.renumbered());
+        assertTrue(kept.text().contains("int32 a = 1;"));
+    }
+
+    @Test
+    public void testFormat_renumbers() {
+        // Setup
+        PasteFormatter target = new PasteFormatter("    ", true);
+        String pasted = "int32 a = 1;\nint32 b = 4;\nint32 c = 6;\n"
+                + "int32 d = 9 [(z) = 2];\nint32 e = 8;\n";
+
+        // Exercise
+        String result = target.format(TEXT, CARET, CARET, pasted);
+
+        // Verify
+        assertEquals(
+                "    int32 a = 10;\n"
+                + "    int32 b = 4;\n"
+                + "    int32 c = 11;\n"
+                + "    int32 d = 9 [(z) = 2];\n"
+                + "    int32 e = 8;\n",
+                result);
+    }
+
+    @Test
+    public void testFormat_renumbersCollidingPastedFields() {
+        // Setup
+        PasteFormatter target = new PasteFormatter("  ", true);
+        String text = "message B {\n  int32 w = 18999;\n}\n";
+        int caret = text.indexOf('}');
+        String pasted = "int32 a = 18999;\nint32 b = 18999;\n";
+
+        // Exercise
+        String result = target.format(text, caret, caret, pasted);
+
+        // Verify
+        assertEquals("  int32 a = 20000;\n  int32 b = 20001;\n", result);
+    }
+
+    @Test
+    public void testFormat_replacesSelection() {
+        // Setup
+        PasteFormatter target = new PasteFormatter("    ", true);
+        int start = TEXT.indexOf("int32 x");
+        int end = TEXT.indexOf("\n", start) + 1;
+
+        // Exercise
+        String result = target.format(TEXT, start, end, "int32 x=1;\n");
+
+        // Verify
+        assertEquals("int32 x = 1;\n", result);
+    }
+
+    @Test
+    public void testFormat_wholeMessages() {
+        // Setup
+        PasteFormatter target = new PasteFormatter("    ", true);
+        int caret = TEXT.length();
+        String pasted = "\nmessage C {\nint32 x = 1;\n"
+                + "  message D { int32 y = 1; }\n}";
+
+        // Exercise
+        String result = target.format(TEXT, caret, caret, pasted);
+
+        // Verify
+        assertEquals(
+                "\nmessage C {\n"
+                + "    int32 x = 1;\n"
+                + "    message D { int32 y = 1; }\n"
+                + "}\n",
+                result);
+    }
+}
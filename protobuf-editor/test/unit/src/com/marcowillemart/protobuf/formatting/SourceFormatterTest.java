@@ -0,0 +1,270 @@
+package com.marcowillemart.protobuf.formatting;
+
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the SourceFormatter class.
+ *
+ * @author mwi
+ */
+public class SourceFormatterTest {
+
+    private static final String FORMATTED =
+            "syntax = \"proto3\";\n"
+            + "\n"
+            + "package foo.bar;\n"
+            + "\n"
+            + "import public \"other.proto\";\n"
+            + "\n"
+            + "/**\n"
+            + " * A message.\n"
+            + " */\n"
+            + "message A {\n"
+            + "    int32 x      = 1; // The x.\n"
+            + "    string label = 2 [deprecated = true];\n"
+            + "\n"
+            + "    map<string, A> children = 3;\n"
+            + "    message B {}\n"
+            + "    reserved 4 to 6;\n"
+            + "    option (my.option) = -1;\n"
+            + "}\n"
+            + "\n"
+            + "enum E {\n"
+            + "    ZERO = 0;\n"
+            + "    ONE  = 1;\n"
+            + "}\n"
+            + "\n"
+            + "service S {\n"
+            + "    rpc Get(A) returns (stream A) {\n"
+            + "        option deadline = 2.5;\n"
+            + "    }\n"
+            + "}\n";
+
+    private final SourceFormatter target = new SourceFormatter("    ");
+
+    @Test
+    public void testFormat_formatted() {
+        // Exercise
+        List<TextEdit> result = target.format(
+                FORMATTED, 0, FORMATTED.length());
+
+        // Verify
+        assertEquals(result.toString(), 0, result.size());
+    }
+
+    @Test
+    public void testFormat_spacing() {
+        // Exercise & Verify
+        assertEquals(
+                "message A {\n"
+                + "    repeated int32 x = 1 [packed = true, deprecated = true];\n"
+                + "    map<string, A> m = 2;\n"
+                + "    option (a.b).c = \"c\";\n"
+                + "}\n",
+                format("message A{\nrepeated   int32 x=1[ packed=true ,"
+                        + "deprecated = true ] ;\n"
+                        + "map < string,A >m=2;\n"
+                        + "option( a . b ).c=\"c\" ;\n}"));
+    }
+
+    @Test
+    public void testFormat_leadingDot() {
+        // Exercise & Verify
+        assertEquals(
+                "message A {\n"
+                + "    repeated .a.b.M r = 10;\n"
+                + "\n"
+                + "    map<string, .a.M> m = 11;\n"
+                + "    option (.a.o).p = 1;\n"
+                + "}\n"
+                + "\n"
+                + "service S {\n"
+                + "    rpc F(.a.M) returns (stream .a.M);\n"
+                + "}\n",
+                format("message A {\n"
+                        + "repeated   .a.b.M r=10;\n"
+                        + "\n"
+                        + "map<string,.a.M> m=11;\n"
+                        + "option ( .a.o ).p=1;\n"
+                        + "}\n"
+                        + "service S {\n"
+                        + "rpc F( .a.M )returns(stream   .a.M);\n"
+                        + "}\n"));
+    }
+
+    @Test
+    public void testFormat_blockBreaks() {
+        // Exercise & Verify
+        assertEquals(
+                "service S {\n"
+                + "    rpc F(A) returns (A);\n"
+                + "    rpc G(A) returns (A) { option x = 1; }\n"
+                + "}\n"
+                + "\n"
+                + "message A { int32 x = 1; }\n"
+                + "\n"
+                + "message B { // B.\n"
+                + "    int32 y = 1;\n"
+                + "}\n",
+                format("service S{rpc F(A) returns (A);\n"
+                        + "rpc G(A) returns (A) { option x = 1; }}\n"
+                        + "message A { int32 x = 1; }\n"
+                        + "message B { // B.\n"
+                        + "int32 y = 1;}\n"));
+    }
+
+    @Test
+    public void testFormat_indentation() {
+        // Exercise & Verify
+        assertEquals(
+                "service S {\n"
+                + "    rpc Get(A) returns (A) {\n"
+                + "        option x = 1;\n"
+                + "    }\n"
+                + "}\n",
+                format("service S {\n"
+                        + "rpc Get ( A ) returns ( A ) {\n"
+                        + "\t\t\t  option x = 1;\n"
+                        + "  }\n"
+                        + "        }\n"));
+    }
+
+    @Test
+    public void testFormat_blankLines() {
+        // Exercise & Verify
+        assertEquals(
+                "syntax = \"proto3\";\n"
+                + "\n"
+                + "message A {\n"
+                + "    int32 x = 1;\n"
+                + "\n"
+                + "    int32 y = 2;\n"
+                + "}\n"
+                + "\n"
+                + "message B {}\n",
+                format("\n\nsyntax = \"proto3\";\n"
+                        + "message A {\n"
+                        + "\n"
+                        + "    int32 x = 1;\n"
+                        + "\n\n\n"
+                        + "    int32 y = 2;\n"
+                        + "\n"
+                        + "} message B { }\n\n\n"));
+    }
+
+    @Test
+    public void testFormat_alignment() {
+        // Exercise & Verify
+        assertEquals(
+                "message A {\n"
+                + "    int32 x        = 1;\n"
+                + "    string label   = 2;\n"
+                + "    repeated A all = 3;\n"
+                + "\n"
+                + "    int32 y = 4;\n"
+                + "    oneof o {\n"
+                + "        int32 p  = 5;\n"
+                + "        bytes qq = 6;\n"
+                + "    }\n"
+                + "}\n",
+                format("message A {\n"
+                        + "    int32 x = 1;\n"
+                        + "    string label = 2;\n"
+                        + "    repeated A all   = 3;\n"
+                        + "\n"
+                        + "    int32 y =  4;\n"
+                        + "    oneof o {\n"
+                        + "        int32 p = 5;\n"
+                        + "        bytes qq = 6;\n"
+                        + "    }\n"
+                        + "}\n"));
+    }
+
+    @Test
+    public void testFormat_comments() {
+        // Exercise & Verify
+        assertEquals(
+                "message A {\n"
+                + "    /*\n"
+                + "     * Comment.\n"
+                + "     */\n"
+                + "    int32 x = 1;    // Trailing.\n"
+                + "    // Line.\n"
+                + "    int32 y = 2; /* Trailing. */\n"
+                + "} // end A\n",
+                format("message A {\n"
+                        + "/*\n"
+                        + "* Comment.\n"
+                        + "        */\n"
+                        + "  int32 x = 1;    // Trailing.\n"
+                        + "        // Line.\n"
+                        + "int32 y = 2;/* Trailing. */\n"
+                        + "} // end A\n"));
+    }
+
+    @Test
+    public void testFormat_range() {
+        // Setup
+        String text = "message A {\n"
+                + "int32 x=1;\n"
+                + "int32 y=2;\n"
+                + "}\n";
+        int start = text.indexOf("int32 y");
+
+        // Exercise
+        List<TextEdit> result =
+                target.format(text, start - 1, text.indexOf("2;"));
+
+        // Verify
+        assertEquals(
+                "message A {\n"
+                + "int32 x=1;\n"
+                + "    int32 y = 2;\n"
+                + "}\n",
+                TextEdit.apply(text, result));
+    }
+
+    @Test
+    public void testFormat_idempotent() {
+        // Setup
+        String text = "syntax=\"proto2\";package a;message A{\n"
+                + "  optional int32 x=1 [default=-2];/* c\n"
+                + "  * d */ enum E{V=0;W=1;}\n"
+                + "extensions 100 to max;}\n"
+                + "service S{rpc M(A)returns(A);}";
+
+        // Exercise
+        String once = format(text);
+        String twice = format(once);
+
+        // Verify
+        assertEquals(once, twice);
+    }
+
+    @Test
+    public void testFormat_invalidTokens() {
+        // Setup
+        String text = "message A {\n  int32 x = 1 # ;\n  string s = \"a\n}\n";
+
+        // Exercise
+        String result = format(text);
+
+        // Verify
+        assertTrue(result.contains("1 # ;"));
+        assertTrue(result.contains("= \"a\n}"));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return text formatted by the target
+     */
+    private String format(String text) {
+        return TextEdit.apply(text, target.format(text, 0, text.length()));
+    }
+}
@@ -0,0 +1,106 @@
+package com.marcowillemart.protobuf.highlighting;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BracePairs class.
+ *
+ * @author mwi
+ */
+public class BracePairsTest {
+
+    private static final String INPUT =
+            "message A { // }\n"
+            + "    map<string, B> m = 1 [default = \"{(\"];\n"
+            + "    /* ) */\n"
+            + "}\n"
+            + "service S { rpc Get(A) returns (A); }\n";
+
+    @Test
+    public void testMatchOf() {
+        // Setup
+        BracePairs target = pairsOf(INPUT);
+        int brace = INPUT.indexOf('{');
+        int chevron = INPUT.indexOf('<');
+        int bracket = INPUT.indexOf('[');
+
+        // Exercise & Verify
+        assertEquals(12, target.size());
+        assertEquals(INPUT.indexOf("}\nservice"), target.matchOf(brace));
+        assertEquals(brace, target.matchOf(INPUT.indexOf("}\nservice")));
+        assertEquals(INPUT.indexOf('>'), target.matchOf(chevron));
+        assertEquals(INPUT.indexOf("];"), target.matchOf(bracket));
+        assertEquals(INPUT.indexOf(") returns"),
+                target.matchOf(INPUT.indexOf("(A) returns")));
+    }
+
+    @Test
+    public void testIsBracket() {
+        // Setup
+        BracePairs target = pairsOf(INPUT);
+
+        // Exercise & Verify
+        assertTrue(target.isBracket(INPUT.indexOf('{')));
+        assertFalse(target.isBracket(INPUT.indexOf("}\n")));
+        assertFalse(target.isBracket(INPUT.indexOf("{(")));
+        assertFalse(target.isBracket(INPUT.indexOf(") */")));
+    }
+
+    @Test
+    public void testMatchOf_unmatched() {
+        // Setup
+        String text = "message A { int32 x = 1 [ ; ] } )";
+        BracePairs target = pairsOf(text);
+
+        // Exercise & Verify
+        assertEquals(text.indexOf('}'), target.matchOf(text.indexOf('{')));
+        assertEquals(text.indexOf(']'), target.matchOf(text.indexOf('[')));
+        assertEquals(-1, target.matchOf(text.indexOf(')')));
+
+        text = "message A { int32 x = 1 [ ; }";
+        target = pairsOf(text);
+
+        assertEquals(text.indexOf('}'), target.matchOf(text.indexOf('{')));
+        assertEquals(-1, target.matchOf(text.indexOf('[')));
+    }
+
+    @Test
+    public void testFirstAndLastBracket() {
+        // Setup
+        String text = "rpc Get(A) returns (A);";
+        BracePairs target = pairsOf(text);
+
+        // Exercise & Verify
+        assertEquals(7, target.firstBracket(0, text.length()));
+        assertEquals(9, target.firstBracket(8, text.length()));
+        assertEquals(-1, target.firstBracket(0, 7));
+        assertEquals(21, target.lastBracket(0, text.length()));
+        assertEquals(9, target.lastBracket(0, 19));
+        assertEquals(-1, target.lastBracket(10, 19));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the table of the brackets of text
+     */
+    private static BracePairs pairsOf(String text) {
+        BracePairs.Builder builder = new BracePairs.Builder();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(token.getType(), token.getStartIndex());
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,158 @@
+package com.marcowillemart.protobuf.highlighting;
+
+import com.marcowillemart.common.util.Pair;
+import com.marcowillemart.protobuf.completion.TypeNameTable;
+import com.marcowillemart.protobuf.highlighting.Highlight.Kind;
+import com.marcowillemart.protobuf.index.IndexedSymbol;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the SemanticHighlighter class.
+ *
+ * @author mwi
+ */
+public class SemanticHighlighterTest {
+
+    private static final String INPUT =
+            "syntax = \"proto3\";\n"
+            + "package p;\n"
+            + "message Foo {\n"
+            + "  enum Color { RED = 0; }\n"
+            + "  Color color = 1;\n"
+            + "  q.Ext ext = 2;\n"
+            + "  Missing missing = 3;\n"
+            + "  r.Hidden hidden = 4;\n"
+            + "}\n"
+            + "service S { rpc Get (Foo) returns (Foo); }\n";
+
+    private TypeNameTable<String> types;
+    private SemanticHighlighter target;
+
+    @Before
+    public void setUp() {
+        types = new TypeNameTable<>(Arrays.asList(
+                new Pair<>("q.proto",
+                        new IndexedSymbol(Definition.Kind.ENUM, "q.Ext", 0)),
+                new Pair<>("r.proto", new IndexedSymbol(
+                        Definition.Kind.MESSAGE, "r.Hidden", 0))));
+        target = new SemanticHighlighter();
+    }
+
+    @Test
+    public void testHighlight() {
+        // Exercise
+        List<Highlight> result = highlight(INPUT);
+
+        // Verify
+        assertTrue(result.contains(highlight("Foo", Kind.MESSAGE, true)));
+        assertTrue(result.contains(highlight("Color {", Kind.ENUM, true)));
+        assertTrue(result.contains(highlight("RED", Kind.ENUM_VALUE, true)));
+        assertTrue(result.contains(highlight("Color c", Kind.ENUM, false)));
+        assertTrue(result.contains(highlight("color", Kind.FIELD, true)));
+        assertTrue(result.contains(highlight("Ext", Kind.ENUM, false)));
+        assertTrue(result.contains(
+                highlight("Missing", Kind.UNRESOLVED, false)));
+        assertTrue(result.contains(highlight("S ", Kind.SERVICE, true)));
+        assertTrue(result.contains(highlight("Get", Kind.RPC, true)));
+        assertTrue(result.contains(highlight("Foo)", Kind.MESSAGE, false)));
+        assertNull(find(result, INPUT.indexOf("q.Ext")));
+    }
+
+    @Test
+    public void testHighlight_notImported() {
+        // Exercise
+        List<Highlight> result = highlight(INPUT);
+
+        // Verify
+        assertTrue(result.contains(
+                highlight("Hidden", Kind.UNRESOLVED, false)));
+    }
+
+    @Test
+    public void testHighlight_sorted() {
+        // Exercise
+        List<Highlight> result = highlight(INPUT);
+
+        // Verify
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).startOffset()
+                    <= result.get(i).startOffset());
+        }
+    }
+
+    @Test
+    public void testHighlight_reuse() {
+        // Setup
+        List<Highlight> first = highlight(INPUT);
+        String edited = INPUT.replace("service S", "\n\nservice T");
+
+        // Exercise
+        List<Highlight> second = highlight(edited);
+
+        // Verify
+        assertEquals(1, target.reused());
+        assertEquals(first.size(), second.size());
+        assertEquals(first.get(0), second.get(0));
+        assertEquals(new Highlight(
+                edited.indexOf("T {"), edited.indexOf("T {") + 1,
+                Kind.SERVICE, true),
+                find(second, edited.indexOf("T {")));
+    }
+
+    @Test
+    public void testHighlight_environmentChanged() {
+        // Setup
+        highlight(INPUT);
+        String edited = INPUT.replace("service S", "message Missing {}\n"
+                + "service S");
+
+        // Exercise
+        List<Highlight> result = highlight(edited);
+
+        // Verify
+        assertEquals(0, target.reused());
+        assertEquals(Kind.MESSAGE,
+                find(result, edited.indexOf("Missing missing")).kind());
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private List<Highlight> highlight(String text) {
+        return target.highlight(text, ProtoFileBuilder.parse(text), types,
+                Collections.singleton("q.proto"), 1);
+    }
+
+    private static Highlight highlight(
+            String marker,
+            Kind kind,
+            boolean declaration) {
+
+        int start = INPUT.indexOf(marker);
+        int end = start;
+
+        while (Character.isJavaIdentifierPart(INPUT.charAt(end))) {
+            end++;
+        }
+
+        return new Highlight(start, end, kind, declaration);
+    }
+
+    private static Highlight find(List<Highlight> highlights, int offset) {
+        for (Highlight highlight : highlights) {
+            if (highlight.startOffset() == offset) {
+                return highlight;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,216 @@
+package com.marcowillemart.protobuf.imports;
+
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ImportResolver class.
+ *
+ * @author mwi
+ */
+public class ImportResolverTest {
+
+    private static final String HEADER = "syntax = \"proto3\";\n";
+
+    private MemoryView view;
+    private ImportResolver<String> target;
+
+    @Before
+    public void setUp() {
+        view = new MemoryView();
+
+        view.put("root.proto",
+                "import \"a.proto\";\nimport \"missing.proto\";\n");
+        view.put("a.proto",
+                "import \"b.proto\";\nimport public \"c.proto\";\n");
+        view.put("b.proto", "import \"common.proto\";\n");
+        view.put("c.proto", "import \"common.proto\";\n");
+        view.put("common.proto", "message Common {}\n");
+        view.put("other.proto", "message Other {}\n");
+
+        target = new ImportResolver<>(view);
+    }
+
+    @Test
+    public void testClosure() {
+        // Exercise
+        ImportClosure<String> closure = closureOf("root.proto");
+
+        // Verify
+        assertEquals(
+                Arrays.asList("a.proto", "b.proto", "c.proto", "common.proto"),
+                closure.files());
+        assertEquals(Arrays.asList("a.proto", "c.proto"),
+                closure.visibleFiles());
+        assertNotNull(closure.model("common.proto").definition("Common"));
+        assertFalse(closure.contains("other.proto"));
+        assertEquals(1, closure.unresolved("root.proto").size());
+        assertEquals("missing.proto",
+                closure.unresolved("root.proto").get(0).path());
+        assertTrue(closure.unresolved("a.proto").isEmpty());
+    }
+
+    @Test
+    public void testClosure_cycle() {
+        // Setup
+        view.put("x.proto", "import \"y.proto\";\n");
+        view.put("y.proto", "import \"x.proto\";\n");
+
+        // Exercise
+        ImportClosure<String> closure = closureOf("x.proto");
+
+        // Verify
+        assertEquals(Arrays.asList("y.proto"), closure.files());
+    }
+
+    @Test
+    public void testClosure_memoized() {
+        // Setup
+        ImportClosure<String> first = closureOf("root.proto");
+        int reads = view.reads();
+
+        // Exercise
+        ImportClosure<String> second = closureOf("root.proto");
+
+        // Verify
+        assertSame(first, second);
+        assertEquals(reads, view.reads());
+    }
+
+    @Test
+    public void testClosure_modified() {
+        // Setup
+        closureOf("root.proto");
+        closureOf("other.proto");
+        int reads = view.reads();
+
+        // Exercise
+        view.put("common.proto", "message Common {}\nmessage Added {}\n");
+        ImportClosure<String> closure = closureOf("root.proto");
+
+        // Verify
+        assertEquals(reads + 1, view.reads());
+        assertNotNull(closure.model("common.proto").definition("Added"));
+    }
+
+    @Test
+    public void testClosure_missingFileCreated() {
+        // Setup
+        closureOf("root.proto");
+
+        // Exercise
+        view.put("missing.proto", "message Found {}\n");
+        target.invalidate("missing.proto");
+        ImportClosure<String> closure = closureOf("root.proto");
+
+        // Verify
+        assertTrue(closure.unresolved("root.proto").isEmpty());
+        assertTrue(closure.contains("missing.proto"));
+        assertNotNull(closure.model("missing.proto").definition("Found"));
+    }
+
+    @Test
+    public void testClosure_missingFileStillMissing() {
+        // Setup
+        ImportClosure<String> first = closureOf("root.proto");
+
+        // Exercise
+        ImportClosure<String> second = closureOf("root.proto");
+
+        // Verify
+        assertSame(first, second);
+        assertEquals(1, second.unresolved("root.proto").size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        // Setup
+        closureOf("root.proto");
+        closureOf("b.proto");
+        ImportClosure<String> other = closureOf("other.proto");
+
+        // Exercise
+        target.invalidate("common.proto");
+
+        // Verify
+        assertTrue(target.dependents("common.proto").isEmpty());
+        assertTrue(target.dependents("c.proto").isEmpty());
+        assertSame(other, closureOf("other.proto"));
+    }
+
+    @Test
+    public void testDependents() {
+        // Setup
+        closureOf("root.proto");
+        closureOf("b.proto");
+        closureOf("other.proto");
+
+        // Exercise & Verify
+        assertEquals(2, target.dependents("common.proto").size());
+        assertTrue(target.dependents("common.proto").contains("b.proto"));
+        assertTrue(target.dependents("c.proto").contains("root.proto"));
+        assertTrue(target.dependents("other.proto").isEmpty());
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private ImportClosure<String> closureOf(String file) {
+        return target.closure(file,
+                ProtoFileBuilder.parse(view.content(file)).imports());
+    }
+
+    ////////////////////
+    // INNER CLASSES
+    ////////////////////
+
+    /**
+     * In-memory file view whose files are named by their path.
+     */
+    private static final class MemoryView implements FileView<String> {
+
+        private final Map<String, String> texts = new ConcurrentHashMap<>();
+        private final Map<String, Long> stamps = new HashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        synchronized void put(String path, String text) {
+            texts.put(path, HEADER + text);
+
+            Long stamp = stamps.get(path);
+            stamps.put(path, stamp == null ? 1L : stamp + 1);
+        }
+
+        String content(String path) {
+            return texts.get(path);
+        }
+
+        int reads() {
+            return reads.get();
+        }
+
+        @Override
+        public String resolve(String importer, String path) {
+            return texts.containsKey(path) ? path : null;
+        }
+
+        @Override
+        public synchronized long lastModified(String file) {
+            Long stamp = stamps.get(file);
+            return stamp == null ? 0L : stamp;
+        }
+
+        @Override
+        public String text(String file) {
+            reads.incrementAndGet();
+            return texts.get(file);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.protobuf.model.ProtoFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BatchParser class.
+ *
+ * @author mwi
+ */
+public class BatchParserTest {
+
+    @Test
+    public void testParse() {
+        // Setup
+        List<String> texts = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            texts.add(String.format(
+                    "syntax = \"proto3\";\npackage p%d;\nmessage M%d {}\n",
+                    i, i));
+        }
+
+        // Exercise
+        List<ProtoFile> models = new BatchParser().parse(texts);
+
+        // Verify
+        assertEquals(texts.size(), models.size());
+
+        for (int i = 0; i < models.size(); i++) {
+            assertEquals("p" + i, models.get(i).packageName());
+            assertNotNull(models.get(i).definition("p" + i + ".M" + i));
+        }
+    }
+
+    @Test
+    public void testParse_crlf() {
+        // Setup
+        String text = "syntax = \"proto3\";\r\n\r\nmessage A {\r\n"
+                + "    message B {}\r\n}\r\n";
+        String normalized = text.replace("\r\n", "\n");
+
+        // Exercise
+        ProtoFile model =
+                new BatchParser().parse(Collections.singletonList(text)).get(0);
+
+        // Verify
+        List<IndexedSymbol> symbols = IndexedSymbol.of(model);
+        assertEquals(2, symbols.size());
+        assertEquals(normalized.indexOf("A {"), symbols.get(0).offset());
+        assertEquals(normalized.indexOf("B {"), symbols.get(1).offset());
+    }
+
+    @Test
+    public void testParse_empty() {
+        // Exercise & Verify
+        assertTrue(new BatchParser().parse(new ArrayList<String>()).isEmpty());
+    }
+}
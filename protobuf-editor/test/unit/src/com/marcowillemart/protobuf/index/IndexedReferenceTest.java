@@ -0,0 +1,93 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import com.marcowillemart.protobuf.model.TypeReference.Kind;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the IndexedReference class.
+ *
+ * @author mwi
+ */
+public class IndexedReferenceTest {
+
+    @Test
+    public void testOf() {
+        // Setup
+        String input =
+                "syntax = \"proto3\";\n"
+                + "package p;\n"
+                + "message M { Outer.Inner x = 1; }\n"
+                + "service S { rpc R (M) returns (.q.N); }\n";
+
+        // Exercise
+        List<IndexedReference> usages =
+                IndexedReference.of(ProtoFileBuilder.parse(input));
+
+        // Verify
+        assertEquals(5, usages.size());
+
+        int outer = input.indexOf("Outer");
+        assertEquals(
+                new IndexedReference(Kind.FIELD, outer, outer + 5, "p.M",
+                        "Outer"),
+                usages.get(0));
+        assertEquals("Outer.Inner", usages.get(1).name());
+        assertEquals(input.indexOf("Inner"), usages.get(1).startOffset());
+        assertEquals(Kind.RPC_INPUT, usages.get(2).kind());
+        assertEquals("p.S", usages.get(2).scope());
+        assertEquals(".q", usages.get(3).name());
+        assertEquals(".q.N", usages.get(4).name());
+        assertEquals(Kind.RPC_OUTPUT, usages.get(4).kind());
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        // Setup
+        IndexedReference usage =
+                new IndexedReference(Kind.RPC_OUTPUT, 3, 8, "", "a.B");
+
+        // Exercise
+        String value = usage.encode();
+
+        // Verify
+        assertEquals("RPC_OUTPUT;3;8;;a.B", value);
+        assertEquals(usage, IndexedReference.decode(value));
+    }
+
+    @Test
+    public void testDecode_invalid() {
+        // Exercise & Verify
+        assertNull(IndexedReference.decode(""));
+        assertNull(IndexedReference.decode("FIELD;1;2;p"));
+        assertNull(IndexedReference.decode("FIELD;1;2;p;"));
+        assertNull(IndexedReference.decode("FIELD;2;1;p;A"));
+        assertNull(IndexedReference.decode("OTHER;1;2;p;A"));
+    }
+
+    @Test
+    public void testResolvesTo() {
+        // Setup
+        IndexedReference usage =
+                new IndexedReference(Kind.FIELD, 0, 1, "p.M", "T");
+        final Set<String> types = new HashSet<>(Arrays.asList("p.T", "T"));
+        TypeTable table = new TypeTable() {
+
+            @Override
+            public boolean isType(String fullName) {
+                return types.contains(fullName);
+            }
+        };
+
+        // Exercise & Verify
+        assertTrue(usage.resolvesTo("p.M.T", table));
+        assertTrue(usage.resolvesTo("p.T", table));
+        assertFalse(usage.resolvesTo("T", table));
+        assertFalse(usage.resolvesTo("q.T", table));
+    }
+}
@@ -0,0 +1,65 @@
+package com.marcowillemart.protobuf.index;
+
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the IndexedSymbol class.
+ *
+ * @author mwi
+ */
+public class IndexedSymbolTest {
+
+    @Test
+    public void testOf() {
+        // Setup
+        String input =
+                "syntax = \"proto3\";\n"
+                + "package p;\n"
+                + "message M { enum E { A = 0; } int32 x = 1; }\n"
+                + "service S { rpc R (M) returns (M); }\n";
+
+        // Exercise
+        List<IndexedSymbol> symbols =
+                IndexedSymbol.of(ProtoFileBuilder.parse(input));
+
+        // Verify
+        assertEquals(4, symbols.size());
+        assertEquals(
+                new IndexedSymbol(Kind.MESSAGE, "p.M", input.indexOf("M {")),
+                symbols.get(0));
+        assertEquals(Kind.ENUM, symbols.get(1).kind());
+        assertEquals("p.M.E", symbols.get(1).fullName());
+        assertEquals("p.S", symbols.get(2).fullName());
+        assertEquals(Kind.RPC, symbols.get(3).kind());
+        assertEquals("p.S.R", symbols.get(3).fullName());
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        // Setup
+        IndexedSymbol symbol = new IndexedSymbol(Kind.SERVICE, "a.b.C", 42);
+
+        // Exercise
+        String value = symbol.encode();
+
+        // Verify
+        assertEquals("SERVICE;42;a.b.C", value);
+        assertEquals(symbol, IndexedSymbol.decode(value));
+    }
+
+    @Test
+    public void testDecode_invalid() {
+        // Exercise & Verify
+        assertNull(IndexedSymbol.decode(""));
+        assertNull(IndexedSymbol.decode("MESSAGE;1"));
+        assertNull(IndexedSymbol.decode("MESSAGE;1;"));
+        assertNull(IndexedSymbol.decode("MESSAGE;x;a.B"));
+        assertNull(IndexedSymbol.decode("MESSAGE;-1;a.B"));
+        assertNull(IndexedSymbol.decode("FIELD;1;a.B"));
+        assertNull(IndexedSymbol.decode("OTHER;1;a.B"));
+    }
+}
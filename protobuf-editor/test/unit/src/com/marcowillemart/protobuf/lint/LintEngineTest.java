@@ -0,0 +1,136 @@
+package com.marcowillemart.protobuf.lint;
+
+import com.marcowillemart.common.lang.ParsingError;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LintEngine class.
+ *
+ * @author mwi
+ */
+public class LintEngineTest {
+
+    private LintEngine target;
+
+    @Before
+    public void setUp() {
+        target = new LintEngine();
+    }
+
+    @Test
+    public void testRun_noIssue() {
+        // Exercise
+        LintReport report = run(
+                "message M { int32 a = 1; string b = 2; }\n"
+                + "enum E { ZERO = 0; ONE = 1; }\n");
+
+        // Verify
+        assertTrue(report.issues().isEmpty());
+        assertEquals(LintRules.defaults().size(), report.timings().size());
+    }
+
+    @Test
+    public void testRun_duplicateFieldNumber() {
+        // Exercise
+        List<ParsingError> issues = run(
+                "message M {\n"
+                + "  int32 a = 1;\n"
+                + "  oneof o { string b = 1; }\n"
+                + "}\n").issues();
+
+        // Verify
+        assertEquals(1, issues.size());
+        assertEquals(4, issues.get(0).line());
+        assertTrue(issues.get(0).message().contains("\"a\""));
+    }
+
+    @Test
+    public void testRun_reservedNumber() {
+        // Exercise
+        List<ParsingError> issues = run(
+                "message M {\n"
+                + "  reserved 2, 5 to 7;\n"
+                + "  int32 a = 6;\n"
+                + "  int32 b = 8;\n"
+                + "}\n").issues();
+
+        // Verify
+        assertEquals(1, issues.size());
+        assertTrue(issues.get(0).message().contains("\"a\""));
+    }
+
+    @Test
+    public void testRun_reservedName() {
+        // Exercise
+        List<ParsingError> issues = run(
+                "message M {\n"
+                + "  reserved \"foo\";\n"
+                + "  int32 foo = 1;\n"
+                + "}\n").issues();
+
+        // Verify
+        assertEquals(1, issues.size());
+        assertTrue(issues.get(0).message().contains("\"foo\""));
+    }
+
+    @Test
+    public void testRun_enumFirstValueNotZero() {
+        // Exercise
+        List<ParsingError> issues =
+                run("enum E { ONE = 1; ZERO = 0; }\n").issues();
+
+        // Verify
+        assertEquals(1, issues.size());
+        assertEquals(new ParsingError(issues.get(0).message(), 2, 10, 28, 31),
+                issues.get(0));
+    }
+
+    @Test
+    public void testRun_implementationRange() {
+        // Exercise
+        List<ParsingError> issues =
+                run("message M { int32 a = 19500; int32 b = 20000; }\n")
+                        .issues();
+
+        // Verify
+        assertEquals(1, issues.size());
+        assertTrue(issues.get(0).message().contains("19000"));
+    }
+
+    @Test
+    public void testRun_manyMessages() {
+        // Setup
+        StringBuilder input = new StringBuilder(header());
+        for (int i = 0; i < 1000; i++) {
+            input.append("message M").append(i)
+                    .append(" { int32 a = 1; int32 b = 1; }\n");
+        }
+
+        // Exercise
+        List<ParsingError> issues =
+                target.run(ProtoFileBuilder.parse(input.toString())).issues();
+
+        // Verify
+        assertEquals(1000, issues.size());
+        for (int i = 1; i < issues.size(); i++) {
+            assertTrue(issues.get(i - 1).startOffset()
+                    < issues.get(i).startOffset());
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private LintReport run(String definitions) {
+        return target.run(ProtoFileBuilder.parse(header() + definitions));
+    }
+
+    private static String header() {
+        return "syntax = \"proto3\";\n";
+    }
+}
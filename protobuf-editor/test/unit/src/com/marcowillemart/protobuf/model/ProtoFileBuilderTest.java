@@ -0,0 +1,268 @@
+package com.marcowillemart.protobuf.model;
+
+import com.marcowillemart.protobuf.model.Definition.Kind;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the ProtoFileBuilder class.
+ *
+ * @author mwi
+ */
+public class ProtoFileBuilderTest {
+
+    private static final String INPUT =
+            "syntax = \"proto3\";\n"
+            + "package foo.bar;\n"
+            + "message Outer {\n"
+            + "  reserved 2, 9 to 11;\n"
+            + "  reserved \"old\";\n"
+            + "  message Inner { int32 x = 1; }\n"
+            + "  Inner inner = 1;\n"
+            + "  oneof choice {\n"
+            + "    string a = 3;\n"
+            + "  }\n"
+            + "  map<string, Inner> byName = 4;\n"
+            + "}\n"
+            + "enum Color { RED = 0; BLUE = -1; }\n"
+            + "service Api {\n"
+            + "  rpc Get (Outer) returns (Outer);\n"
+            + "}\n";
+
+    private ProtoFile target;
+
+    @Test
+    public void testPackageName() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        assertEquals("foo.bar", target.packageName());
+    }
+
+    @Test
+    public void testPackageName_none() {
+        // Exercise
+        target = ProtoFileBuilder.parse("syntax = \"proto3\";\nmessage M {}\n");
+
+        // Verify
+        assertEquals("", target.packageName());
+        assertNotNull(target.definition("M"));
+    }
+
+    @Test
+    public void testDefinitions() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        List<Definition> definitions = target.definitions();
+        assertEquals(3, definitions.size());
+        assertEquals(Kind.MESSAGE, definitions.get(0).kind());
+        assertEquals(Kind.ENUM, definitions.get(1).kind());
+        assertEquals(Kind.SERVICE, definitions.get(2).kind());
+    }
+
+    @Test
+    public void testNestedDefinitions() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        Definition inner = target.definition("foo.bar.Outer.Inner");
+        assertNotNull(inner);
+        assertEquals(Kind.MESSAGE, inner.kind());
+        assertEquals("foo.bar.Outer", inner.parent().fullName());
+        assertNotNull(target.definition("foo.bar.Outer.Inner.x"));
+        assertNotNull(target.definition("foo.bar.Api.Get"));
+    }
+
+    @Test
+    public void testFields() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        List<Definition> fields = target.definition("foo.bar.Outer").fields();
+        assertEquals(3, fields.size());
+        assertEquals("inner", fields.get(0).name());
+        assertEquals(1, fields.get(0).number());
+        assertEquals("Inner", fields.get(0).typeName());
+        assertEquals("foo.bar.Outer.a", fields.get(1).fullName());
+        assertEquals(3, fields.get(1).number());
+        assertEquals("map<string, Inner>", fields.get(2).typeName());
+    }
+
+    @Test
+    public void testEnumValues() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        assertEquals(0, target.definition("foo.bar.Color.RED").number());
+        assertEquals(-1, target.definition("foo.bar.Color.BLUE").number());
+    }
+
+    @Test
+    public void testReserved() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        Definition outer = target.definition("foo.bar.Outer");
+        assertEquals(2, outer.reservedRanges().size());
+        assertTrue(outer.reservedRanges().get(1).contains(10));
+        assertFalse(outer.reservedRanges().get(1).contains(12));
+        assertEquals("old", outer.reservedNames().get(0).name());
+    }
+
+    @Test
+    public void testLocation() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        Definition outer = target.definition("foo.bar.Outer");
+        int offset = INPUT.indexOf("Outer");
+        assertEquals(new Location(3, 9, offset, offset + 5), outer.location());
+        assertEquals(INPUT.indexOf("message Outer"), outer.startOffset());
+        assertEquals(INPUT.indexOf("}\nenum") + 1, outer.endOffset());
+    }
+
+    @Test
+    public void testAllDefinitions_preorder() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        List<Definition> all = target.allDefinitions();
+        assertEquals("foo.bar.Outer", all.get(0).fullName());
+        assertEquals("foo.bar.Outer.Inner", all.get(1).fullName());
+        assertEquals("foo.bar.Outer.Inner.x", all.get(2).fullName());
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        // Exercise
+        target = ProtoFileBuilder.parse(
+                "syntax = \"proto3\";\n"
+                + "message { int32 x = 1; }\n"
+                + "message Ok { int32 = 1; string s = 2; }\n");
+
+        // Verify
+        assertNull(target.definition("x"));
+        Definition ok = target.definition("Ok");
+        assertNotNull(ok);
+        assertNotNull(target.definition("Ok.s"));
+    }
+
+    @Test
+    public void testImports() {
+        // Exercise
+        target = ProtoFileBuilder.parse(
+                "syntax = \"proto3\";\n"
+                + "import \"a/b.proto\";\n"
+                + "import weak \"c.proto\";\n"
+                + "import public \"d.proto\";\n");
+
+        // Verify
+        List<Import> imports = target.imports();
+        assertEquals(3, imports.size());
+        assertEquals("a/b.proto", imports.get(0).path());
+        assertEquals(Import.Modifier.NONE, imports.get(0).modifier());
+        assertEquals(2, imports.get(0).location().line());
+        assertEquals(Import.Modifier.WEAK, imports.get(1).modifier());
+        assertEquals("d.proto", imports.get(2).path());
+        assertEquals(Import.Modifier.PUBLIC, imports.get(2).modifier());
+    }
+
+    @Test
+    public void testReferences() {
+        // Exercise
+        target = ProtoFileBuilder.parse(INPUT);
+
+        // Verify
+        List<TypeReference> references = target.references();
+        assertEquals(4, references.size());
+
+        TypeReference field = references.get(0);
+        assertEquals("Inner", field.name());
+        assertEquals(TypeReference.Kind.FIELD, field.kind());
+        assertEquals("foo.bar.Outer", field.scope());
+        assertEquals(INPUT.indexOf("Inner inner"),
+                field.location().startOffset());
+
+        TypeReference map = references.get(1);
+        assertEquals("Inner", map.name());
+        assertEquals("foo.bar.Outer", map.scope());
+
+        assertEquals(TypeReference.Kind.RPC_INPUT, references.get(2).kind());
+        assertEquals(TypeReference.Kind.RPC_OUTPUT, references.get(3).kind());
+        assertEquals("foo.bar.Api", references.get(3).scope());
+    }
+
+    @Test
+    public void testReferences_qualified() {
+        // Setup
+        String input =
+                "syntax = \"proto3\";\n"
+                + "message M {\n"
+                + "  oneof o { .a.B b = 1; }\n"
+                + "}\n";
+
+        // Exercise
+        target = ProtoFileBuilder.parse(input);
+
+        // Verify
+        TypeReference reference = target.references().get(0);
+        assertEquals(".a.B", reference.name());
+        assertTrue(reference.isAbsolute());
+        assertEquals("M", reference.scope());
+        assertEquals("B", reference.simpleName());
+        assertEquals(2, reference.segments().size());
+        assertEquals(input.indexOf(".a.B"),
+                reference.location().startOffset());
+        assertEquals(input.indexOf("a.B"),
+                reference.segments().get(0).startOffset());
+        assertEquals(input.indexOf(".B") + 1,
+                reference.segments().get(1).startOffset());
+    }
+
+    @Test
+    public void testReference() {
+        // Setup
+        String input =
+                "syntax = \"proto3\";\n"
+                + "message M { a.B b = 1; C c = 2; }\n";
+
+        // Exercise
+        target = ProtoFileBuilder.parse(input);
+
+        // Verify
+        int offset = input.indexOf("a.B");
+        assertEquals("a.B", target.reference(offset).name());
+        assertEquals("a.B", target.reference(offset + 3).name());
+        assertEquals("C", target.reference(input.indexOf("C c")).name());
+        assertNull(target.reference(input.indexOf(" b =") + 1));
+        assertNull(target.reference(0));
+    }
+
+    @Test
+    public void testReferencePrefix() {
+        // Setup
+        String input =
+                "syntax = \"proto3\";\n"
+                + "message M { .a.b.C c = 1; }\n";
+
+        // Exercise
+        target = ProtoFileBuilder.parse(input);
+
+        // Verify
+        TypeReference reference = target.references().get(0);
+        assertEquals(".a", reference.prefix(input.indexOf("a.b")));
+        assertEquals(".a.b", reference.prefix(input.indexOf("b.C")));
+        assertEquals(".a.b.C", reference.prefix(input.indexOf("C c")));
+        assertEquals(".a.b.C", reference.prefix(0));
+    }
+}
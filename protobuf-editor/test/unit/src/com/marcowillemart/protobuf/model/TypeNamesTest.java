@@ -0,0 +1,50 @@
+package com.marcowillemart.protobuf.model;
+
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TypeNames class.
+ *
+ * @author mwi
+ */
+public class TypeNamesTest {
+
+    @Test
+    public void testCandidates() {
+        // Exercise & Verify
+        assertEquals(
+                Arrays.asList("a.b.M.T", "a.b.T", "a.T", "T"),
+                TypeNames.candidates("T", "a.b.M"));
+    }
+
+    @Test
+    public void testCandidates_qualified() {
+        // Exercise & Verify
+        assertEquals(
+                Arrays.asList("p.M.N.T", "p.N.T", "N.T"),
+                TypeNames.candidates("N.T", "p.M"));
+    }
+
+    @Test
+    public void testCandidates_absolute() {
+        // Exercise & Verify
+        assertEquals(
+                Arrays.asList("a.T"),
+                TypeNames.candidates(".a.T", "p.M"));
+    }
+
+    @Test
+    public void testCandidates_rootScope() {
+        // Exercise & Verify
+        assertEquals(Arrays.asList("T"), TypeNames.candidates("T", ""));
+    }
+
+    @Test
+    public void testParentOf() {
+        // Exercise & Verify
+        assertEquals("a.b", TypeNames.parentOf("a.b.C"));
+        assertEquals("", TypeNames.parentOf("C"));
+    }
+}
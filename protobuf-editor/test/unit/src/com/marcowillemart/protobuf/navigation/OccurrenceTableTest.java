@@ -0,0 +1,104 @@
+package com.marcowillemart.protobuf.navigation;
+
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the OccurrenceTable class.
+ *
+ * @author mwi
+ */
+public class OccurrenceTableTest {
+
+    private static final String INPUT =
+            "syntax = \"proto3\";\n"
+            + "package p;\n"
+            + "message Foo {\n"
+            + "  message Bar {}\n"
+            + "  Bar a = 1;\n"
+            + "  Foo.Bar b = 2;\n"
+            + "  q.Ext c = 3;\n"
+            + "  Missing d = 4;\n"
+            + "}\n"
+            + "message Other { Foo x = 1; Missing y = 2; }\n";
+
+    private OccurrenceTable target;
+
+    @Before
+    public void setUp() {
+        TypeTable types = new TypeTable() {
+
+            @Override
+            public boolean isType(String fullName) {
+                return fullName.equals("q.Ext");
+            }
+        };
+
+        target = OccurrenceTable.of(ProtoFileBuilder.parse(INPUT), types);
+    }
+
+    @Test
+    public void testSymbolAt_declaration() {
+        // Exercise & Verify
+        assertEquals("p.Foo", target.symbolAt(INPUT.indexOf("Foo")));
+        assertEquals("p.Foo", target.symbolAt(INPUT.indexOf("Foo") + 3));
+        assertEquals("p.Foo.a", target.symbolAt(INPUT.indexOf("a = 1")));
+    }
+
+    @Test
+    public void testSymbolAt_reference() {
+        // Exercise & Verify
+        assertEquals("p.Foo.Bar", target.symbolAt(INPUT.indexOf("Bar a")));
+        assertEquals("p.Foo", target.symbolAt(INPUT.indexOf("Foo.Bar")));
+        assertEquals("p.Foo.Bar", target.symbolAt(INPUT.indexOf("Bar b")));
+        assertEquals("q.Ext", target.symbolAt(INPUT.indexOf("Ext")));
+        assertEquals(2, target.occurrences(
+                target.symbolAt(INPUT.indexOf("q.Ext"))).length);
+    }
+
+    @Test
+    public void testSymbolAt_none() {
+        // Exercise & Verify
+        assertNull(target.symbolAt(0));
+        assertNull(target.symbolAt(INPUT.indexOf("= 1")));
+        assertNull(target.symbolAt(INPUT.length()));
+    }
+
+    @Test
+    public void testOccurrences() {
+        // Setup
+        int declaration = INPUT.indexOf("Foo");
+        int qualified = INPUT.indexOf("Foo.Bar");
+        int field = INPUT.indexOf("Foo x");
+
+        // Exercise
+        int[] result = target.occurrences("p.Foo");
+
+        // Verify
+        assertArrayEquals(new int[] {
+            declaration, declaration + 3,
+            qualified, qualified + 3,
+            field, field + 3
+        }, result);
+    }
+
+    @Test
+    public void testOccurrences_unresolved() {
+        // Exercise
+        int[] result = target.occurrences(
+                target.symbolAt(INPUT.indexOf("Missing")));
+
+        // Verify
+        assertEquals(4, result.length);
+        assertEquals(INPUT.lastIndexOf("Missing"), result[2]);
+    }
+
+    @Test
+    public void testOccurrences_unknown() {
+        // Exercise & Verify
+        assertEquals(0, target.occurrences("p.Unknown").length);
+    }
+}
@@ -0,0 +1,110 @@
+package com.marcowillemart.protobuf.navigation;
+
+import com.marcowillemart.protobuf.model.ProtoFileBuilder;
+import com.marcowillemart.protobuf.navigation.StructureNode.Kind;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the StructureNode class.
+ *
+ * @author mwi
+ */
+public class StructureNodeTest {
+
+    private static final String INPUT =
+            "syntax = \"proto3\";\n"
+            + "package p.q;\n"
+            + "message Foo {\n"
+            + "  message Bar { int32 x = 1; }\n"
+            + "  map<string, Bar> bars = 2;\n"
+            + "  oneof choice { string s = 3; }\n"
+            + "}\n"
+            + "enum Color { RED = 0; BLUE = -1; }\n"
+            + "service Api { rpc Get (Foo) returns (stream Foo.Bar); }\n";
+
+    @Test
+    public void testOf() {
+        // Exercise
+        List<StructureNode> result =
+                StructureNode.of(ProtoFileBuilder.parse(INPUT));
+
+        // Verify
+        assertEquals(4, result.size());
+
+        StructureNode pkg = result.get(0);
+        assertEquals(Kind.PACKAGE, pkg.kind());
+        assertEquals("p.q", pkg.name());
+        assertEquals(INPUT.indexOf("p.q"), pkg.offset());
+        assertEquals(INPUT.indexOf(";\nmessage"), pkg.endOffset());
+        assertTrue(pkg.isLeaf());
+
+        StructureNode foo = result.get(1);
+        assertEquals(Kind.MESSAGE, foo.kind());
+        assertEquals("p.q.Foo", foo.fullName());
+        assertEquals(INPUT.indexOf("Foo"), foo.offset());
+        assertEquals(3, foo.children().size());
+        assertEquals(" : int32 = 1",
+                foo.children().get(0).children().get(0).detail());
+        assertEquals(" : map<string, Bar> = 2",
+                foo.children().get(1).detail());
+        assertEquals(Kind.ONEOF, foo.children().get(2).kind());
+        assertEquals(" : string = 3",
+                foo.children().get(2).children().get(0).detail());
+
+        StructureNode color = result.get(2);
+        assertEquals(" = 0", color.children().get(0).detail());
+        assertEquals(" = -1", color.children().get(1).detail());
+
+        StructureNode get = result.get(3).children().get(0);
+        assertEquals(Kind.RPC, get.kind());
+        assertEquals("(Foo) : Foo.Bar", get.detail());
+    }
+
+    @Test
+    public void testOf_noPackage() {
+        // Exercise
+        List<StructureNode> result =
+                StructureNode.of(ProtoFileBuilder.parse("message A {}"));
+
+        // Verify
+        assertEquals(1, result.size());
+        assertEquals("A", result.get(0).fullName());
+    }
+
+    @Test
+    public void testEquals_stableAcrossVersions() {
+        // Setup
+        List<StructureNode> before =
+                StructureNode.of(ProtoFileBuilder.parse(INPUT));
+
+        // Exercise
+        List<StructureNode> after =
+                StructureNode.of(ProtoFileBuilder.parse("\n\n" + INPUT));
+
+        // Verify
+        assertEquals(before, after);
+        assertEquals(before.get(1).hashCode(), after.get(1).hashCode());
+        assertFalse(before.get(1).sameAs(after.get(1)));
+    }
+
+    @Test
+    public void testSameAs() {
+        // Setup
+        String changed = INPUT.replace("BLUE = -1", "BLUE = 1");
+
+        // Exercise
+        List<StructureNode> before =
+                StructureNode.of(ProtoFileBuilder.parse(INPUT));
+        List<StructureNode> after =
+                StructureNode.of(ProtoFileBuilder.parse(changed));
+
+        // Verify
+        assertTrue(before.get(1).sameAs(after.get(1)));
+        assertFalse(before.get(2).sameAs(after.get(2)));
+        assertTrue(before.get(2).children().get(0)
+                .sameAs(after.get(2).children().get(0)));
+        assertFalse(before.get(3).sameAs(after.get(3)));
+    }
+}
@@ -0,0 +1,134 @@
+package com.marcowillemart.protobuf.refactoring;
+
+import com.marcowillemart.protobuf.index.IndexedReference;
+import com.marcowillemart.protobuf.index.TypeTable;
+import com.marcowillemart.protobuf.model.Definition;
+import com.marcowillemart.protobuf.model.TypeReference.Kind;
+import com.marcowillemart.protobuf.text.TextEdit;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the Rename class.
+ *
+ * @author mwi
+ */
+public class RenameTest {
+
+    @Test
+    public void testIsIdentifier() {
+        // Exercise & Verify
+        assertTrue(Rename.isIdentifier("Foo"));
+        assertTrue(Rename.isIdentifier("_foo_2"));
+        assertFalse(Rename.isIdentifier(""));
+        assertFalse(Rename.isIdentifier(null));
+        assertFalse(Rename.isIdentifier("2foo"));
+        assertFalse(Rename.isIdentifier("a.B"));
+        assertFalse(Rename.isIdentifier("a-b"));
+    }
+
+    @Test
+    public void testNewFullName() {
+        // Exercise & Verify
+        assertEquals("p.M.Bar", new Rename(
+                Definition.Kind.MESSAGE, "p.M.Foo", "Bar").newFullName());
+        assertEquals("Bar", new Rename(
+                Definition.Kind.ENUM, "Foo", "Bar").newFullName());
+    }
+
+    @Test
+    public void testApply() {
+        // Setup
+        Rename rename = new Rename(Definition.Kind.MESSAGE, "p.Foo", "Bar");
+        TypeTable types = tableOf("p.Foo", "p.Foo.Inner", "p.Other");
+
+        // Exercise
+        TypeTable renamed = rename.apply(types);
+
+        // Verify
+        assertTrue(renamed.isType("p.Bar"));
+        assertTrue(renamed.isType("p.Bar.Inner"));
+        assertTrue(renamed.isType("p.Other"));
+        assertFalse(renamed.isType("p.Foo"));
+        assertFalse(renamed.isType("p.Foo.Inner"));
+        assertFalse(renamed.isType("p.Bar.Other"));
+    }
+
+    @Test
+    public void testDeclarationEdit() {
+        // Setup
+        Rename rename =
+                new Rename(Definition.Kind.ENUM_VALUE, "p.E.FOO", "BAR");
+
+        // Exercise & Verify
+        assertEquals(new TextEdit(10, 13, "BAR"), rename.declarationEdit(10));
+    }
+
+    @Test
+    public void testUsageEdit() {
+        // Setup
+        Rename rename = new Rename(Definition.Kind.MESSAGE, "p.Foo", "Bar");
+        TypeTable types = tableOf("p.Foo", "p.Foo.Inner", "p.M");
+
+        // Exercise & Verify
+        assertEquals(new TextEdit(4, 7, "Bar"), rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 4, 7, "p.M", "Foo"), types));
+        assertEquals(new TextEdit(6, 9, "Bar"), rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 6, 9, "", ".p.Foo"), types));
+        assertNull(rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 8, 13, "p.M", "Foo.Inner"),
+                types));
+    }
+
+    @Test
+    public void testUsageEdit_otherType() {
+        // Setup
+        Rename rename = new Rename(Definition.Kind.MESSAGE, "p.Foo", "Bar");
+        TypeTable types = tableOf("p.Foo", "p.M.Foo");
+
+        // Exercise & Verify
+        assertNull(rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 4, 7, "p.M", "Foo"), types));
+    }
+
+    @Test
+    public void testUsageEdit_shadowed() {
+        // Setup
+        Rename rename = new Rename(Definition.Kind.MESSAGE, "p.Foo", "Bar");
+        TypeTable types = tableOf("p.Foo", "p.M.Bar");
+
+        // Exercise & Verify
+        assertEquals(new TextEdit(4, 7, ".p.Bar"), rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 4, 7, "p.M", "Foo"), types));
+    }
+
+    @Test
+    public void testUsageEdit_notType() {
+        // Setup
+        Rename rename = new Rename(Definition.Kind.SERVICE, "p.S", "T");
+
+        // Exercise & Verify
+        assertNull(rename.usageEdit(
+                new IndexedReference(Kind.FIELD, 4, 5, "p.M", "S"),
+                tableOf("p.S")));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    private static TypeTable tableOf(String... fullNames) {
+        final Set<String> types = new HashSet<>(Arrays.asList(fullNames));
+
+        return new TypeTable() {
+
+            @Override
+            public boolean isType(String fullName) {
+                return types.contains(fullName);
+            }
+        };
+    }
+}
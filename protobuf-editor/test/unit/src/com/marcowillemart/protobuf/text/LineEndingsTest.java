@@ -0,0 +1,30 @@
+package com.marcowillemart.protobuf.text;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the LineEndings class.
+ *
+ * @author mwi
+ */
+public class LineEndingsTest {
+
+    @Test
+    public void testNormalize() {
+        // Exercise
+        String result = LineEndings.normalize("a\r\nb\rc\n\r\n\r");
+
+        // Verify
+        assertEquals("a\nb\nc\n\n\n", result);
+    }
+
+    @Test
+    public void testNormalize_noCarriageReturn() {
+        // Setup
+        String text = "message A {\n}\n";
+
+        // Exercise & Verify
+        assertSame(text, LineEndings.normalize(text));
+    }
+}
@@ -0,0 +1,56 @@
+package com.marcowillemart.protobuf.text;
+
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TextEdit class.
+ *
+ * @author mwi
+ */
+public class TextEditTest {
+
+    @Test
+    public void testApply() {
+        // Setup
+        String text = "message Foo { Foo x = 1; }";
+
+        // Exercise
+        String result = TextEdit.apply(text, Arrays.asList(
+                new TextEdit(8, 11, "Bar"),
+                new TextEdit(14, 17, ".p.Bar"),
+                new TextEdit(26, 26, "\n")));
+
+        // Verify
+        assertEquals("message Bar { .p.Bar x = 1; }\n", result);
+    }
+
+    @Test
+    public void testApply_none() {
+        // Exercise & Verify
+        assertEquals("abc",
+                TextEdit.apply("abc", Collections.<TextEdit>emptyList()));
+    }
+
+    @Test
+    public void testReplaces() {
+        // Setup
+        TextEdit target = new TextEdit(8, 11, "Bar");
+
+        // Exercise & Verify
+        assertTrue(target.replaces("message Foo {}", "Foo"));
+        assertFalse(target.replaces("message Fox {}", "Foo"));
+        assertFalse(target.replaces("message  Foo {}", "Foo"));
+        assertFalse(target.replaces("message Fo", "Foo"));
+        assertFalse(target.replaces("message Foo {}", "Fo"));
+    }
+
+    @Test
+    public void testLength() {
+        // Exercise & Verify
+        assertEquals(3, new TextEdit(2, 5, "").length());
+        assertEquals(0, new TextEdit(2, 2, "x").length());
+    }
+}
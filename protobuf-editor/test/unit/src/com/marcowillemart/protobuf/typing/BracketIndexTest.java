@@ -0,0 +1,228 @@
+package com.marcowillemart.protobuf.typing;
+
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the BracketIndex class.
+ *
+ * @author mwi
+ */
+public class BracketIndexTest {
+
+    private static final int[] TYPES = {
+        ProtobufLexer.LBRACE, ProtobufLexer.RBRACE,
+        ProtobufLexer.LPAREN, ProtobufLexer.RPAREN,
+        ProtobufLexer.LBRACK, ProtobufLexer.RBRACK,
+        ProtobufLexer.LCHEVR, ProtobufLexer.RCHEVR
+    };
+
+    @Test
+    public void testClosesUnmatched() {
+        // Setup
+        String text = "message A { int32 x = 1; } }\nmessage B {}";
+        BracketIndex target = indexOf(text);
+        int inA = text.indexOf("int32");
+        int inB = text.indexOf("}", text.indexOf("B"));
+
+        // Exercise & Verify
+        assertTrue(target.closesUnmatched(ProtobufLexer.LBRACE, inA));
+        assertTrue(target.closesUnmatched(ProtobufLexer.LBRACE, 0));
+        assertFalse(target.closesUnmatched(ProtobufLexer.LBRACE, inB));
+        assertFalse(target.closesUnmatched(ProtobufLexer.LPAREN, inA));
+    }
+
+    @Test
+    public void testClosesUnmatched_balanced() {
+        // Setup
+        String text = "rpc Get(A) returns (A) { option (x) = 1; }";
+        BracketIndex target = indexOf(text);
+
+        // Exercise & Verify
+        for (int offset = 0; offset <= text.length(); offset++) {
+            assertFalse(target.closesUnmatched(ProtobufLexer.LPAREN, offset));
+            assertFalse(target.closesUnmatched(ProtobufLexer.LBRACE, offset));
+        }
+    }
+
+    @Test
+    public void testPairs() {
+        // Setup
+        String text = "message A { map<string, B> m = 1 [(x) = \"]\"]; }";
+        BracketIndex target = indexOf(text);
+
+        // Exercise & Verify
+        assertTrue(target.pairs(text.indexOf('{'), text.indexOf('}')));
+        assertTrue(target.pairs(text.indexOf('<'), text.indexOf('>')));
+        assertTrue(target.pairs(text.indexOf('['), text.indexOf("];")));
+        assertFalse(target.pairs(text.indexOf('['), text.indexOf("]\"")));
+        assertFalse(target.pairs(text.indexOf('{'), text.indexOf('>')));
+        assertFalse(target.pairs(text.indexOf('('), text.indexOf("];")));
+    }
+
+    @Test
+    public void testRemoveAndInsert() {
+        // Setup
+        String text = "message A { int32 x = 1 [(y) = 2]; }";
+        BracketIndex target = indexOf(text);
+        int bracket = text.indexOf('[');
+
+        // Exercise
+        target.remove(bracket, text.indexOf(';'));
+        target.insert(0, 3);
+
+        // Verify
+        assertEquals(2, target.size());
+        assertEquals(ProtobufLexer.LBRACE, target.typeAt(3 + 10));
+        assertEquals(ProtobufLexer.RBRACE, target.typeAt(3 + bracket + 2));
+        assertEquals(-1, target.typeAt(3 + bracket));
+    }
+
+    @Test
+    public void testSameAsNaive() {
+        // Setup
+        Random random = new Random(42);
+        BracketIndex target = new BracketIndex();
+        TreeMap<Integer, Integer> brackets = new TreeMap<>();
+        int length = 200;
+
+        for (int step = 0; step < 2000; step++) {
+            // Exercise
+            int offset = random.nextInt(length);
+
+            switch (length > 100 ? random.nextInt(3) : 2) {
+                case 0:
+                    if (!brackets.containsKey(offset)) {
+                        int type = TYPES[random.nextInt(TYPES.length)];
+                        target.add(type, offset);
+                        brackets.put(offset, type);
+                    }
+                    break;
+                case 1:
+                    int end = Math.min(length, offset + random.nextInt(5));
+                    target.remove(offset, end);
+                    brackets = removed(brackets, offset, end);
+                    length -= end - offset;
+                    break;
+                default:
+                    int inserted = random.nextInt(5);
+                    target.insert(offset, inserted);
+                    brackets = inserted(brackets, offset, inserted);
+                    length += inserted;
+                    break;
+            }
+
+            // Verify
+            assertEquals(brackets.size(), target.size());
+
+            int probe = random.nextInt(length);
+            int type = TYPES[random.nextInt(TYPES.length)];
+
+            assertEquals(
+                    closesUnmatched(brackets, type, probe),
+                    target.closesUnmatched(type, probe));
+
+            for (Map.Entry<Integer, Integer> entry : brackets.entrySet()) {
+                assertEquals((int) entry.getValue(),
+                        target.typeAt(entry.getKey()));
+            }
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return an index of the brackets of text
+     */
+    private static BracketIndex indexOf(String text) {
+        BracketIndex index = new BracketIndex();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            index.add(token.getType(), token.getStartIndex());
+        }
+
+        return index;
+    }
+
+    /**
+     * @return brackets without the ones at [start..end[, the ones after them
+     *         being shifted by start - end
+     */
+    private static TreeMap<Integer, Integer> removed(
+            TreeMap<Integer, Integer> brackets,
+            int start,
+            int end) {
+
+        TreeMap<Integer, Integer> result = new TreeMap<>();
+
+        for (Map.Entry<Integer, Integer> entry : brackets.entrySet()) {
+            int offset = entry.getKey();
+
+            if (offset < start) {
+                result.put(offset, entry.getValue());
+            } else if (offset >= end) {
+                result.put(offset - end + start, entry.getValue());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return brackets where the ones at or after offset are shifted by
+     *         length
+     */
+    private static TreeMap<Integer, Integer> inserted(
+            TreeMap<Integer, Integer> brackets,
+            int offset,
+            int length) {
+
+        TreeMap<Integer, Integer> result = new TreeMap<>();
+
+        for (Map.Entry<Integer, Integer> entry : brackets.entrySet()) {
+            int key = entry.getKey();
+            result.put(key < offset ? key : key + length, entry.getValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return true iff one of brackets is a closing bracket of the kind of
+     *         type, after offset and unmatched
+     */
+    private static boolean closesUnmatched(
+            TreeMap<Integer, Integer> brackets,
+            int type,
+            int offset) {
+
+        int opening = type % 2 == 0 ? type : type - 1;
+        int depth = 0;
+
+        for (Map.Entry<Integer, Integer> entry : brackets.entrySet()) {
+            if (entry.getValue() == opening) {
+                depth++;
+            } else if (entry.getValue() == opening + 1) {
+                if (depth == 0 && entry.getKey() >= offset) {
+                    return true;
+                }
+
+                depth = Math.max(0, depth - 1);
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.marcowillemart.protobuf.typing;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TokenRegions class.
+ *
+ * @author mwi
+ */
+public class TokenRegionsTest {
+
+    private static final String TEXT =
+            "message A { // c\n    string s = 1 [default = \"x\"];\n}\n";
+
+    @Test
+    public void testRegionAt() {
+        // Setup
+        TokenRegions target = TypingDocumentTest.regionsOf(TEXT);
+        int comment = TEXT.indexOf("//");
+        int string = TEXT.indexOf("\"x");
+
+        // Exercise & Verify
+        assertEquals(0, target.regionAt(comment));
+        assertEquals(TokenRegions.LINE_COMMENT, target.kind(0));
+        assertEquals(1, target.regionAt(string + 2));
+        assertEquals(TokenRegions.STRING, target.kind(1));
+        assertEquals(-1, target.regionAt(string + 3));
+        assertEquals(1, target.regionBefore(string + 3));
+        assertEquals(-1, target.regionBefore(string));
+    }
+
+    @Test
+    public void testEdit() {
+        // Setup
+        TokenRegions target = TypingDocumentTest.regionsOf(TEXT);
+        int comment = TEXT.indexOf("//");
+        int string = TEXT.indexOf("\"x");
+
+        // Exercise
+        target.edit(string + 2, 0, 2);
+
+        // Verify
+        assertFalse(target.isExact());
+        assertEquals(comment, target.start(0));
+        assertEquals(comment + 4, target.end(0));
+        assertEquals(string, target.start(1));
+        assertEquals(string + 5, target.end(1));
+
+        // Exercise
+        target.edit(comment + 3, 1, 0);
+
+        // Verify
+        assertEquals(TEXT.length() + 1, target.length());
+        assertEquals(comment, target.start(0));
+        assertEquals(string + 3, target.end(0));
+        assertEquals(string + 4, target.end(1));
+    }
+
+    @Test
+    public void testRelex() {
+        // Setup
+        int offset = TEXT.indexOf("1 [");
+        String text = TEXT.substring(0, offset) + "\"/*\" "
+                + TEXT.substring(offset);
+        TokenRegions target = TypingDocumentTest.regionsOf(TEXT);
+        target.edit(offset, 0, 5);
+
+        // Exercise
+        target.relex(text);
+
+        // Verify
+        assertTrue(target.isExact());
+        assertEquals(text.length(), target.length());
+        assertEquals(1, target.regionAt(offset));
+        assertEquals(TokenRegions.STRING, target.kind(1));
+        assertEquals(offset, target.start(1));
+        assertEquals(offset + 4, target.end(1));
+        assertEquals(text.indexOf("\"x"), target.start(2));
+    }
+
+    @Test
+    public void testRelex_blockComment() {
+        // Setup
+        String text = "message A {\n    int32 x = 1;\n}\n";
+        int offset = text.indexOf("int32");
+        String typed = text.substring(0, offset) + "/*"
+                + text.substring(offset);
+        TokenRegions target = TypingDocumentTest.regionsOf(text);
+        target.edit(offset, 0, 2);
+
+        // Exercise
+        target.relex(typed);
+
+        // Verify
+        assertEquals(0, target.regionAt(offset));
+        assertEquals(TokenRegions.BLOCK_COMMENT, target.kind(0));
+        assertEquals(typed.length(), target.end(0));
+    }
+
+    @Test
+    public void testRelex_scattered() {
+        // Setup
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < 40; i++) {
+            text.append("int32 f").append(i).append(" = ").append(i + 1)
+                    .append("; // c\n");
+        }
+
+        TokenRegions target = TypingDocumentTest.regionsOf(text.toString());
+        int[] lines = {30, 2, 38, 0, 17, 17, 39, 5};
+        String[] typed = {"\"a\" ", "'", " /* b */", "// d ", "\"\" ''",
+            "x", "/**/", " "};
+
+        for (int i = 0; i < lines.length; i++) {
+            int offset = lineOffset(text, lines[i]) + 2;
+
+            text.insert(offset, typed[i]);
+            target.edit(offset, 0, typed[i].length());
+
+            // Exercise
+            target.relex(text);
+
+            // Verify
+            assertRegions(
+                    TypingDocumentTest.regionsOf(text.toString()), target);
+        }
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return the offset of the start of the given line of text
+     */
+    private static int lineOffset(CharSequence text, int line) {
+        int offset = 0;
+
+        for (int i = 0; i < line; i++) {
+            while (text.charAt(offset) != '\n') {
+                offset++;
+            }
+            offset++;
+        }
+
+        return offset;
+    }
+
+    /**
+     * @effects Asserts that actual has the regions of expected.
+     */
+    private static void assertRegions(
+            TokenRegions expected,
+            TokenRegions actual) {
+
+        assertEquals(expected.length(), actual.length());
+
+        for (int offset = 0; offset < expected.length(); offset++) {
+            int index = expected.regionAt(offset);
+
+            assertEquals(index, actual.regionAt(offset));
+
+            if (index >= 0) {
+                assertEquals(expected.start(index), actual.start(index));
+                assertEquals(expected.end(index), actual.end(index));
+                assertEquals(expected.kind(index), actual.kind(index));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.marcowillemart.protobuf.typing;
+
+import com.marcowillemart.common.lang.CharTyping;
+import com.marcowillemart.common.lang.Document;
+import com.marcowillemart.protobuf.ProtobufDocument;
+import com.marcowillemart.protobuf.parser.ProtobufLexer;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Token;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Unit tests for the TypingDocument class.
+ *
+ * @author mwi
+ */
+public class TypingDocumentTest {
+
+    private static final String[] TEXTS = {
+        "",
+        "message A { string s = 1 [default = \"a{b\"]; } // c\n",
+        "syntax = \"proto3;\nmessage A {}\n",
+        "/**\n * Doc.\n */\nmessage A {\n    /* x */ int32 y = 1;\n}",
+        "message A {\n    /*\n     * Open.\n",
+        "/* a /* b */\nenum E { X = 0; } // end",
+        "option o = 'x\\'y';\n//\n/**/\n\"\"",
+    };
+
+    @Test
+    public void testSameAsProtobufDocument() {
+        for (String text : TEXTS) {
+            // Setup
+            Document expected = new ProtobufDocument(text);
+
+            // Exercise
+            Document target = new TypingDocument(text, regionsOf(text));
+
+            // Verify
+            for (int offset = 0; offset <= text.length(); offset++) {
+                String message = text + " @ " + offset;
+
+                assertEquals(message,
+                        expected.isInString(offset),
+                        target.isInString(offset));
+                assertEquals(message,
+                        expected.isInComment(offset),
+                        target.isInComment(offset));
+                assertEquals(message,
+                        expected.shouldCloseBlockComment(offset),
+                        target.shouldCloseBlockComment(offset));
+                assertEquals(message,
+                        expected.shouldAddLineToBlockComment(offset),
+                        target.shouldAddLineToBlockComment(offset));
+                assertEquals(message,
+                        expected.lineAt(offset),
+                        target.lineAt(offset));
+                assertEquals(message,
+                        expected.lineAt(offset).indentation(),
+                        ((TypingDocument) target).indentationAt(offset));
+            }
+        }
+    }
+
+    @Test
+    public void testPatched() {
+        // Setup
+        String before = "message A { string s = 1 [default = \"ab\"]; }";
+        int offset = before.indexOf("b\"");
+        String after = before.substring(0, offset) + "xyz"
+                + before.substring(offset);
+
+        TokenRegions regions = regionsOf(before);
+        regions.edit(offset, 0, 3);
+
+        // Exercise
+        Document target = new TypingDocument(after, regions);
+
+        // Verify
+        assertTrue(target.isInString(offset + 3));
+        assertTrue(target.isInString(after.indexOf("\"]")));
+        assertFalse(target.isInString(after.indexOf("]")));
+        assertFalse(target.isInString(after.indexOf("\"a")));
+    }
+
+    @Test
+    public void testTyping_noRefresh() {
+        // Setup
+        String text = "message A {\n"
+                + "    string s = 1 [json_name = ];\n"
+                + "    int32 t = 2;\n"
+                + "}\n";
+        String[] sequences = {
+            "\"a{b\"",
+            "'(x'",
+            "\"\" // {",
+            "\"/* [\" /* ( */",
+        };
+
+        for (String typed : sequences) {
+            int offset = text.indexOf("];");
+
+            // Exercise
+            String expected = type(text, offset, typed, false);
+            String result = type(text, offset, typed, true);
+
+            // Verify
+            assertEquals(typed, expected, result);
+        }
+
+        assertEquals(text.replace("= ]", "= \"a{b\"]"),
+                type(text, text.indexOf("];"), sequences[0], true));
+    }
+
+    ////////////////////
+    // HELPER METHODS
+    ////////////////////
+
+    /**
+     * @return text where typed is typed at offset, one char after the other,
+     *         each typed char being completed or skipped as told by a
+     *         TypingDocument whose regions are only patched and relexed if
+     *         patched, or by a ProtobufDocument otherwise
+     */
+    private static String type(
+            String text,
+            int offset,
+            String typed,
+            boolean patched) {
+
+        TokenRegions regions = regionsOf(text);
+        String result = text;
+        int caret = offset;
+
+        for (int i = 0; i < typed.length(); i++) {
+            Document document;
+
+            if (patched) {
+                document = new TypingDocument(result, regions);
+            } else {
+                document = new ProtobufDocument(result);
+            }
+
+            char c = typed.charAt(i);
+            CharTyping typing = new CharTyping(document, caret, c);
+
+            switch (c) {
+                case '(':
+                case '{':
+                case '[':
+                    typing.completeOpeningChar();
+                    break;
+                case ')':
+                case '}':
+                case ']':
+                    typing.skipClosingChar();
+                    break;
+                case '"':
+                case '\'':
+                    typing.completeQuote();
+                    break;
+                default:
+                    break;
+            }
+
+            String inserted = typing.insertionText();
+
+            result = result.substring(0, caret) + inserted
+                    + result.substring(caret);
+            regions.edit(caret, 0, inserted.length());
+            caret = typing.insertionOffset();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the regions of text
+     */
+    static TokenRegions regionsOf(String text) {
+        TokenRegions.Builder builder = new TokenRegions.Builder();
+        ProtobufLexer lexer = new ProtobufLexer(new ANTLRInputStream(text));
+
+        for (Token token = lexer.nextToken();
+                token.getType() != Token.EOF;
+                token = lexer.nextToken()) {
+
+            builder.token(
+                    token.getType(),
+                    token.getStartIndex(),
+                    token.getStopIndex() + 1,
+                    token.getText());
+        }
+
+        return builder.build(text.length());
+    }
+}